@@ -1,23 +1,83 @@
 package io.github.chains_project.aotp;
 
+import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.io.RandomAccessFile;
-import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
+import io.github.chains_project.aotp.analysis.ClassLoadLog;
+import io.github.chains_project.aotp.analysis.ClassTable;
+import io.github.chains_project.aotp.analysis.ClassTableFile;
+import io.github.chains_project.aotp.analysis.ConfigurationAnalyzer;
+import io.github.chains_project.aotp.analysis.ConfigurationReport;
+import io.github.chains_project.aotp.analysis.ConfiguredClass;
+import io.github.chains_project.aotp.analysis.DedupAnalyzer;
+import io.github.chains_project.aotp.analysis.DedupReport;
+import io.github.chains_project.aotp.analysis.FootprintAnalyzer;
+import io.github.chains_project.aotp.analysis.FootprintReport;
+import io.github.chains_project.aotp.analysis.HitRateAnalyzer;
+import io.github.chains_project.aotp.analysis.HitRateReport;
+import io.github.chains_project.aotp.analysis.KlassRanges;
+import io.github.chains_project.aotp.analysis.PageLayoutAnalyzer;
+import io.github.chains_project.aotp.analysis.PageLayoutReport;
+import io.github.chains_project.aotp.analysis.Referrer;
+import io.github.chains_project.aotp.analysis.ReferrerIndex;
+import io.github.chains_project.aotp.analysis.RelocationEstimator;
+import io.github.chains_project.aotp.analysis.RelocationReport;
+import io.github.chains_project.aotp.analysis.SampleAnalyzer;
+import io.github.chains_project.aotp.analysis.SampleReport;
+import io.github.chains_project.aotp.archive.AotArchive;
+import io.github.chains_project.aotp.archive.FileMapping;
+import io.github.chains_project.aotp.archive.ArchiveCache;
+import io.github.chains_project.aotp.archive.LayeredArchive;
+import io.github.chains_project.aotp.classfile.SymbolInfo;
+import io.github.chains_project.aotp.classfile.SymbolTable;
 import io.github.chains_project.aotp.header.CDSFileMapRegion;
 import io.github.chains_project.aotp.header.FileMapHeader;
 import io.github.chains_project.aotp.header.GenericHeader;
-import io.github.chains_project.aotp.header.RegionData;
+import io.github.chains_project.aotp.metrics.Phase;
+import io.github.chains_project.aotp.metrics.PhaseTimer;
+import io.github.chains_project.aotp.metrics.ScanRecorder;
 import io.github.chains_project.aotp.oops.klass.ClassEntry;
 import io.github.chains_project.aotp.oops.klass.InstanceClass;
+import io.github.chains_project.aotp.oops.klass.KlassKind;
+import io.github.chains_project.aotp.output.RecordWriter;
+import io.github.chains_project.aotp.scan.ClassFilter;
+import io.github.chains_project.aotp.scan.ClonedVtables;
+import io.github.chains_project.aotp.scan.KlassScanner;
+import io.github.chains_project.aotp.scan.MemoryBudget;
+import io.github.chains_project.aotp.scan.PointerScan;
+import io.github.chains_project.aotp.scan.RecordSink;
+import io.github.chains_project.aotp.scan.SampledScan;
+import io.github.chains_project.aotp.scan.SymbolPageCache;
+import io.github.chains_project.aotp.scan.SymbolSource;
+import io.github.chains_project.aotp.scan.WindowedScan;
 import io.github.chains_project.aotp.utils.ByteReader;
 import io.github.chains_project.aotp.utils.LittleEndianRandomAccessFile;
+import io.github.chains_project.aotp.utils.LongHashSet;
+import io.github.chains_project.aotp.verify.CrcCheck;
+import io.github.chains_project.aotp.verify.CrcVerifier;
+import io.github.chains_project.aotp.verify.VerificationReport;
 
 /**
  * Programmatic API for reading AOT cache files. Use this from code or unit tests
@@ -31,81 +91,129 @@ public final class AotpApi {
 
     private static final int AOTCONFIG_MAGIC = 0xcafea07c;
 
+    private static final int DYNAMIC_MAGIC = LayeredArchive.DYNAMIC_MAGIC;
+
+    private static final BooleanSupplier NOT_CANCELLED = () -> false;
+
+    // Opt-in cache of parsed archives, see enableArchiveCache
+    private static volatile ArchiveCache archiveCache;
+
+    // Index of the bitmap region ("bm") that holds the pointer maps
+    private static final int BITMAP_REGION = 2;
+
     private AotpApi() {}
 
-    private static List<Long> getPatternsForClasses(long baseAddress) {
-        return List.of(
-            baseAddress + 0x0000000000001080L, // Instance classes
-            baseAddress + 0x00000000000018f0L, // Array classes
-            baseAddress + 0x0000000000001a60L, // Array classes with primitive type
-            baseAddress + 0x0000000000001350L, // java.lang.Class
-            baseAddress + 0x0000000000001620L, // jdk.internal.vm.StackChunk
-            baseAddress + 0x00000000000014b8L, // References
-            baseAddress + 0x00000000000011e8L // Classloader
-        );
+    /**
+     * Creates the scanner for one scan; the loaders supply what depends on the
+     * archive layout, the caller decides what happens with the classes.
+     */
+    @FunctionalInterface
+    private interface ScannerFactory {
+        KlassScanner create(ClonedVtables vtables, SymbolSource symbols, ScanRecorder recorder);
     }
 
-    private static List<ClassEntry> loadClasses(LittleEndianRandomAccessFile file,
-            RegionData rwRegionData,
-            long requestedBaseAddress) throws IOException {
-        byte[] bytes = rwRegionData.bytes();
-        if (bytes.length == 0) {
-            return List.of();
+    /**
+     * Reads the RW region of a static archive through a window and resolves
+     * symbols through a page cache, both sized by {@code budget}.
+     */
+    private static void loadClassesWindowed(RandomAccessFile raf,
+            CDSFileMapRegion[] regions,
+            long requestedBaseAddress,
+            ClonedVtables vtables,
+            MemoryBudget budget,
+            ScannerFactory scanners) throws IOException {
+        FileChannel channel = raf.getChannel();
+        CDSFileMapRegion rwRegion = regions[0];
+        long start = rwRegion.fileOffset();
+        if (start < 0 || start >= channel.size()) {
+            return;
         }
+        long length = Math.min(rwRegion.used(), channel.size() - start);
 
-        List<Long> patterns = getPatternsForClasses(requestedBaseAddress);
-        List<ClassEntry> entries = new ArrayList<>();
-        final int len = bytes.length;
-
-        for (int offset = 0; offset + 8 <= len; offset += 8) {
-            long value = ByteReader.readLongLE(bytes, offset);
-            if (!patterns.contains(value)) {
-                continue;
-            }
-            int entryStart = offset;
-            InstanceClass parsed = InstanceClass.parse(bytes, entryStart);
-            String className = readSymbolName(file, parsed.namePointer(), requestedBaseAddress);
-            if (className != null) {
-                parsed.setName(className);
-                entries.add(parsed);
+        PhaseTimer.run(Phase.SCAN, null, () -> {
+            try (ScanRecorder recorder = ScanRecorder.start(null)) {
+                SymbolPageCache symbols = new SymbolPageCache(channel, requestedBaseAddress, regions,
+                        budget.pageSize(), budget.maxPages());
+                KlassScanner scanner = scanners.create(vtables, symbols, recorder);
+                WindowedScan.scan(channel, start, requestedBaseAddress + rwRegion.mappingOffset(), length,
+                        windowSize(budget, vtables), scanner);
             }
+        });
+    }
+
+    /**
+     * Scans the RW region of the top layer of {@code layered}, a static archive
+     * or a dynamic one. Klass vtables and many symbols of a dynamic archive live
+     * in the base layer, so the vtables are located in the base and symbols are
+     * resolved through the layered address space. The region is copied from the
+     * archive's {@link FileMapping} window by window.
+     */
+    private static void loadClassesLayered(LayeredArchive layered,
+            MemoryBudget budget,
+            ScannerFactory scanners) throws IOException {
+        AotArchive top = layered.top();
+        CDSFileMapRegion rwRegion = top.regions()[0];
+        FileChannel channel = top.channel();
+        long start = rwRegion.fileOffset();
+        if (start < 0 || start >= channel.size() || rwRegion.used() == 0) {
+            return;
         }
+        long length = Math.min(rwRegion.used(), channel.size() - start);
 
-        return entries;
+        PhaseTimer.run(Phase.SCAN, null, () -> {
+            try (ScanRecorder recorder = ScanRecorder.start(null)) {
+                ClonedVtables vtables = ClonedVtables.locate(layered.isLayered() ? layered.base() : top, top, budget);
+                KlassScanner scanner = scanners.create(vtables, layered, recorder);
+                // Unbounded, the whole region and the zeroed word after it fit in one window
+                int windowSize = budget.isBounded()
+                        ? windowSize(budget, vtables)
+                        : (int) Math.min(((length + 7) & ~7L) + 8, Integer.MAX_VALUE - 16);
+                FileMapping rw = top.mapping(0);
+                if (rw != null) {
+                    WindowedScan.scan(rw, top.regionStart(0), windowSize, scanner);
+                } else {
+                    WindowedScan.scan(channel, start, top.regionStart(0), length, windowSize, scanner);
+                }
+            }
+        });
     }
 
     /**
-     * Reads a symbol name from the ro region using an absolute address.
-     * Symbol format: hash_and_refcount (4 bytes), length (2 bytes), body[length] (UTF-8)
+     * The window of a bounded scan, less the pointer slots held by {@code vtables}.
      */
-    private static String readSymbolName(LittleEndianRandomAccessFile file,
-            long symbolAbsoluteAddress, long requestedBaseAddress) throws IOException {
-        long symbolOffset = symbolAbsoluteAddress - requestedBaseAddress;
+    private static int windowSize(MemoryBudget budget, ClonedVtables vtables) {
+        return (int) (budget.windowSize() - vtables.slotBytes());
+    }
 
-        if (symbolOffset < 0 || symbolOffset >= file.length()) {
-            return null;
-        }
+    private record Headers(GenericHeader genericHeader, CDSFileMapRegion[] regions, FileMapHeader fileMapHeader) {}
 
-        long currentPos = file.getFilePointer();
-        try {
-            file.seek(symbolOffset);
-            file.skipBytes(4);
-            int length = file.readShort() & 0xFFFF;
-            if (length < 0 || length > 65535) {
-                return null;
-            }
-            byte[] nameBytes = new byte[length];
-            file.readFully(nameBytes);
-            return new String(nameBytes, StandardCharsets.UTF_8);
-        } finally {
-            file.seek(currentPos);
+    /**
+     * Reads the generic header, the region table and the file map header as one
+     * {@link Phase#HEADER} phase.
+     */
+    private static Headers readHeaders(LittleEndianRandomAccessFile file) throws IOException {
+        return PhaseTimer.time(Phase.HEADER, file, () -> {
+            GenericHeader genericHeader = new GenericHeader(file);
+            CDSFileMapRegion[] regions = readRegions(file);
+            FileMapHeader fileMapHeader = new FileMapHeader(file);
+            return new Headers(genericHeader, regions, fileMapHeader);
+        });
+    }
+
+    private static CDSFileMapRegion[] readRegions(LittleEndianRandomAccessFile file) throws IOException {
+        CDSFileMapRegion[] regions = new CDSFileMapRegion[5];
+        for (int i = 0; i < 5; i++) {
+            regions[i] = new CDSFileMapRegion(file);
         }
+        return regions;
     }
 
     private static void validateMagic(GenericHeader genericHeader) throws IOException {
-        if (genericHeader.magic() != AOT_MAGIC && genericHeader.magic() != AOTCONFIG_MAGIC) {
-            String actualMagic = String.format("%08x", genericHeader.magic());
-            throw new IOException("I can only parse AOTCache and AOTConfiguration files (actual: " + actualMagic + ")");
+        int magic = genericHeader.magic();
+        if (magic != AOT_MAGIC && magic != AOTCONFIG_MAGIC && magic != DYNAMIC_MAGIC) {
+            String actualMagic = String.format("%08x", magic);
+            throw new IOException("I can only parse AOTCache, dynamic CDS and AOTConfiguration files (actual: "
+                    + actualMagic + ")");
         }
     }
 
@@ -119,14 +227,54 @@ public final class AotpApi {
     public static void printHeader(String filePath, Appendable out) throws IOException {
         try (RandomAccessFile raf = new RandomAccessFile(filePath, "r")) {
             LittleEndianRandomAccessFile file = new LittleEndianRandomAccessFile(raf);
-            GenericHeader genericHeader = new GenericHeader(file);
-            CDSFileMapRegion[] regions = new CDSFileMapRegion[5];
-            for (int i = 0; i < 5; i++) {
-                regions[i] = new CDSFileMapRegion(file);
+            Headers headers = readHeaders(file);
+            validateMagic(headers.genericHeader());
+            FileMapHeader.print(headers.genericHeader(), headers.regions(), headers.fileMapHeader(), out);
+        } catch (EOFException e) {
+            throw new IOException("Invalid AOTCache file: file too short", e);
+        }
+    }
+
+    /**
+     * Writes the file map header as records ({@code generic_header}, {@code region}
+     * and {@code file_map_header}) to the given writer.
+     *
+     * @param filePath path to the AOT cache file
+     * @param out      where to write the header records
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static void writeHeader(String filePath, RecordWriter out) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(filePath, "r")) {
+            LittleEndianRandomAccessFile file = new LittleEndianRandomAccessFile(raf);
+            Headers headers = readHeaders(file);
+            validateMagic(headers.genericHeader());
+            FileMapHeader.write(headers.genericHeader(), headers.regions(), headers.fileMapHeader(), out);
+        } catch (EOFException e) {
+            throw new IOException("Invalid AOTCache file: file too short", e);
+        }
+    }
+
+    /**
+     * Recomputes the header and region CRCs and compares them with the values
+     * recorded in the file. Regions are checksummed in parallel over memory-mapped
+     * chunks.
+     *
+     * @param filePath path to the AOT cache file
+     * @return one check for the header and one per non-empty region
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static VerificationReport verify(String filePath) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(filePath, "r")) {
+            LittleEndianRandomAccessFile file = new LittleEndianRandomAccessFile(raf);
+            Headers headers = readHeaders(file);
+            validateMagic(headers.genericHeader());
+            try (PhaseTimer timer = PhaseTimer.start(Phase.VERIFY, file)) {
+                VerificationReport report = CrcVerifier.verify(raf.getChannel(), headers.genericHeader(), headers.regions());
+                for (CrcCheck check : report.checks()) {
+                    timer.addBytesRead(check.length());
+                }
+                return report;
             }
-            FileMapHeader fileMapHeader = new FileMapHeader(file);
-            validateMagic(genericHeader);
-            FileMapHeader.print(genericHeader, regions, fileMapHeader, out);
         } catch (EOFException e) {
             throw new IOException("Invalid AOTCache file: file too short", e);
         }
@@ -151,21 +299,720 @@ public final class AotpApi {
      * @throws IOException if the file cannot be read or is invalid
      */
     public static List<ClassEntry> listClasses(String filePath) throws IOException {
+        return listClasses(filePath, ClassFilter.all());
+    }
+
+    /**
+     * Turns on an in-process cache of parsed archives. While it is on, every
+     * query that enumerates or finds classes by path ({@code listClasses},
+     * {@code forEachClass}, {@code getClassSizes}, {@code findClass},
+     * {@code printClass} and the analyses built on them) parses each archive
+     * once and answers from memory afterwards; {@link MemoryBudget}s are then
+     * ignored. A file that changes on disk is parsed again, see
+     * {@link ArchiveCache}. Enabling again replaces the cache.
+     *
+     * @param maxEntries most archives kept (a dynamic archive and its base count as two)
+     * @param maxBytes   most estimated heap bytes kept
+     */
+    public static void enableArchiveCache(int maxEntries, long maxBytes) {
+        archiveCache = new ArchiveCache(maxEntries, maxBytes);
+    }
+
+    /**
+     * Turns the archive cache off and drops its entries.
+     */
+    public static void disableArchiveCache() {
+        ArchiveCache cache = archiveCache;
+        archiveCache = null;
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters of the archive cache, or null if it is off.
+     */
+    public static ArchiveCache.Stats archiveCacheStats() {
+        ArchiveCache cache = archiveCache;
+        return cache == null ? null : cache.stats();
+    }
+
+    private static ArchiveCache.Entry cachedArchive(ArchiveCache cache, String filePath, String baseArchivePath)
+            throws IOException {
+        return cache.get(filePath, baseArchivePath, () -> {
+            String basePath;
+            try (LayeredArchive archive = openLayered(filePath, baseArchivePath)) {
+                basePath = archive.isLayered() ? archive.base().path() : null;
+            }
+            List<ClassEntry> classes = new ArrayList<>();
+            scan(filePath, baseArchivePath, MemoryBudget.unbounded(),
+                    (vtables, symbols, recorder) -> new KlassScanner(vtables, ClassFilter.all(), symbols,
+                            recorder, classes::add, NOT_CANCELLED));
+            return new ArchiveCache.Parsed(classes, basePath);
+        });
+    }
+
+    /**
+     * Finds a class in the cached top layer, then in the cached base layer.
+     */
+    private static ClassEntry findCachedClass(ArchiveCache cache, String filePath, String baseArchivePath,
+                                              String className) throws IOException {
+        ArchiveCache.Entry top = cachedArchive(cache, filePath, baseArchivePath);
+        ClassEntry entry = top.find(className);
+        if (entry == null && top.basePath() != null) {
+            entry = cachedArchive(cache, top.basePath(), null).find(className);
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the classes found in the RW region that match {@code filter}.
+     * The filter is evaluated on raw record words and symbol bytes before a
+     * class is parsed, so selective filters are proportionally cheaper.
+     *
+     * @param filePath path to the AOT cache file
+     * @param filter   which classes to return
+     * @return list of matching ClassEntry (never null)
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static List<ClassEntry> listClasses(String filePath, ClassFilter filter) throws IOException {
+        return listClasses(filePath, filter, MemoryBudget.unbounded());
+    }
+
+    /**
+     * Like {@link #listClasses(String, ClassFilter)}, scanning within {@code budget}.
+     * The returned list itself is not part of the budget.
+     */
+    public static List<ClassEntry> listClasses(String filePath, ClassFilter filter, MemoryBudget budget)
+            throws IOException {
+        List<ClassEntry> entries = new ArrayList<>();
+        forEachClass(filePath, filter, budget, entries::add);
+        return entries;
+    }
+
+    /**
+     * Scans the RW region into a columnar {@link ClassTable}. Matching records
+     * are copied into the columns as they are found, without being parsed into
+     * {@link ClassEntry} objects.
+     *
+     * @param filePath path to the AOT cache file
+     * @param filter   which classes to include
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static ClassTable loadClassTable(String filePath, ClassFilter filter) throws IOException {
+        return loadClassTable(filePath, null, filter, MemoryBudget.unbounded());
+    }
+
+    /**
+     * Like {@link #loadClassTable(String, ClassFilter)}, scanning within
+     * {@code budget}; for a dynamic archive only the top layer is scanned and
+     * name offsets are relative to the base archive's address.
+     *
+     * {@code filePath} may also be a table saved with {@link #exportClassTable};
+     * it is then read back instead of scanned and {@code filter} is applied to
+     * its rows.
+     */
+    public static ClassTable loadClassTable(String filePath, String baseArchivePath, ClassFilter filter,
+                                            MemoryBudget budget) throws IOException {
+        if (ClassTableFile.isTableFile(Path.of(filePath))) {
+            ClassTable table = PhaseTimer.time(Phase.REGION_LOAD, null, () -> ClassTableFile.read(Path.of(filePath)));
+            return filter.isSelective() ? table.select(table.filter(table.all(), filter)) : table;
+        }
+        ClassTable.Builder[] builder = new ClassTable.Builder[1];
+        scan(filePath, baseArchivePath, budget, (vtables, symbols, recorder) -> {
+            builder[0] = new ClassTable.Builder(vtables.requestedBaseAddress());
+            return new KlassScanner(vtables, filter, symbols, recorder, builder[0], NOT_CANCELLED);
+        });
+        return builder[0] == null ? new ClassTable.Builder(0).build() : builder[0].build();
+    }
+
+    /**
+     * Scans the archive into a {@link ClassTable} and saves it in the compact
+     * columnar format of {@link ClassTableFile}, which
+     * {@link #loadClassTable(String, String, ClassFilter, MemoryBudget)} reads back.
+     *
+     * @param deflate compress the columns with {@link java.util.zip.Deflater}
+     * @return the exported table
+     */
+    public static ClassTable exportClassTable(String filePath, String baseArchivePath, ClassFilter filter,
+                                              MemoryBudget budget, Path out, boolean deflate) throws IOException {
+        ClassTable table = loadClassTable(filePath, baseArchivePath, filter, budget);
+        ClassTableFile.write(table, out, deflate);
+        return table;
+    }
+
+    /**
+     * Streams the classes found in the RW region to {@code action} in file order,
+     * without collecting them. Use this for aggregations over large archives.
+     *
+     * @param filePath path to the AOT cache file
+     * @param action   invoked once per class
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static void forEachClass(String filePath, Consumer<? super ClassEntry> action) throws IOException {
+        forEachClass(filePath, ClassFilter.all(), action);
+    }
+
+    /**
+     * Streams the classes found in the RW region that match {@code filter} to
+     * {@code action} in file order.
+     *
+     * @param filePath path to the AOT cache file
+     * @param filter   which classes to visit
+     * @param action   invoked once per matching class
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static void forEachClass(String filePath, ClassFilter filter, Consumer<? super ClassEntry> action)
+            throws IOException {
+        forEachClass(filePath, filter, MemoryBudget.unbounded(), action);
+    }
+
+    /**
+     * Like {@link #forEachClass(String, ClassFilter, Consumer)}, but with a bounded
+     * budget the RW region is scanned through a sliding window and symbols are read
+     * through a small page cache; no region is loaded whole.
+     *
+     * @param budget memory for file data, see {@link MemoryBudget#of(long)}
+     */
+    public static void forEachClass(String filePath, ClassFilter filter, MemoryBudget budget,
+                                    Consumer<? super ClassEntry> action) throws IOException {
+        forEachClass(filePath, null, filter, budget, action);
+    }
+
+    /**
+     * Like {@link #forEachClass(String, ClassFilter, MemoryBudget, Consumer)}. If
+     * the file is a dynamic archive, its classes are scanned with the base archive
+     * mapped beneath it, so names and vtables that live in the base resolve.
+     *
+     * @param baseArchivePath base archive of a dynamic archive, or null for the one
+     *                        it records; ignored for a static archive
+     */
+    public static void forEachClass(String filePath, String baseArchivePath, ClassFilter filter,
+                                    MemoryBudget budget, Consumer<? super ClassEntry> action) throws IOException {
+        forEachClass(filePath, baseArchivePath, filter, budget, NOT_CANCELLED, action);
+    }
+
+    private static void forEachClass(String filePath, String baseArchivePath, ClassFilter filter,
+                                     MemoryBudget budget, BooleanSupplier cancelled,
+                                     Consumer<? super ClassEntry> action) throws IOException {
+        ArchiveCache cache = archiveCache;
+        if (cache != null) {
+            List<ClassEntry> classes = cachedArchive(cache, filePath, baseArchivePath).classes();
+            for (int i = 0; i < classes.size(); i++) {
+                if ((i & 0xFFF) == 0 && cancelled.getAsBoolean()) {
+                    throw new CancellationException("Scan cancelled");
+                }
+                ClassEntry entry = classes.get(i);
+                if (filter.matches(entry)) {
+                    action.accept(entry);
+                }
+            }
+            return;
+        }
+        scan(filePath, baseArchivePath, budget,
+                (vtables, symbols, recorder) ->
+                        new KlassScanner(vtables, filter, symbols, recorder, action, cancelled));
+    }
+
+    private static void scan(String filePath, String baseArchivePath, MemoryBudget budget, ScannerFactory scanners)
+            throws IOException {
+        if (!budget.isBounded()) {
+            try (LayeredArchive layered = openLayered(filePath, baseArchivePath)) {
+                loadClassesLayered(layered, budget, scanners);
+            }
+            return;
+        }
         try (RandomAccessFile raf = new RandomAccessFile(filePath, "r")) {
             LittleEndianRandomAccessFile file = new LittleEndianRandomAccessFile(raf);
-            GenericHeader genericHeader = new GenericHeader(file);
-            CDSFileMapRegion[] regions = new CDSFileMapRegion[5];
-            for (int i = 0; i < 5; i++) {
-                regions[i] = new CDSFileMapRegion(file);
+            Headers headers = readHeaders(file);
+            if (headers.genericHeader().magic() == DYNAMIC_MAGIC) {
+                try (LayeredArchive layered = LayeredArchive.open(filePath, baseArchivePath)) {
+                    loadClassesLayered(layered, budget, scanners);
+                }
+                return;
             }
-            FileMapHeader fileMapHeader = new FileMapHeader(file);
-            RegionData[] regionData = RegionData.loadAll(file, regions);
-            validateMagic(genericHeader);
-            RegionData rwRegionData = regionData[0];
-            if (rwRegionData.bytes().length == 0) {
-                return List.of();
+            validateMagic(headers.genericHeader());
+            loadClassesWindowed(raf, headers.regions(), headers.fileMapHeader().requestedBaseAddress(),
+                    ClonedVtables.locate(headers.fileMapHeader(), headers.regions(), raf.getChannel(), budget),
+                    budget, scanners);
+        } catch (EOFException e) {
+            throw new IOException("Invalid AOTCache file: file too short", e);
+        }
+    }
+
+    /**
+     * Streams one {@code class} record (name, kind, size) per class found in the
+     * RW region to the given writer.
+     *
+     * @param filePath path to the AOT cache file
+     * @param out      where to write the records
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static void writeClasses(String filePath, RecordWriter out) throws IOException {
+        writeClasses(filePath, ClassFilter.all(), out);
+    }
+
+    /**
+     * Like {@link #writeClasses(String, RecordWriter)}, restricted to classes matching {@code filter}.
+     */
+    public static void writeClasses(String filePath, ClassFilter filter, RecordWriter out) throws IOException {
+        writeClasses(filePath, filter, MemoryBudget.unbounded(), out);
+    }
+
+    /**
+     * Like {@link #writeClasses(String, ClassFilter, RecordWriter)}, scanning within {@code budget}.
+     */
+    public static void writeClasses(String filePath, ClassFilter filter, MemoryBudget budget, RecordWriter out)
+            throws IOException {
+        writeClasses(filePath, null, filter, budget, out);
+    }
+
+    /**
+     * Like {@link #writeClasses(String, ClassFilter, MemoryBudget, RecordWriter)}, see
+     * {@link #forEachClass(String, String, ClassFilter, MemoryBudget, Consumer)} for
+     * {@code baseArchivePath}.
+     */
+    public static void writeClasses(String filePath, String baseArchivePath, ClassFilter filter,
+                                    MemoryBudget budget, RecordWriter out) throws IOException {
+        try {
+            forEachClass(filePath, baseArchivePath, filter, budget, entry -> {
+                try {
+                    out.begin("class");
+                    out.field("name", entry.getName());
+                    out.field("kind", KlassKind.of(entry.kind).hotspotName());
+                    out.field("size", entry.getSize());
+                    out.end();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Aggregates the bytes of all classes in the RW region by package, class
+     * loader, klass kind and shared class path index. Classes are folded into
+     * counters as they are scanned, so memory use does not grow with the number
+     * of classes.
+     *
+     * @param filePath path to the AOT cache file
+     * @param topN     number of rows to keep per group
+     * @return the aggregated footprint
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static FootprintReport analyzeFootprint(String filePath, int topN) throws IOException {
+        return analyzeFootprint(filePath, ClassFilter.all(), topN);
+    }
+
+    /**
+     * Like {@link #analyzeFootprint(String, int)}, restricted to classes matching {@code filter}.
+     */
+    public static FootprintReport analyzeFootprint(String filePath, ClassFilter filter, int topN)
+            throws IOException {
+        return analyzeFootprint(filePath, filter, MemoryBudget.unbounded(), topN);
+    }
+
+    /**
+     * Like {@link #analyzeFootprint(String, ClassFilter, int)}, scanning within {@code budget}.
+     */
+    public static FootprintReport analyzeFootprint(String filePath, ClassFilter filter, MemoryBudget budget,
+                                                   int topN) throws IOException {
+        return analyzeFootprint(filePath, null, filter, budget, topN);
+    }
+
+    /**
+     * Like {@link #analyzeFootprint(String, ClassFilter, MemoryBudget, int)}, see
+     * {@link #forEachClass(String, String, ClassFilter, MemoryBudget, Consumer)} for
+     * {@code baseArchivePath}.
+     */
+    public static FootprintReport analyzeFootprint(String filePath, String baseArchivePath, ClassFilter filter,
+                                                   MemoryBudget budget, int topN) throws IOException {
+        FootprintAnalyzer analyzer = new FootprintAnalyzer();
+        forEachClass(filePath, baseArchivePath, filter, budget, analyzer);
+        return analyzer.report(topN);
+    }
+
+    /**
+     * Estimates the class count and bytes by kind and package of
+     * {@link #analyzeFootprint}, and the bytes of the archived symbols, for a
+     * quick look at a large archive. Page-aligned chunks of the rw region and
+     * ranges of SymbolTable buckets are drawn at random, without replacement,
+     * and parsed with the same scanner as the full scan until
+     * {@code timeBudgetMillis} is used up; at least
+     * {@value SampleAnalyzer#MIN_CHUNKS} of each are read so that every
+     * estimate has an interval. If the budget allows reading everything, the
+     * figures are exact.
+     *
+     * @param filePath         path to the AOT cache file
+     * @param baseArchivePath  base archive of a dynamic archive, or null for the recorded one
+     * @param timeBudgetMillis how long to keep drawing chunks
+     * @param chunkSize        bytes per rw chunk, a power of two, usually the page size
+     * @param seed             seed of the random draw
+     * @param topN             number of package rows
+     * @throws IOException if the file cannot be read or is not a valid AOT cache file
+     */
+    public static SampleReport sampleStatistics(String filePath, String baseArchivePath, long timeBudgetMillis,
+                                                int chunkSize, long seed, int topN) throws IOException {
+        if (chunkSize < 8 || Integer.bitCount(chunkSize) != 1) {
+            throw new IllegalArgumentException("Chunk size must be a power of two of at least 8: " + chunkSize);
+        }
+        long start = System.nanoTime();
+        long deadline = start + Math.max(0, timeBudgetMillis) * 1_000_000;
+        try (LayeredArchive layered = openLayered(filePath, baseArchivePath)) {
+            AotArchive top = layered.top();
+            FileMapping rw = top.mapping(0);
+            int[] rwOrder = identity(rw == null ? 0 : (rw.size() + chunkSize - 1) / chunkSize);
+            SymbolTable symbolTable = layered.topTables().symbolTable();
+            int bucketCount = symbolTable == null ? 0 : symbolTable.table().bucketCount();
+            int[] symbolOrder = identity(((long) bucketCount + SampleAnalyzer.SYMBOL_CHUNK_BUCKETS - 1)
+                    / SampleAnalyzer.SYMBOL_CHUNK_BUCKETS);
+            SampleAnalyzer analyzer = new SampleAnalyzer(rwOrder.length, chunkSize, symbolOrder.length,
+                    symbolTable == null ? 0 : symbolTable.table().entryCount());
+            Random random = new Random(seed);
+
+            PhaseTimer.run(Phase.SCAN, null, () -> {
+                try (ScanRecorder recorder = ScanRecorder.start(null)) {
+                    ClonedVtables vtables = ClonedVtables.locate(layered.isLayered() ? layered.base() : top, top);
+                    KlassScanner scanner = new KlassScanner(vtables, ClassFilter.all(), layered, recorder, analyzer,
+                            NOT_CANCELLED);
+                    int rwTaken = 0;
+                    int symbolTaken = 0;
+                    while (rwTaken < rwOrder.length || symbolTaken < symbolOrder.length) {
+                        boolean belowMinimum = rwTaken < Math.min(rwOrder.length, SampleAnalyzer.MIN_CHUNKS)
+                                || symbolTaken < Math.min(symbolOrder.length, SampleAnalyzer.MIN_CHUNKS);
+                        if (!belowMinimum && System.nanoTime() >= deadline) {
+                            break;
+                        }
+                        if (rwTaken < rwOrder.length) {
+                            long chunk = draw(rwOrder, rwTaken++, random);
+                            analyzer.beginChunk();
+                            SampledScan.scanChunk(rw, top.regionStart(0), chunk * chunkSize, chunkSize, scanner);
+                            analyzer.endChunk();
+                        }
+                        if (symbolTaken < symbolOrder.length) {
+                            int from = draw(symbolOrder, symbolTaken++, random) * SampleAnalyzer.SYMBOL_CHUNK_BUCKETS;
+                            int to = Math.min(bucketCount, from + SampleAnalyzer.SYMBOL_CHUNK_BUCKETS);
+                            List<byte[]> bodies = new ArrayList<>();
+                            symbolTable.table().forEach(from, to, (bucket, hash, value) -> {
+                                byte[] body = layered.symbolBytes(value);
+                                if (body != null) {
+                                    bodies.add(body);
+                                }
+                                return true;
+                            });
+                            analyzer.addSymbolChunk(bodies);
+                        }
+                    }
+                }
+            });
+            return analyzer.report(topN, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * {@link #sampleStatistics(String, String, long, int, long, int)} of a static
+     * archive or one with its recorded base, in page-sized chunks with a fresh seed.
+     */
+    public static SampleReport sampleStatistics(String filePath, long timeBudgetMillis, int topN)
+            throws IOException {
+        return sampleStatistics(filePath, null, timeBudgetMillis, SampleAnalyzer.DEFAULT_CHUNK_SIZE,
+                System.nanoTime(), topN);
+    }
+
+    private static int[] identity(long length) {
+        int[] values = new int[Math.toIntExact(length)];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    /**
+     * One step of a Fisher-Yates shuffle: moves a random one of
+     * {@code order[taken..]} to {@code order[taken]} and returns it.
+     */
+    private static int draw(int[] order, int taken, Random random) {
+        int pick = taken + random.nextInt(order.length - taken);
+        int value = order[pick];
+        order[pick] = order[taken];
+        order[taken] = value;
+        return value;
+    }
+
+    /**
+     * Measures how much klass and symbol content a set of archives have in
+     * common, and what a shared base archive would save. Each archive is
+     * scanned once; records are hashed in the scan window without being parsed
+     * or copied, so memory grows with the number of distinct records, not with
+     * the archives.
+     *
+     * @param filePaths the archives to compare, at most 64
+     * @throws IOException if a file cannot be read or is invalid
+     */
+    public static DedupReport analyzeDedup(List<String> filePaths) throws IOException {
+        DedupAnalyzer analyzer = new DedupAnalyzer();
+        for (String filePath : filePaths) {
+            int index = analyzer.beginArchive(filePath);
+            try (LayeredArchive archive = openLayered(filePath, null)) {
+                AotArchive top = archive.top();
+                long base = top.requestedBaseAddress();
+                long end = top.mappedEnd();
+                LongHashSet nameSymbols = new LongHashSet();
+                RecordSink records = (bytes, offset, address, name) -> {
+                    // A record cut off at the end of the region is hashed as far as it goes
+                    int size = (int) Math.min(InstanceClass.recordSize(bytes, offset), bytes.length - offset);
+                    analyzer.addKlass(index, bytes, offset, size, base, end, name);
+                    long namePointer = ByteReader.readLongLE(bytes, offset + ClassEntry.NAME_OFFSET);
+                    if (top.contains(namePointer)) {
+                        nameSymbols.add(namePointer);
+                    }
+                };
+                loadClassesLayered(archive, MemoryBudget.unbounded(), (vtables, symbols, recorder) ->
+                        new KlassScanner(vtables, ClassFilter.all(), symbols, recorder, records, NOT_CANCELLED));
+                PhaseTimer.run(Phase.SYMBOL_DECODE, null, () -> {
+                    SymbolTable symbolTable = archive.topTables().symbolTable();
+                    if (symbolTable != null) {
+                        symbolTable.table().forEach((bucket, hash, value) -> {
+                            byte[] body = archive.symbolBytes(value);
+                            if (body != null) {
+                                analyzer.addSymbol(index, body);
+                            }
+                            return true;
+                        });
+                    } else {
+                        // Without a symbol table, class names are the symbols we can enumerate
+                        List<Long> names = new ArrayList<>(nameSymbols.size());
+                        nameSymbols.forEach(names::add);
+                        for (long name : names) {
+                            byte[] body = archive.symbolBytes(name);
+                            if (body != null) {
+                                analyzer.addSymbol(index, body);
+                            }
+                        }
+                    }
+                });
+            }
+        }
+        return analyzer.report();
+    }
+
+    /**
+     * Maps the klass records and name symbols of an archive onto the pages of
+     * its rw and ro regions, highlighting the given classes. The result tells how
+     * many pages a run that uses exactly those classes, e.g. the classes of a
+     * startup class list, faults in and how densely they fill them.
+     *
+     * @param filePath   path to the AOT cache file
+     * @param classNames class names, in internal ({@code java/lang/String}) or binary
+     *                   ({@code java.lang.String}) form
+     * @param pageSize   page size in bytes, a power of two
+     * @throws IOException if the file cannot be read or is not a valid AOT cache file
+     */
+    public static PageLayoutReport analyzePageLayout(String filePath, Collection<String> classNames, int pageSize)
+            throws IOException {
+        Set<String> selected = new HashSet<>();
+        for (String name : classNames) {
+            selected.add(name.replace('.', '/'));
+        }
+        PageLayoutAnalyzer analyzer;
+        try (AotArchive archive = AotArchive.open(filePath)) {
+            validateMagic(archive.genericHeader());
+            CDSFileMapRegion[] regions = archive.regions();
+            analyzer = new PageLayoutAnalyzer(
+                    new String[] {CDSFileMapRegion.regionName(0), CDSFileMapRegion.regionName(1)},
+                    new long[] {archive.regionStart(0), archive.regionStart(1)},
+                    new long[] {regions[0].used(), regions[1].used()},
+                    selected, pageSize);
+        }
+        forEachClass(filePath, analyzer);
+        return analyzer.report();
+    }
+
+    /**
+     * {@link #analyzePageLayout(String, Collection, int)} with
+     * {@link PageLayoutAnalyzer#DEFAULT_PAGE_SIZE 4 KiB} pages.
+     */
+    public static PageLayoutReport analyzePageLayout(String filePath, Collection<String> classNames)
+            throws IOException {
+        return analyzePageLayout(filePath, classNames, PageLayoutAnalyzer.DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Estimates the pointer patching HotSpot does when the archive is mapped at
+     * {@code mapBase} instead of its requested base address, from the pointer
+     * maps in the bitmap region. The bitmap region is memory-mapped; no other
+     * region is read.
+     *
+     * @param filePath path to the AOT cache file
+     * @param mapBase  address to simulate mapping the archive at
+     * @throws IOException if the file cannot be read or is not a valid AOT cache file
+     */
+    public static RelocationReport estimateRelocation(String filePath, long mapBase) throws IOException {
+        try (AotArchive archive = AotArchive.open(filePath)) {
+            validateMagic(archive.genericHeader());
+            ByteBuffer bitmap = PhaseTimer.time(Phase.REGION_LOAD, null, () -> archive.mapRegion(BITMAP_REGION));
+            return RelocationEstimator.estimate(bitmap, archive.regions(), archive.fileMapHeader(), mapBase,
+                    RelocationEstimator.DEFAULT_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * {@link #estimateRelocation(String, long)} at the first aligned address past
+     * the archive's requested mapping, as when that range is taken.
+     */
+    public static RelocationReport estimateRelocation(String filePath) throws IOException {
+        long mapBase;
+        try (AotArchive archive = AotArchive.open(filePath)) {
+            long alignment = Math.max(1, archive.fileMapHeader().coreRegionAlignment());
+            mapBase = (archive.mappedEnd() + alignment - 1) / alignment * alignment;
+        }
+        return estimateRelocation(filePath, mapBase);
+    }
+
+    /**
+     * Joins a class loading log ({@code -Xlog:class+load} or {@code -verbose:class})
+     * against the classes of an archive: which loads the archive served, which
+     * came from disk and why, and which cached classes were never used. The log
+     * is streamed; only the archive's class index is held in memory.
+     *
+     * @param filePath        path to the AOT cache file
+     * @param baseArchivePath base archive of a dynamic archive, or null for the recorded one
+     * @param logPath         path to the class loading log
+     * @throws IOException if either file cannot be read or the archive is not valid
+     */
+    public static HitRateReport analyzeHitRate(String filePath, String baseArchivePath, Path logPath)
+            throws IOException {
+        HitRateAnalyzer analyzer = new HitRateAnalyzer();
+        forEachClass(filePath, baseArchivePath, ClassFilter.all(), MemoryBudget.unbounded(), analyzer::addCacheClass);
+        ClassLoadLog.read(logPath, analyzer);
+        return analyzer.report();
+    }
+
+    /**
+     * Builds the reverse pointer index of a single archive file from one pass
+     * over the pointer slots of its rw and ro regions, guided by its pointer
+     * maps if it has them.
+     *
+     * @param filePath path to the AOT cache file
+     * @throws IOException if the file cannot be read or is not a valid AOT cache file
+     */
+    public static ReferrerIndex buildReferrerIndex(String filePath) throws IOException {
+        try (AotArchive archive = AotArchive.open(filePath)) {
+            validateMagic(archive.genericHeader());
+            return buildReferrerIndex(archive, archive.requestedBaseAddress(), archive.mappedEnd());
+        }
+    }
+
+    private static ReferrerIndex buildReferrerIndex(AotArchive archive, long low, long high) throws IOException {
+        ReferrerIndex.Collector collector = new ReferrerIndex.Collector();
+        return PhaseTimer.time(Phase.SCAN, null, () -> {
+            PointerScan.forEachPointer(archive, low, high, collector);
+            return collector.build();
+        });
+    }
+
+    /**
+     * Finds the pointer slots that point into the klass record of a class,
+     * which is what keeps the class reachable in the archive. For a dynamic
+     * archive both layers are searched; the base cannot refer to classes of
+     * the top layer.
+     *
+     * @param filePath        path to the AOT cache file
+     * @param baseArchivePath base archive of a dynamic archive, or null for the one it records
+     * @param className       internal class name
+     * @return the referrers, in address order per layer, or null if the class is not in the archive
+     * @throws IOException if the file cannot be read or is not a valid AOT cache file
+     */
+    public static List<Referrer> findReferrers(String filePath, String baseArchivePath, String className)
+            throws IOException {
+        ClassEntry target = findClass(filePath, baseArchivePath, className);
+        if (target == null) {
+            return null;
+        }
+        List<Referrer> result = new ArrayList<>();
+        try (LayeredArchive archive = openLayered(filePath, baseArchivePath)) {
+            List<AotArchive> layers = new ArrayList<>();
+            layers.add(archive.top());
+            // A scan of a dynamic archive only sees the klasses of the top layer
+            KlassRanges ranges = new KlassRanges();
+            forEachClass(filePath, baseArchivePath, ClassFilter.all(), MemoryBudget.unbounded(), ranges);
+            if (archive.isLayered() && archive.base().contains(target.address())) {
+                layers.add(archive.base());
+                forEachClass(archive.base().path(), null, ClassFilter.all(), MemoryBudget.unbounded(), ranges);
             }
-            return loadClasses(file, rwRegionData, fileMapHeader.requestedBaseAddress());
+            long low = archive.isLayered()
+                    ? archive.base().requestedBaseAddress()
+                    : archive.top().requestedBaseAddress();
+            for (AotArchive layer : layers) {
+                ReferrerIndex index = buildReferrerIndex(layer, low, archive.top().mappedEnd());
+                long[] slots = PhaseTimer.time(Phase.INDEX_LOOKUP, null,
+                        () -> index.referrers(target.address(), target.address() + target.getSize()));
+                for (long slot : slots) {
+                    long value = layer.readLong(slot);
+                    int owner = ranges.indexOf(slot);
+                    int region = layer.inRegion(slot, 0) ? 0 : 1;
+                    result.add(owner >= 0
+                            ? new Referrer(slot, value, ranges.name(owner), slot - ranges.start(owner),
+                                    CDSFileMapRegion.regionName(region))
+                            : new Referrer(slot, value, null, slot - layer.regionStart(region),
+                                    CDSFileMapRegion.regionName(region)));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Streams the classes recorded in an AOTConfiguration file, with their
+     * builtin loader and the linking state they reached during training.
+     *
+     * @param filePath path to the AOTConfiguration file
+     * @param filter   which classes to visit
+     * @param budget   memory for file data, see {@link MemoryBudget#of(long)}
+     * @param action   invoked once per matching class, in file order
+     * @throws IOException if the file cannot be read or is not an AOTConfiguration file
+     */
+    public static void forEachConfiguredClass(String filePath, ClassFilter filter, MemoryBudget budget,
+                                              Consumer<? super ConfiguredClass> action) throws IOException {
+        readConfigurationHeaders(filePath);
+        forEachClass(filePath, filter, budget, entry -> action.accept(ConfiguredClass.of(entry)));
+    }
+
+    /**
+     * Aggregates the classes recorded in an AOTConfiguration file by loader and
+     * linking state, and predicts the classes and metadata size of the AOT cache
+     * that would be created from it.
+     *
+     * @param filePath path to the AOTConfiguration file
+     * @throws IOException if the file cannot be read or is not an AOTConfiguration file
+     */
+    public static ConfigurationReport analyzeConfiguration(String filePath, ClassFilter filter, MemoryBudget budget)
+            throws IOException {
+        long metadataBytes = configurationMetadataBytes(filePath);
+        ConfigurationAnalyzer analyzer = new ConfigurationAnalyzer();
+        forEachClass(filePath, filter, budget, entry -> analyzer.accept(ConfiguredClass.of(entry)));
+        return analyzer.report(metadataBytes);
+    }
+
+    /**
+     * Bytes used by the rw and ro regions of an AOTConfiguration file, the basis
+     * of the cache size prediction of {@link #analyzeConfiguration}.
+     */
+    public static long configurationMetadataBytes(String filePath) throws IOException {
+        Headers headers = readConfigurationHeaders(filePath);
+        return headers.regions()[0].used() + headers.regions()[1].used();
+    }
+
+    private static Headers readConfigurationHeaders(String filePath) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(filePath, "r")) {
+            Headers headers = readHeaders(new LittleEndianRandomAccessFile(raf));
+            if (headers.genericHeader().magic() != AOTCONFIG_MAGIC) {
+                throw new IOException(String.format("Not an AOTConfiguration file (magic: %08x)",
+                        headers.genericHeader().magic()));
+            }
+            return headers;
         } catch (EOFException e) {
             throw new IOException("Invalid AOTCache file: file too short", e);
         }
@@ -173,7 +1020,8 @@ public final class AotpApi {
 
     /**
      * Returns sizes for a batch of classes. Only classes that are present in the
-     * AOT cache are included in the result.
+     * AOT cache are included in the result. Names are resolved through the archived
+     * class dictionaries where possible; the rest are found with a single scan.
      *
      * @param filePath   path to the AOT cache file
      * @param classNames list of fully qualified class names
@@ -181,20 +1029,367 @@ public final class AotpApi {
      * @throws IOException if the file cannot be read or is invalid
      */
     public static Map<ClassEntry, Integer> getClassSizes(String filePath, List<String> classNames) throws IOException {
-        List<ClassEntry> classes = listClasses(filePath);
-        Map<ClassEntry, Integer> sizeByClassEntry = new HashMap<>();
-        for (ClassEntry entry : classes) {
-            sizeByClassEntry.put(entry, entry.getSize());
-        }
+        return getClassSizes(filePath, null, classNames);
+    }
+
+    /**
+     * Like {@link #getClassSizes(String, List)}; for a dynamic archive, classes of
+     * the base archive are included too.
+     *
+     * @param baseArchivePath base archive of a dynamic archive, or null for the one
+     *                        it records; ignored for a static archive
+     */
+    public static Map<ClassEntry, Integer> getClassSizes(String filePath, String baseArchivePath,
+                                                         List<String> classNames) throws IOException {
+        return getClassSizes(filePath, baseArchivePath, classNames, NOT_CANCELLED);
+    }
+
+    private static Map<ClassEntry, Integer> getClassSizes(String filePath, String baseArchivePath,
+                                                          List<String> classNames, BooleanSupplier cancelled)
+            throws IOException {
         Map<ClassEntry, Integer> result = new HashMap<>();
-        for (ClassEntry entry : classes) {
-            if (classNames.contains(entry.getName())) {
-                result.put(entry, sizeByClassEntry.get(entry));
+        ArchiveCache cache = archiveCache;
+        if (cache != null) {
+            ArchiveCache.Entry top = cachedArchive(cache, filePath, baseArchivePath);
+            ArchiveCache.Entry base = null;
+            for (String className : classNames) {
+                ClassEntry entry = top.find(className);
+                if (entry == null && top.basePath() != null) {
+                    if (base == null) {
+                        base = cachedArchive(cache, top.basePath(), null);
+                    }
+                    entry = base.find(className);
+                }
+                if (entry != null) {
+                    result.put(entry, entry.getSize());
+                }
             }
+            return result;
+        }
+        Set<String> missing = new HashSet<>(classNames);
+        String basePath;
+        try (LayeredArchive archive = openLayered(filePath, baseArchivePath)) {
+            basePath = archive.isLayered() ? archive.base().path() : null;
+            PhaseTimer.run(Phase.INDEX_LOOKUP, null, () -> {
+                if (archive.canFindClasses()) {
+                    for (String className : classNames) {
+                        ClassEntry entry = lookupClass(archive, className);
+                        if (entry != null) {
+                            result.put(entry, entry.getSize());
+                            missing.remove(className);
+                        }
+                    }
+                }
+            });
+        }
+        Consumer<ClassEntry> collect = entry -> {
+            if (missing.remove(entry.getName())) {
+                result.put(entry, entry.getSize());
+            }
+        };
+        if (!missing.isEmpty()) {
+            forEachClass(filePath, baseArchivePath, ClassFilter.all(), MemoryBudget.unbounded(), cancelled, collect);
+        }
+        if (!missing.isEmpty() && basePath != null) {
+            forEachClass(basePath, null, ClassFilter.all(), MemoryBudget.unbounded(), cancelled, collect);
         }
         return result;
     }
 
+    /**
+     * Finds a class by its internal name. The archived SymbolTable and class
+     * dictionaries are used when the archive has them, so only the class's own
+     * record is read; classes they do not cover (e.g. array classes) are found
+     * with a filtered scan of the RW region.
+     *
+     * @param filePath  path to the AOT cache file
+     * @param className internal class name, e.g. {@code java/lang/String}
+     * @return the class, or null if it is not in the archive
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static ClassEntry findClass(String filePath, String className) throws IOException {
+        return findClass(filePath, null, className);
+    }
+
+    /**
+     * Like {@link #findClass(String, String)}; a dynamic archive is searched
+     * first, then its base archive.
+     *
+     * @param baseArchivePath base archive of a dynamic archive, or null for the one
+     *                        it records; ignored for a static archive
+     */
+    public static ClassEntry findClass(String filePath, String baseArchivePath, String className)
+            throws IOException {
+        ArchiveCache cache = archiveCache;
+        if (cache != null) {
+            return findCachedClass(cache, filePath, baseArchivePath, className);
+        }
+        try (LayeredArchive archive = openLayered(filePath, baseArchivePath)) {
+            return findClass(archive, className);
+        }
+    }
+
+    /**
+     * Like {@link #findClass(String, String, String)}, on an archive opened with
+     * {@link #open}. Safe to call from many threads on the same archive.
+     */
+    public static ClassEntry findClass(LayeredArchive archive, String className) throws IOException {
+        ClassEntry entry = PhaseTimer.time(Phase.INDEX_LOOKUP, null, () -> lookupClass(archive, className));
+        if (entry != null) {
+            return entry;
+        }
+        ClassFilter filter = ClassFilter.all().withName(className);
+        String basePath = archive.isLayered() ? archive.base().path() : null;
+        entry = scanForClass(archive.top().path(), basePath, filter, className);
+        if (entry == null && basePath != null) {
+            entry = scanForClass(basePath, null, filter, className);
+        }
+        return entry;
+    }
+
+    private static ClassEntry scanForClass(String filePath, String baseArchivePath, ClassFilter filter,
+                                           String className) throws IOException {
+        List<ClassEntry> found = new ArrayList<>();
+        forEachClass(filePath, baseArchivePath, filter, MemoryBudget.unbounded(), found::add);
+        for (ClassEntry entry : found) {
+            if (entry.getName().equals(className)) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the names of the superclasses of a class, nearest first. In a
+     * dynamic archive the chain continues into the base archive.
+     *
+     * @param baseArchivePath base archive of a dynamic archive, or null for the one
+     *                        it records; ignored for a static archive
+     * @return the superclass names, or null if the class cannot be found through
+     *         the archived dictionaries
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static List<String> getSuperclasses(String filePath, String baseArchivePath, String className)
+            throws IOException {
+        try (LayeredArchive archive = openLayered(filePath, baseArchivePath)) {
+            return getSuperclasses(archive, className);
+        }
+    }
+
+    /**
+     * Like {@link #getSuperclasses(String, String, String)}, on an archive opened
+     * with {@link #open}. Safe to call from many threads on the same archive.
+     */
+    public static List<String> getSuperclasses(LayeredArchive archive, String className) throws IOException {
+        return PhaseTimer.time(Phase.INDEX_LOOKUP, null, () -> {
+            long klass = archive.findKlass(className);
+            return klass == 0 ? null : archive.superclassNames(klass);
+        });
+    }
+
+    /**
+     * Looks up symbols (class, method and field names, signatures) in the
+     * archived SymbolTable. Each lookup hashes the name and reads one bucket of
+     * the table; symbols are never enumerated.
+     *
+     * @param filePath path to the AOT cache file
+     * @param names    symbols to look up, as UTF-8 text
+     * @return one entry per name, in order; null for names that are not in the table
+     * @throws IOException if the file cannot be read, is invalid or has no symbol table
+     */
+    public static List<SymbolInfo> lookupSymbols(String filePath, List<String> names) throws IOException {
+        return lookupSymbols(filePath, null, names);
+    }
+
+    /**
+     * Like {@link #lookupSymbols(String, List)}; for a dynamic archive, a name
+     * that is not in its own table is looked up in the base archive's.
+     *
+     * @param baseArchivePath base archive of a dynamic archive, or null for the one
+     *                        it records; ignored for a static archive
+     */
+    public static List<SymbolInfo> lookupSymbols(String filePath, String baseArchivePath, List<String> names)
+            throws IOException {
+        try (LayeredArchive archive = openLayered(filePath, baseArchivePath)) {
+            return lookupSymbols(archive, names);
+        }
+    }
+
+    /**
+     * Like {@link #lookupSymbols(String, String, List)}, on an archive opened with
+     * {@link #open}. Safe to call from many threads on the same archive.
+     */
+    public static List<SymbolInfo> lookupSymbols(LayeredArchive archive, List<String> names) throws IOException {
+        return PhaseTimer.time(Phase.INDEX_LOOKUP, null, () -> {
+            if (!archive.hasSymbolTable()) {
+                throw new IOException("No shared symbol table found in " + archive.top().path());
+            }
+            List<SymbolInfo> result = new ArrayList<>(names.size());
+            for (String name : names) {
+                result.add(archive.findSymbol(name));
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Looks up a single symbol, see {@link #lookupSymbols(String, List)}.
+     *
+     * @return the symbol, or null if it is not in the table
+     */
+    public static SymbolInfo lookupSymbol(String filePath, String name) throws IOException {
+        return lookupSymbols(filePath, List.of(name)).get(0);
+    }
+
+    /**
+     * Opens an archive, and for a dynamic archive its base, for repeated queries
+     * through the {@code LayeredArchive} overloads. The returned archive maps its
+     * metadata regions once and may be shared by any number of threads; close it
+     * when no query is running any more.
+     *
+     * @param filePath        path to the AOT cache file
+     * @param baseArchivePath base archive of a dynamic archive, or null for the one
+     *                        it records; ignored for a static archive
+     * @throws IOException if the file cannot be read or is not a valid AOT cache file
+     */
+    public static LayeredArchive open(String filePath, String baseArchivePath) throws IOException {
+        return openLayered(filePath, baseArchivePath);
+    }
+
+    /**
+     * Asynchronous {@link #open(String, String)} on the common fork-join pool.
+     */
+    public static CompletableFuture<LayeredArchive> openAsync(String filePath, String baseArchivePath) {
+        return openAsync(filePath, baseArchivePath, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Asynchronous {@link #open(String, String)} on {@code executor}. If the
+     * future is cancelled after the archive was opened, the archive is closed.
+     */
+    public static CompletableFuture<LayeredArchive> openAsync(String filePath, String baseArchivePath,
+                                                              Executor executor) {
+        return supplyAsync(executor, cancelled -> openLayered(filePath, baseArchivePath));
+    }
+
+    /**
+     * Asynchronous {@link #listClasses(String, ClassFilter)} on the common fork-join pool.
+     */
+    public static CompletableFuture<List<ClassEntry>> listClassesAsync(String filePath, ClassFilter filter) {
+        return listClassesAsync(filePath, filter, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Asynchronous {@link #listClasses(String, ClassFilter)} on {@code executor}.
+     * Cancelling the future stops the scan of the RW region within a few
+     * thousand words.
+     */
+    public static CompletableFuture<List<ClassEntry>> listClassesAsync(String filePath, ClassFilter filter,
+                                                                       Executor executor) {
+        return supplyAsync(executor, cancelled -> {
+            List<ClassEntry> entries = new ArrayList<>();
+            forEachClass(filePath, null, filter, MemoryBudget.unbounded(), cancelled, entries::add);
+            return entries;
+        });
+    }
+
+    /**
+     * Asynchronous {@link #getClassSizes(String, List)} on the common fork-join pool.
+     */
+    public static CompletableFuture<Map<ClassEntry, Integer>> classSizesAsync(String filePath,
+                                                                              List<String> classNames) {
+        return classSizesAsync(filePath, null, classNames, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Asynchronous {@link #getClassSizes(String, String, List)} on {@code executor}.
+     * Cancelling the future stops the fallback scan, if one is running.
+     */
+    public static CompletableFuture<Map<ClassEntry, Integer>> classSizesAsync(String filePath,
+                                                                              String baseArchivePath,
+                                                                              List<String> classNames,
+                                                                              Executor executor) {
+        return supplyAsync(executor, cancelled -> getClassSizes(filePath, baseArchivePath, classNames, cancelled));
+    }
+
+    @FunctionalInterface
+    private interface CancellableTask<T> {
+        T run(BooleanSupplier cancelled) throws IOException;
+    }
+
+    /**
+     * Runs {@code task} on {@code executor}. The task sees the future's
+     * cancellation through its {@link BooleanSupplier}; a result that arrives
+     * after cancellation is closed if it is {@link Closeable}.
+     */
+    private static <T> CompletableFuture<T> supplyAsync(Executor executor, CancellableTask<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable run = () -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                T result = task.run(future::isCancelled);
+                if (!future.complete(result) && result instanceof Closeable closeable) {
+                    closeable.close();
+                }
+            } catch (CancellationException e) {
+                future.cancel(false);
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        };
+        try {
+            executor.execute(run);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private static LayeredArchive openLayered(String filePath, String baseArchivePath) throws IOException {
+        LayeredArchive archive = LayeredArchive.open(filePath, baseArchivePath);
+        try {
+            validateMagic(archive.top().genericHeader());
+        } catch (IOException e) {
+            archive.close();
+            throw e;
+        }
+        return archive;
+    }
+
+    private static ClassEntry lookupClass(LayeredArchive archive, String className) throws IOException {
+        long klass = archive.findKlass(className);
+        return klass == 0 ? null : archive.readKlass(klass, className);
+    }
+
+    /**
+     * Writes the fields of the specified class as a {@code class_detail} record.
+     *
+     * @param filePath  path to the AOT cache file
+     * @param className fully qualified class name
+     * @param out       where to write the record
+     * @return true if the class was found and written, false if not found
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static boolean writeClass(String filePath, String className, RecordWriter out) throws IOException {
+        return writeClass(filePath, null, className, out);
+    }
+
+    /**
+     * Like {@link #writeClass(String, String, RecordWriter)}, see
+     * {@link #findClass(String, String, String)} for {@code baseArchivePath}.
+     */
+    public static boolean writeClass(String filePath, String baseArchivePath, String className, RecordWriter out)
+            throws IOException {
+        ClassEntry entry = findClass(filePath, baseArchivePath, className);
+        if (entry == null) {
+            return false;
+        }
+        entry.write(out);
+        return true;
+    }
+
     /**
      * Pretty-prints the fields of the specified class to the given stream.
      *
@@ -205,13 +1400,20 @@ public final class AotpApi {
      * @throws IOException if the file cannot be read or is invalid
      */
     public static boolean printClass(String filePath, String className, PrintStream out) throws IOException {
-        List<ClassEntry> classes = listClasses(filePath);
-        for (ClassEntry entry : classes) {
-            if (entry.getName().equals(className)) {
-                entry.print(out);
-                return true;
-            }
+        return printClass(filePath, null, className, out);
+    }
+
+    /**
+     * Like {@link #printClass(String, String, PrintStream)}, see
+     * {@link #findClass(String, String, String)} for {@code baseArchivePath}.
+     */
+    public static boolean printClass(String filePath, String baseArchivePath, String className, PrintStream out)
+            throws IOException {
+        ClassEntry entry = findClass(filePath, baseArchivePath, className);
+        if (entry == null) {
+            return false;
         }
-        return false;
+        entry.print(out);
+        return true;
     }
 }
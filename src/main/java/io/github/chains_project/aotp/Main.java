@@ -1,20 +1,55 @@
 package io.github.chains_project.aotp;
 
 import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 
+import io.github.chains_project.aotp.analysis.ClassTable;
+import io.github.chains_project.aotp.analysis.ConfigurationAnalyzer;
+import io.github.chains_project.aotp.analysis.DedupReport;
+import io.github.chains_project.aotp.analysis.FootprintReport;
+import io.github.chains_project.aotp.analysis.HitRateReport;
+import io.github.chains_project.aotp.analysis.PageLayoutReport;
+import io.github.chains_project.aotp.analysis.Referrer;
+import io.github.chains_project.aotp.analysis.RelocationReport;
+import io.github.chains_project.aotp.analysis.SampleReport;
+import io.github.chains_project.aotp.classfile.SymbolInfo;
+import io.github.chains_project.aotp.metrics.AotpMetrics;
+import io.github.chains_project.aotp.metrics.MetricsSnapshot;
 import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.KlassKind;
+import io.github.chains_project.aotp.output.ChannelSink;
+import io.github.chains_project.aotp.output.OutputFormat;
+import io.github.chains_project.aotp.output.RecordWriter;
+import io.github.chains_project.aotp.scan.ClassFilter;
+import io.github.chains_project.aotp.scan.MemoryBudget;
+import io.github.chains_project.aotp.verify.VerificationReport;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
 
-@Command(name = "aotp", description = "Tool to give insight into AOTCache files.")
+@Command(name = "aotp", description = "Tool to give insight into AOTCache files.", subcommands = Shell.class)
 public class Main implements Callable<Integer> {
 
-    @Parameters(index = "0", description = "Path to the AOT cache file.")
+    @Spec
+    CommandSpec spec;
+
+    // Optional so that picocli does not demand it before a subcommand
+    @Parameters(index = "0", arity = "0..1", description = "Path to the AOT cache file.")
     String filePath;
 
     @Option(names = "--header", description = "Print the file map header.")
@@ -28,6 +63,149 @@ public class Main implements Callable<Integer> {
     @Option(names = "--list-classes", description = "List classes found in the RW region.")
     boolean listClasses;
 
+    @Option(names = "--verify", description = "Check the header and region CRCs against the file contents.")
+    boolean verify;
+
+    @Option(names = "--footprint",
+            description = "Aggregate RW bytes by package, class loader, kind and class path index.")
+    boolean footprint;
+
+    @Option(names = "--sample",
+            description = "Estimate the class count, bytes per kind and package, and symbol bytes from randomly "
+                    + "chosen page-sized chunks of the rw region and the symbol table, with 95%% intervals, "
+                    + "within the --sample-time budget.")
+    boolean sample;
+
+    @Option(names = "--sample-time",
+            paramLabel = "MILLIS",
+            defaultValue = "1000",
+            description = "Time budget for --sample in milliseconds (default: ${DEFAULT-VALUE}).")
+    long sampleTime;
+
+    @Option(names = "--config",
+            description = "Summarize an AOTConfiguration file: recorded classes by loader and linking state, "
+                    + "and the predicted size of the AOT cache created from it. With --format jsonl/csv/binary, "
+                    + "one record per class followed by the summary.")
+    boolean config;
+
+    @Option(names = "--dedup",
+            paramLabel = "FILE",
+            description = "Compare klass and symbol content of this archive with the given archives and "
+                    + "report what a shared base archive would save.",
+            arity = "1..*")
+    List<String> dedupFiles;
+
+    @Option(names = "--page-map",
+            paramLabel = "CLASSLIST",
+            description = "Map the classes listed in CLASSLIST (one per line, '#' starts a comment) onto the "
+                    + "pages of the rw and ro regions: pages touched, fill ratio per page and locality.")
+    Path pageMapClassList;
+
+    @Option(names = "--page-size",
+            paramLabel = "BYTES",
+            defaultValue = "4096",
+            description = "Page size for --page-map and --sample (default: ${DEFAULT-VALUE}).")
+    int pageSize;
+
+    @Option(names = "--hit-rate",
+            paramLabel = "LOG",
+            description = "Join a -Xlog:class+load or -verbose:class log against the cached classes: loads "
+                    + "served from the archive, loads from disk by likely reason, and cached classes never used.")
+    Path hitRateLog;
+
+    @Option(names = "--referrers",
+            paramLabel = "CLASS",
+            description = "List the pointer slots that point into the klass record of CLASS, with the klass "
+                    + "or region holding each slot.")
+    String referrersClassName;
+
+    @Option(names = "--relocation",
+            description = "Estimate the pointers HotSpot patches and the pages it dirties when the archive "
+                    + "cannot be mapped at its requested base address.")
+    boolean relocation;
+
+    @Option(names = "--map-base",
+            paramLabel = "ADDRESS",
+            description = "Address to simulate mapping at for --relocation, decimal or 0x-prefixed hex "
+                    + "(default: right after the requested mapping).")
+    String mapBase;
+
+    @Option(names = "--export-table",
+            paramLabel = "FILE",
+            description = "Save the classes (honouring the class filters) as a compact columnar table in FILE, "
+                    + "which can be analysed later without the archive.")
+    Path exportTable;
+
+    @Option(names = "--deflate", description = "Compress the columns written by --export-table.")
+    boolean deflate;
+
+    @Option(names = "--top",
+            paramLabel = "N",
+            defaultValue = "20",
+            description = "Number of rows per table in the footprint and sample reports (default: ${DEFAULT-VALUE}).")
+    int top;
+
+    @Option(names = "--format",
+            paramLabel = "FORMAT",
+            defaultValue = "TEXT",
+            description = "Output format for the header, class list, reports, class sizes and class details: "
+                    + "${COMPLETION-CANDIDATES} (default: ${DEFAULT-VALUE}).")
+    OutputFormat format;
+
+    @Option(names = "--name",
+            paramLabel = "PATTERN",
+            description = "Only classes whose internal name starts with PATTERN, or matches it "
+                    + "if it contains * or ? (e.g. java/util/*Map).")
+    String nameFilter;
+
+    @Option(names = "--kind",
+            paramLabel = "KIND",
+            split = ",",
+            description = "Only classes of these klass kinds (e.g. InstanceKlass,ObjArrayKlass).")
+    List<String> kindFilter;
+
+    @Option(names = "--access",
+            paramLabel = "FLAGS",
+            split = ",",
+            description = "Only classes with all these access flags: public, final, super, interface, "
+                    + "abstract, synthetic, annotation, enum or a hex mask.")
+    List<String> accessFilter;
+
+    @Option(names = "--loader",
+            paramLabel = "ADDRESS",
+            description = "Only classes whose class_loader_data equals ADDRESS (hex).")
+    String loaderFilter;
+
+    @Option(names = "--min-size", paramLabel = "BYTES", description = "Only classes of at least BYTES bytes.")
+    Long minSize;
+
+    @Option(names = "--max-size", paramLabel = "BYTES", description = "Only classes of at most BYTES bytes.")
+    Long maxSize;
+
+    @Option(names = "--symbol",
+            paramLabel = "NAME",
+            description = "Look up symbols (e.g. main, ([Ljava/lang/String;)V) in the archived symbol table "
+                    + "and print their address and refcount.",
+            arity = "1..*")
+    List<String> symbolNames;
+
+    @Option(names = "--max-memory",
+            paramLabel = "SIZE",
+            description = "Scan classes for --list-classes and --footprint through a sliding window "
+                    + "so that file data stays within SIZE (e.g. 64m, 1g); regions are never loaded whole.")
+    String maxMemory;
+
+    @Option(names = "--base-archive",
+            paramLabel = "PATH",
+            description = "Base archive of a dynamic archive, if not the one recorded in its header.")
+    String baseArchivePath;
+
+    @Option(names = "--stats",
+            description = "Print wall time, I/O, allocation and scan hit counts per phase to stderr, "
+                    + "and how the klass scan found candidate words: pointer slots, or the vector or scalar "
+                    + "word matcher; the vector one needs java --add-modules jdk.incubator.vector -jar aotp.jar.")
+    boolean stats;
+
     @Option(names = "--class-size",
             paramLabel = "CLASS",
             description = "Print the size of the specified class.",
@@ -36,35 +214,272 @@ public class Main implements Callable<Integer> {
 
     @Override
     public Integer call() {
-        boolean anyFlag = header || listClasses
+        if (!stats) {
+            return run();
+        }
+        AotpMetrics.reset();
+        AotpMetrics.setDetailed(true);
+        try {
+            return run();
+        } finally {
+            try {
+                MetricsSnapshot snapshot = AotpMetrics.snapshot();
+                snapshot.print(System.err);
+                if (snapshot.wordMatchers().containsKey("scalar")) {
+                    System.err.println("run java with --add-modules jdk.incubator.vector for the vector word matcher");
+                }
+            } catch (IOException e) {
+                // System.err does not throw
+            }
+        }
+    }
+
+    private int run() {
+        if (filePath == null) {
+            throw new ParameterException(spec.commandLine(), "Missing required parameter: '<filePath>'");
+        }
+        if (top < 1) {
+            throw new ParameterException(spec.commandLine(), "--top must be at least 1: " + top);
+        }
+        boolean anyFlag = header || listClasses || verify || footprint || sample || config
+                || (dedupFiles != null && !dedupFiles.isEmpty()) || pageMapClassList != null
+                || relocation || hitRateLog != null || exportTable != null
+                || (symbolNames != null && !symbolNames.isEmpty())
                 || (classSizeClassNames != null && !classSizeClassNames.isEmpty())
-                || printClassName != null;
+                || printClassName != null || referrersClassName != null;
         if (!anyFlag) {
             header = true;
             listClasses = true;
         }
 
-        try {
+        try (ChannelSink sink = ChannelSink.stdout()) {
+            PrintStream out = new PrintStream(sink.outputStream(), false, StandardCharsets.UTF_8);
+            RecordWriter records = format == OutputFormat.TEXT ? null : RecordWriter.create(format, sink);
+
+            if (verify) {
+                VerificationReport report = AotpApi.verify(filePath);
+                if (records != null) {
+                    report.write(records);
+                } else {
+                    report.print(sink);
+                }
+                if (!report.isValid()) {
+                    return 1;
+                }
+            }
+
             if (header) {
-                AotpApi.printHeader(filePath, System.out);
+                if (records != null) {
+                    AotpApi.writeHeader(filePath, records);
+                } else {
+                    AotpApi.printHeader(filePath, sink);
+                }
                 return 0;
             }
 
+            ClassFilter filter = buildFilter();
+            MemoryBudget budget = MemoryBudget.unbounded();
+            if (maxMemory != null) {
+                try {
+                    budget = MemoryBudget.of(MemoryBudget.parseSize(maxMemory));
+                } catch (IllegalArgumentException e) {
+                    throw invalidValue("--max-memory", maxMemory, e);
+                }
+            }
+
             if (listClasses) {
-                for (String name : AotpApi.listClassNames(filePath)) {
-                    System.out.println(name);
+                if (records != null) {
+                    AotpApi.writeClasses(filePath, baseArchivePath, filter, budget, records);
+                } else {
+                    try {
+                        AotpApi.forEachClass(filePath, baseArchivePath, filter, budget, entry -> {
+                            try {
+                                sink.putUtf8(entry.getName()).put((byte) '\n');
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    }
+                }
+            }
+
+            if (exportTable != null) {
+                ClassTable table = AotpApi.exportClassTable(filePath, baseArchivePath, filter, budget,
+                        exportTable, deflate);
+                System.err.printf("Exported %d classes to %s (%d bytes)%n", table.size(), exportTable,
+                        Files.size(exportTable));
+            }
+
+            if (footprint) {
+                FootprintReport report = AotpApi.analyzeFootprint(filePath, baseArchivePath, filter, budget, top);
+                if (records != null) {
+                    report.write(records);
+                } else {
+                    report.print(sink);
+                }
+            }
+
+            if (sample) {
+                SampleReport report = AotpApi.sampleStatistics(filePath, baseArchivePath, sampleTime, pageSize,
+                        System.nanoTime(), top);
+                if (records != null) {
+                    report.write(records);
+                } else {
+                    report.print(sink);
+                }
+            }
+
+            if (dedupFiles != null && !dedupFiles.isEmpty()) {
+                List<String> archives = new ArrayList<>();
+                archives.add(filePath);
+                archives.addAll(dedupFiles);
+                DedupReport report = AotpApi.analyzeDedup(archives);
+                if (records != null) {
+                    report.write(records);
+                } else {
+                    report.print(sink);
+                }
+            }
+
+            if (pageMapClassList != null) {
+                List<String> classNames = new ArrayList<>();
+                for (String line : Files.readAllLines(pageMapClassList, StandardCharsets.UTF_8)) {
+                    String name = line.strip();
+                    if (!name.isEmpty() && !name.startsWith("#")) {
+                        classNames.add(name);
+                    }
+                }
+                PageLayoutReport report = AotpApi.analyzePageLayout(filePath, classNames, pageSize);
+                if (records != null) {
+                    report.write(records);
+                } else {
+                    report.print(sink);
+                }
+            }
+
+            if (hitRateLog != null) {
+                HitRateReport report = AotpApi.analyzeHitRate(filePath, baseArchivePath, hitRateLog);
+                if (records != null) {
+                    report.write(records);
+                } else {
+                    report.print(sink, top);
+                }
+            }
+
+            if (relocation) {
+                RelocationReport report;
+                if (mapBase == null) {
+                    report = AotpApi.estimateRelocation(filePath);
+                } else {
+                    long address;
+                    try {
+                        address = Long.decode(mapBase);
+                    } catch (NumberFormatException e) {
+                        throw invalidValue("--map-base", mapBase, e);
+                    }
+                    report = AotpApi.estimateRelocation(filePath, address);
+                }
+                if (records != null) {
+                    report.write(records);
+                } else {
+                    report.print(sink);
+                }
+            }
+
+            if (config) {
+                if (records != null) {
+                    ConfigurationAnalyzer analyzer = new ConfigurationAnalyzer();
+                    try {
+                        AotpApi.forEachConfiguredClass(filePath, filter, budget, configured -> {
+                            analyzer.accept(configured);
+                            try {
+                                records.begin("configured_class");
+                                records.field("name", configured.name());
+                                records.field("kind", configured.kind().hotspotName());
+                                records.field("loader", configured.loader() == null ? "" : configured.loader().label());
+                                records.field("state", configured.state() == null ? "" : configured.state().hotspotName());
+                                records.field("expected_in_cache", configured.isExpectedInCache());
+                                records.field("size", configured.size());
+                                records.end();
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        });
+                    } catch (UncheckedIOException e) {
+                        throw e.getCause();
+                    }
+                    analyzer.report(AotpApi.configurationMetadataBytes(filePath)).write(records);
+                } else {
+                    AotpApi.analyzeConfiguration(filePath, filter, budget).print(sink);
                 }
             }
 
             if (classSizeClassNames != null && !classSizeClassNames.isEmpty()) {
-                Map<ClassEntry, Integer> sizes = AotpApi.getClassSizes(filePath, classSizeClassNames);
+                Map<ClassEntry, Integer> sizes = AotpApi.getClassSizes(filePath, baseArchivePath, classSizeClassNames);
                 for (Map.Entry<ClassEntry, Integer> entry : sizes.entrySet()) {
-                    System.out.println(entry.getKey().getName() + ": " + entry.getValue());
+                    if (records != null) {
+                        records.begin("class_size");
+                        records.field("name", entry.getKey().getName());
+                        records.field("size", entry.getValue());
+                        records.end();
+                    } else {
+                        sink.putUtf8(entry.getKey().getName()).putUtf8(": ").putDecimal(entry.getValue()).put((byte) '\n');
+                    }
+                }
+            }
+
+            if (symbolNames != null && !symbolNames.isEmpty()) {
+                List<SymbolInfo> symbols = AotpApi.lookupSymbols(filePath, baseArchivePath, symbolNames);
+                for (int i = 0; i < symbolNames.size(); i++) {
+                    SymbolInfo symbol = symbols.get(i);
+                    if (records != null) {
+                        records.begin("symbol");
+                        records.field("name", symbolNames.get(i));
+                        records.field("found", symbol != null);
+                        records.field("address", symbol == null ? 0 : symbol.address());
+                        records.field("refcount", symbol == null ? 0 : symbol.refcount());
+                        records.end();
+                    } else if (symbol == null) {
+                        sink.putUtf8(symbolNames.get(i)).putUtf8(": not found\n");
+                    } else {
+                        sink.putUtf8(symbolNames.get(i)).putUtf8(": ").putHex(symbol.address())
+                                .putUtf8(" refcount ").putDecimal(symbol.refcount())
+                                .putUtf8(symbol.isPermanent() ? " (permanent)\n" : "\n");
+                    }
+                }
+            }
+
+            if (referrersClassName != null) {
+                List<Referrer> referrers = AotpApi.findReferrers(filePath, baseArchivePath, referrersClassName);
+                if (referrers == null) {
+                    sink.flush();
+                    System.err.println("Class not found: " + referrersClassName);
+                    return 1;
+                }
+                for (Referrer referrer : referrers) {
+                    if (records != null) {
+                        records.begin("referrer");
+                        records.field("slot", referrer.slot());
+                        records.field("target", referrer.target());
+                        records.field("owner", referrer.owner() == null ? "" : referrer.owner());
+                        records.field("offset", referrer.offset());
+                        records.field("region", referrer.region());
+                        records.end();
+                    } else {
+                        sink.putUtf8(String.format("0x%016x -> 0x%016x  %s%n", referrer.slot(), referrer.target(),
+                                referrer.location()));
+                    }
                 }
             }
 
             if (printClassName != null) {
-                if (!AotpApi.printClass(filePath, printClassName, System.out)) {
+                boolean found = records != null
+                        ? AotpApi.writeClass(filePath, baseArchivePath, printClassName, records)
+                        : AotpApi.printClass(filePath, baseArchivePath, printClassName, out);
+                if (!found) {
+                    sink.flush();
                     System.err.println("Class not found: " + printClassName);
                     return 1;
                 }
@@ -77,8 +492,73 @@ public class Main implements Callable<Integer> {
         }
     }
 
+    private ClassFilter buildFilter() {
+        ClassFilter filter = ClassFilter.all();
+        if (nameFilter != null) {
+            filter = filter.withName(nameFilter);
+        }
+        if (kindFilter != null && !kindFilter.isEmpty()) {
+            Set<KlassKind> kinds = EnumSet.noneOf(KlassKind.class);
+            for (String kind : kindFilter) {
+                try {
+                    kinds.add(KlassKind.parse(kind.trim()));
+                } catch (IllegalArgumentException e) {
+                    throw invalidValue("--kind", kind, e);
+                }
+            }
+            filter = filter.withKinds(kinds);
+        }
+        if (accessFilter != null) {
+            for (String flag : accessFilter) {
+                try {
+                    filter = filter.withAccessFlags(parseAccessFlag(flag.trim()));
+                } catch (NumberFormatException e) {
+                    throw invalidValue("--access", flag, e);
+                }
+            }
+        }
+        if (loaderFilter != null) {
+            try {
+                filter = filter.withLoader(Long.parseUnsignedLong(stripHexPrefix(loaderFilter), 16));
+            } catch (NumberFormatException e) {
+                throw invalidValue("--loader", loaderFilter, e);
+            }
+        }
+        if (minSize != null || maxSize != null) {
+            filter = filter.withSizeRange(minSize != null ? minSize : 0,
+                    maxSize != null ? maxSize : Long.MAX_VALUE);
+        }
+        return filter;
+    }
+
+    private ParameterException invalidValue(String option, String value, IllegalArgumentException cause) {
+        return new ParameterException(spec.commandLine(),
+                String.format("Invalid value for option '%s': '%s' (%s)", option, value, cause.getMessage()), cause);
+    }
+
+    // Class access flags from the JVM specification, table 4.1-B
+    private static int parseAccessFlag(String flag) {
+        switch (flag.toLowerCase(Locale.ROOT)) {
+            case "public": return 0x0001;
+            case "final": return 0x0010;
+            case "super": return 0x0020;
+            case "interface": return 0x0200;
+            case "abstract": return 0x0400;
+            case "synthetic": return 0x1000;
+            case "annotation": return 0x2000;
+            case "enum": return 0x4000;
+            default: return Integer.parseInt(stripHexPrefix(flag), 16);
+        }
+    }
+
+    private static String stripHexPrefix(String value) {
+        return value.startsWith("0x") || value.startsWith("0X") ? value.substring(2) : value;
+    }
+
     public static void main(String[] args) {
-        int exitCode = new CommandLine(new Main()).execute(args);
+        int exitCode = new CommandLine(new Main())
+                .setCaseInsensitiveEnumValuesAllowed(true)
+                .execute(args);
         System.exit(exitCode);
     }
 }
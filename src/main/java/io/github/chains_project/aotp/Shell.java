@@ -0,0 +1,310 @@
+package io.github.chains_project.aotp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import io.github.chains_project.aotp.analysis.ClassTable;
+import io.github.chains_project.aotp.analysis.ClassTable.Column;
+import io.github.chains_project.aotp.archive.AotArchive;
+import io.github.chains_project.aotp.archive.LayeredArchive;
+import io.github.chains_project.aotp.header.CDSFileMapRegion;
+import io.github.chains_project.aotp.header.FileMapHeader;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.KlassKind;
+import io.github.chains_project.aotp.scan.ClassFilter;
+import io.github.chains_project.aotp.scan.MemoryBudget;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Interactive mode: opens the archives once, scans each into a
+ * {@link ClassTable} and a sorted name index, and then answers one command per
+ * input line from those. Commands are parsed with picocli like the main
+ * command line; {@code help} lists them.
+ */
+@Command(name = "shell", description = "Open archives once and query them interactively.")
+public class Shell implements Callable<Integer> {
+
+    static final String PROMPT = "aotp> ";
+    private static final int MAX_COMPLETIONS = 50;
+
+    @Parameters(paramLabel = "FILE", arity = "1..*", description = "AOT cache files to open.")
+    List<String> archivePaths;
+
+    @Option(names = "--base-archive",
+            paramLabel = "PATH",
+            description = "Base archive of the dynamic archives, if not the one recorded in their headers.")
+    String baseArchivePath;
+
+    private final List<Session> sessions = new ArrayList<>();
+    private int current;
+
+    /**
+     * One opened archive with its warm indexes.
+     */
+    private record Session(String path, LayeredArchive archive, ClassTable table, String[] sortedNames,
+                           Map<String, Integer> rows) {
+
+        static Session open(String path, String baseArchivePath) throws IOException {
+            LayeredArchive archive = AotpApi.open(path, baseArchivePath);
+            try {
+                ClassTable table = AotpApi.loadClassTable(path, baseArchivePath, ClassFilter.all(),
+                        MemoryBudget.unbounded());
+                String[] names = new String[table.size()];
+                Map<String, Integer> rows = new HashMap<>(table.size() * 2);
+                for (int row = 0; row < table.size(); row++) {
+                    names[row] = table.name(row);
+                    rows.putIfAbsent(names[row], row);
+                }
+                Arrays.sort(names);
+                return new Session(path, archive, table, names, rows);
+            } catch (IOException | RuntimeException e) {
+                archive.close();
+                throw e;
+            }
+        }
+
+        int row(String name) {
+            return rows.getOrDefault(name.replace('.', '/'), -1);
+        }
+
+        /**
+         * Names starting with {@code prefix}, in order, at most {@code limit}.
+         */
+        List<String> complete(String prefix, int limit) {
+            String key = prefix.replace('.', '/');
+            int from = Arrays.binarySearch(sortedNames, key);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            List<String> matches = new ArrayList<>();
+            for (int i = from; i < sortedNames.length && matches.size() < limit
+                    && sortedNames[i].startsWith(key); i++) {
+                matches.add(sortedNames[i]);
+            }
+            return matches;
+        }
+    }
+
+    @Override
+    public Integer call() throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        PrintStream out = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        return run(in, out);
+    }
+
+    int run(BufferedReader in, PrintStream out) throws IOException {
+        try {
+            for (String path : archivePaths) {
+                long start = System.nanoTime();
+                Session session = Session.open(path, baseArchivePath);
+                sessions.add(session);
+                out.printf("[%d] %s: %d classes indexed in %d ms%n", sessions.size() - 1, path,
+                        session.table().size(), (System.nanoTime() - start) / 1_000_000);
+            }
+
+            PrintWriter writer = new PrintWriter(out, true);
+            CommandLine commands = new CommandLine(new Commands(out))
+                    .setCaseInsensitiveEnumValuesAllowed(true)
+                    .setOut(writer)
+                    .setErr(writer)
+                    .setExecutionExceptionHandler((e, commandLine, parseResult) -> {
+                        writer.println("Error: " + e.getMessage());
+                        return 1;
+                    });
+            String line;
+            while (true) {
+                out.print(PROMPT);
+                out.flush();
+                line = in.readLine();
+                if (line == null) {
+                    out.println();
+                    break;
+                }
+                String[] words = line.trim().split("\\s+");
+                if (words[0].isEmpty()) {
+                    continue;
+                }
+                if (words[0].equals("quit") || words[0].equals("exit")) {
+                    break;
+                }
+                commands.execute(words);
+            }
+            return 0;
+        } finally {
+            for (Session session : sessions) {
+                session.archive().close();
+            }
+            sessions.clear();
+        }
+    }
+
+    @Command(name = "",
+            synopsisHeading = "",
+            customSynopsis = "Usage: COMMAND [ARGS...]",
+            description = "Commands; class names may use '.' or '/'. Type 'quit' or 'exit' to leave.",
+            subcommands = CommandLine.HelpCommand.class)
+    final class Commands {
+
+        private final PrintStream out;
+
+        Commands(PrintStream out) {
+            this.out = out;
+        }
+
+        private Session session() {
+            return sessions.get(current);
+        }
+
+        @Command(name = "archives", description = "List the open archives; '*' marks the current one.")
+        void archives() {
+            for (int i = 0; i < sessions.size(); i++) {
+                Session session = sessions.get(i);
+                out.printf("%s[%d] %s (%d classes)%n", i == current ? "*" : " ", i, session.path(),
+                        session.table().size());
+            }
+        }
+
+        @Command(name = "use", description = "Make archive N the current one.")
+        int use(@Parameters(paramLabel = "N") int index) {
+            if (index < 0 || index >= sessions.size()) {
+                out.println("No archive " + index);
+                return 1;
+            }
+            current = index;
+            return 0;
+        }
+
+        @Command(name = "header", description = "Print the file map header.")
+        void header() throws IOException {
+            AotArchive top = session().archive().top();
+            FileMapHeader.print(top.genericHeader(), top.regions(), top.fileMapHeader(), out);
+        }
+
+        @Command(name = "find", description = "List classes matching a name prefix or glob (* and ?).")
+        void find(@Parameters(paramLabel = "PATTERN") String pattern) {
+            ClassTable table = session().table();
+            int[] rows = table.filter(table.all(), ClassFilter.all().withName(pattern.replace('.', '/')));
+            for (int row : rows) {
+                out.println(table.name(row));
+            }
+            out.printf("%d classes%n", rows.length);
+        }
+
+        @Command(name = "complete", description = "Complete a class name prefix from the index.")
+        void complete(@Parameters(paramLabel = "PREFIX") String prefix) {
+            List<String> matches = session().complete(prefix, MAX_COMPLETIONS + 1);
+            for (int i = 0; i < Math.min(matches.size(), MAX_COMPLETIONS); i++) {
+                out.println(matches.get(i));
+            }
+            if (matches.size() > MAX_COMPLETIONS) {
+                out.println("...");
+            }
+        }
+
+        @Command(name = "print", description = "Pretty print the fields of a class.")
+        int print(@Parameters(paramLabel = "CLASS") String className) throws IOException {
+            ClassEntry entry = lookup(className);
+            if (entry == null) {
+                return 1;
+            }
+            entry.print(out);
+            return 0;
+        }
+
+        @Command(name = "size", description = "Print the record size of classes.")
+        int size(@Parameters(paramLabel = "CLASS", arity = "1..*") List<String> classNames) throws IOException {
+            int status = 0;
+            for (String className : classNames) {
+                int row = session().row(className);
+                if (row >= 0) {
+                    out.printf("%s %d%n", session().table().name(row), session().table().get(Column.SIZE, row));
+                    continue;
+                }
+                ClassEntry entry = lookup(className);
+                if (entry == null) {
+                    status = 1;
+                } else {
+                    out.printf("%s %d%n", entry.getName(), entry.getSize());
+                }
+            }
+            return status;
+        }
+
+        @Command(name = "hierarchy", description = "Print the superclass chain of a class.")
+        int hierarchy(@Parameters(paramLabel = "CLASS") String className) throws IOException {
+            ClassEntry entry = lookup(className);
+            if (entry == null) {
+                return 1;
+            }
+            List<String> supers = session().archive().superclassNames(entry.address());
+            String indent = "";
+            for (int i = supers.size() - 1; i >= 0; i--) {
+                out.println(indent + supers.get(i));
+                indent += "  ";
+            }
+            out.println(indent + entry.getName());
+            return 0;
+        }
+
+        @Command(name = "resolve", description = "Tell which class or region an address (0x-prefixed hex "
+                + "or decimal) falls into.")
+        int resolve(@Parameters(paramLabel = "ADDRESS") String value) {
+            long address = Long.decode(value);
+            ClassTable table = session().table();
+            int row = table.rowContaining(address);
+            if (row >= 0) {
+                long offset = address - table.get(Column.ADDRESS, row);
+                out.printf("0x%x: %s %s+0x%x%n", address,
+                        KlassKind.of((int) table.get(Column.KIND, row)).hotspotName(), table.name(row), offset);
+                return 0;
+            }
+            LayeredArchive layered = session().archive();
+            for (AotArchive layer : layered.isLayered()
+                    ? List.of(layered.top(), layered.base()) : List.of(layered.top())) {
+                for (int i = 0; i < layer.regions().length; i++) {
+                    if (layer.inRegion(address, i)) {
+                        out.printf("0x%x: %s+0x%x in %s%n", address, CDSFileMapRegion.regionName(i),
+                                address - layer.regionStart(i), layer.path());
+                        return 0;
+                    }
+                }
+            }
+            out.printf("0x%x: not in the archive%n", address);
+            return 1;
+        }
+
+        /**
+         * Finds a class through the warm table, then the archive's own
+         * indexes; prints suggestions from the name index if neither has it.
+         */
+        private ClassEntry lookup(String className) throws IOException {
+            String name = className.replace('.', '/');
+            Session session = session();
+            int row = session.row(name);
+            ClassEntry entry = row >= 0
+                    ? session.archive().readKlass(session.table().get(Column.ADDRESS, row), name)
+                    : AotpApi.findClass(session.archive(), name);
+            if (entry == null) {
+                out.println("Class not found: " + className);
+                List<String> suggestions = session.complete(name, 5);
+                if (!suggestions.isEmpty()) {
+                    out.println("Did you mean: " + String.join(", ", suggestions));
+                }
+            }
+            return entry;
+        }
+    }
+}
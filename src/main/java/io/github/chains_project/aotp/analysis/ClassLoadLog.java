@@ -0,0 +1,161 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader of class loading logs, as written by
+ * {@code -Xlog:class+load} or {@code -verbose:class}:
+ *
+ * <pre>
+ * [0.012s][info][class,load] java.lang.Object source: shared objects file
+ * [0.345s][info][class,load] com.example.Main source: file:/app/app.jar
+ * </pre>
+ *
+ * and by JDK 8 {@code -verbose:class}:
+ *
+ * <pre>
+ * [Loaded java.lang.Object from shared objects file]
+ * </pre>
+ *
+ * The file is read in fixed-size chunks and split into lines on raw bytes;
+ * only the class name and source of matching lines are decoded. Other lines,
+ * including {@code class+load=debug} detail lines, are skipped.
+ */
+public final class ClassLoadLog {
+
+    /**
+     * One class load.
+     *
+     * @param name   internal class name ({@code java/lang/Object})
+     * @param source the source as logged, e.g. {@code shared objects file} or {@code jrt:/java.base}
+     */
+    public record Entry(String name, String source) {
+
+        /**
+         * True if the class was loaded from a CDS archive or AOT cache, static
+         * or dynamic ({@code shared objects file (top)}).
+         */
+        public boolean fromArchive() {
+            return source.startsWith(SHARED_SOURCE);
+        }
+    }
+
+    static final int CHUNK_SIZE = 1 << 20;
+
+    private static final String SHARED_SOURCE = "shared objects file";
+
+    private static final byte[] UNIFIED_TAG = "[class,load] ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] UNIFIED_SOURCE = " source: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LEGACY_PREFIX = "[Loaded ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LEGACY_SOURCE = " from ".getBytes(StandardCharsets.US_ASCII);
+
+    private ClassLoadLog() {}
+
+    /**
+     * Invokes {@code action} for every class load in {@code log}, in file order.
+     */
+    public static void read(Path log, Consumer<? super Entry> action) throws IOException {
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+            while (true) {
+                int read = channel.read(buffer);
+                byte[] bytes = buffer.array();
+                int end = buffer.position();
+                int lineStart = 0;
+                for (int i = 0; i < end; i++) {
+                    if (bytes[i] == '\n') {
+                        accept(bytes, lineStart, i, action);
+                        lineStart = i + 1;
+                    }
+                }
+                if (read < 0) {
+                    accept(bytes, lineStart, end, action);
+                    return;
+                }
+                // Keep the incomplete last line; grow if it fills the whole buffer
+                if (lineStart == 0 && end == buffer.capacity()) {
+                    ByteBuffer grown = ByteBuffer.allocate(buffer.capacity() * 2);
+                    buffer.flip();
+                    grown.put(buffer);
+                    buffer = grown;
+                } else {
+                    buffer.position(lineStart).limit(end);
+                    buffer.compact();
+                }
+            }
+        }
+    }
+
+    private static void accept(byte[] line, int from, int to, Consumer<? super Entry> action) {
+        Entry entry = parseLine(line, from, to);
+        if (entry != null) {
+            action.accept(entry);
+        }
+    }
+
+    /**
+     * Parses the line in {@code bytes[from, to)}, or returns null if it does
+     * not record a class load.
+     */
+    static Entry parseLine(byte[] bytes, int from, int to) {
+        if (to > from && bytes[to - 1] == '\r') {
+            to--;
+        }
+        int tag = indexOf(bytes, from, to, UNIFIED_TAG);
+        if (tag >= 0) {
+            int nameStart = tag + UNIFIED_TAG.length;
+            int separator = indexOf(bytes, nameStart, to, UNIFIED_SOURCE);
+            if (separator < 0) {
+                return null;
+            }
+            return entry(bytes, nameStart, separator, separator + UNIFIED_SOURCE.length, to);
+        }
+        if (startsWith(bytes, from, to, LEGACY_PREFIX)) {
+            int nameStart = from + LEGACY_PREFIX.length;
+            int separator = indexOf(bytes, nameStart, to, LEGACY_SOURCE);
+            if (separator < 0) {
+                return null;
+            }
+            int sourceEnd = bytes[to - 1] == ']' ? to - 1 : to;
+            return entry(bytes, nameStart, separator, separator + LEGACY_SOURCE.length, sourceEnd);
+        }
+        return null;
+    }
+
+    private static Entry entry(byte[] bytes, int nameStart, int nameEnd, int sourceStart, int sourceEnd) {
+        if (nameEnd <= nameStart) {
+            return null;
+        }
+        String name = new String(bytes, nameStart, nameEnd - nameStart, StandardCharsets.UTF_8).replace('.', '/');
+        String source = new String(bytes, sourceStart, Math.max(0, sourceEnd - sourceStart), StandardCharsets.UTF_8);
+        return new Entry(name, source);
+    }
+
+    private static boolean startsWith(byte[] bytes, int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[from + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] bytes, int from, int to, byte[] needle) {
+        byte first = needle[0];
+        for (int i = from; i <= to - needle.length; i++) {
+            if (bytes[i] == first && startsWith(bytes, i, to, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,407 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.InstanceClass;
+import io.github.chains_project.aotp.scan.ClassFilter;
+import io.github.chains_project.aotp.scan.RecordSink;
+import io.github.chains_project.aotp.utils.ByteReader;
+import io.github.chains_project.aotp.utils.LongCounterMap;
+
+/**
+ * The classes of an archive as a struct of arrays: one primitive array per
+ * {@link Column}, plus the UTF-8 names packed into a single byte array. A row
+ * costs about 45 bytes plus its name, against a few hundred for a parsed
+ * {@link ClassEntry}, and aggregations are plain loops over the arrays that
+ * allocate nothing per class.
+ *
+ * Rows are in scan order, which is address order within the RW region.
+ * Selections are sorted {@code int[]} row numbers, as returned by
+ * {@link #filter(Column, LongPredicate)}.
+ */
+public final class ClassTable {
+
+    /**
+     * The columns of the table. Every value reads as a {@code long}; the
+     * arrays behind them are as narrow as the HotSpot field.
+     */
+    public enum Column {
+        /** Mapped address of the klass record. */
+        ADDRESS,
+        /** Offset of the name symbol from {@link #baseAddress()}. */
+        NAME_SYMBOL,
+        /** Record size in bytes, as {@link ClassEntry#getSize()}. */
+        SIZE,
+        /** Raw {@code Klass::_kind}, see {@link io.github.chains_project.aotp.oops.klass.KlassKind#of(int)}. */
+        KIND,
+        SUPER_KLASS,
+        /** {@code _class_loader_data}. */
+        LOADER,
+        /** {@code InstanceKlass::_access_flags}. */
+        ACCESS_FLAGS,
+        /** {@code InstanceKlass::_misc_flags}. */
+        MISC_FLAGS,
+        VTABLE_LEN,
+        ITABLE_LEN
+    }
+
+    private final long baseAddress;
+    private final int size;
+    private final long[] address;
+    private final int[] nameSymbol;
+    private final int[] recordSize;
+    private final byte[] kind;
+    private final long[] superKlass;
+    private final long[] loader;
+    private final short[] accessFlags;
+    private final short[] miscFlags;
+    private final int[] vtableLen;
+    private final int[] itableLen;
+    private final int[] nameStart;
+    private final byte[] names;
+
+    ClassTable(long baseAddress, int size, long[] address, int[] nameSymbol, int[] recordSize, byte[] kind,
+               long[] superKlass, long[] loader, short[] accessFlags, short[] miscFlags, int[] vtableLen,
+               int[] itableLen, int[] nameStart, byte[] names) {
+        this.baseAddress = baseAddress;
+        this.size = size;
+        this.address = address;
+        this.nameSymbol = nameSymbol;
+        this.recordSize = recordSize;
+        this.kind = kind;
+        this.superKlass = superKlass;
+        this.loader = loader;
+        this.accessFlags = accessFlags;
+        this.miscFlags = miscFlags;
+        this.vtableLen = vtableLen;
+        this.itableLen = itableLen;
+        this.nameStart = nameStart;
+        this.names = names;
+    }
+
+    /**
+     * Number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Address that {@link Column#NAME_SYMBOL} offsets are relative to.
+     */
+    public long baseAddress() {
+        return baseAddress;
+    }
+
+    public long get(Column column, int row) {
+        return switch (column) {
+            case ADDRESS -> address[row];
+            case NAME_SYMBOL -> nameSymbol[row] & 0xFFFFFFFFL;
+            case SIZE -> recordSize[row];
+            case KIND -> kind[row] & 0xFF;
+            case SUPER_KLASS -> superKlass[row];
+            case LOADER -> loader[row];
+            case ACCESS_FLAGS -> accessFlags[row] & 0xFFFF;
+            case MISC_FLAGS -> miscFlags[row] & 0xFFFF;
+            case VTABLE_LEN -> vtableLen[row];
+            case ITABLE_LEN -> itableLen[row];
+        };
+    }
+
+    /**
+     * Decodes the name of {@code row}; this is the only accessor that allocates.
+     */
+    public String name(int row) {
+        return new String(names, nameStart[row], nameStart[row + 1] - nameStart[row], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * True if the UTF-8 name of {@code row} starts with {@code prefix}.
+     */
+    public boolean nameStartsWith(int row, byte[] prefix) {
+        int start = nameStart[row];
+        if (nameStart[row + 1] - start < prefix.length) {
+            return false;
+        }
+        return Arrays.equals(names, start, start + prefix.length, prefix, 0, prefix.length);
+    }
+
+    /**
+     * Row of the class whose record starts at {@code recordAddress}, or -1.
+     * Rows are in address order, so this is a binary search.
+     */
+    public int rowOf(long recordAddress) {
+        int row = Arrays.binarySearch(address, 0, size, recordAddress);
+        return row >= 0 ? row : -1;
+    }
+
+    /**
+     * Row of the class whose record contains {@code address}, or -1.
+     */
+    public int rowContaining(long address) {
+        int row = Arrays.binarySearch(this.address, 0, size, address);
+        if (row < 0) {
+            row = -row - 2;
+        }
+        return row >= 0 && address - this.address[row] < recordSize[row] ? row : -1;
+    }
+
+    /**
+     * Row of the class named {@code internalName}, or -1.
+     */
+    public int rowOf(String internalName) {
+        byte[] utf8 = internalName.getBytes(StandardCharsets.UTF_8);
+        for (int row = 0; row < size; row++) {
+            int start = nameStart[row];
+            if (Arrays.equals(names, start, nameStart[row + 1], utf8, 0, utf8.length)) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Sum of {@code column} over all rows.
+     */
+    public long sum(Column column) {
+        return switch (column) {
+            case ADDRESS -> sum(address, size);
+            case SUPER_KLASS -> sum(superKlass, size);
+            case LOADER -> sum(loader, size);
+            case SIZE -> sum(recordSize, size);
+            case VTABLE_LEN -> sum(vtableLen, size);
+            case ITABLE_LEN -> sum(itableLen, size);
+            default -> sum(column, all());
+        };
+    }
+
+    /**
+     * Sum of {@code column} over the selected rows.
+     */
+    public long sum(Column column, int[] rows) {
+        long total = 0;
+        for (int row : rows) {
+            total += get(column, row);
+        }
+        return total;
+    }
+
+    /**
+     * All row numbers, for use as a selection.
+     */
+    public int[] all() {
+        int[] rows = new int[size];
+        Arrays.setAll(rows, i -> i);
+        return rows;
+    }
+
+    /**
+     * Rows whose {@code column} value matches {@code predicate}.
+     */
+    public int[] filter(Column column, LongPredicate predicate) {
+        return filter(all(), column, predicate);
+    }
+
+    /**
+     * The rows of {@code rows} whose {@code column} value matches {@code predicate}.
+     */
+    public int[] filter(int[] rows, Column column, LongPredicate predicate) {
+        int[] selected = new int[rows.length];
+        int count = 0;
+        for (int row : rows) {
+            if (predicate.test(get(column, row))) {
+                selected[count++] = row;
+            }
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * The rows of {@code rows} whose name starts with {@code prefix}.
+     */
+    public int[] filterByNamePrefix(int[] rows, String prefix) {
+        byte[] utf8 = prefix.getBytes(StandardCharsets.UTF_8);
+        int[] selected = new int[rows.length];
+        int count = 0;
+        for (int row : rows) {
+            if (nameStartsWith(row, utf8)) {
+                selected[count++] = row;
+            }
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * The rows of {@code rows} that {@code filter} accepts. Names are only
+     * decoded for rows that pass the other checks.
+     */
+    public int[] filter(int[] rows, ClassFilter filter) {
+        int[] selected = new int[rows.length];
+        int count = 0;
+        for (int row : rows) {
+            if (filter.matchesFields((int) get(Column.KIND, row), loader[row], accessFlags[row] & 0xFFFF,
+                    recordSize[row])
+                    && filter.matchesName(names, nameStart[row], nameStart[row + 1] - nameStart[row])
+                    && (!filter.hasNameGlob() || filter.matchesName(name(row)))) {
+                selected[count++] = row;
+            }
+        }
+        return Arrays.copyOf(selected, count);
+    }
+
+    /**
+     * A new table holding only {@code rows}, in the given order.
+     */
+    public ClassTable select(int[] rows) {
+        Builder builder = new Builder(baseAddress);
+        for (int row : rows) {
+            builder.add(this, row);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Groups the selected rows by {@code key} and, per group, counts the rows
+     * and sums {@code value}; the sums are the map's byte totals.
+     */
+    public LongCounterMap groupBy(int[] rows, Column key, Column value) {
+        LongCounterMap groups = new LongCounterMap();
+        for (int row : rows) {
+            groups.add(get(key, row), 1, get(value, row));
+        }
+        return groups;
+    }
+
+    /**
+     * {@link #groupBy(int[], Column, Column)} over all rows.
+     */
+    public LongCounterMap groupBy(Column key, Column value) {
+        return groupBy(all(), key, value);
+    }
+
+    byte[] nameData() {
+        return names;
+    }
+
+    int nameStart(int row) {
+        return nameStart[row];
+    }
+
+    private static long sum(long[] values, int count) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+
+    private static long sum(int[] values, int count) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+
+    /**
+     * Appends the rows of the records a {@code KlassScanner} accepts, reading
+     * each column straight from the record bytes.
+     */
+    public static final class Builder implements RecordSink {
+
+        private static final int INITIAL_ROWS = 1024;
+
+        private final long baseAddress;
+        private int size;
+        private long[] address = new long[INITIAL_ROWS];
+        private int[] nameSymbol = new int[INITIAL_ROWS];
+        private int[] recordSize = new int[INITIAL_ROWS];
+        private byte[] kind = new byte[INITIAL_ROWS];
+        private long[] superKlass = new long[INITIAL_ROWS];
+        private long[] loader = new long[INITIAL_ROWS];
+        private short[] accessFlags = new short[INITIAL_ROWS];
+        private short[] miscFlags = new short[INITIAL_ROWS];
+        private int[] vtableLen = new int[INITIAL_ROWS];
+        private int[] itableLen = new int[INITIAL_ROWS];
+        private int[] nameStart = new int[INITIAL_ROWS + 1];
+        private byte[] names = new byte[INITIAL_ROWS * 32];
+
+        /**
+         * @param baseAddress address that name symbol offsets are taken from,
+         *                    normally the requested base address of the archive
+         */
+        public Builder(long baseAddress) {
+            this.baseAddress = baseAddress;
+        }
+
+        @Override
+        public void accept(byte[] bytes, int offset, long recordAddress, byte[] name) {
+            if (size == address.length) {
+                grow(size * 2);
+            }
+            int row = size++;
+            address[row] = recordAddress;
+            nameSymbol[row] = (int) (ByteReader.readLongLE(bytes, offset + ClassEntry.NAME_OFFSET) - baseAddress);
+            recordSize[row] = (int) InstanceClass.recordSize(bytes, offset);
+            kind[row] = (byte) ByteReader.readShortLE(bytes, offset + ClassEntry.KIND_OFFSET);
+            superKlass[row] = ByteReader.readLongLE(bytes, offset + ClassEntry.SUPER_KLASS_OFFSET);
+            loader[row] = ByteReader.readLongLE(bytes, offset + ClassEntry.CLASS_LOADER_DATA_OFFSET);
+            accessFlags[row] = ByteReader.readShortLE(bytes, offset + InstanceClass.ACCESS_FLAGS_OFFSET);
+            miscFlags[row] = ByteReader.readShortLE(bytes, offset + InstanceClass.MISC_FLAGS_OFFSET);
+            vtableLen[row] = ByteReader.readIntLE(bytes, offset + ClassEntry.VTABLE_LEN_OFFSET);
+            itableLen[row] = ByteReader.readIntLE(bytes, offset + InstanceClass.ITABLE_LEN_OFFSET);
+            appendName(name, 0, name.length);
+        }
+
+        void add(ClassTable table, int row) {
+            if (size == address.length) {
+                grow(size * 2);
+            }
+            int to = size++;
+            address[to] = table.address[row];
+            nameSymbol[to] = table.nameSymbol[row];
+            recordSize[to] = table.recordSize[row];
+            kind[to] = table.kind[row];
+            superKlass[to] = table.superKlass[row];
+            loader[to] = table.loader[row];
+            accessFlags[to] = table.accessFlags[row];
+            miscFlags[to] = table.miscFlags[row];
+            vtableLen[to] = table.vtableLen[row];
+            itableLen[to] = table.itableLen[row];
+            appendName(table.names, table.nameStart[row], table.nameStart[row + 1] - table.nameStart[row]);
+        }
+
+        private void appendName(byte[] name, int offset, int length) {
+            int start = nameStart[size - 1];
+            if (start + length > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, start + length));
+            }
+            System.arraycopy(name, offset, names, start, length);
+            nameStart[size] = start + length;
+        }
+
+        public ClassTable build() {
+            grow(size);
+            return new ClassTable(baseAddress, size, address, nameSymbol, recordSize, kind, superKlass, loader,
+                    accessFlags, miscFlags, vtableLen, itableLen, nameStart,
+                    Arrays.copyOf(names, nameStart[size]));
+        }
+
+        private void grow(int rows) {
+            address = Arrays.copyOf(address, rows);
+            nameSymbol = Arrays.copyOf(nameSymbol, rows);
+            recordSize = Arrays.copyOf(recordSize, rows);
+            kind = Arrays.copyOf(kind, rows);
+            superKlass = Arrays.copyOf(superKlass, rows);
+            loader = Arrays.copyOf(loader, rows);
+            accessFlags = Arrays.copyOf(accessFlags, rows);
+            miscFlags = Arrays.copyOf(miscFlags, rows);
+            vtableLen = Arrays.copyOf(vtableLen, rows);
+            itableLen = Arrays.copyOf(itableLen, rows);
+            nameStart = Arrays.copyOf(nameStart, rows + 1);
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import io.github.chains_project.aotp.analysis.ClassTable.Column;
+
+/**
+ * Compact, self-describing columnar file format for a {@link ClassTable}, so
+ * scan results outlive the archive they came from.
+ *
+ * All fixed-size fields are little-endian. Integers inside the column data are
+ * unsigned LEB128 varints; signed values are zigzag encoded first.
+ *
+ * <pre>
+ * magic     "AOCT"
+ * version   u2
+ * flags     u2            bit 0: column data is deflated
+ * rows      u4
+ * base      u8            ClassTable.baseAddress()
+ * columns   u4
+ * directory, per column:
+ *   name      u1 len, ascii[len]   a {@link Column} name, or "NAME"
+ *   encoding  u1
+ *   offset    u8                   file offset of the column data
+ *   stored    u4                   bytes in the file
+ *   length    u4                   bytes after inflating
+ * column data
+ * </pre>
+ *
+ * Encodings:
+ * <pre>
+ * VARINT     0  zigzag:varint per row
+ * DELTA      1  zigzag:varint of the difference to the previous row
+ * DICTIONARY 2  packages:varint (len:varint utf8[len])[packages],
+ *               then per row package:varint len:varint utf8[len]
+ * </pre>
+ *
+ * The names are dictionary encoded by package: a row stores the index of
+ * everything up to its last {@code '/'} and the rest of the name. Addresses
+ * and name symbol offsets grow with the row, so their deltas take a byte or
+ * two. Readers skip columns they do not know and read missing ones as zero.
+ */
+public final class ClassTableFile {
+
+    static final byte[] MAGIC = { 'A', 'O', 'C', 'T' };
+    static final short VERSION = 1;
+    static final int FLAG_DEFLATED = 1;
+
+    static final int VARINT = 0;
+    static final int DELTA = 1;
+    static final int DICTIONARY = 2;
+
+    private static final String NAME_COLUMN = "NAME";
+    private static final int HEADER_SIZE = 24;
+    // name length byte, name, encoding, offset, stored, length
+    private static final int DIRECTORY_ENTRY_SIZE = 1 + 1 + 8 + 4 + 4;
+
+    private ClassTableFile() {}
+
+    /**
+     * True if {@code file} starts with the magic of this format.
+     */
+    public static boolean isTableFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // keep reading
+            }
+            return !magic.hasRemaining() && Arrays.equals(magic.array(), MAGIC);
+        }
+    }
+
+    /**
+     * Writes {@code table} to {@code file}, replacing it.
+     *
+     * @param deflate compress each column with {@link Deflater}
+     */
+    public static void write(ClassTable table, Path file, boolean deflate) throws IOException {
+        List<String> names = new ArrayList<>();
+        List<Integer> encodings = new ArrayList<>();
+        List<byte[]> encoded = new ArrayList<>();
+        for (Column column : Column.values()) {
+            int encoding = isDeltaEncoded(column) ? DELTA : VARINT;
+            names.add(column.name());
+            encodings.add(encoding);
+            encoded.add(encodeColumn(table, column, encoding == DELTA));
+        }
+        names.add(NAME_COLUMN);
+        encodings.add(DICTIONARY);
+        encoded.add(encodeNames(table));
+
+        List<byte[]> stored = new ArrayList<>();
+        for (byte[] data : encoded) {
+            stored.add(deflate ? deflate(data) : data);
+        }
+
+        int directorySize = 0;
+        for (String name : names) {
+            directorySize += DIRECTORY_ENTRY_SIZE + name.length();
+        }
+        ByteBuffer head = ByteBuffer.allocate(HEADER_SIZE + directorySize).order(ByteOrder.LITTLE_ENDIAN);
+        head.put(MAGIC).putShort(VERSION).putShort((short) (deflate ? FLAG_DEFLATED : 0))
+                .putInt(table.size()).putLong(table.baseAddress()).putInt(names.size());
+        long offset = head.capacity();
+        for (int i = 0; i < names.size(); i++) {
+            byte[] name = names.get(i).getBytes(StandardCharsets.US_ASCII);
+            head.put((byte) name.length).put(name).put((byte) (int) encodings.get(i))
+                    .putLong(offset).putInt(stored.get(i).length).putInt(encoded.get(i).length);
+            offset += stored.get(i).length;
+        }
+        head.flip();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, head);
+            for (byte[] data : stored) {
+                writeFully(channel, ByteBuffer.wrap(data));
+            }
+        }
+    }
+
+    /**
+     * Reads a table written by {@link #write}. The file is memory-mapped and
+     * each column is decoded straight from the mapping into its array.
+     *
+     * @throws IOException if the file is not a class table or is corrupt
+     */
+    public static ClassTable read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("Not a class table file: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(mapped.order(ByteOrder.LITTLE_ENDIAN), file);
+        }
+    }
+
+    private static ClassTable read(ByteBuffer buffer, Path file) throws IOException {
+        try {
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a class table file: " + file);
+            }
+            int version = buffer.getShort() & 0xFFFF;
+            if (version != VERSION) {
+                throw new IOException("Unsupported class table version " + version + ": " + file);
+            }
+            boolean deflated = (buffer.getShort() & FLAG_DEFLATED) != 0;
+            int rows = buffer.getInt();
+            long baseAddress = buffer.getLong();
+            int columnCount = buffer.getInt();
+
+            Map<String, ByteBuffer> columns = new HashMap<>();
+            Map<String, Integer> encodings = new HashMap<>();
+            for (int i = 0; i < columnCount; i++) {
+                byte[] name = new byte[buffer.get() & 0xFF];
+                buffer.get(name);
+                int encoding = buffer.get() & 0xFF;
+                long offset = buffer.getLong();
+                int stored = buffer.getInt();
+                int length = buffer.getInt();
+                if (offset < 0 || offset + stored > buffer.limit()) {
+                    throw new IOException("Column extends past the end of the file: " + file);
+                }
+                ByteBuffer data = buffer.slice((int) offset, stored).order(ByteOrder.LITTLE_ENDIAN);
+                String key = new String(name, StandardCharsets.US_ASCII);
+                columns.put(key, deflated ? inflate(data, length) : data);
+                encodings.put(key, encoding);
+            }
+
+            long[][] values = new long[Column.values().length][];
+            for (Column column : Column.values()) {
+                ByteBuffer data = columns.get(column.name());
+                values[column.ordinal()] = data == null
+                        ? new long[rows]
+                        : decodeColumn(data, rows, encodings.get(column.name()) == DELTA);
+            }
+            int[] nameStart = new int[rows + 1];
+            byte[] names = columns.containsKey(NAME_COLUMN)
+                    ? decodeNames(columns.get(NAME_COLUMN), rows, nameStart)
+                    : new byte[0];
+
+            return new ClassTable(baseAddress, rows,
+                    values[Column.ADDRESS.ordinal()],
+                    toInts(values[Column.NAME_SYMBOL.ordinal()]),
+                    toInts(values[Column.SIZE.ordinal()]),
+                    toBytes(values[Column.KIND.ordinal()]),
+                    values[Column.SUPER_KLASS.ordinal()],
+                    values[Column.LOADER.ordinal()],
+                    toShorts(values[Column.ACCESS_FLAGS.ordinal()]),
+                    toShorts(values[Column.MISC_FLAGS.ordinal()]),
+                    toInts(values[Column.VTABLE_LEN.ordinal()]),
+                    toInts(values[Column.ITABLE_LEN.ordinal()]),
+                    nameStart, names);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, IndexOutOfBoundsException, ...
+            throw new IOException("Corrupt class table file: " + file, e);
+        }
+    }
+
+    // Columns whose consecutive values are close: growing addresses and offsets,
+    // runs of the same loader, superclasses near their subclasses
+    private static boolean isDeltaEncoded(Column column) {
+        return column == Column.ADDRESS || column == Column.NAME_SYMBOL
+                || column == Column.SUPER_KLASS || column == Column.LOADER;
+    }
+
+    private static byte[] encodeColumn(ClassTable table, Column column, boolean delta) {
+        VarIntBuffer out = new VarIntBuffer(table.size() * 2);
+        long previous = 0;
+        for (int row = 0; row < table.size(); row++) {
+            long value = table.get(column, row);
+            out.putSigned(delta ? value - previous : value);
+            previous = value;
+        }
+        return out.toByteArray();
+    }
+
+    private static long[] decodeColumn(ByteBuffer data, int rows, boolean delta) {
+        long[] values = new long[rows];
+        long previous = 0;
+        for (int row = 0; row < rows; row++) {
+            long value = getSigned(data);
+            if (delta) {
+                value += previous;
+            }
+            values[row] = value;
+            previous = value;
+        }
+        return values;
+    }
+
+    private static byte[] encodeNames(ClassTable table) {
+        byte[] names = table.nameData();
+        Map<String, Integer> packages = new HashMap<>();
+        List<byte[]> packageNames = new ArrayList<>();
+        VarIntBuffer rows = new VarIntBuffer(names.length / 2 + 16);
+        for (int row = 0; row < table.size(); row++) {
+            int start = table.nameStart(row);
+            int end = table.nameStart(row + 1);
+            int split = start;
+            for (int i = start; i < end; i++) {
+                if (names[i] == '/') {
+                    split = i + 1;
+                }
+            }
+            String pkg = new String(names, start, split - start, StandardCharsets.ISO_8859_1);
+            Integer id = packages.get(pkg);
+            if (id == null) {
+                id = packageNames.size();
+                packages.put(pkg, id);
+                packageNames.add(Arrays.copyOfRange(names, start, split));
+            }
+            rows.putUnsigned(id);
+            rows.putUnsigned(end - split);
+            rows.put(names, split, end - split);
+        }
+        VarIntBuffer out = new VarIntBuffer(rows.size() + packageNames.size() * 24);
+        out.putUnsigned(packageNames.size());
+        for (byte[] pkg : packageNames) {
+            out.putUnsigned(pkg.length);
+            out.put(pkg, 0, pkg.length);
+        }
+        out.put(rows.bytes, 0, rows.size());
+        return out.toByteArray();
+    }
+
+    private static byte[] decodeNames(ByteBuffer data, int rows, int[] nameStart) {
+        byte[][] packages = new byte[(int) getUnsigned(data)][];
+        for (int i = 0; i < packages.length; i++) {
+            packages[i] = new byte[(int) getUnsigned(data)];
+            data.get(packages[i]);
+        }
+        byte[] names = new byte[Math.max(16, data.remaining() * 2)];
+        int position = 0;
+        for (int row = 0; row < rows; row++) {
+            byte[] pkg = packages[(int) getUnsigned(data)];
+            int length = (int) getUnsigned(data);
+            if (position + pkg.length + length > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, position + pkg.length + length));
+            }
+            System.arraycopy(pkg, 0, names, position, pkg.length);
+            data.get(names, position + pkg.length, length);
+            nameStart[row] = position;
+            position += pkg.length + length;
+        }
+        nameStart[rows] = position;
+        return Arrays.copyOf(names, position);
+    }
+
+    private static byte[] deflate(byte[] data) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] out = new byte[Math.max(64, data.length / 2)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                length += deflater.deflate(out, length, out.length - length);
+            }
+            return Arrays.copyOf(out, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static ByteBuffer inflate(ByteBuffer data, int length) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] out = new byte[length];
+            int position = 0;
+            while (position < length && !inflater.finished()) {
+                int n = inflater.inflate(out, position, length - position);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                position += n;
+            }
+            if (position != length) {
+                throw new IOException("Column inflates to " + position + " bytes, expected " + length);
+            }
+            return ByteBuffer.wrap(out).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt deflated column", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long getUnsigned(ByteBuffer data) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = data.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    private static long getSigned(ByteBuffer data) {
+        long zigzag = getUnsigned(data);
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    private static int[] toInts(long[] values) {
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (int) values[i];
+        }
+        return result;
+    }
+
+    private static short[] toShorts(long[] values) {
+        short[] result = new short[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (short) values[i];
+        }
+        return result;
+    }
+
+    private static byte[] toBytes(long[] values) {
+        byte[] result = new byte[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = (byte) values[i];
+        }
+        return result;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Growable byte array with varint writers.
+     */
+    private static final class VarIntBuffer {
+
+        private byte[] bytes;
+        private int size;
+
+        VarIntBuffer(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void putUnsigned(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void putSigned(long value) {
+            putUnsigned((value << 1) ^ (value >> 63));
+        }
+
+        void put(byte[] data, int offset, int length) {
+            ensure(length);
+            System.arraycopy(data, offset, bytes, size, length);
+            size += length;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import io.github.chains_project.aotp.oops.klass.ClassState;
+import io.github.chains_project.aotp.oops.klass.LoaderType;
+
+/**
+ * Streaming aggregation of the classes recorded in an AOTConfiguration file:
+ * counts and bytes by builtin loader and by linking state, and the share of
+ * klass bytes expected to carry over into the AOT cache. Like
+ * {@link FootprintAnalyzer}, only counters are retained.
+ */
+public final class ConfigurationAnalyzer implements Consumer<ConfiguredClass> {
+
+    private static final String ARRAY_ROW = "<array>";
+
+    private static final LoaderType[] LOADERS = LoaderType.values();
+    private static final ClassState[] STATES = ClassState.values();
+
+    // Indexed by ordinal; the extra last slot holds array classes
+    private final long[] loaderCounts = new long[LOADERS.length + 1];
+    private final long[] loaderBytes = new long[LOADERS.length + 1];
+    private final long[] stateCounts = new long[STATES.length + 1];
+    private final long[] stateBytes = new long[STATES.length + 1];
+    private long classCount;
+    private long totalBytes;
+    private long linkedCount;
+    private long excludedCount;
+    private long excludedBytes;
+
+    @Override
+    public void accept(ConfiguredClass configured) {
+        int size = configured.size();
+        classCount++;
+        totalBytes += size;
+
+        int loader = configured.loader() == null ? LOADERS.length : configured.loader().ordinal();
+        loaderCounts[loader]++;
+        loaderBytes[loader] += size;
+        int state = configured.state() == null ? STATES.length : configured.state().ordinal();
+        stateCounts[state]++;
+        stateBytes[state] += size;
+
+        if (configured.state() != null && configured.state().isLinked()) {
+            linkedCount++;
+        }
+        if (!configured.isExpectedInCache()) {
+            excludedCount++;
+            excludedBytes += size;
+        }
+    }
+
+    /**
+     * @param metadataBytes bytes used by the rw and ro regions of the
+     *                      configuration file; the cache size is predicted by
+     *                      scaling them by the share of klass bytes expected to
+     *                      carry over
+     */
+    public ConfigurationReport report(long metadataBytes) {
+        List<FootprintRow> loaders = new ArrayList<>();
+        for (int i = 0; i <= LOADERS.length; i++) {
+            if (loaderCounts[i] > 0) {
+                loaders.add(new FootprintRow(i == LOADERS.length ? ARRAY_ROW : LOADERS[i].label(),
+                        loaderCounts[i], loaderBytes[i]));
+            }
+        }
+        List<FootprintRow> states = new ArrayList<>();
+        for (int i = 0; i <= STATES.length; i++) {
+            if (stateCounts[i] > 0) {
+                states.add(new FootprintRow(i == STATES.length ? ARRAY_ROW : STATES[i].hotspotName(),
+                        stateCounts[i], stateBytes[i]));
+            }
+        }
+        long predicted = totalBytes == 0
+                ? 0
+                : Math.round(metadataBytes * ((double) (totalBytes - excludedBytes) / totalBytes));
+        return new ConfigurationReport(classCount, totalBytes, loaders, states, linkedCount,
+                excludedCount, excludedBytes, metadataBytes, predicted);
+    }
+}
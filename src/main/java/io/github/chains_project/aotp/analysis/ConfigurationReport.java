@@ -0,0 +1,63 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.io.IOException;
+import java.util.List;
+
+import io.github.chains_project.aotp.output.RecordWriter;
+
+/**
+ * Result of a {@link ConfigurationAnalyzer} run.
+ *
+ * @param linkedCount         classes that were linked during training
+ * @param excludedCount       classes not expected in the AOT cache, see
+ *                            {@link ConfiguredClass#isExpectedInCache()}
+ * @param metadataBytes       rw + ro bytes of the configuration file
+ * @param predictedCacheBytes estimated rw + ro bytes of the AOT cache created
+ *                            from the configuration
+ */
+public record ConfigurationReport(long classCount,
+                                  long totalBytes,
+                                  List<FootprintRow> loaders,
+                                  List<FootprintRow> states,
+                                  long linkedCount,
+                                  long excludedCount,
+                                  long excludedBytes,
+                                  long metadataBytes,
+                                  long predictedCacheBytes) {
+
+    public long predictedClassCount() {
+        return classCount - excludedCount;
+    }
+
+    public void print(Appendable st) throws IOException {
+        st.append(String.format("classes: %d  bytes: %d  linked: %d%n", classCount, totalBytes, linkedCount));
+        printTable(st, "loader", loaders);
+        printTable(st, "state", states);
+        st.append("============ predicted AOT cache ============\n");
+        st.append(String.format("classes:          %d (%d excluded, %d bytes)%n", predictedClassCount(),
+                excludedCount, excludedBytes));
+        st.append(String.format("metadata bytes:   %d (configuration: %d)%n", predictedCacheBytes, metadataBytes));
+    }
+
+    public void write(RecordWriter out) throws IOException {
+        out.begin("configuration_summary");
+        out.field("classes", classCount);
+        out.field("bytes", totalBytes);
+        out.field("linked", linkedCount);
+        out.field("excluded", excludedCount);
+        out.field("excluded_bytes", excludedBytes);
+        out.field("metadata_bytes", metadataBytes);
+        out.field("predicted_classes", predictedClassCount());
+        out.field("predicted_metadata_bytes", predictedCacheBytes);
+        out.end();
+    }
+
+    private void printTable(Appendable st, String title, List<FootprintRow> rows) throws IOException {
+        st.append(String.format("============ by %s ============%n", title));
+        st.append(String.format("%-24s %10s %14s %7s%n", title, "classes", "bytes", "share"));
+        for (FootprintRow row : rows) {
+            double share = totalBytes == 0 ? 0 : 100.0 * row.bytes() / totalBytes;
+            st.append(String.format("%-24s %10d %14d %6.2f%%%n", row.key(), row.count(), row.bytes(), share));
+        }
+    }
+}
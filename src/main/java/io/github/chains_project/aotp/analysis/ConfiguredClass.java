@@ -0,0 +1,42 @@
+package io.github.chains_project.aotp.analysis;
+
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.ClassState;
+import io.github.chains_project.aotp.oops.klass.InstanceClass;
+import io.github.chains_project.aotp.oops.klass.KlassKind;
+import io.github.chains_project.aotp.oops.klass.LoaderType;
+
+/**
+ * A class recorded in an AOTConfiguration file by a training run.
+ *
+ * @param loader        the builtin loader, or null for array classes
+ * @param state         the state the class reached during training, or null for array classes
+ * @param loadingFailed true if HotSpot marked the class as failing to load from
+ *                      the archive; such classes are left out of the AOT cache
+ */
+public record ConfiguredClass(String name,
+                              KlassKind kind,
+                              LoaderType loader,
+                              ClassState state,
+                              boolean loadingFailed,
+                              int size) {
+
+    public static ConfiguredClass of(ClassEntry entry) {
+        KlassKind kind = KlassKind.of(entry.kind);
+        if (kind.isArray() || !(entry instanceof InstanceClass ik)) {
+            return new ConfiguredClass(entry.getName(), kind, null, null, false, entry.getSize());
+        }
+        return new ConfiguredClass(entry.getName(), kind, ik.loaderType(), ik.classState(),
+                ik.sharedLoadingFailed(), entry.getSize());
+    }
+
+    /**
+     * True if the class is expected in the AOT cache created from the
+     * configuration: it loaded from the archive and did not fail initialization.
+     * Classes that were only loaded during training are linked when the cache is
+     * created, so they are expected too.
+     */
+    public boolean isExpectedInCache() {
+        return !loadingFailed && state != ClassState.INITIALIZATION_ERROR;
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.utils.ByteReader;
+import io.github.chains_project.aotp.utils.ContentHashTable;
+
+/**
+ * Streaming content deduplication of klass records and symbols across
+ * archives. Each record is reduced to a 64-bit content hash as it is scanned;
+ * only a {@link ContentHashTable} entry per distinct content is retained.
+ *
+ * Klass records are hashed after every pointer-sized word that points into the
+ * archive is rewritten as an offset from the requested base address, so the
+ * same class laid out at the same offset hashes the same in every archive. The
+ * name pointer is replaced by the hash of the name itself: two classes must not
+ * match just because their names sit at the same offset.
+ * Symbols are hashed by their UTF-8 body; the refcount in their header varies
+ * between dumps and is left out.
+ */
+public final class DedupAnalyzer {
+
+    // Symbol format: hash_and_refcount (4 bytes), length (2 bytes), body[length]; word aligned
+    private static final int SYMBOL_HEADER_SIZE = 6;
+
+    private final ContentHashTable klasses = new ContentHashTable();
+    private final ContentHashTable symbols = new ContentHashTable();
+    private final List<String> archives = new ArrayList<>();
+
+    /**
+     * Starts the next archive and returns its index.
+     *
+     * @throws IllegalArgumentException if more than {@link ContentHashTable#MAX_SOURCES} archives are added
+     */
+    public int beginArchive(String name) {
+        if (archives.size() >= ContentHashTable.MAX_SOURCES) {
+            throw new IllegalArgumentException("At most " + ContentHashTable.MAX_SOURCES + " archives can be compared");
+        }
+        archives.add(name);
+        return archives.size() - 1;
+    }
+
+    /**
+     * Adds the klass record in {@code bytes[offset, offset + length)}. Words in
+     * {@code [base, end)} are treated as pointers into the archive. The record
+     * is hashed where it is, as if normalized, and left unchanged.
+     *
+     * @param name the UTF-8 class name, or null to hash the name pointer like any other
+     */
+    public void addKlass(int archive, byte[] bytes, int offset, int length, long base, long end, byte[] name) {
+        long h = seed(length);
+        int i = 0;
+        for (; i + 8 <= length; i += 8) {
+            long word;
+            if (name != null && i == ClassEntry.NAME_OFFSET) {
+                word = hash(name, 0, name.length);
+            } else {
+                word = ByteReader.readLongLE(bytes, offset + i);
+                if (word >= base && word < end) {
+                    word -= base;
+                }
+            }
+            h = mix(h ^ word);
+        }
+        klasses.add(tail(h, bytes, offset + i, offset + length), archive, length);
+    }
+
+    /**
+     * Adds a symbol with the given UTF-8 body.
+     */
+    public void addSymbol(int archive, byte[] body) {
+        int size = (SYMBOL_HEADER_SIZE + body.length + 7) & ~7;
+        symbols.add(hash(body, 0, body.length), archive, size);
+    }
+
+    public DedupReport report() {
+        return new DedupReport(List.copyOf(archives), section(klasses), section(symbols));
+    }
+
+    private static final class Totals {
+        long distinctCount;
+        long totalBytes;
+        long distinctBytes;
+        long sharedBytes;
+        long commonBytes;
+        long savingsBytes;
+    }
+
+    private DedupReport.Section section(ContentHashTable table) {
+        int archiveCount = archives.size();
+        long allArchives = archiveCount == ContentHashTable.MAX_SOURCES ? -1L : (1L << archiveCount) - 1;
+        Totals totals = new Totals();
+        table.forEach((hash, sources, size, copies) -> {
+            int present = Long.bitCount(sources);
+            totals.distinctCount++;
+            totals.totalBytes += (long) size * copies;
+            totals.distinctBytes += size;
+            if (present >= 2) {
+                totals.sharedBytes += size;
+                // A base archive keeps one copy instead of one per archive
+                totals.savingsBytes += (long) (present - 1) * size;
+            }
+            if (sources == allArchives) {
+                totals.commonBytes += size;
+            }
+        });
+        long baseSavings = archiveCount < 2 ? 0 : (archiveCount - 1) * totals.commonBytes;
+        return new DedupReport.Section(totals.distinctCount, totals.totalBytes, totals.distinctBytes,
+                totals.sharedBytes, totals.commonBytes, totals.savingsBytes, baseSavings);
+    }
+
+    /**
+     * 64-bit content hash: a multiply-xorshift over little-endian words, then the tail.
+     */
+    static long hash(byte[] bytes, int offset, int length) {
+        long h = seed(length);
+        int i = offset;
+        int end = offset + length;
+        for (; i + 8 <= end; i += 8) {
+            h = mix(h ^ ByteReader.readLongLE(bytes, i));
+        }
+        return tail(h, bytes, i, end);
+    }
+
+    private static long seed(int length) {
+        return 0x9E3779B97F4A7C15L ^ length;
+    }
+
+    /**
+     * Mixes the bytes {@code [from, end)}, fewer than a word, into {@code h}.
+     */
+    private static long tail(long h, byte[] bytes, int from, int end) {
+        long tail = 0;
+        for (int i = from, shift = 0; i < end; i++, shift += 8) {
+            tail |= (bytes[i] & 0xFFL) << shift;
+        }
+        return mix(h ^ tail);
+    }
+
+    private static long mix(long h) {
+        h *= 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 31;
+        h *= 0x94D049BB133111EBL;
+        return h ^ (h >>> 29);
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.io.IOException;
+import java.util.List;
+
+import io.github.chains_project.aotp.output.RecordWriter;
+
+/**
+ * Result of a {@link DedupAnalyzer} run over a set of archives.
+ *
+ * Savings assume every archive is kept on disk, or mapped at once on a host,
+ * alongside a shared base archive that holds each shared record once.
+ */
+public record DedupReport(List<String> archives, Section klasses, Section symbols) {
+
+    static final int PAGE_SIZE = 4096;
+
+    /**
+     * Totals for one kind of content.
+     *
+     * @param distinctCount    number of distinct contents
+     * @param totalBytes       bytes over all archives, every copy counted
+     * @param distinctBytes    bytes of the distinct contents, each counted once
+     * @param sharedBytes      bytes of contents found in at least two archives, each counted once
+     * @param commonBytes      bytes of contents found in every archive, each counted once
+     * @param savingsBytes     bytes saved if every shared content moved to a base archive
+     * @param baseSavingsBytes bytes saved if only the contents common to all archives moved to a base archive
+     */
+    public record Section(long distinctCount,
+                          long totalBytes,
+                          long distinctBytes,
+                          long sharedBytes,
+                          long commonBytes,
+                          long savingsBytes,
+                          long baseSavingsBytes) {}
+
+    public long totalBytes() {
+        return klasses.totalBytes() + symbols.totalBytes();
+    }
+
+    public long savingsBytes() {
+        return klasses.savingsBytes() + symbols.savingsBytes();
+    }
+
+    public long baseSavingsBytes() {
+        return klasses.baseSavingsBytes() + symbols.baseSavingsBytes();
+    }
+
+    /**
+     * Page cache saved by a base archive of the contents common to all archives,
+     * in 4 KB pages, assuming the saved bytes were densely packed.
+     */
+    public long baseSavingsPages() {
+        return baseSavingsBytes() / PAGE_SIZE;
+    }
+
+    public void print(Appendable st) throws IOException {
+        st.append(String.format("archives: %d%n", archives.size()));
+        for (String archive : archives) {
+            st.append("  ").append(archive).append('\n');
+        }
+        st.append(String.format("%-8s %10s %14s %14s %14s %14s %14s %14s%n", "content", "distinct", "total",
+                "distinct_b", "shared_b", "common_b", "savings", "base_savings"));
+        printSection(st, "klasses", klasses);
+        printSection(st, "symbols", symbols);
+        long total = totalBytes();
+        st.append(String.format("shared base archive saves %d bytes (%.2f%%, %d pages); at most %d bytes%n",
+                baseSavingsBytes(), total == 0 ? 0 : 100.0 * baseSavingsBytes() / total, baseSavingsPages(),
+                savingsBytes()));
+    }
+
+    private static void printSection(Appendable st, String label, Section section) throws IOException {
+        st.append(String.format("%-8s %10d %14d %14d %14d %14d %14d %14d%n", label, section.distinctCount(),
+                section.totalBytes(), section.distinctBytes(), section.sharedBytes(), section.commonBytes(),
+                section.savingsBytes(), section.baseSavingsBytes()));
+    }
+
+    /**
+     * Writes one {@code dedup_archive} record per archive, one
+     * {@code dedup_section} record per kind of content and a {@code dedup}
+     * summary.
+     */
+    public void write(RecordWriter out) throws IOException {
+        for (String archive : archives) {
+            out.begin("dedup_archive");
+            out.field("path", archive);
+            out.end();
+        }
+        writeSection(out, "klasses", klasses);
+        writeSection(out, "symbols", symbols);
+        out.begin("dedup");
+        out.field("archives", archives.size());
+        out.field("total_bytes", totalBytes());
+        out.field("savings_bytes", savingsBytes());
+        out.field("base_savings_bytes", baseSavingsBytes());
+        out.field("base_savings_pages", baseSavingsPages());
+        out.end();
+    }
+
+    private static void writeSection(RecordWriter out, String label, Section section) throws IOException {
+        out.begin("dedup_section");
+        out.field("content", label);
+        out.field("distinct", section.distinctCount());
+        out.field("total_bytes", section.totalBytes());
+        out.field("distinct_bytes", section.distinctBytes());
+        out.field("shared_bytes", section.sharedBytes());
+        out.field("common_bytes", section.commonBytes());
+        out.field("savings_bytes", section.savingsBytes());
+        out.field("base_savings_bytes", section.baseSavingsBytes());
+        out.end();
+    }
+}
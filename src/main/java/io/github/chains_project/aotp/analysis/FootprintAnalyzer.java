@@ -0,0 +1,129 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.KlassKind;
+import io.github.chains_project.aotp.utils.LongCounterMap;
+
+/**
+ * Streaming aggregation of klass sizes. Feed it classes through
+ * {@link #accept(ClassEntry)} as they come out of the RW scan; only per-group
+ * counters are retained, never the entries themselves.
+ *
+ * Groups:
+ * <ul>
+ *   <li>package, derived from the class name symbol (element type for object arrays)</li>
+ *   <li>{@code Klass::_class_loader_data}</li>
+ *   <li>{@code Klass::_kind}</li>
+ *   <li>{@code Klass::_shared_class_path_index}</li>
+ * </ul>
+ * plus a power-of-two histogram of record sizes.
+ */
+public final class FootprintAnalyzer implements Consumer<ClassEntry> {
+
+    static final int HISTOGRAM_BUCKETS = 32;
+
+    private static final String UNNAMED_PACKAGE = "<unnamed>";
+    private static final String PRIMITIVE_ARRAYS = "<primitive arrays>";
+
+    private static final class Totals {
+        long count;
+        long bytes;
+    }
+
+    private final Map<String, Totals> packages = new HashMap<>();
+    private final LongCounterMap loaders = new LongCounterMap();
+    private final LongCounterMap kinds = new LongCounterMap();
+    private final LongCounterMap classPathIndices = new LongCounterMap();
+    private final long[] histogramCounts = new long[HISTOGRAM_BUCKETS];
+    private final long[] histogramBytes = new long[HISTOGRAM_BUCKETS];
+    private long classCount;
+    private long totalBytes;
+
+    @Override
+    public void accept(ClassEntry entry) {
+        int size = entry.getSize();
+        classCount++;
+        totalBytes += size;
+
+        Totals totals = packages.computeIfAbsent(packageOf(entry.getName()), k -> new Totals());
+        totals.count++;
+        totals.bytes += size;
+
+        loaders.add(entry.classLoaderData, 1, size);
+        kinds.add(entry.kind, 1, size);
+        classPathIndices.add(entry.sharedClassPathIndex, 1, size);
+
+        int bucket = bucketOf(size);
+        histogramCounts[bucket]++;
+        histogramBytes[bucket] += size;
+    }
+
+    public FootprintReport report(int topN) {
+        List<Map.Entry<String, Totals>> sortedPackages = new ArrayList<>(packages.entrySet());
+        sortedPackages.sort((a, b) -> Long.compare(b.getValue().bytes, a.getValue().bytes));
+        List<FootprintRow> packageRows = new ArrayList<>();
+        for (int i = 0; i < Math.min(topN, sortedPackages.size()); i++) {
+            Map.Entry<String, Totals> e = sortedPackages.get(i);
+            packageRows.add(new FootprintRow(e.getKey(), e.getValue().count, e.getValue().bytes));
+        }
+
+        return new FootprintReport(classCount,
+                totalBytes,
+                packageRows,
+                rows(loaders, topN, key -> String.format("0x%x", key)),
+                rows(kinds, topN, key -> KlassKind.of((int) key).hotspotName()),
+                rows(classPathIndices, topN, Long::toString),
+                histogramCounts.clone(),
+                histogramBytes.clone());
+    }
+
+    private static List<FootprintRow> rows(LongCounterMap map, int topN, LongFunction<String> label) {
+        List<FootprintRow> rows = new ArrayList<>();
+        for (long key : map.topKeysByBytes(topN)) {
+            rows.add(new FootprintRow(label.apply(key), map.count(key), map.bytes(key)));
+        }
+        return rows;
+    }
+
+    /**
+     * Histogram bucket {@code i} holds sizes in {@code [2^i, 2^(i+1))}; bucket 0 also holds 0.
+     */
+    static int bucketOf(int size) {
+        if (size <= 1) {
+            return 0;
+        }
+        return Math.min(HISTOGRAM_BUCKETS - 1, 31 - Integer.numberOfLeadingZeros(size));
+    }
+
+    /**
+     * Returns the package part of an internal class name, e.g. {@code java/lang}
+     * for {@code java/lang/String} and {@code [[Ljava/lang/String;}.
+     */
+    static String packageOf(String className) {
+        if (className == null || className.isEmpty()) {
+            return UNNAMED_PACKAGE;
+        }
+        int start = 0;
+        while (start < className.length() && className.charAt(start) == '[') {
+            start++;
+        }
+        if (start > 0) {
+            if (start >= className.length() || className.charAt(start) != 'L') {
+                return PRIMITIVE_ARRAYS;
+            }
+            start++;
+        }
+        int slash = className.lastIndexOf('/');
+        if (slash < start) {
+            return UNNAMED_PACKAGE;
+        }
+        return className.substring(start, slash);
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.io.IOException;
+import java.util.List;
+
+import io.github.chains_project.aotp.output.RecordWriter;
+
+/**
+ * Result of a {@link FootprintAnalyzer} run: top-N tables per group and a size histogram.
+ *
+ * Histogram bucket {@code i} counts klass records whose size is in {@code [2^i, 2^(i+1))}.
+ */
+public record FootprintReport(long classCount,
+                              long totalBytes,
+                              List<FootprintRow> packages,
+                              List<FootprintRow> loaders,
+                              List<FootprintRow> kinds,
+                              List<FootprintRow> sharedClassPathIndices,
+                              long[] histogramCounts,
+                              long[] histogramBytes) {
+
+    public void print(Appendable st) throws IOException {
+        st.append(String.format("classes: %d  bytes: %d%n", classCount, totalBytes));
+        printTable(st, "package", packages);
+        printTable(st, "class_loader_data", loaders);
+        printTable(st, "kind", kinds);
+        printTable(st, "shared_class_path_index", sharedClassPathIndices);
+
+        st.append("============ size histogram =====\n");
+        st.append(String.format("%-22s %10s %14s%n", "size", "classes", "bytes"));
+        for (int i = 0; i < histogramCounts.length; i++) {
+            if (histogramCounts[i] == 0) {
+                continue;
+            }
+            long low = i == 0 ? 0 : 1L << i;
+            long high = (1L << (i + 1)) - 1;
+            st.append(String.format("%-22s %10d %14d%n", low + " - " + high, histogramCounts[i], histogramBytes[i]));
+        }
+    }
+
+    private void printTable(Appendable st, String title, List<FootprintRow> rows) throws IOException {
+        st.append(String.format("============ by %s ============%n", title));
+        st.append(String.format("%-60s %10s %14s %7s%n", title, "classes", "bytes", "share"));
+        for (FootprintRow row : rows) {
+            double share = totalBytes == 0 ? 0 : 100.0 * row.bytes() / totalBytes;
+            st.append(String.format("%-60s %10d %14d %6.2f%%%n", row.key(), row.count(), row.bytes(), share));
+        }
+    }
+
+    /**
+     * Writes one {@code footprint_<group>} record per table row, one
+     * {@code footprint_histogram} record per non-empty bucket and a
+     * {@code footprint} summary.
+     */
+    public void write(RecordWriter out) throws IOException {
+        writeRows(out, "footprint_package", packages);
+        writeRows(out, "footprint_class_loader_data", loaders);
+        writeRows(out, "footprint_kind", kinds);
+        writeRows(out, "footprint_shared_class_path_index", sharedClassPathIndices);
+        for (int i = 0; i < histogramCounts.length; i++) {
+            if (histogramCounts[i] == 0) {
+                continue;
+            }
+            out.begin("footprint_histogram");
+            out.field("low", i == 0 ? 0 : 1L << i);
+            out.field("high", (1L << (i + 1)) - 1);
+            out.field("classes", histogramCounts[i]);
+            out.field("bytes", histogramBytes[i]);
+            out.end();
+        }
+        out.begin("footprint");
+        out.field("classes", classCount);
+        out.field("bytes", totalBytes);
+        out.end();
+    }
+
+    private static void writeRows(RecordWriter out, String type, List<FootprintRow> rows) throws IOException {
+        for (FootprintRow row : rows) {
+            out.begin(type);
+            out.field("key", row.key());
+            out.field("classes", row.count());
+            out.field("bytes", row.bytes());
+            out.end();
+        }
+    }
+}
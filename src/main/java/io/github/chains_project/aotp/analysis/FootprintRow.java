@@ -0,0 +1,10 @@
+package io.github.chains_project.aotp.analysis;
+
+/**
+ * One aggregated row of a footprint table.
+ *
+ * @param key   group label (package, loader address, kind, ...)
+ * @param count number of classes in the group
+ * @param bytes total {@code getSize()} of the classes in the group
+ */
+public record FootprintRow(String key, long count, long bytes) {}
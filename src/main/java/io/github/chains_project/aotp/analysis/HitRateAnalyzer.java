@@ -0,0 +1,85 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+
+/**
+ * Hash join of a class loading log against the classes of a cache. The cache
+ * side is indexed first through {@link #addCacheClass}; log entries are then
+ * streamed through {@link #accept(ClassLoadLog.Entry)}, each resolved with a
+ * single hash lookup. Only the index and the classes that missed the cache are
+ * retained.
+ */
+public final class HitRateAnalyzer implements Consumer<ClassLoadLog.Entry> {
+
+    private final Map<String, Integer> index = new HashMap<>();
+    private final List<String> cacheNames = new ArrayList<>();
+    private final List<Integer> cacheSizes = new ArrayList<>();
+    private boolean[] used;
+    private final List<HitRateReport.Miss> misses = new ArrayList<>();
+    private final Map<MissReason, Long> reasons = new EnumMap<>(MissReason.class);
+    private long loadedCount;
+    private long archiveHits;
+    private long hitsOutsideIndex;
+
+    public void addCacheClass(ClassEntry entry) {
+        addCacheClass(entry.getName(), entry.getSize());
+    }
+
+    public void addCacheClass(String name, int size) {
+        if (used != null) {
+            throw new IllegalStateException("The cache index is complete once log entries are added");
+        }
+        if (index.putIfAbsent(name, cacheNames.size()) == null) {
+            cacheNames.add(name);
+            cacheSizes.add(size);
+        }
+    }
+
+    @Override
+    public void accept(ClassLoadLog.Entry entry) {
+        if (used == null) {
+            used = new boolean[cacheNames.size()];
+        }
+        loadedCount++;
+        Integer ordinal = index.get(entry.name());
+        if (entry.fromArchive()) {
+            archiveHits++;
+            if (ordinal != null) {
+                used[ordinal] = true;
+            } else {
+                hitsOutsideIndex++;
+            }
+            return;
+        }
+        MissReason reason = ordinal != null
+                ? MissReason.CACHED_NOT_USED
+                : MissReason.ofUncached(entry.name(), entry.source());
+        reasons.merge(reason, 1L, Long::sum);
+        misses.add(new HitRateReport.Miss(entry.name(), entry.source(), reason));
+    }
+
+    public HitRateReport report() {
+        if (used == null) {
+            used = new boolean[cacheNames.size()];
+        }
+        long cacheBytes = 0;
+        long unusedBytes = 0;
+        List<String> unused = new ArrayList<>();
+        for (int i = 0; i < cacheNames.size(); i++) {
+            cacheBytes += cacheSizes.get(i);
+            if (!used[i]) {
+                unusedBytes += cacheSizes.get(i);
+                unused.add(cacheNames.get(i));
+            }
+        }
+        return new HitRateReport(loadedCount, archiveHits, hitsOutsideIndex, new EnumMap<>(reasons),
+                List.copyOf(misses), cacheNames.size(), cacheBytes, List.copyOf(unused), unusedBytes);
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import io.github.chains_project.aotp.output.RecordWriter;
+
+/**
+ * Result of a {@link HitRateAnalyzer} run.
+ *
+ * @param loadedCount      class loads in the log
+ * @param archiveHits      loads served from a shared archive
+ * @param hitsOutsideIndex archive loads of classes not in the analyzed cache, e.g. from another archive
+ * @param reasons          disk loads by likely reason
+ * @param misses           disk loads, in log order
+ * @param cacheClassCount  classes in the cache
+ * @param cacheBytes       klass bytes in the cache
+ * @param unusedClasses    cached classes the log never loaded from the archive
+ * @param unusedBytes      klass bytes of {@code unusedClasses}
+ */
+public record HitRateReport(long loadedCount,
+                            long archiveHits,
+                            long hitsOutsideIndex,
+                            Map<MissReason, Long> reasons,
+                            List<Miss> misses,
+                            long cacheClassCount,
+                            long cacheBytes,
+                            List<String> unusedClasses,
+                            long unusedBytes) {
+
+    /**
+     * A class loaded from somewhere else than the archive.
+     */
+    public record Miss(String name, String source, MissReason reason) {}
+
+    public long diskLoads() {
+        return loadedCount - archiveHits;
+    }
+
+    /**
+     * Share of class loads served from the archive.
+     */
+    public double hitRate() {
+        return loadedCount == 0 ? 0 : (double) archiveHits / loadedCount;
+    }
+
+    public void print(Appendable st, int topN) throws IOException {
+        st.append(String.format("classes loaded:      %d%n", loadedCount));
+        st.append(String.format("from archive:        %d (%.2f%%)%n", archiveHits, 100 * hitRate()));
+        if (hitsOutsideIndex > 0) {
+            st.append(String.format("  not in this cache: %d%n", hitsOutsideIndex));
+        }
+        st.append(String.format("from disk:           %d%n", diskLoads()));
+        for (Map.Entry<MissReason, Long> e : reasons.entrySet()) {
+            st.append(String.format("  %-24s %10d%n", e.getKey().label(), e.getValue()));
+        }
+        st.append(String.format("cache classes:       %d (%d bytes)%n", cacheClassCount, cacheBytes));
+        st.append(String.format("never used:          %d (%d bytes, %.2f%%)%n", unusedClasses.size(), unusedBytes,
+                cacheBytes == 0 ? 0.0 : 100.0 * unusedBytes / cacheBytes));
+
+        for (MissReason reason : reasons.keySet()) {
+            st.append(String.format("============ %s ============%n", reason.label()));
+            int shown = 0;
+            for (Miss miss : misses) {
+                if (miss.reason() != reason) {
+                    continue;
+                }
+                if (shown++ == topN) {
+                    st.append(String.format("... %d more%n", reasons.get(reason) - topN));
+                    break;
+                }
+                st.append(String.format("%s  %s%n", miss.name(), miss.source()));
+            }
+        }
+    }
+
+    /**
+     * Writes one {@code disk_load} record per miss, one {@code unused_class}
+     * record per unused cached class and a {@code hit_rate} summary.
+     */
+    public void write(RecordWriter out) throws IOException {
+        for (Miss miss : misses) {
+            out.begin("disk_load");
+            out.field("name", miss.name());
+            out.field("source", miss.source());
+            out.field("reason", miss.reason().name());
+            out.end();
+        }
+        for (String name : unusedClasses) {
+            out.begin("unused_class");
+            out.field("name", name);
+            out.end();
+        }
+        out.begin("hit_rate");
+        out.field("loaded", loadedCount);
+        out.field("from_archive", archiveHits);
+        out.field("from_disk", diskLoads());
+        for (MissReason reason : MissReason.values()) {
+            out.field(reason.name().toLowerCase(Locale.ROOT), reasons.getOrDefault(reason, 0L));
+        }
+        out.field("cache_classes", cacheClassCount);
+        out.field("cache_bytes", cacheBytes);
+        out.field("unused_classes", unusedClasses.size());
+        out.field("unused_bytes", unusedBytes);
+        out.end();
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+
+/**
+ * Address ranges of the klass records of an archive, to tell which klass an
+ * address falls into. Feed it classes in any order, then query.
+ */
+public final class KlassRanges implements Consumer<ClassEntry> {
+
+    private long[] starts = new long[64];
+    private long[] ends = new long[64];
+    private final List<String> names = new ArrayList<>();
+    private int[] order;
+
+    @Override
+    public void accept(ClassEntry entry) {
+        int i = names.size();
+        if (i == starts.length) {
+            starts = Arrays.copyOf(starts, i * 2);
+            ends = Arrays.copyOf(ends, i * 2);
+        }
+        starts[i] = entry.address();
+        ends[i] = entry.address() + entry.getSize();
+        names.add(entry.getName());
+        order = null;
+    }
+
+    /**
+     * Index of the klass whose record contains {@code address}, or -1.
+     */
+    public int indexOf(long address) {
+        if (order == null) {
+            sort();
+        }
+        int low = 0;
+        int high = order.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int k = order[mid];
+            if (address < starts[k]) {
+                high = mid - 1;
+            } else if (address >= ends[k]) {
+                low = mid + 1;
+            } else {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    public String name(int index) {
+        return names.get(index);
+    }
+
+    public long start(int index) {
+        return starts[index];
+    }
+
+    private void sort() {
+        int size = names.size();
+        // Records do not overlap, so start addresses are distinct and identify their index
+        long[] sorted = Arrays.copyOf(starts, size);
+        Arrays.sort(sorted);
+        order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[Arrays.binarySearch(sorted, starts[i])] = i;
+        }
+    }
+}
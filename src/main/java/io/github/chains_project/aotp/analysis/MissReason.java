@@ -0,0 +1,40 @@
+package io.github.chains_project.aotp.analysis;
+
+/**
+ * Likely reason why a class a workload loaded did not come from the cache,
+ * derived from the logged source and the cache's class index.
+ */
+public enum MissReason {
+    /** In the cache, but the JVM rejected the archived copy (class path, module or loader mismatch). */
+    CACHED_NOT_USED("in cache, not used"),
+    /** Defined at run time (hidden classes, proxies, {@code Lookup::defineClass}); not archivable. */
+    GENERATED("generated at run time"),
+    /** Defined by a user-defined class loader. */
+    CUSTOM_LOADER("custom class loader"),
+    /** Loaded from the class or module path but not during the training run. */
+    NOT_IN_TRAINING("not loaded in training");
+
+    private final String label;
+
+    MissReason(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Classifies a class loaded from {@code source} that is not in the cache.
+     */
+    static MissReason ofUncached(String name, String source) {
+        // Hidden classes are logged as <name>/0x<address>
+        if (source.startsWith("__") || name.contains("/0x")) {
+            return GENERATED;
+        }
+        if (source.startsWith("instance of ")) {
+            return CUSTOM_LOADER;
+        }
+        return NOT_IN_TRAINING;
+    }
+}
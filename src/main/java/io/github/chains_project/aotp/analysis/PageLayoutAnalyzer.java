@@ -0,0 +1,104 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+
+/**
+ * Maps klass records (rw) and their name symbols (ro) onto the pages of the
+ * regions they live in. Every class contributes to the per-page object bytes;
+ * the classes in the selected set, typically the classes a startup run loads,
+ * also contribute to the selected bytes, from which pages touched, fill ratio
+ * and locality follow. Objects that straddle a page boundary count on both
+ * pages.
+ */
+public final class PageLayoutAnalyzer implements Consumer<ClassEntry> {
+
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+
+    // Symbol format: hash_and_refcount (4 bytes), length (2 bytes), body[length]; word aligned
+    private static final int SYMBOL_HEADER_SIZE = 6;
+
+    private final Set<String> selected;
+    private final int pageSize;
+    private final String[] names;
+    private final long[] starts;
+    private final long[] sizes;
+    private final long[][] objectBytes;
+    private final long[][] selectedBytes;
+    private long selectedFound;
+
+    /**
+     * @param regionNames  names of the regions to map, e.g. {@code rw} and {@code ro}
+     * @param regionStarts mapped start address of each region
+     * @param regionSizes  used bytes of each region
+     * @param selected     internal names of the classes to highlight
+     */
+    public PageLayoutAnalyzer(String[] regionNames, long[] regionStarts, long[] regionSizes, Set<String> selected,
+                              int pageSize) {
+        if (pageSize <= 0 || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Page size must be a power of two: " + pageSize);
+        }
+        this.selected = selected;
+        this.pageSize = pageSize;
+        this.names = regionNames.clone();
+        this.starts = regionStarts.clone();
+        this.sizes = regionSizes.clone();
+        this.objectBytes = new long[names.length][];
+        this.selectedBytes = new long[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            int pages = (int) ((sizes[i] + pageSize - 1) / pageSize);
+            objectBytes[i] = new long[pages];
+            selectedBytes[i] = new long[pages];
+        }
+    }
+
+    @Override
+    public void accept(ClassEntry entry) {
+        boolean isSelected = selected.contains(entry.getName());
+        if (isSelected) {
+            selectedFound++;
+        }
+        add(entry.address(), entry.getSize(), isSelected);
+        if (entry.getName() != null) {
+            int length = entry.getName().getBytes(StandardCharsets.UTF_8).length;
+            add(entry.namePointer(), (SYMBOL_HEADER_SIZE + length + 7) & ~7, isSelected);
+        }
+    }
+
+    /**
+     * Adds an object of {@code size} bytes at {@code address}; ignored if no
+     * region maps it.
+     */
+    public void add(long address, long size, boolean isSelected) {
+        for (int r = 0; r < names.length; r++) {
+            long offset = address - starts[r];
+            if (offset < 0 || offset >= sizes[r]) {
+                continue;
+            }
+            long end = Math.min(offset + size, sizes[r]);
+            while (offset < end) {
+                int page = (int) (offset / pageSize);
+                long pageEnd = Math.min(end, (long) (page + 1) * pageSize);
+                objectBytes[r][page] += pageEnd - offset;
+                if (isSelected) {
+                    selectedBytes[r][page] += pageEnd - offset;
+                }
+                offset = pageEnd;
+            }
+            return;
+        }
+    }
+
+    public PageLayoutReport report() {
+        RegionPages[] regions = new RegionPages[names.length];
+        for (int i = 0; i < names.length; i++) {
+            regions[i] = new RegionPages(names[i], starts[i], sizes[i], pageSize, objectBytes[i].clone(),
+                    selectedBytes[i].clone());
+        }
+        return new PageLayoutReport(selected.size(), selectedFound, List.of(regions));
+    }
+}
@@ -0,0 +1,72 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.io.IOException;
+import java.util.List;
+
+import io.github.chains_project.aotp.output.RecordWriter;
+
+/**
+ * Result of a {@link PageLayoutAnalyzer} run.
+ *
+ * @param requestedClasses size of the selected class set
+ * @param foundClasses     selected classes found in the archive
+ */
+public record PageLayoutReport(long requestedClasses, long foundClasses, List<RegionPages> regions) {
+
+    private static final int BAR_WIDTH = 32;
+
+    public int pagesTouched() {
+        int touched = 0;
+        for (RegionPages region : regions) {
+            touched += region.pagesTouched();
+        }
+        return touched;
+    }
+
+    public void print(Appendable st) throws IOException {
+        st.append(String.format("classes: %d of %d found  pages touched: %d%n", foundClasses, requestedClasses,
+                pagesTouched()));
+        for (RegionPages region : regions) {
+            st.append(String.format("============ %s: %d of %d pages touched, locality %.3f ============%n",
+                    region.name(), region.pagesTouched(), region.pageCount(), region.locality()));
+            st.append(String.format("%8s %18s %7s %7s  %s%n", "page", "address", "fill", "used", "selected"));
+            for (int page = 0; page < region.pageCount(); page++) {
+                if (region.selectedBytes()[page] == 0) {
+                    continue;
+                }
+                double fill = region.fillRatio(page);
+                double used = (double) region.objectBytes()[page] / region.pageSize();
+                st.append(String.format("%8d 0x%016x %6.1f%% %6.1f%%  %s%n", page,
+                        region.start() + (long) page * region.pageSize(), 100 * fill, 100 * used,
+                        "#".repeat((int) Math.round(Math.min(1, fill) * BAR_WIDTH))));
+            }
+        }
+    }
+
+    /**
+     * Writes one {@code page} record per touched page and one {@code page_region} summary per region.
+     */
+    public void write(RecordWriter out) throws IOException {
+        for (RegionPages region : regions) {
+            for (int page = 0; page < region.pageCount(); page++) {
+                if (region.selectedBytes()[page] == 0) {
+                    continue;
+                }
+                out.begin("page");
+                out.field("region", region.name());
+                out.field("page", page);
+                out.field("address", region.start() + (long) page * region.pageSize());
+                out.field("selected_bytes", region.selectedBytes()[page]);
+                out.field("object_bytes", region.objectBytes()[page]);
+                out.end();
+            }
+            out.begin("page_region");
+            out.field("region", region.name());
+            out.field("pages", region.pageCount());
+            out.field("pages_touched", region.pagesTouched());
+            out.field("selected_bytes", region.totalSelectedBytes());
+            out.field("locality_permille", Math.round(region.locality() * 1000));
+            out.end();
+        }
+    }
+}
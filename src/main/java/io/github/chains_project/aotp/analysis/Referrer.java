@@ -0,0 +1,22 @@
+package io.github.chains_project.aotp.analysis;
+
+/**
+ * A pointer slot that refers to some entity.
+ *
+ * @param slot   address of the pointer
+ * @param target address it points to
+ * @param owner  name of the klass whose record holds the slot, or null if it
+ *               lies outside any klass record
+ * @param offset offset of the slot in the owning klass record, or in its region
+ *               if there is no owner
+ * @param region name of the region holding the slot
+ */
+public record Referrer(long slot, long target, String owner, long offset, String region) {
+
+    /**
+     * Where the slot is, e.g. {@code java/lang/String+0x78} or {@code ro+0x1a40}.
+     */
+    public String location() {
+        return String.format("%s+0x%x", owner != null ? owner : region, offset);
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.util.Arrays;
+
+import io.github.chains_project.aotp.scan.PointerScan;
+
+/**
+ * Reverse pointer index: for every address that some pointer slot of the
+ * archive points to, the slots pointing to it. Stored in compressed sparse row
+ * form: the distinct targets sorted ascending, and for target {@code i} the
+ * referring slots at {@code referrers[offsets[i] .. offsets[i + 1])}, ascending.
+ *
+ * Everything lives in primitive arrays, so memory is linear in the number of
+ * pointers: two {@code long}s per pointer while collecting, at most two
+ * {@code long}s and one {@code int} per pointer once built.
+ */
+public final class ReferrerIndex {
+
+    private final long[] targets;
+    private final int[] offsets;
+    private final long[] referrers;
+
+    private ReferrerIndex(long[] targets, int[] offsets, long[] referrers) {
+        this.targets = targets;
+        this.offsets = offsets;
+        this.referrers = referrers;
+    }
+
+    /**
+     * Collects (slot, target) pairs, e.g. from {@link PointerScan#forEachPointer},
+     * and builds the index from them.
+     */
+    public static final class Collector implements PointerScan.PointerVisitor {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private long[] slots = new long[INITIAL_CAPACITY];
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int size;
+
+        @Override
+        public void visit(long slot, long value) {
+            if (size == slots.length) {
+                int capacity = Math.max(INITIAL_CAPACITY, size + (size >> 1));
+                slots = Arrays.copyOf(slots, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            slots[size] = slot;
+            values[size] = value;
+            size++;
+        }
+
+        /**
+         * Builds the index. Slots visited in ascending order stay in ascending
+         * order within each target.
+         */
+        public ReferrerIndex build() {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            int distinct = 0;
+            for (int i = 0; i < sorted.length; i++) {
+                if (i == 0 || sorted[i] != sorted[i - 1]) {
+                    sorted[distinct++] = sorted[i];
+                }
+            }
+            long[] targets = Arrays.copyOf(sorted, distinct);
+
+            // Counting sort of the slots by target
+            int[] offsets = new int[distinct + 1];
+            int[] targetOf = new int[size];
+            for (int i = 0; i < size; i++) {
+                targetOf[i] = Arrays.binarySearch(targets, values[i]);
+                offsets[targetOf[i] + 1]++;
+            }
+            for (int t = 0; t < distinct; t++) {
+                offsets[t + 1] += offsets[t];
+            }
+            int[] cursor = Arrays.copyOf(offsets, distinct);
+            long[] referrers = new long[size];
+            for (int i = 0; i < size; i++) {
+                referrers[cursor[targetOf[i]]++] = slots[i];
+            }
+            return new ReferrerIndex(targets, offsets, referrers);
+        }
+    }
+
+    public int targetCount() {
+        return targets.length;
+    }
+
+    public int pointerCount() {
+        return referrers.length;
+    }
+
+    /**
+     * Slots that hold exactly {@code target}, ascending.
+     */
+    public long[] referrers(long target) {
+        int t = Arrays.binarySearch(targets, target);
+        return t < 0 ? new long[0] : Arrays.copyOfRange(referrers, offsets[t], offsets[t + 1]);
+    }
+
+    /**
+     * Slots that point anywhere into {@code [from, to)}, e.g. into a whole klass
+     * record, grouped by target in ascending order.
+     */
+    public long[] referrers(long from, long to) {
+        int first = lowerBound(from);
+        int last = lowerBound(to);
+        return Arrays.copyOfRange(referrers, offsets[first], offsets[last]);
+    }
+
+    private int lowerBound(long address) {
+        int t = Arrays.binarySearch(targets, address);
+        return t >= 0 ? t : -t - 1;
+    }
+}
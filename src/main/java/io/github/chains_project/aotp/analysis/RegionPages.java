@@ -0,0 +1,62 @@
+package io.github.chains_project.aotp.analysis;
+
+/**
+ * Per-page byte counts of one region, see {@link PageLayoutAnalyzer}.
+ *
+ * @param start         mapped address of the region
+ * @param size          bytes used by the region
+ * @param pageSize      page size in bytes
+ * @param objectBytes   per page, bytes of all mapped objects (the whole heatmap)
+ * @param selectedBytes per page, bytes of the objects of the selected classes
+ */
+public record RegionPages(String name, long start, long size, int pageSize,
+                          long[] objectBytes, long[] selectedBytes) {
+
+    public int pageCount() {
+        return selectedBytes.length;
+    }
+
+    /**
+     * Pages that hold at least one byte of a selected object, i.e. the pages a
+     * run that uses only the selected classes faults in.
+     */
+    public int pagesTouched() {
+        int touched = 0;
+        for (long bytes : selectedBytes) {
+            if (bytes > 0) {
+                touched++;
+            }
+        }
+        return touched;
+    }
+
+    public long totalSelectedBytes() {
+        long total = 0;
+        for (long bytes : selectedBytes) {
+            total += bytes;
+        }
+        return total;
+    }
+
+    /**
+     * Share of page {@code page} occupied by selected objects.
+     */
+    public double fillRatio(int page) {
+        return (double) selectedBytes[page] / pageSize;
+    }
+
+    /**
+     * Pages the selected bytes would need if packed together, divided by the
+     * pages they touch: 1 when the selected objects are perfectly clustered,
+     * approaching 0 when they are spread one small object per page. 1 if nothing
+     * is selected.
+     */
+    public double locality() {
+        int touched = pagesTouched();
+        if (touched == 0) {
+            return 1;
+        }
+        long minimal = (totalSelectedBytes() + pageSize - 1) / pageSize;
+        return (double) minimal / touched;
+    }
+}
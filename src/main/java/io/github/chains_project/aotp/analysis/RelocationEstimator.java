@@ -0,0 +1,76 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.chains_project.aotp.header.CDSFileMapRegion;
+import io.github.chains_project.aotp.header.FileMapHeader;
+import io.github.chains_project.aotp.utils.BitMaps;
+
+/**
+ * Estimates the work HotSpot does when it cannot map an archive at its
+ * requested base address and has to relocate it.
+ *
+ * The bitmap region holds one pointer map per metadata region, written by
+ * {@code FileMapInfo::write_bitmap_region}: bit {@code i} of the rw map marks
+ * the word at {@code (_rw_ptrmap_start_pos + i) * 8} of rw as a pointer into
+ * the archive. Relocation adds the same delta to every marked word
+ * ({@code FileMapInfo::relocate_pointers_in_core_regions}), so the work is the
+ * number of set bits, and every page holding one of them is written to and
+ * becomes a private copy instead of a shared page of the file.
+ * https://github.com/openjdk/jdk/blob/f4607ed0a7ea2504c1d72dd3dab0b21e583fa0e7/src/hotspot/share/cds/filemap.cpp
+ */
+public final class RelocationEstimator {
+
+    public static final int DEFAULT_PAGE_SIZE = 4096;
+
+    private RelocationEstimator() {}
+
+    /**
+     * @param bitmap   contents of the bitmap region ({@code bm})
+     * @param regions  the region headers
+     * @param header   the file map header, for the requested base and the map start positions
+     * @param mapBase  address the archive is assumed to be mapped at
+     * @param pageSize page size in bytes
+     */
+    public static RelocationReport estimate(ByteBuffer bitmap, CDSFileMapRegion[] regions, FileMapHeader header,
+                                            long mapBase, int pageSize) {
+        if (pageSize < Long.BYTES || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("Page size must be a power of two of at least 8: " + pageSize);
+        }
+        long[] startPositions = { header.rwPtrmapStartPos(), header.roPtrmapStartPos() };
+        List<RelocationReport.RegionRelocation> result = new ArrayList<>();
+        for (int i = 0; i < startPositions.length; i++) {
+            result.add(estimateRegion(bitmap, CDSFileMapRegion.regionName(i), regions[i], startPositions[i],
+                    pageSize));
+        }
+        return new RelocationReport(header.requestedBaseAddress(), mapBase, header.coreRegionAlignment(),
+                pageSize, bitmap.limit(), result);
+    }
+
+    private static RelocationReport.RegionRelocation estimateRegion(ByteBuffer bitmap, String name,
+                                                                    CDSFileMapRegion region, long startPos,
+                                                                    int pageSize) {
+        long bits = region.ptrmapSizeInBits();
+        long offset = region.ptrmapOffset();
+        long pointers = BitMaps.countOnes(bitmap, offset, 0, bits);
+
+        long wordsPerPage = pageSize / Long.BYTES;
+        long pageCount = (region.used() + pageSize - 1) / pageSize;
+        long pagesWithPointers = 0;
+        if (pointers > 0) {
+            // Only the pages the map covers can hold pointers
+            long firstPage = startPos / wordsPerPage;
+            long lastPage = Math.min(pageCount, (startPos + bits + wordsPerPage - 1) / wordsPerPage);
+            for (long page = firstPage; page < lastPage; page++) {
+                long from = Math.max(0, page * wordsPerPage - startPos);
+                long to = Math.min(bits, (page + 1) * wordsPerPage - startPos);
+                if (BitMaps.countOnes(bitmap, offset, from, to) > 0) {
+                    pagesWithPointers++;
+                }
+            }
+        }
+        return new RelocationReport.RegionRelocation(name, region.used(), pageCount, pointers, pagesWithPointers);
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.io.IOException;
+import java.util.List;
+
+import io.github.chains_project.aotp.output.RecordWriter;
+
+/**
+ * Result of {@link RelocationEstimator#estimate}.
+ *
+ * @param requestedBase address the archive was dumped for
+ * @param mapBase       address the archive is assumed to be mapped at
+ * @param alignment     core region alignment; HotSpot only maps at multiples of it
+ * @param bitmapBytes   size of the bitmap region read to relocate
+ */
+public record RelocationReport(long requestedBase, long mapBase, long alignment, int pageSize, long bitmapBytes,
+                               List<RegionRelocation> regions) {
+
+    /**
+     * Relocation work in one metadata region.
+     *
+     * @param pointers          words marked in the pointer map
+     * @param pagesWithPointers pages holding at least one marked word
+     */
+    public record RegionRelocation(String name, long used, long pageCount, long pointers, long pagesWithPointers) {}
+
+    public long delta() {
+        return mapBase - requestedBase;
+    }
+
+    public boolean relocationNeeded() {
+        return delta() != 0;
+    }
+
+    /**
+     * False if HotSpot would refuse to map the archive at {@link #mapBase}.
+     */
+    public boolean isBaseAligned() {
+        return alignment <= 0 || Math.floorMod(mapBase, alignment) == 0;
+    }
+
+    public long pointers() {
+        long total = 0;
+        for (RegionRelocation region : regions) {
+            total += region.pointers();
+        }
+        return total;
+    }
+
+    /**
+     * Words HotSpot patches when mapping at {@link #mapBase}: every marked
+     * pointer, or none if the archive lands at its requested base.
+     */
+    public long pointersToPatch() {
+        return relocationNeeded() ? pointers() : 0;
+    }
+
+    /**
+     * Pages written while patching, which stop being shared with the page cache.
+     */
+    public long pagesDirtied() {
+        if (!relocationNeeded()) {
+            return 0;
+        }
+        long total = 0;
+        for (RegionRelocation region : regions) {
+            total += region.pagesWithPointers();
+        }
+        return total;
+    }
+
+    public void print(Appendable st) throws IOException {
+        st.append(String.format("requested base:    0x%016x%n", requestedBase));
+        st.append(String.format("map base:          0x%016x%s%n", mapBase,
+                isBaseAligned() ? "" : String.format(" (not aligned to 0x%x)", alignment)));
+        st.append(String.format("delta:             %s0x%x%n", delta() < 0 ? "-" : "", Math.abs(delta())));
+        st.append(String.format("%-8s %14s %12s %12s %12s%n", "region", "used", "pointers", "pages", "dirtied"));
+        for (RegionRelocation region : regions) {
+            st.append(String.format("%-8s %14d %12d %12d %12d%n", region.name(), region.used(), region.pointers(),
+                    region.pageCount(), relocationNeeded() ? region.pagesWithPointers() : 0));
+        }
+        st.append(String.format("pointers to patch: %d%n", pointersToPatch()));
+        st.append(String.format("pages dirtied:     %d (%d bytes)%n", pagesDirtied(), pagesDirtied() * pageSize));
+        st.append(String.format("bitmap read:       %d bytes%n", relocationNeeded() ? bitmapBytes : 0));
+    }
+
+    /**
+     * Writes one {@code relocation_region} record per region and a {@code relocation} summary.
+     */
+    public void write(RecordWriter out) throws IOException {
+        for (RegionRelocation region : regions) {
+            out.begin("relocation_region");
+            out.field("region", region.name());
+            out.field("used", region.used());
+            out.field("pointers", region.pointers());
+            out.field("pages", region.pageCount());
+            out.field("pages_with_pointers", region.pagesWithPointers());
+            out.end();
+        }
+        out.begin("relocation");
+        out.field("requested_base", requestedBase);
+        out.field("map_base", mapBase);
+        out.field("delta", delta());
+        out.field("base_aligned", isBaseAligned());
+        out.field("pointers_to_patch", pointersToPatch());
+        out.field("pages_dirtied", pagesDirtied());
+        out.field("bitmap_bytes", bitmapBytes);
+        out.end();
+    }
+}
@@ -0,0 +1,215 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.KlassKind;
+
+/**
+ * Estimates the totals of a {@link FootprintAnalyzer} run, and the bytes of
+ * the archived symbols, from a random sample of chunks.
+ *
+ * The rw region is cut into {@code rwChunks} equal chunks, of which a simple
+ * random sample is scanned: call {@link #beginChunk()}, feed the classes
+ * whose record starts in the chunk through {@link #accept(ClassEntry)}, then
+ * {@link #endChunk()}. Each total is estimated as the mean per chunk times
+ * the number of chunks.
+ *
+ * Symbols are sampled by ranges of buckets of the archived SymbolTable
+ * through {@link #addSymbolChunk}. The table knows how many symbols there
+ * are, so their bytes are estimated as that count times the mean symbol
+ * size of the sample (a ratio estimate).
+ *
+ * Intervals are normal-approximation 95% intervals with the finite
+ * population correction, so they shrink to nothing once every chunk is in
+ * the sample. With few chunks sampled they are only a rough guide.
+ */
+public final class SampleAnalyzer implements Consumer<ClassEntry> {
+
+    /** Bytes per rw chunk unless the caller picks another page size. */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    /** SymbolTable buckets per symbol chunk. */
+    public static final int SYMBOL_CHUNK_BUCKETS = 64;
+
+    /** Chunks of each kind sampled even past the time budget, the fewest that give a variance. */
+    public static final int MIN_CHUNKS = 2;
+
+    static final double Z_95 = 1.959964;
+
+    // Symbol format: hash_and_refcount (4 bytes), length (2 bytes), body[length]; word aligned
+    private static final int SYMBOL_HEADER_SIZE = 6;
+
+    /**
+     * Sum and sum of squares of one quantity over the sampled chunks.
+     */
+    private static final class Moments {
+        double sum;
+        double squares;
+
+        void add(double value) {
+            sum += value;
+            squares += value * value;
+        }
+    }
+
+    /**
+     * Per-chunk totals of one group, summed over the sampled chunks.
+     */
+    private static final class Group {
+        final Moments count = new Moments();
+        final Moments bytes = new Moments();
+        // Totals of the chunk being scanned
+        long chunkCount;
+        long chunkBytes;
+    }
+
+    private final long rwChunks;
+    private final int chunkSize;
+    private final long symbolChunks;
+    private final long symbolCount;
+    private final Group classes = new Group();
+    private final Map<String, Group> kinds = new HashMap<>();
+    private final Map<String, Group> packages = new HashMap<>();
+    private final List<Group> touched = new ArrayList<>();
+    private long sampledRwChunks;
+    private long sampledSymbolChunks;
+    private long sampledSymbols;
+    private long sampledSymbolBytes;
+    // Over the symbol chunks: symbols, bytes and their cross products
+    private double symbolCountSquares;
+    private double symbolByteSquares;
+    private double symbolProducts;
+
+    /**
+     * @param rwChunks     number of chunks the rw region is cut into
+     * @param chunkSize    bytes per rw chunk
+     * @param symbolChunks number of bucket ranges the SymbolTable is cut into, 0 if there is none
+     * @param symbolCount  entries of the SymbolTable
+     */
+    public SampleAnalyzer(long rwChunks, int chunkSize, long symbolChunks, long symbolCount) {
+        this.rwChunks = rwChunks;
+        this.chunkSize = chunkSize;
+        this.symbolChunks = symbolChunks;
+        this.symbolCount = symbolCount;
+    }
+
+    public void beginChunk() {
+        touched.clear();
+    }
+
+    @Override
+    public void accept(ClassEntry entry) {
+        int size = entry.getSize();
+        add(classes, size);
+        add(kinds.computeIfAbsent(KlassKind.of(entry.kind).hotspotName(), k -> new Group()), size);
+        add(packages.computeIfAbsent(FootprintAnalyzer.packageOf(entry.getName()), k -> new Group()), size);
+    }
+
+    public void endChunk() {
+        sampledRwChunks++;
+        // Groups without classes in this chunk add a zero, which changes neither sum
+        for (Group group : touched) {
+            group.count.add(group.chunkCount);
+            group.bytes.add(group.chunkBytes);
+            group.chunkCount = 0;
+            group.chunkBytes = 0;
+        }
+        touched.clear();
+    }
+
+    /**
+     * Adds one sampled range of SymbolTable buckets.
+     *
+     * @param bodies the UTF-8 bodies of the symbols in the range
+     */
+    public void addSymbolChunk(List<byte[]> bodies) {
+        long bytes = 0;
+        for (byte[] body : bodies) {
+            bytes += symbolSize(body.length);
+        }
+        sampledSymbolChunks++;
+        sampledSymbols += bodies.size();
+        sampledSymbolBytes += bytes;
+        symbolCountSquares += (double) bodies.size() * bodies.size();
+        symbolByteSquares += (double) bytes * bytes;
+        symbolProducts += (double) bodies.size() * bytes;
+    }
+
+    public SampleReport report(int topN, long elapsedNanos) {
+        List<SampleReport.Row> kindRows = rows(kinds, kinds.size());
+        List<SampleReport.Row> packageRows = rows(packages, topN);
+        return new SampleReport(rwChunks, sampledRwChunks, chunkSize, symbolChunks, sampledSymbolChunks,
+                estimate(classes.count), estimate(classes.bytes), kindRows, packageRows,
+                symbolCount, symbolBytes(), elapsedNanos);
+    }
+
+    static long symbolSize(int length) {
+        return (SYMBOL_HEADER_SIZE + length + 7) & ~7;
+    }
+
+    private void add(Group group, int size) {
+        if (group.chunkCount == 0) {
+            touched.add(group);
+        }
+        group.chunkCount++;
+        group.chunkBytes += size;
+    }
+
+    private List<SampleReport.Row> rows(Map<String, Group> groups, int topN) {
+        List<SampleReport.Row> rows = new ArrayList<>();
+        for (Map.Entry<String, Group> e : groups.entrySet()) {
+            rows.add(new SampleReport.Row(e.getKey(), estimate(e.getValue().count), estimate(e.getValue().bytes)));
+        }
+        rows.sort((a, b) -> Double.compare(b.bytes().value(), a.bytes().value()));
+        return List.copyOf(rows.subList(0, Math.min(topN, rows.size())));
+    }
+
+    /**
+     * Expansion estimate of a total over all rw chunks.
+     */
+    private SampleReport.Estimate estimate(Moments moments) {
+        long n = sampledRwChunks;
+        if (n == 0) {
+            return new SampleReport.Estimate(0, Double.POSITIVE_INFINITY);
+        }
+        double mean = moments.sum / n;
+        double variance = n > 1 ? Math.max(0, (moments.squares - n * mean * mean) / (n - 1)) : 0;
+        return new SampleReport.Estimate(rwChunks * mean, margin(rwChunks, n, variance));
+    }
+
+    /**
+     * Ratio estimate of the symbol bytes: known symbol count times the sampled
+     * bytes per symbol.
+     */
+    private SampleReport.Estimate symbolBytes() {
+        long n = sampledSymbolChunks;
+        if (n == 0 || sampledSymbols == 0) {
+            return new SampleReport.Estimate(0, symbolCount == 0 ? 0 : Double.POSITIVE_INFINITY);
+        }
+        double ratio = (double) sampledSymbolBytes / sampledSymbols;
+        // Variance of the residuals bytes - ratio * symbols over the chunks
+        double residuals = symbolByteSquares - 2 * ratio * symbolProducts + ratio * ratio * symbolCountSquares;
+        double variance = n > 1 ? Math.max(0, residuals / (n - 1)) : 0;
+        return new SampleReport.Estimate(symbolCount * ratio, margin(symbolChunks, n, variance));
+    }
+
+    /**
+     * Half width of the 95% interval of a total over {@code population} units
+     * estimated from {@code n} of them, whose per-unit variance is {@code variance}.
+     */
+    private static double margin(long population, long n, double variance) {
+        if (n >= population) {
+            return 0;
+        }
+        if (n < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        double correction = 1 - (double) n / population;
+        return Z_95 * population * Math.sqrt(correction * variance / n);
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.chains_project.aotp.analysis;
+
+import java.io.IOException;
+import java.util.List;
+
+import io.github.chains_project.aotp.output.RecordWriter;
+
+/**
+ * Result of a {@link SampleAnalyzer} run: estimated totals with 95% intervals.
+ *
+ * @param rwChunks            chunks the rw region is cut into
+ * @param sampledRwChunks     chunks that were scanned
+ * @param chunkSize           bytes per rw chunk
+ * @param symbolChunks        bucket ranges of the SymbolTable, 0 if the archive has none
+ * @param sampledSymbolChunks bucket ranges that were read
+ * @param symbolCount         symbols in the SymbolTable, which is exact
+ * @param elapsedNanos        time spent sampling
+ */
+public record SampleReport(long rwChunks,
+                           long sampledRwChunks,
+                           int chunkSize,
+                           long symbolChunks,
+                           long sampledSymbolChunks,
+                           Estimate classCount,
+                           Estimate totalBytes,
+                           List<Row> kinds,
+                           List<Row> packages,
+                           long symbolCount,
+                           Estimate symbolBytes,
+                           long elapsedNanos) {
+
+    /**
+     * An estimated total and the half width of its 95% interval; the margin is
+     * 0 if the whole population was sampled and infinite if it cannot be told.
+     */
+    public record Estimate(double value, double margin) {
+
+        public double low() {
+            return Math.max(0, value - margin);
+        }
+
+        public double high() {
+            return value + margin;
+        }
+
+        /**
+         * True if the whole population was sampled, so the value is exact.
+         */
+        public boolean isExact() {
+            return margin == 0;
+        }
+
+        String format() {
+            if (Double.isInfinite(margin)) {
+                return String.format("%.0f (no interval)", value);
+            }
+            return String.format("%.0f ± %.0f", value, margin);
+        }
+    }
+
+    /**
+     * Estimated classes and bytes of one group (kind, package).
+     */
+    public record Row(String key, Estimate count, Estimate bytes) {}
+
+    /**
+     * True if every rw chunk was scanned, so the class figures are exact.
+     */
+    public boolean isComplete() {
+        return sampledRwChunks >= rwChunks;
+    }
+
+    public void print(Appendable st) throws IOException {
+        st.append(String.format("sampled %d of %d rw chunks of %d bytes", sampledRwChunks, rwChunks, chunkSize));
+        if (symbolChunks > 0) {
+            st.append(String.format(", %d of %d symbol table chunks", sampledSymbolChunks, symbolChunks));
+        }
+        st.append(String.format(" in %d ms (95%% intervals)%n", elapsedNanos / 1_000_000));
+        st.append(String.format("classes:      %s%n", classCount.format()));
+        st.append(String.format("bytes:        %s%n", totalBytes.format()));
+        if (symbolChunks > 0) {
+            st.append(String.format("symbols:      %d%n", symbolCount));
+            st.append(String.format("symbol bytes: %s%n", symbolBytes.format()));
+        } else {
+            st.append("symbols:      no symbol table\n");
+        }
+        printTable(st, "kind", kinds);
+        printTable(st, "package", packages);
+    }
+
+    private void printTable(Appendable st, String title, List<Row> rows) throws IOException {
+        st.append(String.format("============ by %s ============%n", title));
+        st.append(String.format("%-60s %22s %26s%n", title, "classes", "bytes"));
+        for (Row row : rows) {
+            st.append(String.format("%-60s %22s %26s%n", row.key(), row.count().format(), row.bytes().format()));
+        }
+    }
+
+    /**
+     * Writes one {@code sample_kind} and {@code sample_package} record per row
+     * and a {@code sample} summary; every estimate is a value, low and high field.
+     */
+    public void write(RecordWriter out) throws IOException {
+        writeRows(out, "sample_kind", kinds);
+        writeRows(out, "sample_package", packages);
+        out.begin("sample");
+        out.field("rw_chunks", rwChunks);
+        out.field("sampled_rw_chunks", sampledRwChunks);
+        out.field("chunk_size", chunkSize);
+        out.field("symbol_chunks", symbolChunks);
+        out.field("sampled_symbol_chunks", sampledSymbolChunks);
+        writeEstimate(out, "classes", classCount);
+        writeEstimate(out, "bytes", totalBytes);
+        out.field("symbols", symbolCount);
+        writeEstimate(out, "symbol_bytes", symbolBytes);
+        out.field("elapsed_ms", elapsedNanos / 1_000_000);
+        out.end();
+    }
+
+    private static void writeRows(RecordWriter out, String type, List<Row> rows) throws IOException {
+        for (Row row : rows) {
+            out.begin(type);
+            out.field("key", row.key());
+            writeEstimate(out, "classes", row.count());
+            writeEstimate(out, "bytes", row.bytes());
+            out.end();
+        }
+    }
+
+    private static void writeEstimate(RecordWriter out, String name, Estimate estimate) throws IOException {
+        out.field(name, Math.round(estimate.value()));
+        out.field(name + "_low", Math.round(estimate.low()));
+        out.field(name + "_high", Double.isInfinite(estimate.high()) ? -1 : Math.round(estimate.high()));
+    }
+}
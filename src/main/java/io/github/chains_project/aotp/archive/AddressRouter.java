@@ -0,0 +1,65 @@
+package io.github.chains_project.aotp.archive;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Maps an address to the archive whose metadata regions cover it, for a set of
+ * archives mapped side by side at their requested base addresses.
+ *
+ * The rw and ro regions of every archive are kept as ranges sorted by start
+ * address, so routing an address is a binary search. Overlapping ranges are
+ * rejected: they mean the archives cannot be mapped together as recorded.
+ */
+public final class AddressRouter {
+
+    // Regions that hold metadata (rw, ro)
+    private static final int[] METADATA_REGIONS = { 0, 1 };
+
+    private final long[] starts;
+    private final long[] ends;
+    private final AotArchive[] owners;
+
+    private record Range(long start, long end, AotArchive owner) {}
+
+    public AddressRouter(AotArchive... archives) {
+        List<Range> ranges = new ArrayList<>();
+        for (AotArchive archive : archives) {
+            for (int index : METADATA_REGIONS) {
+                long used = archive.regions()[index].used();
+                if (used > 0) {
+                    long start = archive.regionStart(index);
+                    ranges.add(new Range(start, start + used, archive));
+                }
+            }
+        }
+        ranges.sort(Comparator.comparingLong(Range::start));
+        starts = new long[ranges.size()];
+        ends = new long[ranges.size()];
+        owners = new AotArchive[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            Range range = ranges.get(i);
+            if (i > 0 && range.start() < ends[i - 1]) {
+                throw new IllegalArgumentException(String.format(
+                        "Archives overlap at 0x%x: %s and %s", range.start(), owners[i - 1].path(),
+                        range.owner().path()));
+            }
+            starts[i] = range.start();
+            ends[i] = range.end();
+            owners[i] = range.owner();
+        }
+    }
+
+    /**
+     * The archive mapping {@code address}, or null if none does.
+     */
+    public AotArchive archiveAt(long address) {
+        int index = Arrays.binarySearch(starts, address);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return index >= 0 && address < ends[index] ? owners[index] : null;
+    }
+}
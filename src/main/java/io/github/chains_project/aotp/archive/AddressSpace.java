@@ -0,0 +1,68 @@
+package io.github.chains_project.aotp.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.InstanceClass;
+import io.github.chains_project.aotp.scan.SymbolSource;
+
+/**
+ * Archived metadata readable by the address it has when mapped at the
+ * requested base address: a single {@link AotArchive}, or a
+ * {@link LayeredArchive} whose pointers cross from the top archive into the
+ * base archive.
+ */
+public interface AddressSpace extends SymbolSource {
+
+    /**
+     * {@code SharedBaseAddress}: the requested base address of the static
+     * archive. Compact hashtable values and dictionary hashes are offsets
+     * from it, in a dynamic archive too.
+     */
+    long sharedBaseAddress();
+
+    boolean contains(long address);
+
+    /**
+     * True if {@code address} lies in an rw region, where klasses live.
+     */
+    boolean inRwRegion(long address);
+
+    /**
+     * Number of mapped bytes from {@code address} to the end of its region, or 0
+     * if it is not mapped.
+     */
+    long mappedBytesFrom(long address);
+
+    /**
+     * Reads {@code length} bytes starting at {@code address} into a little-endian buffer.
+     *
+     * @throws java.io.EOFException if the range is not mapped
+     */
+    ByteBuffer read(long address, int length) throws IOException;
+
+    /**
+     * Reads and parses the klass record at {@code address}.
+     *
+     * @param name the class name to attach to the parsed record
+     */
+    InstanceClass readKlass(long address, String name) throws IOException;
+
+    default int readInt(long address) throws IOException {
+        return read(address, 4).getInt(0);
+    }
+
+    default long readLong(long address) throws IOException {
+        return read(address, 8).getLong(0);
+    }
+
+    /**
+     * Name of the klass at {@code klassAddress}, or null if its name symbol is not mapped.
+     */
+    default String klassName(long klassAddress) throws IOException {
+        byte[] name = symbolBytes(readLong(klassAddress + ClassEntry.NAME_OFFSET));
+        return name == null ? null : new String(name, StandardCharsets.UTF_8);
+    }
+}
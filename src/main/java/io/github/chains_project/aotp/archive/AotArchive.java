@@ -0,0 +1,317 @@
+package io.github.chains_project.aotp.archive;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import io.github.chains_project.aotp.header.CDSFileMapRegion;
+import io.github.chains_project.aotp.header.FileMapHeader;
+import io.github.chains_project.aotp.header.GenericHeader;
+import io.github.chains_project.aotp.metrics.AotpMetrics;
+import io.github.chains_project.aotp.metrics.Phase;
+import io.github.chains_project.aotp.metrics.PhaseTimer;
+import io.github.chains_project.aotp.oops.klass.InstanceClass;
+import io.github.chains_project.aotp.utils.LittleEndianRandomAccessFile;
+
+/**
+ * An open AOT cache file: its headers plus positional reads of metadata by
+ * the address it has when the archive is mapped at the requested base
+ * address. Unlike the region scan, nothing but the headers is read up front,
+ * so looking up a few objects costs a few small reads.
+ *
+ * Addresses are translated through the mapping offsets of the rw and ro
+ * regions, the only regions that hold metadata.
+ *
+ * Both regions are memory-mapped once when the file is opened (see
+ * {@link FileMapping}) and read with absolute gets that never move a buffer
+ * position, so one open archive can be queried from any number of threads
+ * without locking. Reads the mappings do not cover fall back to positional
+ * channel reads, which are safe to issue concurrently as well. Buffers
+ * returned by {@link #mapRegion} must not be used after the archive is closed.
+ */
+public final class AotArchive implements Closeable, AddressSpace {
+
+    // Regions mapped at requested base + mapping offset that hold metadata (rw, ro)
+    private static final int[] METADATA_REGIONS = { 0, 1 };
+
+    // Symbol format: hash_and_refcount (4 bytes), length (2 bytes), body[length] (UTF-8)
+    private static final int SYMBOL_LENGTH_OFFSET = 4;
+    private static final int SYMBOL_BODY_OFFSET = 6;
+
+    private final String path;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final GenericHeader genericHeader;
+    private final CDSFileMapRegion[] regions;
+    private final FileMapHeader fileMapHeader;
+    private final long fileLength;
+    // Shared read-only mappings of the metadata regions, by region index; null if empty
+    private final FileMapping[] mappings;
+
+    private AotArchive(String path, RandomAccessFile raf, GenericHeader genericHeader,
+                       CDSFileMapRegion[] regions, FileMapHeader fileMapHeader) throws IOException {
+        this.path = path;
+        this.raf = raf;
+        this.channel = raf.getChannel();
+        this.genericHeader = genericHeader;
+        this.regions = regions;
+        this.fileMapHeader = fileMapHeader;
+        this.fileLength = channel.size();
+        this.mappings = new FileMapping[METADATA_REGIONS.length];
+        try {
+            for (int index : METADATA_REGIONS) {
+                CDSFileMapRegion region = regions[index];
+                long length = Math.max(0, Math.min(region.used(), fileLength - region.fileOffset()));
+                if (length > 0) {
+                    mappings[index] = FileMapping.map(channel, region.fileOffset(), length);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            closeMappings();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the file and reads its headers. The magic number is not checked.
+     */
+    public static AotArchive open(String path) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(path, "r");
+        try {
+            LittleEndianRandomAccessFile file = new LittleEndianRandomAccessFile(raf);
+            return PhaseTimer.time(Phase.HEADER, file, () -> {
+                GenericHeader genericHeader = new GenericHeader(file);
+                CDSFileMapRegion[] regions = new CDSFileMapRegion[5];
+                for (int i = 0; i < regions.length; i++) {
+                    regions[i] = new CDSFileMapRegion(file);
+                }
+                FileMapHeader fileMapHeader = new FileMapHeader(file);
+                return new AotArchive(path, raf, genericHeader, regions, fileMapHeader);
+            });
+        } catch (EOFException e) {
+            raf.close();
+            throw new IOException("Invalid AOTCache file: file too short", e);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    public String path() {
+        return path;
+    }
+
+    public GenericHeader genericHeader() {
+        return genericHeader;
+    }
+
+    public CDSFileMapRegion[] regions() {
+        return regions;
+    }
+
+    public FileMapHeader fileMapHeader() {
+        return fileMapHeader;
+    }
+
+    public long requestedBaseAddress() {
+        return fileMapHeader.requestedBaseAddress();
+    }
+
+    @Override
+    public long sharedBaseAddress() {
+        return requestedBaseAddress();
+    }
+
+    public FileChannel channel() {
+        return channel;
+    }
+
+    /**
+     * The base archive path recorded in the header of a dynamic archive, or null
+     * if none is recorded (the base is then the JDK's default CDS archive).
+     */
+    public String baseArchiveName() throws IOException {
+        int size = genericHeader.baseArchiveNameSize();
+        long offset = genericHeader.baseArchivePathOffset();
+        if (size <= 1 || offset <= 0 || offset + size > fileLength) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size - 1);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of file at " + (offset + buffer.position()));
+            }
+        }
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Start address of the region at {@code regionIndex} when mapped at the
+     * requested base address.
+     */
+    public long regionStart(int regionIndex) {
+        return requestedBaseAddress() + regions[regionIndex].mappingOffset();
+    }
+
+    /**
+     * End of the highest metadata region when mapped at the requested base address.
+     */
+    public long mappedEnd() {
+        long end = requestedBaseAddress();
+        for (int index : METADATA_REGIONS) {
+            end = Math.max(end, regionStart(index) + regions[index].used());
+        }
+        return end;
+    }
+
+    /**
+     * File offset of the byte at {@code address}, or -1 if no metadata region maps it.
+     */
+    public long fileOffsetOf(long address) {
+        long offset = address - requestedBaseAddress();
+        for (int index : METADATA_REGIONS) {
+            CDSFileMapRegion region = regions[index];
+            long start = region.mappingOffset();
+            if (offset >= start && offset - start < region.used()) {
+                return region.fileOffset() + (offset - start);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public long mappedBytesFrom(long address) {
+        long offset = address - requestedBaseAddress();
+        for (int index : METADATA_REGIONS) {
+            CDSFileMapRegion region = regions[index];
+            long start = region.mappingOffset();
+            if (offset >= start && offset - start < region.used()) {
+                return region.used() - (offset - start);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public boolean contains(long address) {
+        return fileOffsetOf(address) >= 0;
+    }
+
+    @Override
+    public boolean inRwRegion(long address) {
+        return inRegion(address, 0);
+    }
+
+    /**
+     * True if {@code address} lies in the region at {@code regionIndex}.
+     */
+    public boolean inRegion(long address, int regionIndex) {
+        CDSFileMapRegion region = regions[regionIndex];
+        long offset = address - requestedBaseAddress() - region.mappingOffset();
+        return offset >= 0 && offset < region.used();
+    }
+
+    @Override
+    public ByteBuffer read(long address, int length) throws IOException {
+        for (int index : METADATA_REGIONS) {
+            FileMapping mapping = mappings[index];
+            long offset = address - regionStart(index);
+            if (mapping != null && offset >= 0 && offset + length <= mapping.size()) {
+                byte[] bytes = new byte[length];
+                mapping.get(offset, bytes, 0, length);
+                AotpMetrics.countRead(length, 0);
+                return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        long fileOffset = fileOffsetOf(address);
+        if (fileOffset < 0 || fileOffset + length > fileLength) {
+            throw new EOFException(String.format("Address 0x%x (+%d) is not in the archive", address, length));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        long calls = 0;
+        while (buffer.hasRemaining()) {
+            calls++;
+            if (channel.read(buffer, fileOffset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of file at " + (fileOffset + buffer.position()));
+            }
+        }
+        AotpMetrics.countRead(length, calls);
+        return buffer.flip();
+    }
+
+    /**
+     * Maps the file contents of region {@code regionIndex} read-only, in little-endian
+     * order; truncated to what the file holds.
+     */
+    public ByteBuffer mapRegion(int regionIndex) throws IOException {
+        ByteBuffer mapped = regionIndex < mappings.length && mappings[regionIndex] != null
+                ? mappings[regionIndex].asByteBuffer() : null;
+        if (mapped != null) {
+            return mapped;
+        }
+        CDSFileMapRegion region = regions[regionIndex];
+        long length = Math.max(0, Math.min(region.used(), fileLength - region.fileOffset()));
+        if (length == 0) {
+            return ByteBuffer.allocate(0).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, region.fileOffset(), length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public byte[] symbolBytes(long address) throws IOException {
+        if (!contains(address) || !contains(address + SYMBOL_BODY_OFFSET - 1)) {
+            return null;
+        }
+        int length = read(address + SYMBOL_LENGTH_OFFSET, 2).getShort(0) & 0xFFFF;
+        if (length > 0 && !contains(address + SYMBOL_BODY_OFFSET + length - 1)) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        read(address + SYMBOL_BODY_OFFSET, length).get(body);
+        return body;
+    }
+
+    @Override
+    public InstanceClass readKlass(long address, String name) throws IOException {
+        ByteBuffer fixed = read(address, InstanceClass.FIXED_SIZE);
+        long size = InstanceClass.recordSize(fixed.array(), 0);
+        // InstanceClass.parse peeks at the word after the vtable for the itable terminator
+        int length = (int) Math.max(InstanceClass.FIXED_SIZE, Math.min(size + 8, Integer.MAX_VALUE - 8));
+        byte[] record = new byte[length];
+        ByteBuffer buffer = read(address, (int) Math.min(length, mappedBytesFrom(address)));
+        buffer.get(record, 0, buffer.remaining());
+        InstanceClass parsed = InstanceClass.parse(record, 0);
+        parsed.setName(name);
+        parsed.setAddress(address);
+        return parsed;
+    }
+
+    /**
+     * The mapping of the rw or ro region, or null if the region is empty.
+     */
+    public FileMapping mapping(int regionIndex) {
+        return regionIndex < mappings.length ? mappings[regionIndex] : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            closeMappings();
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void closeMappings() {
+        for (FileMapping mapping : mappings) {
+            if (mapping != null) {
+                mapping.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package io.github.chains_project.aotp.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+
+/**
+ * Bounded LRU cache of parsed archives: the classes of an archive's RW region,
+ * indexed by name, so repeated queries on the same file skip the scan.
+ *
+ * Entries are keyed by real path (and the base archive given for it) and
+ * stamped with the file's size, modification time and header CRC. Validation
+ * is lazy: each lookup compares size and modification time, and only if they
+ * changed reads the header CRC. An entry whose CRC still matches is kept and
+ * restamped (the file was touched or copied, not rewritten); otherwise it is
+ * dropped and the archive parsed again. A CRC of 0 means HotSpot did not
+ * record one, so it never vouches for an entry.
+ *
+ * The cache is bounded by entry count and by estimated heap bytes, evicting
+ * the least recently used entries first. Loading happens outside the lock, so
+ * two threads missing on the same file may both parse it.
+ */
+public final class ArchiveCache {
+
+    // Offset of GenericHeader::_crc
+    private static final int HEADER_CRC_OFFSET = 4;
+    // Object headers, references and the name String of a parsed class, on top of its record
+    private static final int ENTRY_OVERHEAD = 160;
+
+    /**
+     * Parses an archive on a miss.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        Parsed load() throws IOException;
+    }
+
+    /**
+     * What is cached for one archive.
+     *
+     * @param classes  the classes of the RW region, in file order
+     * @param basePath base archive of a dynamic archive, null for a static one
+     */
+    public record Parsed(List<ClassEntry> classes, String basePath) {
+
+        public Parsed {
+            classes = List.copyOf(classes);
+        }
+
+        /**
+         * Rough heap footprint of the parsed classes.
+         */
+        public long estimatedBytes() {
+            long bytes = 0;
+            for (ClassEntry entry : classes) {
+                String name = entry.getName();
+                bytes += ENTRY_OVERHEAD + entry.getSize() + (name == null ? 0 : name.length());
+            }
+            return bytes;
+        }
+    }
+
+    /**
+     * A cached archive: the parsed classes plus a name index over them.
+     */
+    public static final class Entry {
+
+        private final Parsed parsed;
+        private final Map<String, ClassEntry> byName;
+        private final long estimatedBytes;
+
+        Entry(Parsed parsed) {
+            this.parsed = parsed;
+            this.byName = new HashMap<>(parsed.classes().size() * 2);
+            for (ClassEntry entry : parsed.classes()) {
+                if (entry.getName() != null) {
+                    byName.putIfAbsent(entry.getName(), entry);
+                }
+            }
+            this.estimatedBytes = parsed.estimatedBytes();
+        }
+
+        public List<ClassEntry> classes() {
+            return parsed.classes();
+        }
+
+        public String basePath() {
+            return parsed.basePath();
+        }
+
+        /**
+         * The class with internal name {@code name}, or null.
+         */
+        public ClassEntry find(String name) {
+            return byName.get(name);
+        }
+
+        public long estimatedBytes() {
+            return estimatedBytes;
+        }
+    }
+
+    /**
+     * Counters since the cache was created.
+     *
+     * @param invalidations entries dropped because their file changed
+     */
+    public record Stats(long hits, long misses, long evictions, long invalidations, int entries,
+                        long estimatedBytes) {}
+
+    private record Key(Path realPath, String baseArchivePath) {}
+
+    private record Stamp(long size, long lastModified, int headerCrc) {}
+
+    private static final class Slot {
+        final Entry entry;
+        Stamp stamp;
+
+        Slot(Entry entry, Stamp stamp) {
+            this.entry = entry;
+            this.stamp = stamp;
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Key, Slot> slots = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * @param maxEntries most archives kept
+     * @param maxBytes   most estimated heap bytes kept; an archive larger than
+     *                   this on its own is parsed but not kept
+     */
+    public ArchiveCache(int maxEntries, long maxBytes) {
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Cache limits must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached entry for {@code path}, calling {@code loader} if there
+     * is none or the file changed.
+     *
+     * @param baseArchivePath base archive given for a dynamic archive, part of the key
+     */
+    public Entry get(String path, String baseArchivePath, Loader loader) throws IOException {
+        Path file = Path.of(path);
+        Key key = new Key(file.toRealPath(), baseArchivePath);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        synchronized (this) {
+            Slot slot = slots.get(key);
+            if (slot != null) {
+                Stamp stamp = slot.stamp;
+                if (stamp.size() == attributes.size()
+                        && stamp.lastModified() == attributes.lastModifiedTime().toMillis()) {
+                    hits++;
+                    return slot.entry;
+                }
+            }
+        }
+        Stamp stamp = new Stamp(attributes.size(), attributes.lastModifiedTime().toMillis(), headerCrc(file));
+        synchronized (this) {
+            Slot slot = slots.get(key);
+            if (slot != null) {
+                if (stamp.headerCrc() != 0 && slot.stamp.size() == stamp.size()
+                        && slot.stamp.headerCrc() == stamp.headerCrc()) {
+                    slot.stamp = stamp;
+                    hits++;
+                    return slot.entry;
+                }
+                remove(key);
+                invalidations++;
+            }
+            misses++;
+        }
+        Entry entry = new Entry(loader.load());
+        if (entry.estimatedBytes() > maxBytes) {
+            // Inserting it would only evict everything else before itself
+            return entry;
+        }
+        synchronized (this) {
+            Slot previous = slots.put(key, new Slot(entry, stamp));
+            if (previous != null) {
+                bytes -= previous.entry.estimatedBytes();
+            }
+            bytes += entry.estimatedBytes();
+            evict();
+        }
+        return entry;
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, evictions, invalidations, slots.size(), bytes);
+    }
+
+    /**
+     * Drops all entries; the counters are kept.
+     */
+    public synchronized void clear() {
+        slots.clear();
+        bytes = 0;
+    }
+
+    private void evict() {
+        Iterator<Slot> eldest = slots.values().iterator();
+        while ((slots.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+            bytes -= eldest.next().entry.estimatedBytes();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    private void remove(Key key) {
+        Slot slot = slots.remove(key);
+        if (slot != null) {
+            bytes -= slot.entry.estimatedBytes();
+        }
+    }
+
+    private static int headerCrc(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer, HEADER_CRC_OFFSET + buffer.position()) >= 0) {
+                // keep reading
+            }
+            return buffer.hasRemaining() ? 0 : buffer.getInt(0);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.chains_project.aotp.archive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.github.chains_project.aotp.classfile.ArchivedTables;
+
+/**
+ * Process-wide cache of the tables located in base archives. Many dynamic
+ * archives are usually layered on one base (the JDK's default CDS archive or
+ * a shared application base), and locating its tables means reading and
+ * classifying its serialized data, so this is done once per base file.
+ *
+ * Entries are keyed by real path, size and modification time, so a rewritten
+ * base is located again. Cached tables are bound to the archive handle they
+ * were located with; {@link #tables} rebinds them to the caller's space.
+ */
+public final class BaseArchiveCache {
+
+    private static final int MAX_ENTRIES = 8;
+
+    private record Key(Path realPath, long size, long lastModified) {}
+
+    private static final Map<Key, ArchivedTables> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, ArchivedTables> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private static long hits;
+    private static long misses;
+
+    private BaseArchiveCache() {}
+
+    /**
+     * Returns the tables of {@code base}, located on first use, read through {@code space}.
+     */
+    public static ArchivedTables tables(AotArchive base, AddressSpace space) throws IOException {
+        Path path = Path.of(base.path());
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        Key key = new Key(path.toRealPath(), attributes.size(), attributes.lastModifiedTime().toMillis());
+        ArchivedTables tables;
+        synchronized (CACHE) {
+            tables = CACHE.get(key);
+            if (tables != null) {
+                hits++;
+                return tables.rebind(space);
+            }
+            misses++;
+        }
+        tables = ArchivedTables.locate(base, space);
+        synchronized (CACHE) {
+            CACHE.put(key, tables);
+        }
+        return tables;
+    }
+
+    public static long hits() {
+        synchronized (CACHE) {
+            return hits;
+        }
+    }
+
+    public static long misses() {
+        synchronized (CACHE) {
+            return misses;
+        }
+    }
+
+    /**
+     * Drops all entries and zeroes the counters.
+     */
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+            hits = 0;
+            misses = 0;
+        }
+    }
+}
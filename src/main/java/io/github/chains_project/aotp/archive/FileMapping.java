@@ -0,0 +1,118 @@
+package io.github.chains_project.aotp.archive;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only mapping of a range of a file, read in little-endian order with
+ * absolute gets, so it can be shared between threads.
+ *
+ * This is the Java 17 implementation: a {@link java.nio.MappedByteBuffer} if
+ * the range fits in one, positional channel reads otherwise. The buffer is
+ * unmapped when it is collected, and the access hints do nothing. The
+ * multi-release jar carries a Java 22 implementation in
+ * {@code META-INF/versions/22} that maps the whole range as a
+ * {@code MemorySegment}, unmaps it on {@link #close()} and passes the hints to
+ * {@code madvise}.
+ */
+public final class FileMapping implements Closeable {
+
+    private final FileChannel channel;
+    private final long position;
+    private final long size;
+    // null if the range is larger than a buffer can be
+    private final ByteBuffer buffer;
+
+    private FileMapping(FileChannel channel, long position, long size, ByteBuffer buffer) {
+        this.channel = channel;
+        this.position = position;
+        this.size = size;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Maps {@code size} bytes of {@code channel} starting at {@code position}.
+     */
+    public static FileMapping map(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = size <= Integer.MAX_VALUE
+                ? channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(ByteOrder.LITTLE_ENDIAN)
+                : null;
+        return new FileMapping(channel, position, size, buffer);
+    }
+
+    /**
+     * Name of the implementation in use, {@code "nio"} or {@code "ffm"}.
+     */
+    public static String backend() {
+        return "nio";
+    }
+
+    public long size() {
+        return size;
+    }
+
+    /**
+     * The little-endian word at {@code offset}, which need not be aligned.
+     */
+    public long getLong(long offset) throws IOException {
+        if (buffer != null) {
+            return buffer.getLong((int) offset);
+        }
+        byte[] bytes = new byte[Long.BYTES];
+        get(offset, bytes, 0, bytes.length);
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).getLong();
+    }
+
+    /**
+     * Copies {@code length} bytes at {@code offset} into {@code dest}.
+     *
+     * @throws IndexOutOfBoundsException if the range is not inside the mapping
+     */
+    public void get(long offset, byte[] dest, int destOffset, int length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > size) {
+            throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + length)
+                    + ") is not inside a mapping of " + size + " bytes");
+        }
+        if (buffer != null) {
+            buffer.get((int) offset, dest, destOffset, length);
+            return;
+        }
+        ByteBuffer target = ByteBuffer.wrap(dest, destOffset, length);
+        while (target.hasRemaining()) {
+            if (channel.read(target, position + offset + (target.position() - destOffset)) < 0) {
+                throw new EOFException("Unexpected end of file at " + (position + offset));
+            }
+        }
+    }
+
+    /**
+     * The mapping as a little-endian buffer, or null if it is too large for one.
+     * The buffer must not be used after the mapping is closed.
+     */
+    public ByteBuffer asByteBuffer() {
+        return buffer == null ? null : buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Hints that the mapping will be read front to back.
+     */
+    public void adviseSequential() {
+        // No portable way to pass this on before Java 22
+    }
+
+    /**
+     * Hints that {@code [offset, offset + length)} will be read soon.
+     */
+    public void adviseWillNeed(long offset, long length) {
+        // No portable way to pass this on before Java 22
+    }
+
+    @Override
+    public void close() {
+        // The buffer is unmapped when it is collected
+    }
+}
@@ -0,0 +1,305 @@
+package io.github.chains_project.aotp.archive;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.chains_project.aotp.classfile.ArchivedTables;
+import io.github.chains_project.aotp.classfile.SymbolInfo;
+import io.github.chains_project.aotp.classfile.SymbolTable;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.InstanceClass;
+
+/**
+ * An archive as the JVM maps it: a static archive alone, or a dynamic archive
+ * together with the static archive it was created on top of.
+ *
+ * Both layers are mapped at their requested base addresses, so pointers in the
+ * top archive may point into the base archive (symbols shared with the base,
+ * superclasses loaded from it); every read is routed to the archive covering
+ * the address by an {@link AddressRouter}. Lookups try the top layer's tables
+ * first, then the base's. Tables are located on first use, so a scan does not
+ * pay for them; the base's tables come from {@link BaseArchiveCache}.
+ *
+ * The base archive is the one given explicitly, else the path recorded in the
+ * dynamic archive's header (tried as written, then next to the dynamic
+ * archive), else the JDK's default CDS archive.
+ *
+ * An open instance is safe for concurrent use: reads go through the layers'
+ * shared mappings and the tables, once located, are immutable.
+ */
+public final class LayeredArchive implements Closeable, AddressSpace {
+
+    // https://github.com/openjdk/jdk/blob/6f6966b28b2c5a18b001be49f5db429c667d7a8f/src/hotspot/share/include/cds.h#L39
+    public static final int STATIC_MAGIC = 0xf00baba2;
+    public static final int DYNAMIC_MAGIC = 0xf00baba8;
+
+    // Superclass chains are short; a longer one means a cycle in corrupt data
+    private static final int MAX_SUPERCLASS_DEPTH = 1024;
+
+    private final AotArchive top;
+    private final AotArchive base;
+    private final AddressRouter router;
+    private volatile List<ArchivedTables> layerTables;
+
+    private LayeredArchive(AotArchive top, AotArchive base) {
+        this.top = top;
+        this.base = base;
+        this.router = base == null ? new AddressRouter(top) : new AddressRouter(base, top);
+    }
+
+    /**
+     * Opens {@code path} and, if it is a dynamic archive, its base archive.
+     *
+     * @param baseArchivePath the base archive, or null to use the one the dynamic
+     *                        archive records; ignored for a static archive
+     */
+    public static LayeredArchive open(String path, String baseArchivePath) throws IOException {
+        AotArchive top = AotArchive.open(path);
+        AotArchive base = null;
+        try {
+            if (top.genericHeader().magic() == DYNAMIC_MAGIC) {
+                base = AotArchive.open(baseArchivePath != null ? baseArchivePath : findBaseArchive(top));
+                if (base.genericHeader().magic() != STATIC_MAGIC) {
+                    throw new IOException(String.format("Base archive %s is not a static archive (magic: %08x)",
+                            base.path(), base.genericHeader().magic()));
+                }
+            }
+            return new LayeredArchive(top, base);
+        } catch (IOException | RuntimeException e) {
+            top.close();
+            if (base != null) {
+                base.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Path of the base archive of the dynamic archive {@code top}, see the class comment.
+     *
+     * @throws IOException if no candidate exists
+     */
+    static String findBaseArchive(AotArchive top) throws IOException {
+        String recorded = top.baseArchiveName();
+        List<Path> candidates = new ArrayList<>();
+        if (recorded != null) {
+            Path path = Path.of(recorded);
+            candidates.add(path);
+            Path sibling = Path.of(top.path()).toAbsolutePath().resolveSibling(path.getFileName());
+            candidates.add(sibling);
+        } else {
+            candidates.add(Path.of(System.getProperty("java.home"), "lib", "server", "classes.jsa"));
+        }
+        for (Path candidate : candidates) {
+            if (Files.isRegularFile(candidate)) {
+                return candidate.toString();
+            }
+        }
+        throw new IOException("Base archive of " + top.path() + " not found (tried " + candidates
+                + "); pass its path explicitly");
+    }
+
+    /**
+     * The archive that was opened.
+     */
+    public AotArchive top() {
+        return top;
+    }
+
+    /**
+     * The base archive, or null if the opened archive is static.
+     */
+    public AotArchive base() {
+        return base;
+    }
+
+    public boolean isLayered() {
+        return base != null;
+    }
+
+    public ArchivedTables topTables() throws IOException {
+        return layerTables().get(0);
+    }
+
+    /**
+     * The base archive's tables, or null if the opened archive is static.
+     */
+    public ArchivedTables baseTables() throws IOException {
+        return base == null ? null : layerTables().get(1);
+    }
+
+    /**
+     * True if some layer has a symbol table.
+     */
+    public boolean hasSymbolTable() throws IOException {
+        for (ArchivedTables tables : layerTables()) {
+            if (tables.symbolTable() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * True if classes can be looked up by name in some layer.
+     */
+    public boolean canFindClasses() throws IOException {
+        if (!hasSymbolTable()) {
+            return false;
+        }
+        for (ArchivedTables tables : layerTables()) {
+            if (!tables.dictionaries().isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Address of the symbol with the given name in any layer, or 0.
+     */
+    public long findSymbolAddress(String name) throws IOException {
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        for (ArchivedTables tables : layerTables()) {
+            SymbolTable symbolTable = tables.symbolTable();
+            long address = symbolTable == null ? 0 : symbolTable.lookup(utf8);
+            if (address != 0) {
+                return address;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Looks up a symbol in the top layer, then in the base.
+     *
+     * @return the symbol, or null if no layer has it
+     */
+    public SymbolInfo findSymbol(String name) throws IOException {
+        for (ArchivedTables tables : layerTables()) {
+            SymbolTable symbolTable = tables.symbolTable();
+            SymbolInfo symbol = symbolTable == null ? null : symbolTable.find(name);
+            if (symbol != null) {
+                return symbol;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Address of the klass with the given internal name in any layer, or 0. The
+     * name symbol of a class in the top layer may live in the base layer.
+     */
+    public long findKlass(String name) throws IOException {
+        long symbol = findSymbolAddress(name);
+        if (symbol == 0) {
+            return 0;
+        }
+        for (ArchivedTables tables : layerTables()) {
+            long klass = tables.findKlass(symbol);
+            if (klass != 0) {
+                return klass;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Names of the superclasses of the klass at {@code klassAddress}, nearest
+     * first, following {@code _super} across layers.
+     */
+    public List<String> superclassNames(long klassAddress) throws IOException {
+        List<String> names = new ArrayList<>();
+        long klass = readLong(klassAddress + ClassEntry.SUPER_KLASS_OFFSET);
+        while (klass != 0 && names.size() < MAX_SUPERCLASS_DEPTH) {
+            String name = klassName(klass);
+            if (name == null) {
+                break;
+            }
+            names.add(name);
+            klass = readLong(klass + ClassEntry.SUPER_KLASS_OFFSET);
+        }
+        return names;
+    }
+
+    private List<ArchivedTables> layerTables() throws IOException {
+        List<ArchivedTables> tables = layerTables;
+        if (tables == null) {
+            synchronized (this) {
+                tables = layerTables;
+                if (tables == null) {
+                    ArchivedTables topTables = ArchivedTables.locate(top, this);
+                    tables = base == null
+                            ? List.of(topTables)
+                            : List.of(topTables, BaseArchiveCache.tables(base, this));
+                    layerTables = tables;
+                }
+            }
+        }
+        return tables;
+    }
+
+    @Override
+    public long sharedBaseAddress() {
+        return (base != null ? base : top).requestedBaseAddress();
+    }
+
+    @Override
+    public boolean contains(long address) {
+        return router.archiveAt(address) != null;
+    }
+
+    @Override
+    public boolean inRwRegion(long address) {
+        AotArchive archive = router.archiveAt(address);
+        return archive != null && archive.inRwRegion(address);
+    }
+
+    @Override
+    public long mappedBytesFrom(long address) {
+        AotArchive archive = router.archiveAt(address);
+        return archive == null ? 0 : archive.mappedBytesFrom(address);
+    }
+
+    @Override
+    public ByteBuffer read(long address, int length) throws IOException {
+        return route(address).read(address, length);
+    }
+
+    @Override
+    public byte[] symbolBytes(long address) throws IOException {
+        AotArchive archive = router.archiveAt(address);
+        return archive == null ? null : archive.symbolBytes(address);
+    }
+
+    @Override
+    public InstanceClass readKlass(long address, String name) throws IOException {
+        return route(address).readKlass(address, name);
+    }
+
+    private AotArchive route(long address) throws IOException {
+        AotArchive archive = router.archiveAt(address);
+        if (archive == null) {
+            throw new EOFException(String.format("Address 0x%x is not in any layer", address));
+        }
+        return archive;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            top.close();
+        } finally {
+            if (base != null) {
+                base.close();
+            }
+        }
+    }
+}
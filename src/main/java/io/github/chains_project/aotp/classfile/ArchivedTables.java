@@ -0,0 +1,250 @@
+package io.github.chains_project.aotp.classfile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import io.github.chains_project.aotp.archive.AddressSpace;
+import io.github.chains_project.aotp.archive.AotArchive;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+
+/**
+ * Locates the archived hashtables in the serialized data of an archive.
+ *
+ * {@code AOTMetaspace::serialize} writes a stream of pointer-sized slots at
+ * {@code serialized_data_offset}; each table contributes its header
+ * ({@code entry_count}, {@code bucket_count}, {@code buckets}, {@code entries}),
+ * but which slots these are depends on the JDK build. Instead of hard-coding
+ * the stream layout, every slot is tried as a header start: the candidate must
+ * describe a well-formed table (see {@link CompactHashtable}), and a sample of
+ * its entries must hash like symbol table entries or like dictionary entries.
+ * Pointers are accepted both as absolute addresses and as offsets from the
+ * base address, the two encodings JDK versions have used.
+ *
+ * Dictionaries are kept in stream order, so the builtin dictionary comes
+ * before the dictionary of unregistered classes.
+ *
+ * The tables of a dynamic archive point into its base archive, so they are
+ * read through an {@link AddressSpace} that maps both; see
+ * {@link #locate(AotArchive, AddressSpace)}.
+ */
+public final class ArchivedTables {
+
+    // Header slots of a SimpleCompactHashtable
+    private static final int HEADER_SLOTS = 4;
+    // The serialized data is a few KB; do not read more than this looking for headers
+    private static final int MAX_SERIALIZED_DATA = 4 << 20;
+    // Entries checked before a table is classified
+    private static final int SAMPLE_SIZE = 8;
+    private static final int SAMPLE_BUCKETS = 64;
+
+    private static final ArchivedTables NONE = new ArchivedTables(null, List.of());
+
+    private final SymbolTable symbolTable;
+    private final List<SharedDictionary> dictionaries;
+
+    private ArchivedTables(SymbolTable symbolTable, List<SharedDictionary> dictionaries) {
+        this.symbolTable = symbolTable;
+        this.dictionaries = dictionaries;
+    }
+
+    private enum TableKind { SYMBOLS, DICTIONARY, OTHER }
+
+    public static ArchivedTables locate(AotArchive archive) throws IOException {
+        return locate(archive, archive);
+    }
+
+    /**
+     * Locates the tables in the serialized data of {@code layer}, reading
+     * everything they point to through {@code space}.
+     *
+     * @param layer an archive mapped by {@code space}
+     */
+    public static ArchivedTables locate(AotArchive layer, AddressSpace space) throws IOException {
+        long offset = layer.fileMapHeader().serializedDataOffset();
+        if (offset <= 0) {
+            return NONE;
+        }
+        long start = layer.requestedBaseAddress() + offset;
+        if (!layer.contains(start)) {
+            // Older dynamic archives record the offset from the static base
+            start = space.sharedBaseAddress() + offset;
+        }
+        int length = (int) Math.min(MAX_SERIALIZED_DATA, layer.mappedBytesFrom(start)) & ~7;
+        if (length < HEADER_SLOTS * 8) {
+            return NONE;
+        }
+        ByteBuffer data = layer.read(start, length);
+        long[] slots = new long[length / 8];
+        data.asLongBuffer().get(slots);
+
+        SymbolTable symbolTable = null;
+        List<SharedDictionary> dictionaries = new ArrayList<>();
+        for (int i = 0; i + HEADER_SLOTS <= slots.length; i++) {
+            long entryCount = slots[i];
+            long bucketCount = slots[i + 1];
+            if (entryCount <= 0 || bucketCount <= 0
+                    || entryCount > CompactHashtable.BUCKET_OFFSET_MASK
+                    || bucketCount > CompactHashtable.BUCKET_OFFSET_MASK) {
+                continue;
+            }
+            long buckets = resolve(space, slots[i + 2]);
+            long entries = resolve(space, slots[i + 3]);
+            if (buckets == 0 || entries == 0) {
+                continue;
+            }
+            CompactHashtable table = CompactHashtable.tryRead(space, start + i * 8L, entryCount, bucketCount,
+                    buckets, entries);
+            if (table == null) {
+                continue;
+            }
+            switch (classify(space, table)) {
+                case SYMBOLS:
+                    if (symbolTable == null) {
+                        symbolTable = new SymbolTable(space, table);
+                    }
+                    break;
+                case DICTIONARY:
+                    dictionaries.add(new SharedDictionary(space, table));
+                    break;
+                default:
+                    break;
+            }
+            i += HEADER_SLOTS - 1;
+        }
+        return new ArchivedTables(symbolTable, List.copyOf(dictionaries));
+    }
+
+    /**
+     * The same tables, read through {@code space}, which must map them at the
+     * same addresses. Lets tables located once be reused by another open handle
+     * of the same archive, or by a layered view that includes it.
+     */
+    public ArchivedTables rebind(AddressSpace space) {
+        if (this == NONE) {
+            return NONE;
+        }
+        List<SharedDictionary> rebound = new ArrayList<>(dictionaries.size());
+        for (SharedDictionary dictionary : dictionaries) {
+            rebound.add(dictionary.rebind(space));
+        }
+        return new ArchivedTables(symbolTable == null ? null : symbolTable.rebind(space), List.copyOf(rebound));
+    }
+
+    /**
+     * The shared symbol table, or null if none was found.
+     */
+    public SymbolTable symbolTable() {
+        return symbolTable;
+    }
+
+    /**
+     * The class dictionaries found, builtin first.
+     */
+    public List<SharedDictionary> dictionaries() {
+        return dictionaries;
+    }
+
+    /**
+     * True if classes can be looked up by name, i.e. a symbol table and at
+     * least one dictionary were found.
+     */
+    public boolean canFindClasses() {
+        return symbolTable != null && !dictionaries.isEmpty();
+    }
+
+    /**
+     * Returns the address of the klass with the given internal name, or 0 if the
+     * tables do not know it. Classes that are not in a dictionary, such as array
+     * classes, are never found.
+     */
+    public long findKlass(String name) throws IOException {
+        if (!canFindClasses()) {
+            return 0;
+        }
+        long symbol = symbolTable.lookup(name.getBytes(StandardCharsets.UTF_8));
+        return symbol == 0 ? 0 : findKlass(symbol);
+    }
+
+    /**
+     * Returns the address of the klass whose name is the symbol at
+     * {@code nameSymbol}, or 0 if no dictionary knows it. The symbol may come
+     * from another layer's symbol table.
+     */
+    public long findKlass(long nameSymbol) throws IOException {
+        for (SharedDictionary dictionary : dictionaries) {
+            long klass = dictionary.lookup(nameSymbol);
+            if (klass != 0) {
+                return klass;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Turns a serialized pointer into an address, or 0 if it is neither an
+     * address nor a base offset inside the archive.
+     */
+    static long resolve(AddressSpace space, long pointer) {
+        if (pointer == 0) {
+            return 0;
+        }
+        if (space.contains(pointer)) {
+            return pointer;
+        }
+        long address = space.sharedBaseAddress() + pointer;
+        return pointer > 0 && space.contains(address) ? address : 0;
+    }
+
+    private static TableKind classify(AddressSpace space, CompactHashtable table) throws IOException {
+        long base = space.sharedBaseAddress();
+        int bucketCount = table.bucketCount();
+        int[] votes = new int[TableKind.values().length];
+        table.forEach(0, Math.min(bucketCount, SAMPLE_BUCKETS), (bucket, hash, value) -> {
+            votes[classifyEntry(space, base, bucketCount, bucket, hash, value).ordinal()]++;
+            return votes[TableKind.SYMBOLS.ordinal()] + votes[TableKind.DICTIONARY.ordinal()]
+                    + votes[TableKind.OTHER.ordinal()] < SAMPLE_SIZE;
+        });
+        int sampled = Arrays.stream(votes).sum();
+        if (sampled == 0) {
+            return TableKind.OTHER;
+        }
+        if (votes[TableKind.SYMBOLS.ordinal()] == sampled) {
+            return TableKind.SYMBOLS;
+        }
+        if (votes[TableKind.DICTIONARY.ordinal()] == sampled) {
+            return TableKind.DICTIONARY;
+        }
+        return TableKind.OTHER;
+    }
+
+    private static TableKind classifyEntry(AddressSpace space, long base, int bucketCount, int bucket, long hash,
+                                           long value) {
+        try {
+            byte[] symbol = space.symbolBytes(value);
+            if (symbol != null && hashMatches(SymbolTable.hash(symbol), hash, bucket, bucketCount)) {
+                return TableKind.SYMBOLS;
+            }
+            long klass = space.readLong(value);
+            if (space.inRwRegion(klass)) {
+                long name = space.readLong(klass + ClassEntry.NAME_OFFSET);
+                if (space.contains(name) && hashMatches(SharedDictionary.hash(name, base), hash, bucket, bucketCount)) {
+                    return TableKind.DICTIONARY;
+                }
+            }
+        } catch (IOException e) {
+            // Not a pointer into the archive
+        }
+        return TableKind.OTHER;
+    }
+
+    private static boolean hashMatches(int computed, long stored, int bucket, int bucketCount) {
+        if (Integer.remainderUnsigned(computed, bucketCount) != bucket) {
+            return false;
+        }
+        return stored < 0 || (int) stored == computed;
+    }
+}
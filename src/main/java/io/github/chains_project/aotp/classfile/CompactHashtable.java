@@ -0,0 +1,213 @@
+package io.github.chains_project.aotp.classfile;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import io.github.chains_project.aotp.archive.AddressSpace;
+
+/**
+ * Reader for an archived {@code SimpleCompactHashtable}, the read-only hashtable
+ * layout HotSpot uses for the shared symbol table and class dictionaries.
+ * https://github.com/openjdk/jdk/blob/f4607ed0a7ea2504c1d72dd3dab0b21e583fa0e7/src/hotspot/share/classfile/compactHashtable.hpp
+ *
+ * The table is two {@code Array<u4>}: {@code bucket_count + 1} bucket infos and
+ * the entries. A bucket info holds the bucket type in its top two bits and the
+ * index of the bucket's first entry in the rest. A regular bucket holds
+ * {@code (hash, value)} pairs up to the next bucket's offset; a value-only
+ * bucket holds a single value and no hash; the extra last bucket marks the
+ * end of the table. Values are u4 offsets from the base address.
+ *
+ * Lookups read the two bucket infos and the entries of a single bucket, so
+ * they cost a few small reads regardless of the table size.
+ */
+public final class CompactHashtable {
+
+    static final int BUCKET_OFFSET_MASK = 0x3FFFFFFF;
+    static final int BUCKET_TYPE_SHIFT = 30;
+    static final int REGULAR_BUCKET_TYPE = 0;
+    static final int VALUE_ONLY_BUCKET_TYPE = 1;
+    static final int TABLE_END_BUCKET_TYPE = 3;
+
+    // Array<u4>::_data follows the int _length
+    private static final int ARRAY_LENGTH_OFFSET = -4;
+
+    private final AddressSpace space;
+    private final long headerAddress;
+    private final int entryCount;
+    private final int bucketCount;
+    private final long buckets;
+    private final long entries;
+    private final int entriesLength;
+
+    private CompactHashtable(AddressSpace space, long headerAddress, int entryCount, int bucketCount,
+                             long buckets, long entries, int entriesLength) {
+        this.space = space;
+        this.headerAddress = headerAddress;
+        this.entryCount = entryCount;
+        this.bucketCount = bucketCount;
+        this.buckets = buckets;
+        this.entries = entries;
+        this.entriesLength = entriesLength;
+    }
+
+    /**
+     * Tests a value found under a matching hash.
+     */
+    @FunctionalInterface
+    public interface ValueMatcher {
+        boolean matches(long value) throws IOException;
+    }
+
+    /**
+     * Visitor for {@link #forEach}; returns false to stop.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        /**
+         * @param hash the stored hash, or -1 for the entry of a value-only bucket
+         */
+        boolean visit(int bucket, long hash, long value) throws IOException;
+    }
+
+    /**
+     * Checks that the header fields describe a well-formed table: both arrays
+     * are in the archive, the bucket array has {@code bucket_count + 1} elements
+     * and its last element marks the end of the entry array.
+     *
+     * @return the table, or null if the fields do not describe one
+     */
+    static CompactHashtable tryRead(AddressSpace space, long headerAddress, long entryCount, long bucketCount,
+                                    long buckets, long entries) {
+        if (entryCount <= 0 || entryCount > BUCKET_OFFSET_MASK
+                || bucketCount <= 0 || bucketCount > BUCKET_OFFSET_MASK
+                || buckets == 0 || entries == 0 || (buckets & 3) != 0 || (entries & 3) != 0) {
+            return null;
+        }
+        try {
+            if (space.readInt(buckets + ARRAY_LENGTH_OFFSET) != bucketCount + 1) {
+                return null;
+            }
+            int end = space.readInt(buckets + bucketCount * 4);
+            if (bucketType(end) != TABLE_END_BUCKET_TYPE) {
+                return null;
+            }
+            int entriesLength = space.readInt(entries + ARRAY_LENGTH_OFFSET);
+            if (entriesLength != bucketOffset(end) || entriesLength < entryCount) {
+                return null;
+            }
+            return new CompactHashtable(space, headerAddress, (int) entryCount, (int) bucketCount,
+                    buckets, entries, entriesLength);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The same table, read through {@code other}, which must map the table at
+     * the same addresses.
+     */
+    CompactHashtable rebind(AddressSpace other) {
+        return new CompactHashtable(other, headerAddress, entryCount, bucketCount, buckets, entries, entriesLength);
+    }
+
+    /**
+     * Address of the table header in the serialized data.
+     */
+    public long headerAddress() {
+        return headerAddress;
+    }
+
+    public int entryCount() {
+        return entryCount;
+    }
+
+    public int bucketCount() {
+        return bucketCount;
+    }
+
+    /**
+     * Returns the first value stored under {@code hash} that {@code matcher}
+     * accepts, or 0 if there is none. Mirrors {@code CompactHashtable::lookup}.
+     */
+    public long lookup(int hash, ValueMatcher matcher) throws IOException {
+        int index = Integer.remainderUnsigned(hash, bucketCount);
+        ByteBuffer infos = space.read(buckets + index * 4L, 8);
+        int info = infos.getInt(0);
+        int offset = bucketOffset(info);
+        if (bucketType(info) == VALUE_ONLY_BUCKET_TYPE) {
+            long value = decode(space.readInt(entries + offset * 4L));
+            return matcher.matches(value) ? value : 0;
+        }
+        int next = bucketOffset(infos.getInt(4));
+        if (next <= offset) {
+            return 0;
+        }
+        ByteBuffer bucket = space.read(entries + offset * 4L, (next - offset) * 4);
+        for (int i = 0; i + 8 <= bucket.limit(); i += 8) {
+            if (bucket.getInt(i) == hash) {
+                long value = decode(bucket.getInt(i + 4));
+                if (matcher.matches(value)) {
+                    return value;
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Visits the entries in bucket order. Reads both arrays whole.
+     */
+    public void forEach(EntryVisitor visitor) throws IOException {
+        forEach(0, bucketCount, visitor);
+    }
+
+    /**
+     * Visits the entries of buckets {@code [from, to)} in bucket order, reading
+     * only the part of the arrays those buckets use.
+     */
+    public void forEach(int from, int to, EntryVisitor visitor) throws IOException {
+        if (from >= to) {
+            return;
+        }
+        ByteBuffer infos = space.read(buckets + from * 4L, (to - from + 1) * 4);
+        int first = bucketOffset(infos.getInt(0));
+        int last = Math.min(entriesLength, Math.max(first, bucketOffset(infos.getInt((to - from) * 4))));
+        ByteBuffer values = space.read(entries + first * 4L, (last - first) * 4);
+        for (int bucket = from; bucket < to; bucket++) {
+            int info = infos.getInt((bucket - from) * 4);
+            int offset = bucketOffset(info) - first;
+            if (bucketType(info) == VALUE_ONLY_BUCKET_TYPE) {
+                if (!visitor.visit(bucket, -1, decode(entryAt(values, offset)))) {
+                    return;
+                }
+                continue;
+            }
+            int next = bucketOffset(infos.getInt((bucket - from + 1) * 4)) - first;
+            for (int i = offset; i + 1 < next; i += 2) {
+                if (!visitor.visit(bucket, entryAt(values, i) & 0xFFFFFFFFL, decode(entryAt(values, i + 1)))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static int entryAt(ByteBuffer values, int index) throws IOException {
+        if (index < 0 || index * 4 + 4 > values.limit()) {
+            throw new EOFException("Compact hashtable entry out of range: " + index);
+        }
+        return values.getInt(index * 4);
+    }
+
+    private long decode(int offset) {
+        return space.sharedBaseAddress() + (offset & 0xFFFFFFFFL);
+    }
+
+    static int bucketOffset(int info) {
+        return info & BUCKET_OFFSET_MASK;
+    }
+
+    static int bucketType(int info) {
+        return info >>> BUCKET_TYPE_SHIFT;
+    }
+}
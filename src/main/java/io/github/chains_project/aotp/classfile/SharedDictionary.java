@@ -0,0 +1,50 @@
+package io.github.chains_project.aotp.classfile;
+
+import java.io.IOException;
+
+import io.github.chains_project.aotp.archive.AddressSpace;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+
+/**
+ * An archived class dictionary ({@code RunTimeSharedDictionary}): a
+ * {@link CompactHashtable} from the address of a class name symbol to the
+ * {@code RunTimeClassInfo} of the class, whose first field is the klass.
+ * https://github.com/openjdk/jdk/blob/f4607ed0a7ea2504c1d72dd3dab0b21e583fa0e7/src/hotspot/share/cds/runTimeClassInfo.hpp
+ */
+public final class SharedDictionary {
+
+    private final AddressSpace space;
+    private final CompactHashtable table;
+
+    SharedDictionary(AddressSpace space, CompactHashtable table) {
+        this.space = space;
+        this.table = table;
+    }
+
+    SharedDictionary rebind(AddressSpace other) {
+        return new SharedDictionary(other, table.rebind(other));
+    }
+
+    public CompactHashtable table() {
+        return table;
+    }
+
+    /**
+     * {@code SystemDictionaryShared::hash_for_shared_dictionary}: the
+     * {@code primitive_hash} of the symbol's offset from the base address.
+     */
+    public static int hash(long symbolAddress, long baseAddress) {
+        int h = (int) (symbolAddress - baseAddress);
+        return h ^ (h >>> 3);
+    }
+
+    /**
+     * Returns the address of the klass named by the symbol at
+     * {@code nameSymbol}, or 0 if the dictionary does not contain it.
+     */
+    public long lookup(long nameSymbol) throws IOException {
+        long info = table.lookup(hash(nameSymbol, space.sharedBaseAddress()),
+                value -> space.readLong(space.readLong(value) + ClassEntry.NAME_OFFSET) == nameSymbol);
+        return info == 0 ? 0 : space.readLong(info);
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.chains_project.aotp.classfile;
+
+/**
+ * A symbol found in the archived symbol table.
+ *
+ * @param address     address of the {@code Symbol} at the requested base address
+ * @param refcount    low half of {@code _hash_and_refcount}; {@code 0xffff} for
+ *                    permanent symbols, which archived symbols normally are
+ * @param identityHash high half of {@code _hash_and_refcount}, the symbol's identity hash
+ */
+public record SymbolInfo(String name, long address, int refcount, int identityHash) {
+
+    /** Refcount of symbols that are never freed ({@code PERM_REFCOUNT}). */
+    public static final int PERM_REFCOUNT = 0xffff;
+
+    public boolean isPermanent() {
+        return refcount == PERM_REFCOUNT;
+    }
+}
@@ -0,0 +1,69 @@
+package io.github.chains_project.aotp.classfile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import io.github.chains_project.aotp.archive.AddressSpace;
+
+/**
+ * The archived shared symbol table: a {@link CompactHashtable} from the UTF-8
+ * bytes of a symbol to its address.
+ * https://github.com/openjdk/jdk/blob/f4607ed0a7ea2504c1d72dd3dab0b21e583fa0e7/src/hotspot/share/classfile/symbolTable.cpp
+ */
+public final class SymbolTable {
+
+    private final AddressSpace space;
+    private final CompactHashtable table;
+
+    SymbolTable(AddressSpace space, CompactHashtable table) {
+        this.space = space;
+        this.table = table;
+    }
+
+    SymbolTable rebind(AddressSpace other) {
+        return new SymbolTable(other, table.rebind(other));
+    }
+
+    public CompactHashtable table() {
+        return table;
+    }
+
+    /**
+     * {@code SymbolTable::hash_shared_symbol}, which is
+     * {@code java_lang_String::hash_code} over the (signed) UTF-8 bytes.
+     */
+    public static int hash(byte[] utf8) {
+        int h = 0;
+        for (byte b : utf8) {
+            h = 31 * h + b;
+        }
+        return h;
+    }
+
+    /**
+     * Returns the address of the symbol with the given UTF-8 body, or 0 if the
+     * table does not contain it.
+     */
+    public long lookup(byte[] utf8) throws IOException {
+        return table.lookup(hash(utf8), value -> Arrays.equals(space.symbolBytes(value), utf8));
+    }
+
+    public long lookup(String name) throws IOException {
+        return lookup(name.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Looks up a symbol and decodes its {@code _hash_and_refcount} field.
+     *
+     * @return the symbol, or null if the table does not contain it
+     */
+    public SymbolInfo find(String name) throws IOException {
+        long address = lookup(name);
+        if (address == 0) {
+            return null;
+        }
+        int hashAndRefcount = space.readInt(address);
+        return new SymbolInfo(name, address, hashAndRefcount & 0xFFFF, hashAndRefcount >>> 16);
+    }
+}
@@ -2,6 +2,7 @@ package io.github.chains_project.aotp.header;
 
 import java.io.IOException;
 
+import io.github.chains_project.aotp.output.RecordWriter;
 import io.github.chains_project.aotp.utils.LittleEndianRandomAccessFile;
 
 public class CDSFileMapRegion {
@@ -78,4 +79,58 @@ public class CDSFileMapRegion {
         st.append(String.format("- ptrmap_size_in_bits:            %d%n", ptrmapSizeInBits));
         st.append(String.format("- mapped_base:                    0x%x%n", 0L)); // not stored in file
     }
+
+    public void write(RecordWriter out, int regionIndex) throws IOException {
+        out.begin("region");
+        out.field("index", regionIndex);
+        out.field("name", regionName(regionIndex));
+        out.field("crc", crc & 0xFFFFFFFFL);
+        out.field("read_only", readOnly);
+        out.field("allow_exec", allowExec);
+        out.field("is_heap_region", isHeapRegion);
+        out.field("is_bitmap_region", isBitmapRegion);
+        out.field("mapped_from_file", mappedFromFile);
+        out.field("file_offset", fileOffset);
+        out.field("mapping_offset", mappingOffset);
+        out.field("used", used);
+        out.field("oopmap_offset", oopmapOffset);
+        out.field("oopmap_size_in_bits", oopmapSizeInBits);
+        out.field("ptrmap_offset", ptrmapOffset);
+        out.field("ptrmap_size_in_bits", ptrmapSizeInBits);
+        out.end();
+    }
+
+    public int crc() {
+        return crc;
+    }
+
+    public long fileOffset() {
+        return fileOffset;
+    }
+
+    /**
+     * Offset of the region from the base address the archive is mapped at.
+     */
+    public long mappingOffset() {
+        return mappingOffset;
+    }
+
+    public long used() {
+        return used;
+    }
+
+    /**
+     * Byte offset, inside the bitmap region, of the pointer map of this region.
+     */
+    public long ptrmapOffset() {
+        return ptrmapOffset;
+    }
+
+    /**
+     * Number of bits in the pointer map of this region; bit {@code i} stands for
+     * the word at {@code (ptrmap_start_pos + i) * 8} in the region.
+     */
+    public long ptrmapSizeInBits() {
+        return ptrmapSizeInBits;
+    }
 }
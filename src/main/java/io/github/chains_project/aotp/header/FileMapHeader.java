@@ -3,6 +3,7 @@ package io.github.chains_project.aotp.header;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
+import io.github.chains_project.aotp.output.RecordWriter;
 import io.github.chains_project.aotp.utils.LittleEndianRandomAccessFile;
 
 record HeapRootSegments(
@@ -214,7 +215,107 @@ public class FileMapHeader {
         st.append(String.format("- has_aot_linked_classes:                   %d%n", hasAotLinkedClasses ? 1 : 0));
     }
 
+    /**
+     * Writes the same dump as {@link #print(GenericHeader, CDSFileMapRegion[], FileMapHeader, Appendable)}
+     * as records: one {@code generic_header}, one {@code region} per region and one
+     * {@code file_map_header}.
+     */
+    public static void write(GenericHeader genericHeader, CDSFileMapRegion[] regions,
+            FileMapHeader fileMapHeader, RecordWriter out) throws IOException {
+        genericHeader.write(out);
+        for (int i = 0; i < regions.length; i++) {
+            regions[i].write(out, i);
+        }
+        fileMapHeader.write(out);
+    }
+
+    public void write(RecordWriter out) throws IOException {
+        out.begin("file_map_header");
+        out.field("core_region_alignment", coreRegionAlignment);
+        out.field("obj_alignment", objAlignment);
+        out.field("narrow_oop_base", narrowOopBase);
+        out.field("narrow_oop_shift", narrowOopShift);
+        out.field("compact_strings", compactStrings);
+        out.field("compact_headers", compactHeaders);
+        out.field("max_heap_size", maxHeapSize);
+        out.field("narrow_oop_mode", narrowOopMode);
+        out.field("compressed_oops", compressedOops);
+        out.field("compressed_class_ptrs", compressedClassPointers);
+        out.field("narrow_klass_pointer_bits", narrowKlassPointerBits);
+        out.field("narrow_klass_shift", narrowKlassShift);
+        out.field("cloned_vtables_offset", clonedVtablesOffset);
+        out.field("early_serialized_data_offset", earlySerializedDataOffset);
+        out.field("serialized_data_offset", serializedDataOffset);
+        int nullIdx = jvmIdent != null ? jvmIdent.indexOf(0) : -1;
+        String jvmIdentTrimmed = jvmIdent == null ? "" : (nullIdx >= 0 ? jvmIdent.substring(0, nullIdx) : jvmIdent).trim();
+        out.field("jvm_ident", jvmIdentTrimmed);
+        out.field("class_location_config_offset", classLocationConfigOffset);
+        out.field("verify_local", verifyLocal);
+        out.field("verify_remote", verifyRemote);
+        out.field("has_platform_or_app_classes", hasPlatformOrAppClasses);
+        out.field("requested_base_address", requestedBaseAddress);
+        out.field("mapped_base_address", mappedBaseAddress);
+        out.field("object_streaming_mode", objectStreamingMode);
+        ArchiveMappedHeapHeader mh = archiveMappedHeapHeader;
+        HeapRootSegments rs = mh != null ? mh.heapRootSegments() : null;
+        out.field("mapped_heap_header.root_segments.roots_count", rs != null ? rs.rootsCount() : 0);
+        out.field("mapped_heap_header.root_segments.base_offset", rs != null ? rs.baseOffset() : 0L);
+        out.field("mapped_heap_header.root_segments.count", rs != null ? rs.count() : 0L);
+        out.field("mapped_heap_header.root_segments.max_size_elems", rs != null ? rs.maxSizeInElems() : 0);
+        out.field("mapped_heap_header.root_segments.max_size_bytes", rs != null ? rs.maxSizeInBytes() : 0L);
+        out.field("mapped_heap_header.oopmap_start_pos", mh != null ? mh.oopmapStartPos() : 0L);
+        out.field("mapped_heap_header.ptrmap_start_pos", mh != null ? mh.ptrmapStartPos() : 0L);
+        ArchiveStreamedHeapHeader sh = archiveStreamedHeapHeader;
+        out.field("streamed_heap_header.forwarding_offset", sh != null ? sh.forwardingOffset() : 0L);
+        out.field("streamed_heap_header.roots_offset", sh != null ? sh.rootsOffset() : 0L);
+        out.field("streamed_heap_header.num_roots", sh != null ? sh.numRoots() : 0L);
+        out.field("streamed_heap_header.root_highest_object_index_table_offset",
+                sh != null ? sh.rootHighestObjectIndexTableOffset() : 0L);
+        out.field("streamed_heap_header.num_archived_objects", sh != null ? sh.numArchivedObjects() : 0L);
+        out.field("rw_ptrmap_start_pos", rwPtrmapStartPos);
+        out.field("ro_ptrmap_start_pos", roPtrmapStartPos);
+        out.field("use_optimized_module_handling", useOptimizedModuleHandling);
+        out.field("has_full_module_graph", hasFullModuleGraph);
+        out.field("has_aot_linked_classes", hasAotLinkedClasses);
+        out.end();
+    }
+
     public long requestedBaseAddress() {
         return requestedBaseAddress;
     }
+
+    /**
+     * Offset from the base address of the first {@code CppVtableInfo}, the
+     * cloned C++ vtables that archived metadata objects point to.
+     */
+    public long clonedVtablesOffset() {
+        return clonedVtablesOffset;
+    }
+
+    /**
+     * Offset from the base address of the data written by {@code AOTMetaspace::serialize},
+     * which holds the headers of the archived hashtables.
+     */
+    public long serializedDataOffset() {
+        return serializedDataOffset;
+    }
+
+    public long coreRegionAlignment() {
+        return coreRegionAlignment;
+    }
+
+    /**
+     * Leading zero bits HotSpot removed from the rw pointer map, i.e. the index
+     * of the rw word that bit 0 of the map stands for.
+     */
+    public long rwPtrmapStartPos() {
+        return rwPtrmapStartPos;
+    }
+
+    /**
+     * Same as {@link #rwPtrmapStartPos()}, for the ro region.
+     */
+    public long roPtrmapStartPos() {
+        return roPtrmapStartPos;
+    }
 }
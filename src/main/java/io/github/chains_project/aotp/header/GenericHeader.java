@@ -2,6 +2,7 @@ package io.github.chains_project.aotp.header;
 
 import java.io.IOException;
 
+import io.github.chains_project.aotp.output.RecordWriter;
 import io.github.chains_project.aotp.utils.LittleEndianRandomAccessFile;
 
 public class GenericHeader {
@@ -30,7 +31,41 @@ public class GenericHeader {
         st.append(String.format("- base_archive_name_size:         %d%n", baseArchiveNameSize));
     }
 
+    public void write(RecordWriter out) throws IOException {
+        out.begin("generic_header");
+        out.field("magic", magic & 0xFFFFFFFFL);
+        out.field("crc", crc & 0xFFFFFFFFL);
+        out.field("version", version);
+        out.field("header_size", headerSize);
+        out.field("base_archive_name_offset", baseArchivePathOffset);
+        out.field("base_archive_name_size", baseArchiveNameSize);
+        out.end();
+    }
+
     public int magic() {
         return magic;
     }
+
+    public int crc() {
+        return crc;
+    }
+
+    public int headerSize() {
+        return headerSize;
+    }
+
+    /**
+     * File offset of the NUL-terminated base archive path of a dynamic archive.
+     */
+    public int baseArchivePathOffset() {
+        return baseArchivePathOffset;
+    }
+
+    /**
+     * Size of the base archive path including its NUL, or 0 if the dynamic
+     * archive was created on top of the default CDS archive.
+     */
+    public int baseArchiveNameSize() {
+        return baseArchiveNameSize;
+    }
 }
@@ -0,0 +1,204 @@
+package io.github.chains_project.aotp.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Process-wide counters for the phases of reading an archive, fed by
+ * {@link PhaseTimer} and {@link ScanRecorder}. The scan counters are always
+ * kept. Phases are only timed when {@link #setDetailed(boolean) detailed}
+ * metrics are requested or a flight recording may want the JFR events;
+ * otherwise a timer costs nothing. Per-class timing of
+ * {@link Phase#SYMBOL_DECODE} and {@link Phase#PARSE} costs a few clock reads
+ * per class and is only collected when detailed metrics are requested or the
+ * corresponding JFR event is enabled.
+ *
+ * Reads through an archive rather than a {@code LittleEndianRandomAccessFile}
+ * are reported with {@link #countRead} and counted per thread while phases
+ * are timed, so that a phase timer or scan recorder on that thread picks
+ * them up.
+ *
+ * Per-thread allocation accounting is switched on by the JVM-wide thread
+ * bean, so it is only turned on once detailed metrics are requested.
+ */
+public final class AotpMetrics {
+
+    private static final Phase[] PHASES = Phase.values();
+
+    // Per-phase fields, stored at phase.ordinal() * FIELDS + field
+    private static final int COUNT = 0;
+    private static final int WALL_NANOS = 1;
+    private static final int BYTES_READ = 2;
+    private static final int READ_CALLS = 3;
+    private static final int SEEKS = 4;
+    private static final int ALLOCATED = 5;
+    private static final int FIELDS = 6;
+
+    // Scan counters, stored after the per-phase fields
+    private static final int CANDIDATE_WORDS = PHASES.length * FIELDS;
+    private static final int VTABLE_MATCHES = CANDIDATE_WORDS + 1;
+    private static final int CLASSES_MATCHED = CANDIDATE_WORDS + 2;
+    private static final int FIXED_VTABLE_SCANS = CANDIDATE_WORDS + 3;
+
+    private static final AtomicLongArray COUNTERS = new AtomicLongArray(FIXED_VTABLE_SCANS + 1);
+
+    // Scans per word matcher
+    private static final Map<String, LongAdder> WORD_MATCHERS = new ConcurrentHashMap<>();
+
+    // Bytes and read calls through archives on the current thread
+    private static final ThreadLocal<long[]> THREAD_READS = ThreadLocal.withInitial(() -> new long[2]);
+
+    private static volatile boolean detailed;
+
+    private AotpMetrics() {}
+
+    public static void setDetailed(boolean value) {
+        if (value) {
+            Allocation.enable();
+        }
+        detailed = value;
+    }
+
+    public static boolean isDetailed() {
+        return detailed;
+    }
+
+    /**
+     * True if phases are timed: detailed metrics are on or Flight Recorder
+     * has been started in this JVM.
+     */
+    public static boolean isEnabled() {
+        return detailed || FlightRecorder.isInitialized();
+    }
+
+    public static void reset() {
+        for (int i = 0; i < COUNTERS.length(); i++) {
+            COUNTERS.set(i, 0);
+        }
+        WORD_MATCHERS.clear();
+    }
+
+    public static MetricsSnapshot snapshot() {
+        List<PhaseStats> phases = new ArrayList<>(PHASES.length);
+        for (Phase phase : PHASES) {
+            int base = phase.ordinal() * FIELDS;
+            phases.add(new PhaseStats(phase,
+                    COUNTERS.get(base + COUNT),
+                    COUNTERS.get(base + WALL_NANOS),
+                    COUNTERS.get(base + BYTES_READ),
+                    COUNTERS.get(base + READ_CALLS),
+                    COUNTERS.get(base + SEEKS),
+                    COUNTERS.get(base + ALLOCATED)));
+        }
+        return new MetricsSnapshot(phases,
+                COUNTERS.get(CANDIDATE_WORDS),
+                COUNTERS.get(VTABLE_MATCHES),
+                COUNTERS.get(CLASSES_MATCHED),
+                COUNTERS.get(FIXED_VTABLE_SCANS),
+                wordMatchers());
+    }
+
+    static void record(Phase phase, long count, long wallNanos, long bytesRead, long readCalls, long seeks,
+                       long allocated) {
+        int base = phase.ordinal() * FIELDS;
+        COUNTERS.addAndGet(base + COUNT, count);
+        COUNTERS.addAndGet(base + WALL_NANOS, wallNanos);
+        COUNTERS.addAndGet(base + BYTES_READ, bytesRead);
+        COUNTERS.addAndGet(base + READ_CALLS, readCalls);
+        COUNTERS.addAndGet(base + SEEKS, seeks);
+        COUNTERS.addAndGet(base + ALLOCATED, allocated);
+    }
+
+    static void recordScan(long candidateWords, long vtableMatches, long classesMatched, boolean fixedVtables,
+                           String wordMatcher) {
+        COUNTERS.addAndGet(CANDIDATE_WORDS, candidateWords);
+        COUNTERS.addAndGet(VTABLE_MATCHES, vtableMatches);
+        COUNTERS.addAndGet(CLASSES_MATCHED, classesMatched);
+        if (fixedVtables) {
+            COUNTERS.incrementAndGet(FIXED_VTABLE_SCANS);
+        }
+        if (wordMatcher != null) {
+            WORD_MATCHERS.computeIfAbsent(wordMatcher, k -> new LongAdder()).increment();
+        }
+    }
+
+    private static Map<String, Long> wordMatchers() {
+        Map<String, Long> scans = new TreeMap<>();
+        WORD_MATCHERS.forEach((name, count) -> scans.put(name, count.sum()));
+        return scans;
+    }
+
+    /**
+     * Counts a read of {@code bytes} through an archive on the current thread.
+     *
+     * @param calls read system calls it took, 0 for a copy out of a mapping
+     */
+    public static void countRead(long bytes, long calls) {
+        if (isEnabled()) {
+            long[] reads = THREAD_READS.get();
+            reads[0] += bytes;
+            reads[1] += calls;
+        }
+    }
+
+    /**
+     * Bytes counted by {@link #countRead} on the current thread so far.
+     */
+    static long threadBytesRead() {
+        return THREAD_READS.get()[0];
+    }
+
+    /**
+     * Read calls counted by {@link #countRead} on the current thread so far.
+     */
+    static long threadReadCalls() {
+        return THREAD_READS.get()[1];
+    }
+
+    /**
+     * Bytes allocated so far by the current thread, or 0 if the JVM does not
+     * support per-thread allocation accounting or it is off.
+     */
+    static long currentThreadAllocatedBytes() {
+        com.sun.management.ThreadMXBean bean = Allocation.BEAN;
+        if (bean == null) {
+            return 0;
+        }
+        long allocated = bean.getCurrentThreadAllocatedBytes();
+        return allocated < 0 ? 0 : allocated;
+    }
+
+    /**
+     * The thread bean, looked up on first use.
+     */
+    private static final class Allocation {
+
+        static final com.sun.management.ThreadMXBean BEAN = bean();
+
+        private Allocation() {}
+
+        static void enable() {
+            if (BEAN != null && !BEAN.isThreadAllocatedMemoryEnabled()) {
+                BEAN.setThreadAllocatedMemoryEnabled(true);
+            }
+        }
+
+        private static com.sun.management.ThreadMXBean bean() {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean sunBean
+                    && sunBean.isThreadAllocatedMemorySupported()) {
+                return sunBean;
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.chains_project.aotp.metrics;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Point-in-time copy of {@link AotpMetrics}.
+ *
+ * @param candidateWords words of the RW region inspected for a vtable pointer
+ * @param vtableMatches  words that matched a known vtable pointer
+ * @param classesMatched classes that passed the filter and were parsed
+ * @param fixedVtableScans scans that did not find the cloned vtables in the
+ *                         archive and looked for the fixed addresses instead
+ * @param wordMatchers     scans per way of finding candidate words, by name
+ */
+public record MetricsSnapshot(List<PhaseStats> phases,
+                              long candidateWords,
+                              long vtableMatches,
+                              long classesMatched,
+                              long fixedVtableScans,
+                              Map<String, Long> wordMatchers) {
+
+    public PhaseStats phase(Phase phase) {
+        return phases.get(phase.ordinal());
+    }
+
+    public void print(Appendable st) throws IOException {
+        st.append("============ stats ============\n");
+        st.append(String.format("%-14s %8s %12s %14s %10s %10s %14s%n",
+                "phase", "count", "wall ms", "bytes read", "reads", "seeks", "allocated"));
+        for (PhaseStats stats : phases) {
+            if (stats.count() == 0) {
+                continue;
+            }
+            st.append(String.format("%-14s %8d %12.3f %14d %10d %10d %14d%n",
+                    stats.phase().label(), stats.count(), stats.wallNanos() / 1e6, stats.bytesRead(),
+                    stats.readCalls(), stats.seeks(), stats.allocatedBytes()));
+        }
+        double hitRate = candidateWords == 0 ? 0 : 100.0 * classesMatched / candidateWords;
+        st.append(String.format("candidate words: %d  vtable matches: %d  classes matched: %d (%.4f%%)%n",
+                candidateWords, vtableMatches, classesMatched, hitRate));
+        if (fixedVtableScans > 0) {
+            st.append(String.format("klass vtables: not found in the archive, %d scans assumed fixed addresses "
+                    + "and may miss classes%n", fixedVtableScans));
+        }
+        for (Map.Entry<String, Long> matcher : wordMatchers.entrySet()) {
+            st.append(String.format("word matcher: %s (%d scans)%n", matcher.getKey(), matcher.getValue()));
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.chains_project.aotp.metrics;
+
+/**
+ * Phases of reading an archive that are timed separately. {@link #SCAN} is
+ * inclusive: it contains the {@link #SYMBOL_DECODE} and {@link #PARSE} work of
+ * the classes it finds.
+ */
+public enum Phase {
+    HEADER("header"),
+    REGION_LOAD("region load"),
+    SCAN("scan"),
+    SYMBOL_DECODE("symbol decode"),
+    PARSE("parse"),
+    INDEX_LOOKUP("index lookup"),
+    VERIFY("verify");
+
+    private final String label;
+
+    Phase(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.chains_project.aotp.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event committed when a {@link Phase} ends. The event duration is the
+ * wall time of the phase.
+ */
+@Name("io.github.chains_project.aotp.Phase")
+@Label("aotp Phase")
+@Category("aotp")
+@Description("A phase of reading an AOT cache file")
+class PhaseEvent extends jdk.jfr.Event {
+
+    @Label("Phase")
+    String phase;
+
+    @Label("Bytes Read")
+    @DataAmount
+    long bytesRead;
+
+    @Label("Read Calls")
+    long readCalls;
+
+    @Label("Seeks")
+    long seeks;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+}
@@ -0,0 +1,15 @@
+package io.github.chains_project.aotp.metrics;
+
+/**
+ * Totals of one {@link Phase} since the last {@link AotpMetrics#reset()}.
+ *
+ * @param count          number of times the phase ran (for per-class phases, number of classes)
+ * @param wallNanos      wall-clock time spent in the phase
+ * @param bytesRead      bytes read from the archive file
+ * @param readCalls      read calls issued to the file, roughly the number of read syscalls
+ * @param seeks          file pointer repositionings
+ * @param allocatedBytes bytes allocated by the running thread, or 0 if the JVM cannot tell
+ */
+public record PhaseStats(Phase phase, long count, long wallNanos, long bytesRead, long readCalls,
+                         long seeks, long allocatedBytes) {
+}
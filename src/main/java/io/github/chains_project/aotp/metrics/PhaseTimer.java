@@ -0,0 +1,141 @@
+package io.github.chains_project.aotp.metrics;
+
+import java.io.IOException;
+
+import io.github.chains_project.aotp.utils.LittleEndianRandomAccessFile;
+
+/**
+ * Measures one run of a {@link Phase}: wall time, allocation of the current
+ * thread and the I/O issued through a {@link LittleEndianRandomAccessFile}
+ * or counted with {@link AotpMetrics#countRead}.
+ * Closing the timer adds the deltas to {@link AotpMetrics} and commits a
+ * {@link PhaseEvent}. Use it in a try-with-resources block on the thread that
+ * does the work, or wrap the work in {@link #time} or {@link #run}.
+ *
+ * Unless {@link AotpMetrics#isEnabled() metrics are enabled}, {@link #start}
+ * returns a shared timer that does nothing.
+ */
+public final class PhaseTimer implements AutoCloseable {
+
+    private static final PhaseTimer DISABLED = new PhaseTimer();
+
+    /**
+     * Work timed by {@link #time}.
+     */
+    @FunctionalInterface
+    public interface Work<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * Work without a result, timed by {@link #run}.
+     */
+    @FunctionalInterface
+    public interface VoidWork {
+        void run() throws IOException;
+    }
+
+    private final Phase phase;
+    private final LittleEndianRandomAccessFile file;
+    private final PhaseEvent event;
+    private final long startNanos;
+    private final long startAllocated;
+    private final long startBytes;
+    private final long startReads;
+    private final long startSeeks;
+    private final long startThreadBytes;
+    private final long startThreadReads;
+    private long extraBytes;
+
+    private PhaseTimer() {
+        this.phase = null;
+        this.file = null;
+        this.event = null;
+        this.startNanos = 0;
+        this.startAllocated = 0;
+        this.startBytes = 0;
+        this.startReads = 0;
+        this.startSeeks = 0;
+        this.startThreadBytes = 0;
+        this.startThreadReads = 0;
+    }
+
+    private PhaseTimer(Phase phase, LittleEndianRandomAccessFile file) {
+        this.phase = phase;
+        this.file = file;
+        this.event = new PhaseEvent();
+        event.begin();
+        startAllocated = AotpMetrics.currentThreadAllocatedBytes();
+        startBytes = file == null ? 0 : file.bytesRead();
+        startReads = file == null ? 0 : file.readCalls();
+        startSeeks = file == null ? 0 : file.seeks();
+        startThreadBytes = AotpMetrics.threadBytesRead();
+        startThreadReads = AotpMetrics.threadReadCalls();
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts timing {@code phase}; I/O through {@code file} (may be null) is
+     * attributed to it.
+     */
+    public static PhaseTimer start(Phase phase, LittleEndianRandomAccessFile file) {
+        return AotpMetrics.isEnabled() ? new PhaseTimer(phase, file) : DISABLED;
+    }
+
+    /**
+     * Runs {@code work} as one run of {@code phase} and returns its result.
+     */
+    public static <T> T time(Phase phase, LittleEndianRandomAccessFile file, Work<T> work) throws IOException {
+        PhaseTimer timer = start(phase, file);
+        try {
+            return work.call();
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Runs {@code work} as one run of {@code phase}.
+     */
+    public static void run(Phase phase, LittleEndianRandomAccessFile file, VoidWork work) throws IOException {
+        PhaseTimer timer = start(phase, file);
+        try {
+            work.run();
+        } finally {
+            timer.close();
+        }
+    }
+
+    /**
+     * Accounts bytes read outside of the timed file, e.g. through a mapped channel.
+     */
+    public void addBytesRead(long bytes) {
+        if (phase != null) {
+            extraBytes += bytes;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (phase == null) {
+            return;
+        }
+        long wall = System.nanoTime() - startNanos;
+        long allocated = AotpMetrics.currentThreadAllocatedBytes() - startAllocated;
+        long bytes = extraBytes + AotpMetrics.threadBytesRead() - startThreadBytes
+                + (file == null ? 0 : file.bytesRead() - startBytes);
+        long reads = AotpMetrics.threadReadCalls() - startThreadReads
+                + (file == null ? 0 : file.readCalls() - startReads);
+        long seeks = file == null ? 0 : file.seeks() - startSeeks;
+        AotpMetrics.record(phase, 1, wall, bytes, reads, seeks, allocated);
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase.label();
+            event.bytesRead = bytes;
+            event.readCalls = reads;
+            event.seeks = seeks;
+            event.allocated = allocated;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.chains_project.aotp.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event committed once per RW scan, with the hit counts of the scan and
+ * the time spent on the classes it found.
+ */
+@Name("io.github.chains_project.aotp.Scan")
+@Label("aotp Scan")
+@Category("aotp")
+@Description("Scan of the RW region for klass records")
+class ScanEvent extends jdk.jfr.Event {
+
+    @Label("Candidate Words")
+    long candidateWords;
+
+    @Label("Vtable Matches")
+    long vtableMatches;
+
+    @Label("Classes Matched")
+    long classesMatched;
+
+    @Label("Symbol Decode Time")
+    @Timespan
+    long symbolDecodeNanos;
+
+    @Label("Parse Time")
+    @Timespan
+    long parseNanos;
+}
@@ -0,0 +1,158 @@
+package io.github.chains_project.aotp.metrics;
+
+import io.github.chains_project.aotp.utils.LittleEndianRandomAccessFile;
+
+/**
+ * Counts what a single RW scan does: candidate words looked at, vtable
+ * matches and classes handed to the caller, and, when detailed metrics are
+ * on, the time, I/O and allocation of symbol decoding and parsing per class.
+ * Counts are kept in plain fields and published once on {@link #close()}, so
+ * the scan loop never touches shared state.
+ *
+ * Not thread-safe; each scan uses its own recorder.
+ */
+public final class ScanRecorder implements AutoCloseable {
+
+    // Indices into the per-phase arrays
+    private static final int RUNS = 0;
+    private static final int NANOS = 1;
+    private static final int BYTES = 2;
+    private static final int READS = 3;
+    private static final int SEEKS = 4;
+    private static final int ALLOCATED = 5;
+    private static final int FIELDS = 6;
+
+    private final LittleEndianRandomAccessFile file;
+    private final ScanEvent event = new ScanEvent();
+    private final boolean detailed;
+
+    private long candidateWords;
+    private long vtableMatches;
+    private long classesMatched;
+    private boolean fixedVtables;
+    private String wordMatcher;
+
+    // Totals of the per-class phases, and the readings taken by the last begin()
+    private final long[] symbol = new long[FIELDS];
+    private final long[] parse = new long[FIELDS];
+    private final long[] start = new long[FIELDS];
+
+    private ScanRecorder(LittleEndianRandomAccessFile file) {
+        this.file = file;
+        this.detailed = AotpMetrics.isDetailed() || event.isEnabled();
+        event.begin();
+    }
+
+    /**
+     * Starts recording a scan; I/O through {@code file} (may be null) is
+     * attributed to the per-class phases.
+     */
+    public static ScanRecorder start(LittleEndianRandomAccessFile file) {
+        return new ScanRecorder(file);
+    }
+
+    /**
+     * True if per-class phases are timed; callers may skip the begin/end calls otherwise.
+     */
+    public boolean detailed() {
+        return detailed;
+    }
+
+    public void candidateWords(long count) {
+        candidateWords += count;
+    }
+
+    public void vtableMatch() {
+        vtableMatches++;
+    }
+
+    public void classMatched() {
+        classesMatched++;
+    }
+
+    /**
+     * Notes that the scan looks for fixed vtable addresses, not ones found in the archive.
+     */
+    public void fixedVtables() {
+        fixedVtables = true;
+    }
+
+    /**
+     * Names how the scan finds candidate words, e.g. {@code "scalar"}.
+     */
+    public void wordMatcher(String name) {
+        wordMatcher = name;
+    }
+
+    public void beginSymbolDecode() {
+        begin();
+    }
+
+    public void endSymbolDecode() {
+        end(symbol);
+    }
+
+    public void beginParse() {
+        begin();
+    }
+
+    public void endParse() {
+        end(parse);
+    }
+
+    private void begin() {
+        if (!detailed) {
+            return;
+        }
+        start[ALLOCATED] = AotpMetrics.currentThreadAllocatedBytes();
+        start[BYTES] = AotpMetrics.threadBytesRead();
+        start[READS] = AotpMetrics.threadReadCalls();
+        if (file != null) {
+            start[BYTES] += file.bytesRead();
+            start[READS] += file.readCalls();
+            start[SEEKS] = file.seeks();
+        }
+        start[NANOS] = System.nanoTime();
+    }
+
+    private void end(long[] totals) {
+        if (!detailed) {
+            return;
+        }
+        totals[NANOS] += System.nanoTime() - start[NANOS];
+        totals[RUNS]++;
+        long bytes = AotpMetrics.threadBytesRead();
+        long reads = AotpMetrics.threadReadCalls();
+        if (file != null) {
+            bytes += file.bytesRead();
+            reads += file.readCalls();
+            totals[SEEKS] += file.seeks() - start[SEEKS];
+        }
+        totals[BYTES] += bytes - start[BYTES];
+        totals[READS] += reads - start[READS];
+        totals[ALLOCATED] += AotpMetrics.currentThreadAllocatedBytes() - start[ALLOCATED];
+    }
+
+    @Override
+    public void close() {
+        AotpMetrics.recordScan(candidateWords, vtableMatches, classesMatched, fixedVtables, wordMatcher);
+        if (detailed) {
+            publish(Phase.SYMBOL_DECODE, symbol);
+            publish(Phase.PARSE, parse);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.candidateWords = candidateWords;
+            event.vtableMatches = vtableMatches;
+            event.classesMatched = classesMatched;
+            event.symbolDecodeNanos = symbol[NANOS];
+            event.parseNanos = parse[NANOS];
+            event.commit();
+        }
+    }
+
+    private static void publish(Phase phase, long[] totals) {
+        AotpMetrics.record(phase, totals[RUNS], totals[NANOS], totals[BYTES],
+                totals[READS], totals[SEEKS], totals[ALLOCATED]);
+    }
+}
@@ -1,10 +1,13 @@
 package io.github.chains_project.aotp.oops.klass;
 
+import java.io.IOException;
 import java.io.PrintStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.List;
 
+import io.github.chains_project.aotp.output.RecordWriter;
+
 /**
  * Base representation of a HotSpot {@code Klass} record in the RW region.
  * https://github.com/openjdk/jdk/blob/62c7e9aefd4320d9d0cd8fa10610f59abb4de670/src/hotspot/share/oops/klass.hpp#L62
@@ -13,6 +16,15 @@ import java.util.List;
  */
 public abstract class ClassEntry {
 
+    // Byte offsets of raw fields inside a Klass record, matching the parsing order
+    // in InstanceClass.parse. Scanners use these to inspect a record before parsing it.
+    public static final int LAYOUT_HELPER_OFFSET = 8;
+    public static final int KIND_OFFSET = 12;
+    public static final int NAME_OFFSET = 24;
+    public static final int SUPER_KLASS_OFFSET = 120;
+    public static final int CLASS_LOADER_DATA_OFFSET = 152;
+    public static final int VTABLE_LEN_OFFSET = 184;
+
     public final long vTablePointer;
     public final int layoutHelper;
     public final int kind;
@@ -36,6 +48,7 @@ public abstract class ClassEntry {
     public final int vtableLen;
     public final int archivedMirrorIndex;
     public final long jfrTrace;
+    private long address; // where the record is mapped, 0 if unknown
 
     protected ClassEntry(long vTablePointer,
                          int layoutHelper,
@@ -98,6 +111,18 @@ public abstract class ClassEntry {
         return 200;
     }
 
+    /**
+     * Address of the record when the archive is mapped at its requested base
+     * address, or 0 if the record was parsed from bytes of unknown origin.
+     */
+    public long address() {
+        return address;
+    }
+
+    public void setAddress(long address) {
+        this.address = address;
+    }
+
     /**
      * Pretty-print all fields of this class (including subclasses) to the given
      * {@link PrintStream}.
@@ -118,6 +143,59 @@ public abstract class ClassEntry {
         printObjectFields(this, this.getClass(), out, "");
     }
 
+    /**
+     * Writes all fields of this class (including subclasses) as a single
+     * {@code class_detail} record. Nested values are flattened with dotted
+     * names and list elements with {@code [i]} suffixes; {@code long[]} fields
+     * become array fields.
+     */
+    public void write(RecordWriter out) throws IOException {
+        out.begin("class_detail");
+        writeObjectFields(this, this.getClass(), out, "");
+        out.field("size", getSize());
+        out.end();
+    }
+
+    private static void writeObjectFields(Object obj, Class<?> type, RecordWriter out, String prefix)
+            throws IOException {
+        if (obj == null || type == null || type == Object.class) {
+            return;
+        }
+        writeObjectFields(obj, type.getSuperclass(), out, prefix);
+        for (Field field : type.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            field.setAccessible(true);
+            try {
+                writeValue(out, prefix + field.getName(), field.get(obj));
+            } catch (IllegalAccessException e) {
+                out.field(prefix + field.getName(), "<inaccessible>");
+            }
+        }
+    }
+
+    private static void writeValue(RecordWriter out, String name, Object value) throws IOException {
+        if (value == null) {
+            out.field(name, (String) null);
+        } else if (value instanceof Boolean b) {
+            out.field(name, b.booleanValue());
+        } else if (value instanceof Number n) {
+            out.field(name, n.longValue());
+        } else if (value instanceof long[] arr) {
+            out.field(name, arr);
+        } else if (value instanceof List<?> list) {
+            out.field(name + ".size", list.size());
+            for (int i = 0; i < list.size(); i++) {
+                writeValue(out, name + "[" + i + "]", list.get(i));
+            }
+        } else if (isSimpleScalar(value)) {
+            out.field(name, String.valueOf(value));
+        } else {
+            writeObjectFields(value, value.getClass(), out, name + ".");
+        }
+    }
+
     private static void printObjectFields(Object obj, Class<?> type, PrintStream out, String indent) {
         if (obj == null || type == null || type == Object.class) {
             return;
@@ -0,0 +1,50 @@
+package io.github.chains_project.aotp.oops.klass;
+
+/**
+ * Values of {@code InstanceKlass::_init_state}.
+ * https://github.com/openjdk/jdk/blob/62c7e9aefd4320d9d0cd8fa10610f59abb4de670/src/hotspot/share/oops/instanceKlass.hpp#L167
+ */
+public enum ClassState {
+    ALLOCATED("allocated"),
+    LOADED("loaded"),
+    BEING_LINKED("being_linked"),
+    LINKED("linked"),
+    BEING_INITIALIZED("being_initialized"),
+    FULLY_INITIALIZED("fully_initialized"),
+    INITIALIZATION_ERROR("initialization_error"),
+    UNKNOWN("unknown");
+
+    private static final ClassState[] VALUES = values();
+
+    private final String hotspotName;
+
+    ClassState(String hotspotName) {
+        this.hotspotName = hotspotName;
+    }
+
+    /**
+     * Name of the state as spelled in HotSpot, e.g. {@code fully_initialized}.
+     */
+    public String hotspotName() {
+        return hotspotName;
+    }
+
+    /**
+     * True once linking has completed, whether or not the class was initialized.
+     */
+    public boolean isLinked() {
+        return this == LINKED || this == BEING_INITIALIZED || this == FULLY_INITIALIZED
+                || this == INITIALIZATION_ERROR;
+    }
+
+    /**
+     * Maps a raw {@code _init_state} value to a constant; out-of-range values map
+     * to {@link #UNKNOWN}.
+     */
+    public static ClassState of(int value) {
+        if (value >= 0 && value < UNKNOWN.ordinal()) {
+            return VALUES[value];
+        }
+        return UNKNOWN;
+    }
+}
@@ -19,6 +19,15 @@ record OopMapBlock(int offset, int count) {}
  */
 public final class InstanceClass extends ClassEntry {
 
+    // Byte offsets of raw InstanceKlass fields inside the record, see parse()
+    public static final int NON_STATIC_OOP_MAP_SIZE_OFFSET = 288;
+    public static final int ITABLE_LEN_OFFSET = 292;
+    public static final int INIT_STATE_OFFSET = 304;
+    public static final int ACCESS_FLAGS_OFFSET = 306;
+    public static final int MISC_FLAGS_OFFSET = 308;
+    // Fixed part of an InstanceKlass record: Klass (200) + InstanceKlass fields (272)
+    public static final int FIXED_SIZE = 472;
+
     private String classNameFromRoRegion;
 
     public final long annotations;
@@ -225,6 +234,17 @@ public final class InstanceClass extends ClassEntry {
         this.nonStaticOopMapBlock = nonStaticOopMapBlock;
     }
 
+    /**
+     * Size of the record at {@code offset} computed from its raw length fields,
+     * the same as {@link #getSize()} of the parsed record.
+     */
+    public static long recordSize(byte[] bytes, int offset) {
+        long vtableLen = ByteReader.readIntLE(bytes, offset + VTABLE_LEN_OFFSET);
+        long itableLen = ByteReader.readIntLE(bytes, offset + ITABLE_LEN_OFFSET);
+        long oopMapSize = ByteReader.readIntLE(bytes, offset + NON_STATIC_OOP_MAP_SIZE_OFFSET);
+        return FIXED_SIZE + (vtableLen + itableLen + oopMapSize) * 8;
+    }
+
     /**
      * Parse a single InstanceClass from region bytes at {@code offset}. The first
      * field at this offset is {@code layoutHelper}. There is a 4-byte padding
@@ -515,6 +535,28 @@ public final class InstanceClass extends ClassEntry {
         return (accessFlags & 0x200) != 0;
     }
 
+    /**
+     * Linking and initialization state recorded in {@code _init_state}.
+     */
+    public ClassState classState() {
+        return ClassState.of(initState & 0xFF);
+    }
+
+    /**
+     * The builtin loader recorded in {@code _misc_flags}.
+     */
+    public LoaderType loaderType() {
+        return LoaderType.ofMiscFlags(miscFlags_fromInstanceKlass.flags() & 0xFFFF);
+    }
+
+    /**
+     * True if {@code shared_loading_failed} is set: the class could not be
+     * loaded from the archive at dump time and will not be archived again.
+     */
+    public boolean sharedLoadingFailed() {
+        return (miscFlags_fromInstanceKlass.flags() & LoaderType.SHARED_LOADING_FAILED) != 0;
+    }
+
     @Override
     public String getName() {
         return classNameFromRoRegion;
@@ -0,0 +1,59 @@
+package io.github.chains_project.aotp.oops.klass;
+
+/**
+ * Values of {@code Klass::_kind}, stored as a u2 right after {@code _layout_helper}.
+ * https://github.com/openjdk/jdk/blob/62c7e9aefd4320d9d0cd8fa10610f59abb4de670/src/hotspot/share/oops/klass.hpp#L62
+ */
+public enum KlassKind {
+    INSTANCE_KLASS("InstanceKlass"),
+    INSTANCE_REF_KLASS("InstanceRefKlass"),
+    INSTANCE_MIRROR_KLASS("InstanceMirrorKlass"),
+    INSTANCE_CLASS_LOADER_KLASS("InstanceClassLoaderKlass"),
+    INSTANCE_STACK_CHUNK_KLASS("InstanceStackChunkKlass"),
+    TYPE_ARRAY_KLASS("TypeArrayKlass"),
+    OBJ_ARRAY_KLASS("ObjArrayKlass"),
+    UNKNOWN_KLASS("UnknownKlass");
+
+    private static final KlassKind[] VALUES = values();
+
+    private final String hotspotName;
+
+    KlassKind(String hotspotName) {
+        this.hotspotName = hotspotName;
+    }
+
+    /**
+     * Name of the kind as spelled in HotSpot, e.g. {@code ObjArrayKlass}.
+     */
+    public String hotspotName() {
+        return hotspotName;
+    }
+
+    public boolean isArray() {
+        return this == TYPE_ARRAY_KLASS || this == OBJ_ARRAY_KLASS;
+    }
+
+    /**
+     * Resolves a kind given either as its HotSpot name ({@code ObjArrayKlass})
+     * or as the enum constant name ({@code OBJ_ARRAY_KLASS}), ignoring case.
+     */
+    public static KlassKind parse(String value) {
+        for (KlassKind kind : VALUES) {
+            if (kind.hotspotName.equalsIgnoreCase(value) || kind.name().equalsIgnoreCase(value)) {
+                return kind;
+            }
+        }
+        throw new IllegalArgumentException("Unknown klass kind: " + value);
+    }
+
+    /**
+     * Maps a raw {@code _kind} value to a constant; out-of-range values map to
+     * {@link #UNKNOWN_KLASS}.
+     */
+    public static KlassKind of(int id) {
+        if (id >= 0 && id < VALUES.length) {
+            return VALUES[id];
+        }
+        return UNKNOWN_KLASS;
+    }
+}
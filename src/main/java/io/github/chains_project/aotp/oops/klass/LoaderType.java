@@ -0,0 +1,46 @@
+package io.github.chains_project.aotp.oops.klass;
+
+/**
+ * The builtin loader that loaded an archived class, from the
+ * {@code is_shared_boot_class}, {@code is_shared_platform_class} and
+ * {@code is_shared_app_class} bits of {@code InstanceKlass::_misc_flags}.
+ * Classes of other (custom) loaders have none of the bits set.
+ * https://github.com/openjdk/jdk/blob/62c7e9aefd4320d9d0cd8fa10610f59abb4de670/src/hotspot/share/oops/instanceKlassFlags.hpp
+ */
+public enum LoaderType {
+    BOOT("boot"),
+    PLATFORM("platform"),
+    APP("app"),
+    UNREGISTERED("unregistered");
+
+    static final int SHARED_LOADING_FAILED = 1 << 6;
+    static final int IS_SHARED_BOOT_CLASS = 1 << 7;
+    static final int IS_SHARED_PLATFORM_CLASS = 1 << 8;
+    static final int IS_SHARED_APP_CLASS = 1 << 9;
+
+    private final String label;
+
+    LoaderType(String label) {
+        this.label = label;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    /**
+     * Decodes the loader bits of {@code InstanceKlass::_misc_flags}.
+     */
+    public static LoaderType ofMiscFlags(int flags) {
+        if ((flags & IS_SHARED_BOOT_CLASS) != 0) {
+            return BOOT;
+        }
+        if ((flags & IS_SHARED_PLATFORM_CLASS) != 0) {
+            return PLATFORM;
+        }
+        if ((flags & IS_SHARED_APP_CLASS) != 0) {
+            return APP;
+        }
+        return UNREGISTERED;
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.chains_project.aotp.output;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact, self-describing binary encoding of records.
+ *
+ * The stream starts with the magic bytes {@code "AOTP"} and a version byte,
+ * followed by a sequence of tagged items. Integers are unsigned LEB128
+ * varints; signed values are zigzag encoded first. Record types and field
+ * names are interned: the first use of a name is preceded by a
+ * {@code DEFINE} item that assigns it the next id.
+ *
+ * <pre>
+ * DEFINE  0x01 id:varint len:varint utf8[len]
+ * BEGIN   0x02 type-id:varint
+ * LONG    0x03 name-id:varint zigzag:varint
+ * STRING  0x04 name-id:varint len:varint utf8[len]
+ * NULL    0x05 name-id:varint
+ * BOOLEAN 0x06 name-id:varint 0|1
+ * ARRAY   0x07 name-id:varint count:varint zigzag:varint[count]
+ * END     0x08
+ * </pre>
+ */
+final class BinaryRecordWriter extends RecordWriter {
+
+    static final byte[] MAGIC = { 'A', 'O', 'T', 'P' };
+    static final byte VERSION = 1;
+
+    static final byte DEFINE = 0x01;
+    static final byte BEGIN = 0x02;
+    static final byte LONG = 0x03;
+    static final byte STRING = 0x04;
+    static final byte NULL = 0x05;
+    static final byte BOOLEAN = 0x06;
+    static final byte ARRAY = 0x07;
+    static final byte END = 0x08;
+
+    private final Map<String, Integer> names = new HashMap<>();
+    private boolean started;
+
+    BinaryRecordWriter(ChannelSink sink) {
+        super(sink);
+    }
+
+    private int id(String name) throws IOException {
+        Integer id = names.get(name);
+        if (id != null) {
+            return id;
+        }
+        int next = names.size();
+        names.put(name, next);
+        sink.put(DEFINE).putVarLong(next);
+        utf8(name);
+        return next;
+    }
+
+    private void utf8(String value) throws IOException {
+        sink.putVarLong(ChannelSink.utf8Length(value)).putUtf8(value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    @Override
+    public void begin(String type) throws IOException {
+        if (!started) {
+            sink.put(MAGIC, 0, MAGIC.length).put(VERSION);
+            started = true;
+        }
+        int id = id(type);
+        sink.put(BEGIN).putVarLong(id);
+    }
+
+    @Override
+    public void field(String name, long value) throws IOException {
+        int id = id(name);
+        sink.put(LONG).putVarLong(id).putVarLong(zigzag(value));
+    }
+
+    @Override
+    public void field(String name, String value) throws IOException {
+        int id = id(name);
+        if (value == null) {
+            sink.put(NULL).putVarLong(id);
+            return;
+        }
+        sink.put(STRING).putVarLong(id);
+        utf8(value);
+    }
+
+    @Override
+    public void field(String name, boolean value) throws IOException {
+        int id = id(name);
+        sink.put(BOOLEAN).putVarLong(id).put((byte) (value ? 1 : 0));
+    }
+
+    @Override
+    public void field(String name, long[] values) throws IOException {
+        int id = id(name);
+        sink.put(ARRAY).putVarLong(id).putVarLong(values.length);
+        for (long value : values) {
+            sink.putVarLong(zigzag(value));
+        }
+    }
+
+    @Override
+    public void end() throws IOException {
+        sink.put(END);
+    }
+}
@@ -0,0 +1,248 @@
+package io.github.chains_project.aotp.output;
+
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Byte sink that encodes text and numbers straight into one large
+ * {@link ByteBuffer} and drains it to a {@link WritableByteChannel} only when
+ * full. Numbers are rendered digit by digit and strings are UTF-8 encoded in
+ * place, so emitting a field does not allocate.
+ *
+ * All {@link RecordWriter}s, and the plain-text output of the CLI, go through
+ * a single sink so that a listing costs a handful of {@code write} calls
+ * instead of one per line.
+ */
+public final class ChannelSink implements Appendable, Flushable, Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final boolean closeChannel;
+    private final byte[] digits = new byte[20];
+
+    public ChannelSink(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE, true);
+    }
+
+    private ChannelSink(WritableByteChannel channel, int bufferSize, boolean closeChannel) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize).order(ByteOrder.LITTLE_ENDIAN);
+        this.closeChannel = closeChannel;
+    }
+
+    /**
+     * Sink over the process' standard output. Closing it flushes but leaves
+     * the descriptor open.
+     */
+    public static ChannelSink stdout() {
+        return new ChannelSink(Channels.newChannel(new FileOutputStream(FileDescriptor.out)),
+                DEFAULT_BUFFER_SIZE, false);
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flushBuffer();
+        }
+    }
+
+    public ChannelSink put(byte b) throws IOException {
+        ensure(1);
+        buffer.put(b);
+        return this;
+    }
+
+    public ChannelSink put(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (!buffer.hasRemaining()) {
+                flushBuffer();
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.put(bytes, offset, n);
+            offset += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    public ChannelSink putIntLE(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+        return this;
+    }
+
+    public ChannelSink putLongLE(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+        return this;
+    }
+
+    /**
+     * Unsigned LEB128 encoding, as used by the binary record format.
+     */
+    public ChannelSink putVarLong(long value) throws IOException {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+        return this;
+    }
+
+    /**
+     * Writes {@code value} in decimal.
+     */
+    public ChannelSink putDecimal(long value) throws IOException {
+        ensure(21);
+        if (value == Long.MIN_VALUE) {
+            return putUtf8("-9223372036854775808");
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+        while (n > 0) {
+            buffer.put(digits[--n]);
+        }
+        return this;
+    }
+
+    /**
+     * Writes {@code value} as lowercase hex with a {@code 0x} prefix.
+     */
+    public ChannelSink putHex(long value) throws IOException {
+        ensure(18);
+        buffer.put((byte) '0').put((byte) 'x');
+        int shift = Math.max(0, (63 - Long.numberOfLeadingZeros(value)) & ~3);
+        for (; shift >= 0; shift -= 4) {
+            int nibble = (int) (value >>> shift) & 0xF;
+            buffer.put((byte) (nibble < 10 ? '0' + nibble : 'a' + nibble - 10));
+        }
+        return this;
+    }
+
+    /**
+     * UTF-8 encodes {@code s} into the buffer.
+     */
+    public ChannelSink putUtf8(CharSequence s) throws IOException {
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                ensure(1);
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                ensure(2);
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                ensure(4);
+                buffer.put((byte) (0xF0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (cp & 0x3F)));
+            } else {
+                ensure(3);
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Number of bytes {@link #putUtf8} will write for {@code s}.
+     */
+    public static int utf8Length(CharSequence s) {
+        int length = s.length();
+        int bytes = 0;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public ChannelSink append(CharSequence csq) throws IOException {
+        return putUtf8(csq == null ? "null" : csq);
+    }
+
+    @Override
+    public ChannelSink append(CharSequence csq, int start, int end) throws IOException {
+        return putUtf8((csq == null ? "null" : csq).subSequence(start, end));
+    }
+
+    @Override
+    public ChannelSink append(char c) throws IOException {
+        if (c < 0x80) {
+            return put((byte) c);
+        }
+        return putUtf8(String.valueOf(c));
+    }
+
+    /**
+     * Byte-oriented view of this sink, for APIs that print to a
+     * {@link java.io.PrintStream}. Closing the stream does not close the sink.
+     */
+    public OutputStream outputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                put((byte) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                put(b, off, len);
+            }
+        };
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+        if (closeChannel) {
+            channel.close();
+        }
+    }
+}
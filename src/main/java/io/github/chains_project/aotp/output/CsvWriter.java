@@ -0,0 +1,107 @@
+package io.github.chains_project.aotp.output;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes records as CSV rows whose first column is the record type. A header
+ * row is emitted before the first row of each type, and again whenever the
+ * set of columns of that type changes (for example class details with a
+ * different number of itable entries). Array fields become a single cell with
+ * space-separated values.
+ */
+final class CsvWriter extends RecordWriter {
+
+    private final Map<String, List<String>> headers = new HashMap<>();
+    private final List<String> columns = new ArrayList<>();
+    private final StringBuilder row = new StringBuilder(256);
+    private String type;
+
+    CsvWriter(ChannelSink sink) {
+        super(sink);
+    }
+
+    @Override
+    public void begin(String type) {
+        this.type = type;
+        columns.clear();
+        row.setLength(0);
+        cell(type);
+    }
+
+    private void column(String name) {
+        columns.add(name);
+        row.append(',');
+    }
+
+    @Override
+    public void field(String name, long value) {
+        column(name);
+        row.append(value);
+    }
+
+    @Override
+    public void field(String name, String value) {
+        column(name);
+        if (value != null) {
+            cell(value);
+        }
+    }
+
+    @Override
+    public void field(String name, boolean value) {
+        column(name);
+        row.append(value);
+    }
+
+    @Override
+    public void field(String name, long[] values) {
+        column(name);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                row.append(' ');
+            }
+            row.append(values[i]);
+        }
+    }
+
+    @Override
+    public void end() throws IOException {
+        List<String> previous = headers.get(type);
+        if (previous == null || !previous.equals(columns)) {
+            headers.put(type, new ArrayList<>(columns));
+            sink.putUtf8("type");
+            for (String column : columns) {
+                sink.put((byte) ',');
+                sink.putUtf8(column);
+            }
+            sink.put((byte) '\n');
+        }
+        sink.putUtf8(row);
+        sink.put((byte) '\n');
+    }
+
+    private void cell(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            row.append(value);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                row.append('"');
+            }
+            row.append(c);
+        }
+        row.append('"');
+    }
+}
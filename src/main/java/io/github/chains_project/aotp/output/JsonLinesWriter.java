@@ -0,0 +1,103 @@
+package io.github.chains_project.aotp.output;
+
+import java.io.IOException;
+
+/**
+ * Writes each record as one JSON object on its own line. The record type is
+ * emitted as the {@code "type"} member.
+ */
+final class JsonLinesWriter extends RecordWriter {
+
+    JsonLinesWriter(ChannelSink sink) {
+        super(sink);
+    }
+
+    @Override
+    public void begin(String type) throws IOException {
+        sink.putUtf8("{\"type\":");
+        string(type);
+    }
+
+    private void key(String name) throws IOException {
+        sink.put((byte) ',');
+        string(name);
+        sink.put((byte) ':');
+    }
+
+    @Override
+    public void field(String name, long value) throws IOException {
+        key(name);
+        sink.putDecimal(value);
+    }
+
+    @Override
+    public void field(String name, String value) throws IOException {
+        key(name);
+        if (value == null) {
+            sink.putUtf8("null");
+        } else {
+            string(value);
+        }
+    }
+
+    @Override
+    public void field(String name, boolean value) throws IOException {
+        key(name);
+        sink.putUtf8(value ? "true" : "false");
+    }
+
+    @Override
+    public void field(String name, long[] values) throws IOException {
+        key(name);
+        sink.put((byte) '[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sink.put((byte) ',');
+            }
+            sink.putDecimal(values[i]);
+        }
+        sink.put((byte) ']');
+    }
+
+    @Override
+    public void end() throws IOException {
+        sink.put((byte) '}').put((byte) '\n');
+    }
+
+    private void string(String value) throws IOException {
+        sink.put((byte) '"');
+        int start = 0;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c != '"' && c != '\\' && c >= 0x20) {
+                continue;
+            }
+            sink.putUtf8(value.subSequence(start, i));
+            switch (c) {
+                case '"':
+                    sink.putUtf8("\\\"");
+                    break;
+                case '\\':
+                    sink.putUtf8("\\\\");
+                    break;
+                case '\n':
+                    sink.putUtf8("\\n");
+                    break;
+                case '\r':
+                    sink.putUtf8("\\r");
+                    break;
+                case '\t':
+                    sink.putUtf8("\\t");
+                    break;
+                default:
+                    sink.putUtf8("\\u00");
+                    sink.put((byte) Character.forDigit(c >> 4, 16));
+                    sink.put((byte) Character.forDigit(c & 0xF, 16));
+            }
+            start = i + 1;
+        }
+        sink.putUtf8(value.subSequence(start, length));
+        sink.put((byte) '"');
+    }
+}
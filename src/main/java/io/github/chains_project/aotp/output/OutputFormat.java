@@ -0,0 +1,15 @@
+package io.github.chains_project.aotp.output;
+
+/**
+ * Output formats supported by the CLI's {@code --format} option.
+ */
+public enum OutputFormat {
+    /** Human-readable text, the historical aotp output. */
+    TEXT,
+    /** One JSON object per line. */
+    JSONL,
+    /** Comma-separated values with a header row per record type. */
+    CSV,
+    /** Compact self-describing binary encoding, see {@link BinaryRecordWriter}. */
+    BINARY
+}
@@ -0,0 +1,54 @@
+package io.github.chains_project.aotp.output;
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Streaming writer for flat, typed records. A record is opened with
+ * {@link #begin(String)}, receives any number of named fields and is closed
+ * with {@link #end()}. Nested structures are flattened by the caller using
+ * dotted names ({@code heap.roots_count}) and indices ({@code itable[0].klass}).
+ *
+ * Implementations encode directly into a {@link ChannelSink}.
+ */
+public abstract class RecordWriter implements Flushable {
+
+    protected final ChannelSink sink;
+
+    protected RecordWriter(ChannelSink sink) {
+        this.sink = sink;
+    }
+
+    public static RecordWriter create(OutputFormat format, ChannelSink sink) {
+        switch (format) {
+            case JSONL:
+                return new JsonLinesWriter(sink);
+            case CSV:
+                return new CsvWriter(sink);
+            case BINARY:
+                return new BinaryRecordWriter(sink);
+            default:
+                throw new IllegalArgumentException("No record writer for format " + format);
+        }
+    }
+
+    public abstract void begin(String type) throws IOException;
+
+    public abstract void field(String name, long value) throws IOException;
+
+    /**
+     * Writes a string field; {@code null} is written as the format's null value.
+     */
+    public abstract void field(String name, String value) throws IOException;
+
+    public abstract void field(String name, boolean value) throws IOException;
+
+    public abstract void field(String name, long[] values) throws IOException;
+
+    public abstract void end() throws IOException;
+
+    @Override
+    public void flush() throws IOException {
+        sink.flush();
+    }
+}
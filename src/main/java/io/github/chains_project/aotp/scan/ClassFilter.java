@@ -0,0 +1,272 @@
+package io.github.chains_project.aotp.scan;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.InstanceClass;
+import io.github.chains_project.aotp.oops.klass.KlassKind;
+import io.github.chains_project.aotp.utils.ByteReader;
+
+/**
+ * Immutable predicate over klass records, split into stages so that a scanner
+ * can reject a candidate as early and as cheaply as possible:
+ *
+ * <ol>
+ *   <li>{@link #matchesLayout(long)}: klass kind, from the raw
+ *       {@code _layout_helper}/{@code _kind} word, before anything is parsed</li>
+ *   <li>{@link #matchesRecord(byte[], int)}: class loader, access flags and
+ *       record size, from raw fields of the record</li>
+ *   <li>{@link #matchesName(byte[], int, int)}: literal name prefix, compared
+ *       on the UTF-8 bytes of the name symbol before a {@code String} is built</li>
+ *   <li>{@link #matchesName(String)}: the rest of a name glob, on the decoded name</li>
+ * </ol>
+ *
+ * Only candidates that pass every stage are handed to
+ * {@link InstanceClass#parse(byte[], int)}.
+ */
+public final class ClassFilter {
+
+    private static final int ALL_KINDS = -1;
+    private static final ClassFilter ALL =
+            new ClassFilter(new byte[0], null, ALL_KINDS, 0, false, 0, 0, Long.MAX_VALUE);
+
+    private final byte[] namePrefix;
+    private final Pattern nameGlob;
+    private final int kindMask;
+    private final int requiredAccessFlags;
+    private final boolean filterLoader;
+    private final long loader;
+    private final long minSize;
+    private final long maxSize;
+
+    private ClassFilter(byte[] namePrefix, Pattern nameGlob, int kindMask, int requiredAccessFlags,
+                        boolean filterLoader, long loader, long minSize, long maxSize) {
+        this.namePrefix = namePrefix;
+        this.nameGlob = nameGlob;
+        this.kindMask = kindMask;
+        this.requiredAccessFlags = requiredAccessFlags;
+        this.filterLoader = filterLoader;
+        this.loader = loader;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * The filter that accepts every class.
+     */
+    public static ClassFilter all() {
+        return ALL;
+    }
+
+    /**
+     * Restricts to internal class names ({@code java/lang/String}) matching
+     * {@code pattern}. A pattern without {@code *} or {@code ?} is a prefix;
+     * otherwise it is a glob over the whole name where {@code *} matches any
+     * run of characters and {@code ?} one character. The literal part before the
+     * first wildcard is always checked on raw bytes.
+     */
+    public ClassFilter withName(String pattern) {
+        int wildcard = firstWildcard(pattern);
+        String literal = wildcard < 0 ? pattern : pattern.substring(0, wildcard);
+        Pattern glob = wildcard < 0 ? null : globToRegex(pattern);
+        return new ClassFilter(literal.getBytes(StandardCharsets.UTF_8), glob, kindMask, requiredAccessFlags,
+                filterLoader, loader, minSize, maxSize);
+    }
+
+    public ClassFilter withKinds(Set<KlassKind> kinds) {
+        int mask = 0;
+        for (KlassKind kind : kinds) {
+            mask |= 1 << kind.ordinal();
+        }
+        return new ClassFilter(namePrefix, nameGlob, mask, requiredAccessFlags, filterLoader, loader,
+                minSize, maxSize);
+    }
+
+    /**
+     * Restricts to classes that have all bits of {@code flags} set in
+     * {@code InstanceKlass::_access_flags} (e.g. {@code 0x200} for interfaces).
+     */
+    public ClassFilter withAccessFlags(int flags) {
+        return new ClassFilter(namePrefix, nameGlob, kindMask, requiredAccessFlags | flags, filterLoader,
+                loader, minSize, maxSize);
+    }
+
+    /**
+     * Restricts to classes whose {@code _class_loader_data} equals {@code classLoaderData}.
+     */
+    public ClassFilter withLoader(long classLoaderData) {
+        return new ClassFilter(namePrefix, nameGlob, kindMask, requiredAccessFlags, true, classLoaderData,
+                minSize, maxSize);
+    }
+
+    /**
+     * Restricts to classes whose {@link ClassEntry#getSize()} is in {@code [min, max]}.
+     */
+    public ClassFilter withSizeRange(long min, long max) {
+        return new ClassFilter(namePrefix, nameGlob, kindMask, requiredAccessFlags, filterLoader, loader,
+                min, max);
+    }
+
+    /**
+     * Stage 1: checks the word at {@link ClassEntry#LAYOUT_HELPER_OFFSET}, which
+     * holds {@code _layout_helper} in its low half and {@code _kind} above it.
+     */
+    public boolean matchesLayout(long layoutWord) {
+        if (kindMask == ALL_KINDS) {
+            return true;
+        }
+        int kind = (int) (layoutWord >>> 32) & 0xFFFF;
+        return (kindMask & (1 << KlassKind.of(kind).ordinal())) != 0;
+    }
+
+    /**
+     * Stage 1 on the raw record at {@code offset} of {@code bytes}, which are
+     * valid up to {@code limit}. A record cut off before its layout word has
+     * no known kind and only passes if every kind does.
+     */
+    public boolean matchesLayout(byte[] bytes, int offset, int limit) {
+        if (offset + ClassEntry.LAYOUT_HELPER_OFFSET + 8 > limit) {
+            return kindMask == ALL_KINDS;
+        }
+        return matchesLayout(ByteReader.readLongLE(bytes, offset + ClassEntry.LAYOUT_HELPER_OFFSET));
+    }
+
+    /**
+     * Stage 2: checks loader, access flags and size on the raw record at
+     * {@code offset}. The size is computed by {@link InstanceClass#recordSize}.
+     */
+    public boolean matchesRecord(byte[] bytes, int offset) {
+        boolean sizeBounded = minSize > 0 || maxSize < Long.MAX_VALUE;
+        if (!filterLoader && requiredAccessFlags == 0 && !sizeBounded) {
+            return true;
+        }
+        if (offset + InstanceClass.FIXED_SIZE > bytes.length) {
+            return false;
+        }
+        if (filterLoader
+                && ByteReader.readLongLE(bytes, offset + ClassEntry.CLASS_LOADER_DATA_OFFSET) != loader) {
+            return false;
+        }
+        if (requiredAccessFlags != 0) {
+            int flags = ByteReader.readShortLE(bytes, offset + InstanceClass.ACCESS_FLAGS_OFFSET) & 0xFFFF;
+            if ((flags & requiredAccessFlags) != requiredAccessFlags) {
+                return false;
+            }
+        }
+        if (sizeBounded) {
+            long size = InstanceClass.recordSize(bytes, offset);
+            return size >= minSize && size <= maxSize;
+        }
+        return true;
+    }
+
+    /**
+     * Stage 3: compares the literal name prefix against the UTF-8 body of the
+     * name symbol.
+     */
+    public boolean matchesName(byte[] utf8, int offset, int length) {
+        if (length < namePrefix.length) {
+            return false;
+        }
+        for (int i = 0; i < namePrefix.length; i++) {
+            if (utf8[offset + i] != namePrefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stage 4: matches the decoded name against the glob, if any.
+     */
+    public boolean matchesName(String name) {
+        return nameGlob == null || nameGlob.matcher(name).matches();
+    }
+
+    /**
+     * Stages 1 and 2 on field values that were already extracted from a
+     * record, e.g. the columns of a class table.
+     *
+     * @param kind raw {@code Klass::_kind}
+     */
+    public boolean matchesFields(int kind, long classLoaderData, int accessFlags, long size) {
+        if (kindMask != ALL_KINDS && (kindMask & (1 << KlassKind.of(kind).ordinal())) == 0) {
+            return false;
+        }
+        if (filterLoader && classLoaderData != loader) {
+            return false;
+        }
+        if ((accessFlags & requiredAccessFlags) != requiredAccessFlags) {
+            return false;
+        }
+        return size >= minSize && size <= maxSize;
+    }
+
+    /**
+     * True if stage 4 needs the decoded name, i.e. the name pattern has wildcards.
+     */
+    public boolean hasNameGlob() {
+        return nameGlob != null;
+    }
+
+    /**
+     * Runs all stages against an already parsed entry.
+     */
+    public boolean matches(ClassEntry entry) {
+        if (!matchesLayout(((long) entry.kind << 32) | (entry.layoutHelper & 0xFFFFFFFFL))) {
+            return false;
+        }
+        if (filterLoader && entry.classLoaderData != loader) {
+            return false;
+        }
+        if (requiredAccessFlags != 0 && entry instanceof InstanceClass ik
+                && ((ik.accessFlags & 0xFFFF) & requiredAccessFlags) != requiredAccessFlags) {
+            return false;
+        }
+        if (entry.getSize() < minSize || entry.getSize() > maxSize) {
+            return false;
+        }
+        String name = entry.getName() == null ? "" : entry.getName();
+        byte[] utf8 = name.getBytes(StandardCharsets.UTF_8);
+        return matchesName(utf8, 0, utf8.length) && matchesName(name);
+    }
+
+    /**
+     * True if this filter rejects anything at all.
+     */
+    public boolean isSelective() {
+        return this != ALL && (namePrefix.length > 0 || nameGlob != null || kindMask != ALL_KINDS
+                || requiredAccessFlags != 0 || filterLoader || minSize > 0 || maxSize < Long.MAX_VALUE);
+    }
+
+    private static int firstWildcard(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '*' || c == '?') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Pattern globToRegex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        int literalStart = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (i > literalStart) {
+                    regex.append(Pattern.quote(glob.substring(literalStart, i)));
+                }
+                regex.append(c == '*' ? ".*" : ".");
+                literalStart = i + 1;
+            }
+        }
+        if (literalStart < glob.length()) {
+            regex.append(Pattern.quote(glob.substring(literalStart)));
+        }
+        return Pattern.compile(regex.toString(), Pattern.DOTALL);
+    }
+}
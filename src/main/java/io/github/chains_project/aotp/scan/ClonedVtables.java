@@ -0,0 +1,380 @@
+package io.github.chains_project.aotp.scan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Map;
+
+import io.github.chains_project.aotp.archive.AotArchive;
+import io.github.chains_project.aotp.header.CDSFileMapRegion;
+import io.github.chains_project.aotp.header.FileMapHeader;
+import io.github.chains_project.aotp.metrics.AotpMetrics;
+import io.github.chains_project.aotp.oops.klass.KlassKind;
+import io.github.chains_project.aotp.utils.BitMaps;
+import io.github.chains_project.aotp.utils.ByteReader;
+
+/**
+ * The vtable addresses that mark klass records, and the RW words that may hold
+ * them.
+ *
+ * HotSpot clones the C++ vtable of every archived Metadata kind into the rw
+ * region ({@code CppVtables::dumptime_init}): one {@code CppVtableInfo} per
+ * kind, an {@code int _vtable_size} padded to a word followed by the cloned
+ * entries. The vtable pointer of each archived object is set to the entries
+ * of its kind and marked in the pointer map. {@code CppVtables::serialize}
+ * writes the address of each CppVtableInfo, in {@code CPP_VTABLE_TYPES_DO}
+ * order, into the serialized data in ro, followed by a tag; the header's
+ * {@code cloned_vtables_offset} is {@code vtables_serialized_base()}, the
+ * first of these words. JDK 17 points it at the {@code _index} array in rw,
+ * which holds the same addresses. The position of the klass kinds in that
+ * order is known per number of kinds, see {@link #KLASS_KINDS}.
+ *
+ * {@link #locate} derives the klass vtables this way and, if the archive has
+ * a rw pointer map, limits the candidates to the words it marks. Archives
+ * where this fails (no offset, an unknown number of kinds, addresses that are
+ * not vtable infos) get the {@link #fixed} addresses of the JDK build aotp was
+ * first written against, checked at every word.
+ *
+ * Only the few words involved and the pointer map are read, straight from the
+ * file. Under a bounded {@link MemoryBudget} they are charged to the scan
+ * window, see {@link #slotBytes()}.
+ */
+public final class ClonedVtables {
+
+    // The tag CppVtables::serialize is followed by in the serialized data
+    private static final long SECOND_TAG = -2;
+    // More kinds than any JDK clones vtables for
+    private static final int MAX_VTABLE_KINDS = 32;
+    // No C++ class in HotSpot has more virtual functions than this
+    private static final int MAX_VTABLE_SIZE = 1024;
+    private static final int RW_REGION = 0;
+    private static final int BITMAP_REGION = 2;
+
+    /**
+     * For each number of cloned vtable kinds, the index of each klass kind in
+     * {@code CPP_VTABLE_TYPES_DO}, in {@link KlassKind} order.
+     */
+    private static final Map<Integer, int[]> KLASS_KINDS = Map.of(
+            // ConstantPool, InstanceKlass, InstanceClassLoaderKlass, InstanceMirrorKlass,
+            // InstanceRefKlass, InstanceStackChunkKlass, Method, ObjArrayKlass, TypeArrayKlass
+            9, new int[] { 1, 4, 3, 2, 5, 8, 7 },
+            // As above, with MethodData and MethodCounters after Method and
+            // KlassTrainingData, MethodTrainingData and CompileTrainingData at the end
+            14, new int[] { 1, 4, 3, 2, 5, 10, 9 });
+
+    private final long requestedBaseAddress;
+    private final long[] addresses;
+    private final boolean derived;
+    private final long slotsStart;
+    private final long[] slots;
+    private final WordMatcher matcher;
+
+    private ClonedVtables(long requestedBaseAddress, long[] addresses, boolean derived, long slotsStart,
+                          long[] slots) {
+        this.requestedBaseAddress = requestedBaseAddress;
+        this.addresses = addresses;
+        this.derived = derived;
+        this.slotsStart = slotsStart;
+        this.slots = slots;
+        this.matcher = WordMatcher.of(addresses);
+    }
+
+    /**
+     * The vtable addresses of the JDK build aotp was first written against,
+     * relative to {@code requestedBaseAddress}; every word is a candidate.
+     */
+    public static ClonedVtables fixed(long requestedBaseAddress) {
+        return new ClonedVtables(requestedBaseAddress, new long[] {
+            requestedBaseAddress + 0x0000000000001080L, // Instance classes
+            requestedBaseAddress + 0x00000000000014b8L, // References
+            requestedBaseAddress + 0x0000000000001350L, // java.lang.Class
+            requestedBaseAddress + 0x00000000000011e8L, // Classloader
+            requestedBaseAddress + 0x0000000000001620L, // jdk.internal.vm.StackChunk
+            requestedBaseAddress + 0x0000000000001a60L, // Array classes with primitive type
+            requestedBaseAddress + 0x00000000000018f0L // Array classes
+        }, false, 0, null);
+    }
+
+    /**
+     * How {@link #nextMatch} finds candidates: {@code "pointer slots"} if the
+     * pointer map limits them, otherwise the word matcher that compares every
+     * word, {@code "vector"} with the Vector API or {@code "scalar"}.
+     */
+    public String wordMatcher() {
+        if (slots != null) {
+            return "pointer slots";
+        }
+        return matcher instanceof ScalarWordMatcher ? "scalar" : "vector";
+    }
+
+    /**
+     * Derives the klass vtables from the header of {@code vtableLayer} and the
+     * candidate words from the rw pointer map of {@code scanned}, falling back
+     * to {@link #fixed} for the base address of {@code vtableLayer}.
+     *
+     * @param vtableLayer the static archive, which holds the cloned vtables
+     * @param scanned     the archive whose rw region is scanned: the same
+     *                    archive, or a dynamic archive on top of it
+     */
+    public static ClonedVtables locate(AotArchive vtableLayer, AotArchive scanned) throws IOException {
+        return locate(vtableLayer, scanned, MemoryBudget.unbounded());
+    }
+
+    /**
+     * Like {@link #locate(AotArchive, AotArchive)}, reading the pointer map
+     * within the scan window of {@code budget}. If it does not fit, every
+     * word is a candidate instead.
+     */
+    public static ClonedVtables locate(AotArchive vtableLayer, AotArchive scanned, MemoryBudget budget)
+            throws IOException {
+        return locate(new Layer(vtableLayer.fileMapHeader(), vtableLayer.regions(), vtableLayer.channel()),
+                new Layer(scanned.fileMapHeader(), scanned.regions(), scanned.channel()), budget);
+    }
+
+    /**
+     * Like {@link #locate(AotArchive, AotArchive, MemoryBudget)} for a static
+     * archive whose headers have been read already.
+     */
+    public static ClonedVtables locate(FileMapHeader header, CDSFileMapRegion[] regions, FileChannel channel,
+            MemoryBudget budget) throws IOException {
+        Layer layer = new Layer(header, regions, channel);
+        return locate(layer, layer, budget);
+    }
+
+    private static ClonedVtables locate(Layer vtableLayer, Layer scanned, MemoryBudget budget) throws IOException {
+        long base = vtableLayer.base();
+        long[] addresses = klassVtables(vtableLayer);
+        if (addresses == null) {
+            return fixed(base);
+        }
+        return new ClonedVtables(base, addresses, true, scanned.regionStart(RW_REGION),
+                pointerSlots(scanned, budget));
+    }
+
+    /**
+     * Base address the vtable addresses are relative to.
+     */
+    public long requestedBaseAddress() {
+        return requestedBaseAddress;
+    }
+
+    /**
+     * The vtable address of klass records of {@code kind}.
+     */
+    public long address(KlassKind kind) {
+        return addresses[kind.ordinal()];
+    }
+
+    /**
+     * True if the addresses were read from the archive rather than assumed.
+     */
+    public boolean isDerived() {
+        return derived;
+    }
+
+    /**
+     * True if only words marked in the pointer map are candidates.
+     */
+    public boolean hasPointerSlots() {
+        return slots != null;
+    }
+
+    /**
+     * Bytes held by the pointer slots, which a bounded scan takes off its
+     * window.
+     */
+    public long slotBytes() {
+        return slots == null ? 0 : (long) slots.length * Long.BYTES;
+    }
+
+    private boolean isVtable(long value) {
+        for (long address : addresses) {
+            if (address == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Offset of the first candidate word at or after {@code offset} in
+     * {@code bytes}, which is mapped at {@code address}, that holds a klass
+     * vtable address; {@code to} if there is none before it. Without pointer
+     * slots every word is compared, by the {@link WordMatcher}.
+     */
+    int nextMatch(byte[] bytes, long address, int offset, int to) {
+        if (slots == null) {
+            return matcher.next(bytes, offset, to);
+        }
+        for (;; offset += 8) {
+            offset = nextCandidate(address, offset, to);
+            if (offset + 8 > to) {
+                return to;
+            }
+            if (isVtable(ByteReader.readLongLE(bytes, offset))) {
+                return offset;
+            }
+        }
+    }
+
+    /**
+     * Offset of the first candidate word at or after {@code offset} in a
+     * buffer mapped at {@code address}, or {@code to} if there is none before it.
+     */
+    private int nextCandidate(long address, int offset, int to) {
+        if (slots == null) {
+            return offset;
+        }
+        long word = (address + offset - slotsStart) >> 3;
+        long words = (long) slots.length << 6;
+        while (offset < to && word >= 0 && word < words) {
+            long bits = slots[(int) (word >>> 6)] >>> (word & 63);
+            if (bits != 0) {
+                return (int) Math.min(to, offset + 8L * Long.numberOfTrailingZeros(bits));
+            }
+            int skip = 64 - (int) (word & 63);
+            offset = (int) Math.min(to, offset + 8L * skip);
+            word += skip;
+        }
+        return to;
+    }
+
+    /**
+     * Reads the CppVtableInfo addresses at {@code cloned_vtables_offset} of
+     * {@code layer} and returns the klass vtables, or null if they do not
+     * check out.
+     */
+    private static long[] klassVtables(Layer layer) throws IOException {
+        long offset = layer.header().clonedVtablesOffset();
+        if (offset <= 0) {
+            return null;
+        }
+        ByteBuffer data = layer.read(layer.base() + offset, (MAX_VTABLE_KINDS + 1) * 8);
+        // The run of infos ends at the tag in the serialized data, or, for an
+        // _index array in rw, at the first word that is not a later info
+        long[] infos = new long[data.limit() / 8];
+        int count = 0;
+        while (count < infos.length) {
+            long pointer = data.getLong(count * 8);
+            long info = pointer == SECOND_TAG ? 0 : resolve(layer, pointer);
+            if (info == 0 || count > 0 && info <= infos[count - 1] || !isVtableInfo(layer, info)) {
+                break;
+            }
+            infos[count++] = info;
+        }
+        int[] kinds = KLASS_KINDS.get(count);
+        if (kinds == null) {
+            return null;
+        }
+        long[] addresses = new long[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            // CppVtableInfo::_cloned_vtable follows the padded _vtable_size
+            addresses[i] = infos[kinds[i]] + 8;
+        }
+        return addresses;
+    }
+
+    /**
+     * True if {@code info} starts with a plausible {@code _vtable_size}.
+     */
+    private static boolean isVtableInfo(Layer layer, long info) throws IOException {
+        ByteBuffer data = layer.read(info, 4);
+        int size = data.limit() < 4 ? 0 : data.getInt(0);
+        return size > 0 && size <= MAX_VTABLE_SIZE;
+    }
+
+    /**
+     * Turns a serialized pointer, an address or a base offset, into an address
+     * in the rw region, or 0 if it is neither.
+     */
+    private static long resolve(Layer layer, long pointer) {
+        if (pointer == 0 || (pointer & 7) != 0) {
+            return 0;
+        }
+        if (layer.inRwRegion(pointer)) {
+            return pointer;
+        }
+        long address = layer.base() + pointer;
+        return pointer > 0 && layer.inRwRegion(address) ? address : 0;
+    }
+
+    /**
+     * One bit per rw word, set for the words marked in the rw pointer map, or
+     * null if the archive has none. Under a bounded {@code budget} the bits
+     * and the copy of the pointer map are read before the scan window is
+     * filled and must fit in it together; the bits take no more than half of
+     * it, as they stay for the scan. Otherwise every word is a candidate.
+     */
+    private static long[] pointerSlots(Layer layer, MemoryBudget budget) throws IOException {
+        CDSFileMapRegion rw = layer.regions()[RW_REGION];
+        CDSFileMapRegion bm = layer.regions()[BITMAP_REGION];
+        long mapBytes = (rw.ptrmapSizeInBits() + 7) / 8;
+        if (bm.used() == 0 || rw.ptrmapSizeInBits() == 0 || rw.ptrmapOffset() + mapBytes > bm.used()) {
+            return null;
+        }
+        long words = rw.used() / 8;
+        long slotBytes = ((words + 63) >>> 6) * Long.BYTES;
+        if (budget.isBounded() && (slotBytes > budget.windowSize() / 2 || slotBytes + mapBytes > budget.windowSize())) {
+            return null;
+        }
+        // Only the rw part of the bitmap region is needed
+        ByteBuffer bitmap = layer.readFile(bm.fileOffset() + rw.ptrmapOffset(), (int) mapBytes);
+        long startPos = layer.header().rwPtrmapStartPos();
+        long[] slots = new long[(int) (slotBytes / Long.BYTES)];
+        BitMaps.forEachOne(bitmap, 0, 0, rw.ptrmapSizeInBits(), bit -> {
+            long word = startPos + bit;
+            if (word < words) {
+                slots[(int) (word >>> 6)] |= 1L << word;
+            }
+        });
+        return slots;
+    }
+
+    /**
+     * The headers of one archive and its file, read by address.
+     */
+    private record Layer(FileMapHeader header, CDSFileMapRegion[] regions, FileChannel channel) {
+
+        long base() {
+            return header.requestedBaseAddress();
+        }
+
+        long regionStart(int index) {
+            return base() + regions[index].mappingOffset();
+        }
+
+        boolean inRwRegion(long address) {
+            long offset = address - regionStart(RW_REGION);
+            return offset >= 0 && offset < regions[RW_REGION].used();
+        }
+
+        /**
+         * Up to {@code length} bytes at {@code address} in the rw or ro
+         * region; fewer if the region or the file ends first.
+         */
+        ByteBuffer read(long address, int length) throws IOException {
+            for (int index = 0; index < BITMAP_REGION; index++) {
+                CDSFileMapRegion region = regions[index];
+                long offset = address - regionStart(index);
+                if (offset >= 0 && offset < region.used()) {
+                    return readFile(region.fileOffset() + offset, (int) Math.min(length, region.used() - offset));
+                }
+            }
+            return ByteBuffer.allocate(0);
+        }
+
+        ByteBuffer readFile(long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+            long calls = 0;
+            while (buffer.hasRemaining()) {
+                calls++;
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            AotpMetrics.countRead(buffer.position(), calls);
+            return buffer.flip();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package io.github.chains_project.aotp.scan;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import io.github.chains_project.aotp.metrics.ScanRecorder;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.InstanceClass;
+import io.github.chains_project.aotp.utils.ByteReader;
+
+/**
+ * Finds klass records in bytes of the RW region by looking for words that equal
+ * one of the cloned klass vtable addresses (see {@link ClonedVtables}), runs the {@link ClassFilter} stages on
+ * each candidate and hands the parsed classes to a sink. A scanner built with a
+ * {@link RecordSink} skips parsing and hands over the raw records instead.
+ *
+ * The scanner works on any slice of the region, so the same code serves a
+ * fully loaded region and a {@link WindowedScan}.
+ *
+ * A scan can be cancelled: every {@value #CANCEL_CHECK_WORDS} words the
+ * scanner polls its cancellation flag and, once it is set, abandons the scan
+ * with a {@link CancellationException}.
+ */
+public final class KlassScanner {
+
+    static final int CANCEL_CHECK_WORDS = 4096;
+
+    private static final BooleanSupplier NEVER_CANCELLED = () -> false;
+
+    private final ClonedVtables vtables;
+    private final ClassFilter filter;
+    private final SymbolSource symbols;
+    private final ScanRecorder recorder;
+    private final Consumer<? super ClassEntry> sink;
+    private final RecordSink records;
+    private final BooleanSupplier cancelled;
+
+    public KlassScanner(long requestedBaseAddress, ClassFilter filter, SymbolSource symbols,
+                        ScanRecorder recorder, Consumer<? super ClassEntry> sink) {
+        this(requestedBaseAddress, filter, symbols, recorder, sink, NEVER_CANCELLED);
+    }
+
+    /**
+     * @param cancelled polled during the scan; once it returns true the scan
+     *                  throws {@link CancellationException}
+     */
+    public KlassScanner(long requestedBaseAddress, ClassFilter filter, SymbolSource symbols,
+                        ScanRecorder recorder, Consumer<? super ClassEntry> sink, BooleanSupplier cancelled) {
+        this(ClonedVtables.fixed(requestedBaseAddress), filter, symbols, recorder, sink, cancelled);
+    }
+
+    /**
+     * A scanner that recognizes klass records by the given vtables.
+     */
+    public KlassScanner(ClonedVtables vtables, ClassFilter filter, SymbolSource symbols,
+                        ScanRecorder recorder, Consumer<? super ClassEntry> sink, BooleanSupplier cancelled) {
+        this(vtables, filter, symbols, recorder, sink, null, cancelled);
+    }
+
+    /**
+     * A scanner that hands the accepted records to {@code records} unparsed.
+     */
+    public KlassScanner(ClonedVtables vtables, ClassFilter filter, SymbolSource symbols,
+                        ScanRecorder recorder, RecordSink records, BooleanSupplier cancelled) {
+        this(vtables, filter, symbols, recorder, null, records, cancelled);
+    }
+
+    private KlassScanner(ClonedVtables vtables, ClassFilter filter, SymbolSource symbols, ScanRecorder recorder,
+                         Consumer<? super ClassEntry> sink, RecordSink records, BooleanSupplier cancelled) {
+        this.vtables = vtables;
+        this.filter = filter;
+        this.symbols = symbols;
+        this.recorder = recorder;
+        this.sink = sink;
+        this.records = records;
+        this.cancelled = cancelled;
+        if (!vtables.isDerived()) {
+            recorder.fixedVtables();
+        }
+        recorder.wordMatcher(vtables.wordMatcher());
+    }
+
+    /**
+     * Scans the words at offsets {@code [from, to)} of {@code bytes}.
+     *
+     * @param address          mapped address of {@code bytes[0]}, recorded in
+     *                         each class as {@link ClassEntry#address()}
+     * @param limit            end of the valid data in {@code bytes}, at least {@code to}
+     * @param stopAtIncomplete if true, stop at the first record that extends past
+     *                         {@code limit} instead of parsing it
+     * @return {@code to}, or the offset of the record the scan stopped at
+     * @throws CancellationException if the scan was cancelled
+     */
+    public int scan(byte[] bytes, long address, int from, int to, int limit, boolean stopAtIncomplete)
+            throws IOException {
+        int offset = from;
+        int chunkEnd = from;
+        try {
+            for (; offset + 8 <= to; offset += 8) {
+                if (offset >= chunkEnd) {
+                    if (cancelled.getAsBoolean()) {
+                        throw new CancellationException("Scan cancelled");
+                    }
+                    chunkEnd = (int) Math.min(to, offset + CANCEL_CHECK_WORDS * 8L);
+                }
+                offset = vtables.nextMatch(bytes, address, offset, chunkEnd);
+                if (offset + 8 > chunkEnd) {
+                    // No match in this chunk; the increment moves on to the next one
+                    offset = chunkEnd - 8;
+                    continue;
+                }
+                int entryStart = offset;
+                if (stopAtIncomplete && !isComplete(bytes, entryStart, limit)) {
+                    return entryStart;
+                }
+                recorder.vtableMatch();
+                // Cheap rejections first: raw kind word, raw record fields, raw name bytes.
+                // Only records that pass all of them are parsed and get a String name.
+                if (!filter.matchesLayout(bytes, entryStart, limit)) {
+                    continue;
+                }
+                if (!filter.matchesRecord(bytes, entryStart)) {
+                    continue;
+                }
+                long namePointer = ByteReader.readLongLE(bytes, entryStart + ClassEntry.NAME_OFFSET);
+                recorder.beginSymbolDecode();
+                byte[] nameBytes = symbols.symbolBytes(namePointer);
+                recorder.endSymbolDecode();
+                if (nameBytes == null || !filter.matchesName(nameBytes, 0, nameBytes.length)) {
+                    continue;
+                }
+                if (records != null) {
+                    if (filter.hasNameGlob() && !filter.matchesName(new String(nameBytes, StandardCharsets.UTF_8))) {
+                        continue;
+                    }
+                    recorder.classMatched();
+                    records.accept(bytes, entryStart, address + entryStart, nameBytes);
+                    continue;
+                }
+                recorder.beginParse();
+                String className = new String(nameBytes, StandardCharsets.UTF_8);
+                if (!filter.matchesName(className)) {
+                    recorder.endParse();
+                    continue;
+                }
+                InstanceClass parsed = InstanceClass.parse(bytes, entryStart);
+                parsed.setName(className);
+                parsed.setAddress(address + entryStart);
+                recorder.endParse();
+                recorder.classMatched();
+                sink.accept(parsed);
+            }
+            return to;
+        } finally {
+            recorder.candidateWords((offset - from) / 8);
+        }
+    }
+
+    /**
+     * Number of bytes the record at {@code offset} needs to be parsed, or -1 if
+     * its fixed part is not within {@code limit}.
+     */
+    static long recordSize(byte[] bytes, int offset, int limit) {
+        if (offset + InstanceClass.FIXED_SIZE > limit) {
+            return -1;
+        }
+        // InstanceClass.parse peeks at the word after the vtable for the itable terminator
+        return Math.max(InstanceClass.FIXED_SIZE, InstanceClass.recordSize(bytes, offset)) + 8;
+    }
+
+    private static boolean isComplete(byte[] bytes, int offset, int limit) {
+        long size = recordSize(bytes, offset, limit);
+        return size >= 0 && offset + size <= limit;
+    }
+}
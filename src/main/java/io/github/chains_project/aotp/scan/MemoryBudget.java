@@ -0,0 +1,83 @@
+package io.github.chains_project.aotp.scan;
+
+import java.util.Locale;
+
+/**
+ * How much memory a class scan may use for file data: a window over the RW
+ * region plus an LRU cache of pages of the file for symbol lookups. The
+ * pointer slots of {@link ClonedVtables} come out of the window. Objects
+ * handed to the caller (parsed classes, collected lists) are not counted.
+ *
+ * @param maxBytes    the budget, or {@link Long#MAX_VALUE} for an unbounded scan
+ *                    that loads the regions whole
+ * @param windowSize  bytes of the RW region held at a time
+ * @param pageSize    size of one cached symbol page
+ * @param maxPages    number of symbol pages kept
+ */
+public record MemoryBudget(long maxBytes, int windowSize, int pageSize, int maxPages) {
+
+    /** Smallest accepted budget. */
+    public static final long MIN_BYTES = 1L << 20;
+
+    static final int PAGE_SIZE = 64 * 1024;
+    // The symbol cache takes a quarter of the budget, up to this size
+    static final long MAX_SYMBOL_CACHE = 16L << 20;
+
+    private static final MemoryBudget UNBOUNDED = new MemoryBudget(Long.MAX_VALUE, 0, 0, 0);
+
+    public static MemoryBudget unbounded() {
+        return UNBOUNDED;
+    }
+
+    /**
+     * Splits {@code maxBytes} between the scan window and the symbol cache.
+     *
+     * @throws IllegalArgumentException if {@code maxBytes} is below {@link #MIN_BYTES}
+     */
+    public static MemoryBudget of(long maxBytes) {
+        if (maxBytes < MIN_BYTES) {
+            throw new IllegalArgumentException("Memory budget must be at least " + MIN_BYTES + " bytes: " + maxBytes);
+        }
+        long symbolCache = Math.min(MAX_SYMBOL_CACHE, maxBytes / 4);
+        int maxPages = (int) Math.max(2, symbolCache / PAGE_SIZE);
+        long window = Math.min(maxBytes - (long) maxPages * PAGE_SIZE, Integer.MAX_VALUE - 8);
+        return new MemoryBudget(maxBytes, (int) (window & ~7L), PAGE_SIZE, maxPages);
+    }
+
+    /**
+     * Parses a size such as {@code 64m}, {@code 512K}, {@code 2g} or a plain
+     * number of bytes.
+     */
+    public static long parseSize(String value) {
+        String trimmed = value.trim().toLowerCase(Locale.ROOT);
+        if (trimmed.endsWith("b")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        int shift = 0;
+        if (!trimmed.isEmpty()) {
+            switch (trimmed.charAt(trimmed.length() - 1)) {
+                case 'k': shift = 10; break;
+                case 'm': shift = 20; break;
+                case 'g': shift = 30; break;
+                default: break;
+            }
+        }
+        if (shift != 0) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        long number;
+        try {
+            number = Long.parseLong(trimmed);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid size: " + value, e);
+        }
+        if (number < 0 || number > (Long.MAX_VALUE >> shift)) {
+            throw new IllegalArgumentException("Invalid size: " + value);
+        }
+        return number << shift;
+    }
+
+    public boolean isBounded() {
+        return maxBytes != Long.MAX_VALUE;
+    }
+}
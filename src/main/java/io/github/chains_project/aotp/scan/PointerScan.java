@@ -0,0 +1,90 @@
+package io.github.chains_project.aotp.scan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import io.github.chains_project.aotp.archive.AotArchive;
+import io.github.chains_project.aotp.header.CDSFileMapRegion;
+import io.github.chains_project.aotp.header.FileMapHeader;
+import io.github.chains_project.aotp.utils.BitMaps;
+
+/**
+ * Enumerates the pointer slots of the rw and ro regions, in address order.
+ *
+ * If the archive has pointer maps (see
+ * {@link io.github.chains_project.aotp.analysis.RelocationEstimator}), exactly
+ * the marked words are visited. Otherwise every aligned word whose value is an
+ * aligned address inside the archive's mapping is taken for a pointer, which
+ * may include the odd integer that happens to look like one.
+ */
+public final class PointerScan {
+
+    private static final int BITMAP_REGION = 2;
+    private static final int[] METADATA_REGIONS = { 0, 1 };
+
+    private PointerScan() {}
+
+    /**
+     * Visitor for {@link #forEachPointer}.
+     */
+    @FunctionalInterface
+    public interface PointerVisitor {
+        /**
+         * @param slot  address of the pointer
+         * @param value the pointer, as stored for the requested base address
+         */
+        void visit(long slot, long value);
+    }
+
+    /**
+     * Visits every non-null pointer slot of {@code archive}; a word scan accepts
+     * values inside the archive's own mapping.
+     *
+     * @return true if the slots came from the pointer maps, false if from a word scan
+     */
+    public static boolean forEachPointer(AotArchive archive, PointerVisitor visitor) throws IOException {
+        return forEachPointer(archive, archive.requestedBaseAddress(), archive.mappedEnd(), visitor);
+    }
+
+    /**
+     * Like {@link #forEachPointer(AotArchive, PointerVisitor)}; a word scan accepts
+     * values in {@code [low, high)}, e.g. from the base archive up to the end of
+     * a dynamic archive.
+     */
+    public static boolean forEachPointer(AotArchive archive, long low, long high, PointerVisitor visitor)
+            throws IOException {
+        CDSFileMapRegion[] regions = archive.regions();
+        FileMapHeader header = archive.fileMapHeader();
+        long[] startPositions = { header.rwPtrmapStartPos(), header.roPtrmapStartPos() };
+        boolean guided = regions[BITMAP_REGION].used() > 0
+                && regions[0].ptrmapSizeInBits() + regions[1].ptrmapSizeInBits() > 0;
+        ByteBuffer bitmap = guided ? archive.mapRegion(BITMAP_REGION) : null;
+
+        for (int index : METADATA_REGIONS) {
+            ByteBuffer data = archive.mapRegion(index);
+            long start = archive.regionStart(index);
+            int words = data.limit() / Long.BYTES;
+            if (guided) {
+                CDSFileMapRegion region = regions[index];
+                long startPos = startPositions[index];
+                BitMaps.forEachOne(bitmap, region.ptrmapOffset(), 0, region.ptrmapSizeInBits(), bit -> {
+                    long word = startPos + bit;
+                    if (word < words) {
+                        long value = data.getLong((int) (word * Long.BYTES));
+                        if (value != 0) {
+                            visitor.visit(start + word * Long.BYTES, value);
+                        }
+                    }
+                });
+            } else {
+                for (int word = 0; word < words; word++) {
+                    long value = data.getLong(word * Long.BYTES);
+                    if ((value & (Long.BYTES - 1)) == 0 && value >= low && value < high) {
+                        visitor.visit(start + (long) word * Long.BYTES, value);
+                    }
+                }
+            }
+        }
+        return guided;
+    }
+}
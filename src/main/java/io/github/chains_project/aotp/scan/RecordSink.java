@@ -0,0 +1,18 @@
+package io.github.chains_project.aotp.scan;
+
+/**
+ * Receives the raw klass records accepted by a {@link KlassScanner}, for
+ * consumers that read the fields they need straight from the bytes instead of
+ * parsing a {@code ClassEntry}.
+ */
+@FunctionalInterface
+public interface RecordSink {
+
+    /**
+     * @param bytes   buffer holding the record; only valid during the call
+     * @param offset  offset of the record in {@code bytes}
+     * @param address mapped address of the record
+     * @param name    UTF-8 body of the name symbol
+     */
+    void accept(byte[] bytes, int offset, long address, byte[] name);
+}
@@ -0,0 +1,69 @@
+package io.github.chains_project.aotp.scan;
+
+import java.io.IOException;
+
+import io.github.chains_project.aotp.archive.FileMapping;
+import io.github.chains_project.aotp.metrics.Phase;
+import io.github.chains_project.aotp.metrics.PhaseTimer;
+import io.github.chains_project.aotp.oops.klass.InstanceClass;
+
+/**
+ * Runs a {@link KlassScanner} over one chunk of a region, for estimates that
+ * scan a sample of the region instead of all of it.
+ *
+ * A record belongs to the chunk its first word is in. The scan reads the
+ * chunk and as many bytes after it again, so that the records starting near
+ * its end can be parsed; a record that is longer still is read on its own.
+ * Records that start in the previous chunk are not seen.
+ */
+public final class SampledScan {
+
+    private static final int TAIL = 8;
+
+    private SampledScan() {}
+
+    /**
+     * Scans the words at {@code [offset, offset + length)} of {@code region},
+     * which is mapped at {@code address}.
+     */
+    public static void scanChunk(FileMapping region, long address, long offset, int length, KlassScanner scanner)
+            throws IOException {
+        long size = region.size();
+        int scanEnd = (int) Math.min(length, size - offset) & ~7;
+        if (scanEnd <= 0) {
+            return;
+        }
+        int slack = Math.max(length, InstanceClass.FIXED_SIZE + 8);
+        int available = (int) Math.min((long) length + slack, size - offset);
+        boolean last = offset + available >= size;
+        byte[] bytes = read(region, offset, available);
+        int position = 0;
+        while (position < scanEnd) {
+            int stopped = scanner.scan(bytes, address + offset, position, scanEnd, available, !last);
+            if (stopped >= scanEnd) {
+                return;
+            }
+            // The record at stopped runs past what was read
+            long recordOffset = offset + stopped;
+            byte[] fixed = read(region, recordOffset, (int) Math.min(InstanceClass.FIXED_SIZE + 8, size - recordOffset));
+            long recordSize = KlassScanner.recordSize(fixed, 0, fixed.length - TAIL);
+            int recordLength = (int) Math.min(size - recordOffset, Math.max(recordSize, fixed.length - TAIL));
+            byte[] record = read(region, recordOffset, recordLength);
+            scanner.scan(record, address + recordOffset, 0, 8, recordLength, false);
+            position = stopped + 8;
+        }
+    }
+
+    /**
+     * Reads {@code length} bytes at {@code offset} into an array with a zeroed
+     * word after them.
+     */
+    private static byte[] read(FileMapping region, long offset, int length) throws IOException {
+        try (PhaseTimer timer = PhaseTimer.start(Phase.REGION_LOAD, null)) {
+            byte[] bytes = new byte[length + TAIL];
+            region.get(offset, bytes, 0, length);
+            timer.addBytesRead(length);
+            return bytes;
+        }
+    }
+}
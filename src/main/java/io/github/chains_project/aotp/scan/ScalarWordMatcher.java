@@ -0,0 +1,28 @@
+package io.github.chains_project.aotp.scan;
+
+import io.github.chains_project.aotp.utils.ByteReader;
+
+/**
+ * Compares one word at a time against each value.
+ */
+final class ScalarWordMatcher implements WordMatcher {
+
+    private final long[] values;
+
+    ScalarWordMatcher(long[] values) {
+        this.values = values.clone();
+    }
+
+    @Override
+    public int next(byte[] bytes, int from, int to) {
+        for (int offset = from; offset + 8 <= to; offset += 8) {
+            long word = ByteReader.readLongLE(bytes, offset);
+            for (long value : values) {
+                if (word == value) {
+                    return offset;
+                }
+            }
+        }
+        return to;
+    }
+}
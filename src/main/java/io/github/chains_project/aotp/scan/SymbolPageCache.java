@@ -0,0 +1,162 @@
+package io.github.chains_project.aotp.scan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import io.github.chains_project.aotp.header.CDSFileMapRegion;
+import io.github.chains_project.aotp.metrics.AotpMetrics;
+
+/**
+ * {@link SymbolSource} backed by a bounded LRU cache of fixed-size pages of the
+ * file. Symbols of neighbouring classes are usually close to each other in the
+ * RO region, so a handful of pages serves most lookups; a symbol that spans
+ * two pages is assembled from both.
+ *
+ * Symbol addresses are translated to file offsets through the rw and ro
+ * region of the region table, or, without one, by subtracting the requested
+ * base address.
+ */
+public final class SymbolPageCache implements SymbolSource {
+
+    // hash_and_refcount (u4) followed by length (u2)
+    private static final int SYMBOL_HEADER_SIZE = 6;
+
+    private final FileChannel channel;
+    private final long requestedBaseAddress;
+    // rw and ro; null if addresses map to file offsets directly
+    private final CDSFileMapRegion[] regions;
+    private final long fileLength;
+    private final int pageSize;
+    private final int maxPages;
+    private final LinkedHashMap<Long, byte[]> pages = new LinkedHashMap<>(16, 0.75f, true);
+    private final byte[] header = new byte[SYMBOL_HEADER_SIZE];
+
+    // Most lookups hit the page of the previous one; skip the map for those
+    private long lastIndex = -1;
+    private byte[] lastPage;
+
+    private long hits;
+    private long misses;
+
+    public SymbolPageCache(FileChannel channel, long requestedBaseAddress, int pageSize, int maxPages)
+            throws IOException {
+        this(channel, requestedBaseAddress, null, pageSize, maxPages);
+    }
+
+    /**
+     * A cache that finds symbols in the rw and ro region of {@code regions},
+     * wherever the regions are in the file.
+     */
+    public SymbolPageCache(FileChannel channel, long requestedBaseAddress, CDSFileMapRegion[] regions, int pageSize,
+                           int maxPages) throws IOException {
+        if (maxPages < 2) {
+            throw new IllegalArgumentException("A symbol can span two pages, need at least 2: " + maxPages);
+        }
+        this.channel = channel;
+        this.requestedBaseAddress = requestedBaseAddress;
+        this.regions = regions;
+        this.fileLength = channel.size();
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+    }
+
+    @Override
+    public byte[] symbolBytes(long address) throws IOException {
+        long offset = fileOffset(address);
+        if (offset < 0 || offset + SYMBOL_HEADER_SIZE > fileLength) {
+            return null;
+        }
+        copy(offset, header, SYMBOL_HEADER_SIZE);
+        int length = (header[4] & 0xFF) | (header[5] & 0xFF) << 8;
+        if (offset + SYMBOL_HEADER_SIZE + length > fileLength) {
+            return null;
+        }
+        byte[] body = new byte[length];
+        copy(offset + SYMBOL_HEADER_SIZE, body, length);
+        return body;
+    }
+
+    /**
+     * File offset of the byte at {@code address}, or -1 if it is in neither
+     * metadata region.
+     */
+    private long fileOffset(long address) {
+        long offset = address - requestedBaseAddress;
+        if (regions == null) {
+            return offset;
+        }
+        for (int index = 0; index < 2; index++) {
+            CDSFileMapRegion region = regions[index];
+            long inRegion = offset - region.mappingOffset();
+            if (inRegion >= 0 && inRegion < region.used()) {
+                return region.fileOffset() + inRegion;
+            }
+        }
+        return -1;
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    private void copy(long offset, byte[] dest, int length) throws IOException {
+        int copied = 0;
+        while (copied < length) {
+            long position = offset + copied;
+            byte[] page = page(position / pageSize);
+            int inPage = (int) (position % pageSize);
+            int n = Math.min(length - copied, pageSize - inPage);
+            System.arraycopy(page, inPage, dest, copied, n);
+            copied += n;
+        }
+    }
+
+    private byte[] page(long index) throws IOException {
+        if (index == lastIndex) {
+            hits++;
+            return lastPage;
+        }
+        byte[] page = pages.get(index);
+        if (page != null) {
+            hits++;
+        } else {
+            misses++;
+            page = pages.size() >= maxPages ? evictEldest() : new byte[pageSize];
+            load(index, page);
+            pages.put(index, page);
+        }
+        lastIndex = index;
+        lastPage = page;
+        return page;
+    }
+
+    private byte[] evictEldest() {
+        Iterator<Map.Entry<Long, byte[]>> eldest = pages.entrySet().iterator();
+        byte[] page = eldest.next().getValue();
+        eldest.remove();
+        return page;
+    }
+
+    private void load(long index, byte[] page) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(page);
+        long position = index * pageSize;
+        long calls = 0;
+        while (buffer.hasRemaining()) {
+            calls++;
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+        AotpMetrics.countRead(buffer.position(), calls);
+        Arrays.fill(page, buffer.position(), page.length, (byte) 0);
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.chains_project.aotp.scan;
+
+import java.io.IOException;
+
+/**
+ * Resolves the name symbol of a klass record.
+ */
+@FunctionalInterface
+public interface SymbolSource {
+
+    /**
+     * Returns the raw UTF-8 body of the symbol at the given absolute address,
+     * or null if the address does not point into the file.
+     * Symbol format: hash_and_refcount (4 bytes), length (2 bytes), body[length] (UTF-8)
+     */
+    byte[] symbolBytes(long address) throws IOException;
+}
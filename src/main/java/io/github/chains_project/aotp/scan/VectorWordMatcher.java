@@ -0,0 +1,61 @@
+package io.github.chains_project.aotp.scan;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Compares a vector of words at a time: the bytes are loaded as a
+ * {@link ByteVector} of the preferred shape and reinterpreted as
+ * {@link LongVector} lanes (little-endian, like the archive), each value is
+ * compared against all lanes at once, and the first set lane of the combined
+ * mask is the match. The words after the last full vector are compared one
+ * by one.
+ *
+ * Only loaded when {@link WordMatcher.VectorSupport#AVAILABLE} says so.
+ */
+final class VectorWordMatcher implements WordMatcher {
+
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+
+    private final LongVector[] values;
+    private final ScalarWordMatcher tail;
+
+    private VectorWordMatcher(long[] values) {
+        this.values = new LongVector[values.length];
+        for (int i = 0; i < values.length; i++) {
+            this.values[i] = LongVector.broadcast(LONGS, values[i]);
+        }
+        this.tail = new ScalarWordMatcher(values);
+    }
+
+    /**
+     * A vector matcher, or null if a vector holds fewer than two words and
+     * would not beat the scalar loop.
+     */
+    static VectorWordMatcher create(long[] values) {
+        if (LONGS.length() < 2 || BYTES.vectorByteSize() != LONGS.vectorByteSize() || values.length == 0) {
+            return null;
+        }
+        return new VectorWordMatcher(values);
+    }
+
+    @Override
+    public int next(byte[] bytes, int from, int to) {
+        int step = BYTES.vectorByteSize();
+        int offset = from;
+        for (; offset + step <= to; offset += step) {
+            LongVector words = ByteVector.fromArray(BYTES, bytes, offset).reinterpretAsLongs();
+            VectorMask<Long> matches = words.eq(values[0]);
+            for (int i = 1; i < values.length; i++) {
+                matches = matches.or(words.eq(values[i]));
+            }
+            if (matches.anyTrue()) {
+                return offset + 8 * matches.firstTrue();
+            }
+        }
+        return tail.next(bytes, offset, to);
+    }
+}
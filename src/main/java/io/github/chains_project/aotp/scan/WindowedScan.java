@@ -0,0 +1,120 @@
+package io.github.chains_project.aotp.scan;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import io.github.chains_project.aotp.archive.FileMapping;
+import io.github.chains_project.aotp.metrics.Phase;
+import io.github.chains_project.aotp.metrics.PhaseTimer;
+
+/**
+ * Runs a {@link KlassScanner} over a region of the file through one reused
+ * buffer of {@link MemoryBudget#windowSize()} bytes, so that memory use does
+ * not depend on the size of the region.
+ *
+ * A record that is cut off by the end of a window is not parsed in that
+ * window; the next window starts at the record instead. Only a record larger
+ * than a whole window gets a buffer of its own.
+ *
+ * The windows are read from the file channel, or copied from a
+ * {@link FileMapping} of the region, which is advised to be read
+ * sequentially.
+ */
+public final class WindowedScan {
+
+    private static final int TAIL = 8;
+
+    private WindowedScan() {}
+
+    /**
+     * Where the windows come from.
+     */
+    @FunctionalInterface
+    private interface Source {
+        /**
+         * Reads up to {@code length} bytes at {@code position} into {@code dest}
+         * and returns how many it read.
+         */
+        int read(long position, byte[] dest, int length) throws IOException;
+    }
+
+    /**
+     * Scans {@code length} bytes of the file starting at {@code start}, which is
+     * mapped at {@code address}.
+     */
+    public static void scan(FileChannel channel, long start, long address, long length, int windowSize,
+                            KlassScanner scanner) throws IOException {
+        scan((position, dest, count) -> read(channel, position, dest, count), start, address, length, windowSize,
+                scanner);
+    }
+
+    /**
+     * Scans all of {@code mapping}, which is mapped at {@code address}.
+     */
+    public static void scan(FileMapping mapping, long address, int windowSize, KlassScanner scanner)
+            throws IOException {
+        mapping.adviseSequential();
+        long size = mapping.size();
+        scan((position, dest, count) -> {
+            // Ask for the next window while this one is scanned
+            mapping.adviseWillNeed(position + count, count);
+            return read(mapping, position, dest, (int) Math.min(count, size - position));
+        }, 0, address, size, windowSize, scanner);
+    }
+
+    private static void scan(Source source, long start, long address, long length, int windowSize,
+                             KlassScanner scanner) throws IOException {
+        // Keep a zeroed word after the data so the last record of the region can be parsed
+        int capacity = (int) Math.min(windowSize - TAIL, (length + 7) & ~7L);
+        byte[] window = new byte[capacity + TAIL];
+        long end = start + length;
+        long position = start;
+        while (position < end) {
+            int available = source.read(position, window, (int) Math.min(capacity, end - position));
+            if (available < 8) {
+                return;
+            }
+            boolean last = position + available >= end;
+            long windowAddress = address + (position - start);
+            int scanned = scanner.scan(window, windowAddress, 0, available & ~7, available, !last);
+            if (scanned > 0) {
+                position += scanned;
+                continue;
+            }
+            // The record at the start of the window does not fit in it
+            long size = KlassScanner.recordSize(window, 0, available);
+            int recordLength = (int) Math.min(end - position, Math.max(size, available));
+            byte[] record = new byte[recordLength + TAIL];
+            int recordAvailable = source.read(position, record, recordLength);
+            scanner.scan(record, windowAddress, 0, 8, recordAvailable, false);
+            position += 8;
+        }
+    }
+
+    private static int read(FileMapping mapping, long position, byte[] dest, int length) throws IOException {
+        try (PhaseTimer timer = PhaseTimer.start(Phase.REGION_LOAD, null)) {
+            mapping.get(position, dest, 0, length);
+            Arrays.fill(dest, length, dest.length, (byte) 0);
+            timer.addBytesRead(length);
+            return length;
+        }
+    }
+
+    private static int read(FileChannel channel, long position, byte[] dest, int length) throws IOException {
+        try (PhaseTimer timer = PhaseTimer.start(Phase.REGION_LOAD, null)) {
+            ByteBuffer buffer = ByteBuffer.wrap(dest, 0, length);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            int read = buffer.position();
+            // Stale bytes of the previous window must not look like record fields
+            Arrays.fill(dest, read, dest.length, (byte) 0);
+            timer.addBytesRead(read);
+            return read;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.chains_project.aotp.scan;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.ByteOrder;
+
+/**
+ * Finds the next little-endian word in a byte array that equals one of a few
+ * values, the inner loop of a word scan for klass vtables.
+ *
+ * {@link #of} picks {@link VectorWordMatcher} when the incubating
+ * {@code jdk.incubator.vector} module is in the boot layer (run with
+ * {@code --add-modules jdk.incubator.vector}), the platform is little-endian
+ * and vectors hold at least two words; otherwise {@link ScalarWordMatcher}.
+ * Setting the system property {@value #SCALAR_PROPERTY} to {@code true} forces
+ * the scalar matcher. See {@code WordMatcherBenchmark} in the tests for how the
+ * two compare.
+ *
+ * The vector matcher is the only class compiled against the incubator module
+ * and is looked up by name, so the rest of the scan neither needs the module
+ * to compile nor loads it at run time.
+ */
+interface WordMatcher {
+
+    String SCALAR_PROPERTY = "aotp.scan.scalar";
+
+    /**
+     * Offset of the first word at {@code from + 8 * i}, {@code i >= 0}, that
+     * ends at or before {@code to} and equals one of the values; {@code to} if
+     * there is none.
+     */
+    int next(byte[] bytes, int from, int to);
+
+    static WordMatcher of(long[] values) {
+        if (VectorSupport.AVAILABLE) {
+            WordMatcher vector = VectorSupport.create(values);
+            if (vector != null) {
+                return vector;
+            }
+        }
+        return new ScalarWordMatcher(values);
+    }
+
+    /**
+     * Whether the vector matcher may be used, decided once.
+     */
+    final class VectorSupport {
+
+        private static final MethodHandle FACTORY = factory();
+
+        static final boolean AVAILABLE = FACTORY != null && create(new long[] { 0 }) != null;
+
+        private VectorSupport() {}
+
+        /**
+         * A {@link VectorWordMatcher} over the values, or null if it cannot be
+         * loaded or would not beat the scalar loop; ignores {@link #SCALAR_PROPERTY}.
+         */
+        static WordMatcher create(long[] values) {
+            if (FACTORY == null) {
+                return null;
+            }
+            try {
+                return (WordMatcher) FACTORY.invokeExact(values);
+            } catch (LinkageError e) {
+                // The module is there but not the API this was compiled against
+                return null;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static MethodHandle factory() {
+            if (Boolean.getBoolean(SCALAR_PROPERTY)
+                    || ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN
+                    || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+                return null;
+            }
+            try {
+                Class<?> type = Class.forName(WordMatcher.class.getPackageName() + ".VectorWordMatcher");
+                return MethodHandles.lookup()
+                        .findStatic(type, "create", MethodType.methodType(type, long[].class))
+                        .asType(MethodType.methodType(WordMatcher.class, long[].class));
+            } catch (ReflectiveOperationException | LinkageError e) {
+                return null;
+            }
+        }
+    }
+}
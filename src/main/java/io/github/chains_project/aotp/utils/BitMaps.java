@@ -0,0 +1,80 @@
+package io.github.chains_project.aotp.utils;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.LongConsumer;
+
+/**
+ * Counting over HotSpot {@code BitMap}s stored in a buffer: little-endian
+ * 64-bit words, bit {@code i} in word {@code i / 64} at position {@code i % 64}.
+ * Whole words are counted with {@link Long#bitCount}, only the two boundary
+ * words of a range are masked.
+ */
+public final class BitMaps {
+
+    private BitMaps() {}
+
+    /**
+     * Number of set bits in {@code [fromBit, toBit)} of the bitmap that starts at
+     * byte {@code offset} of {@code buffer}. Bits past the end of the buffer
+     * count as clear.
+     */
+    public static long countOnes(ByteBuffer buffer, long offset, long fromBit, long toBit) {
+        if (fromBit >= toBit) {
+            return 0;
+        }
+        long firstWord = fromBit >>> 6;
+        long lastWord = (toBit - 1) >>> 6;
+        long headMask = -1L << (fromBit & 63);
+        long tailMask = -1L >>> (63 - ((toBit - 1) & 63));
+        if (firstWord == lastWord) {
+            return Long.bitCount(word(buffer, offset, firstWord) & headMask & tailMask);
+        }
+        long count = Long.bitCount(word(buffer, offset, firstWord) & headMask);
+        for (long w = firstWord + 1; w < lastWord; w++) {
+            count += Long.bitCount(word(buffer, offset, w));
+        }
+        return count + Long.bitCount(word(buffer, offset, lastWord) & tailMask);
+    }
+
+    /**
+     * Invokes {@code action} with the index of every set bit in
+     * {@code [fromBit, toBit)}, in ascending order.
+     */
+    public static void forEachOne(ByteBuffer buffer, long offset, long fromBit, long toBit, LongConsumer action) {
+        if (fromBit >= toBit) {
+            return;
+        }
+        long firstWord = fromBit >>> 6;
+        long lastWord = (toBit - 1) >>> 6;
+        for (long w = firstWord; w <= lastWord; w++) {
+            long bits = word(buffer, offset, w);
+            if (w == firstWord) {
+                bits &= -1L << (fromBit & 63);
+            }
+            if (w == lastWord) {
+                bits &= -1L >>> (63 - ((toBit - 1) & 63));
+            }
+            while (bits != 0) {
+                action.accept((w << 6) + Long.numberOfTrailingZeros(bits));
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    private static long word(ByteBuffer buffer, long offset, long index) {
+        long position = offset + index * Long.BYTES;
+        if (position < 0 || position >= buffer.limit()) {
+            return 0;
+        }
+        if (position + Long.BYTES <= buffer.limit()) {
+            return buffer.order(ByteOrder.LITTLE_ENDIAN).getLong((int) position);
+        }
+        // Trailing partial word
+        long value = 0;
+        for (int i = 0; position + i < buffer.limit(); i++) {
+            value |= (buffer.get((int) position + i) & 0xFFL) << (8 * i);
+        }
+        return value;
+    }
+}
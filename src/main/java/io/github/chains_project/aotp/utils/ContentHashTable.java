@@ -0,0 +1,108 @@
+package io.github.chains_project.aotp.utils;
+
+/**
+ * Open-addressing hash table keyed by a 64-bit content hash. For each key it
+ * keeps the set of sources (at most {@link #MAX_SOURCES}, as a bit mask) the
+ * content was seen in, its size and the number of copies. Like
+ * {@link LongCounterMap}, entries live in parallel primitive arrays, so adding
+ * a known key never allocates.
+ */
+public final class ContentHashTable {
+
+    public static final int MAX_SOURCES = 64;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] keys;
+    private long[] sources;
+    private int[] sizes;
+    private int[] copies;
+    private boolean[] used;
+    private int size;
+
+    public ContentHashTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Visitor for {@link #forEach}.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        /**
+         * @param sources bit {@code i} is set if source {@code i} has the content
+         */
+        void visit(long hash, long sources, int size, int copies);
+    }
+
+    /**
+     * Records one copy of the content with the given hash in {@code source}.
+     */
+    public void add(long hash, int source, int contentSize) {
+        if (source < 0 || source >= MAX_SOURCES) {
+            throw new IllegalArgumentException("Source index out of range: " + source);
+        }
+        int slot = slotOf(hash);
+        if (!used[slot]) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+                slot = slotOf(hash);
+            }
+            used[slot] = true;
+            keys[slot] = hash;
+            sizes[slot] = contentSize;
+            size++;
+        }
+        sources[slot] |= 1L << source;
+        copies[slot]++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryVisitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                visitor.visit(keys[i], sources[i], sizes[i], copies[i]);
+            }
+        }
+    }
+
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        // Keys are already hashes; fold the high half in for the low bits
+        int slot = (int) (key ^ (key >>> 32)) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        sources = new long[capacity];
+        sizes = new int[capacity];
+        copies = new int[capacity];
+        used = new boolean[capacity];
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldSources = sources;
+        int[] oldSizes = sizes;
+        int[] oldCopies = copies;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotOf(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                sources[slot] = oldSources[i];
+                sizes[slot] = oldSizes[i];
+                copies[slot] = oldCopies[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.chains_project.aotp.utils;
+
+/**
+ * Combines two CRC-32 values computed over adjacent byte ranges, so that
+ * checksums of independently processed chunks can be merged into the checksum
+ * of the whole range.
+ *
+ * This is a port of zlib's {@code crc32_combine}, which {@link java.util.zip.CRC32}
+ * does not expose. It runs in O(log len2) 32x32 GF(2) matrix operations.
+ * https://github.com/madler/zlib/blob/v1.3.1/crc32.c
+ */
+public final class Crc32Combine {
+
+    // Reversed CRC-32 polynomial, same as the one used by java.util.zip.CRC32
+    private static final int POLYNOMIAL = 0xedb88320;
+
+    private Crc32Combine() {}
+
+    /**
+     * Returns the CRC-32 of {@code A || B}, given {@code crc1 = crc(A)},
+     * {@code crc2 = crc(B)} and {@code len2 = B.length}.
+     */
+    public static int combine(int crc1, int crc2, long len2) {
+        if (len2 <= 0) {
+            return crc1;
+        }
+
+        int[] even = new int[32]; // even-power-of-two zeros operator
+        int[] odd = new int[32];  // odd-power-of-two zeros operator
+
+        // operator for one zero bit in odd
+        odd[0] = POLYNOMIAL;
+        int row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+
+        // operator for two zero bits in even, then four zero bits in odd
+        square(even, odd);
+        square(odd, even);
+
+        // apply len2 zeros to crc1 (first square puts the operator for one
+        // zero byte, eight zero bits, in even)
+        int crc = crc1;
+        do {
+            square(even, odd);
+            if ((len2 & 1) != 0) {
+                crc = times(even, crc);
+            }
+            len2 >>>= 1;
+            if (len2 == 0) {
+                break;
+            }
+            square(odd, even);
+            if ((len2 & 1) != 0) {
+                crc = times(odd, crc);
+            }
+            len2 >>>= 1;
+        } while (len2 != 0);
+
+        return crc ^ crc2;
+    }
+
+    private static int times(int[] mat, int vec) {
+        int sum = 0;
+        int i = 0;
+        while (vec != 0) {
+            if ((vec & 1) != 0) {
+                sum ^= mat[i];
+            }
+            vec >>>= 1;
+            i++;
+        }
+        return sum;
+    }
+
+    private static void square(int[] square, int[] mat) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = times(mat, mat[n]);
+        }
+    }
+}
@@ -6,16 +6,24 @@ import java.io.RandomAccessFile;
 /**
  * Minimal little-endian wrapper around {@link RandomAccessFile}
  * This helps with seeking to absolute positions in the file.
+ *
+ * It also counts the I/O it issues (read calls, bytes read and seeks) so that
+ * callers can attribute I/O to phases, see {@code metrics.PhaseTimer}.
  */
 public class LittleEndianRandomAccessFile {
 
     private final RandomAccessFile raf;
+    private long readCalls;
+    private long bytesRead;
+    private long seeks;
 
     public LittleEndianRandomAccessFile(RandomAccessFile raf) {
         this.raf = raf;
     }
 
     public int readInt() throws IOException {
+        readCalls += 4;
+        bytesRead += 4;
         int ch1 = raf.read();
         int ch2 = raf.read();
         int ch3 = raf.read();
@@ -30,6 +38,8 @@ public class LittleEndianRandomAccessFile {
     }
 
     public long readLong() throws IOException {
+        readCalls += 8;
+        bytesRead += 8;
         long b1 = raf.read();
         long b2 = raf.read();
         long b3 = raf.read();
@@ -52,6 +62,8 @@ public class LittleEndianRandomAccessFile {
     }
 
     public short readShort() throws IOException {
+        readCalls += 2;
+        bytesRead += 2;
         int ch1 = raf.read();
         int ch2 = raf.read();
         if ((ch1 | ch2) < 0) {
@@ -61,6 +73,8 @@ public class LittleEndianRandomAccessFile {
     }
 
     public boolean readBoolean() throws IOException {
+        readCalls++;
+        bytesRead++;
         int ch = raf.read();
         if (ch < 0) {
             return false;
@@ -73,16 +87,23 @@ public class LittleEndianRandomAccessFile {
         int len = b.length;
         while (len > 0) {
             int count = raf.read(b, off, len);
+            readCalls++;
             if (count < 0) {
                 return;
             }
+            bytesRead += count;
             off += count;
             len -= count;
         }
     }
 
     public int read(byte[] b) throws IOException {
-        return raf.read(b);
+        int count = raf.read(b);
+        readCalls++;
+        if (count > 0) {
+            bytesRead += count;
+        }
+        return count;
     }
 
     public void skipBytes(int n) throws IOException {
@@ -90,10 +111,11 @@ public class LittleEndianRandomAccessFile {
             return;
         }
         long newPos = raf.getFilePointer() + n;
-        raf.seek(newPos);
+        seek(newPos);
     }
 
     public void seek(long pos) throws IOException {
+        seeks++;
         raf.seek(pos);
     }
 
@@ -105,6 +127,21 @@ public class LittleEndianRandomAccessFile {
         return raf.length();
     }
 
+    /**
+     * Number of read calls issued to the underlying file so far.
+     */
+    public long readCalls() {
+        return readCalls;
+    }
+
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+    public long seeks() {
+        return seeks;
+    }
+
     public void close() throws IOException {
         raf.close();
     }
@@ -0,0 +1,159 @@
+package io.github.chains_project.aotp.utils;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from a {@code long} key to a pair of {@code long}
+ * counters (an occurrence count and a byte total). Keys and counters live in
+ * parallel primitive arrays, so adding to an existing key never allocates.
+ */
+public final class LongCounterMap {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Largest limit for which topKeysByBytes selects row by row instead of sorting
+    static final int MAX_SELECTED = 16;
+
+    private long[] keys;
+    private long[] counts;
+    private long[] bytes;
+    private boolean[] used;
+    private int size;
+
+    public LongCounterMap() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Visitor for {@link #forEach}.
+     */
+    @FunctionalInterface
+    public interface EntryVisitor {
+        void visit(long key, long count, long bytes);
+    }
+
+    public void add(long key, long count, long byteCount) {
+        int slot = slotOf(key);
+        if (!used[slot]) {
+            if ((size + 1) * 2 > keys.length) {
+                rehash(keys.length * 2);
+                slot = slotOf(key);
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+        }
+        counts[slot] += count;
+        bytes[slot] += byteCount;
+    }
+
+    public long count(long key) {
+        int slot = slotOf(key);
+        return used[slot] ? counts[slot] : 0;
+    }
+
+    public long bytes(long key) {
+        int slot = slotOf(key);
+        return used[slot] ? bytes[slot] : 0;
+    }
+
+    public boolean contains(long key) {
+        return used[slotOf(key)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(EntryVisitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                visitor.visit(keys[i], counts[i], bytes[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys sorted by descending byte total, at most {@code limit} of them.
+     * Keys with equal totals keep the order of their slots.
+     */
+    public long[] topKeysByBytes(int limit) {
+        int resultSize = Math.max(0, Math.min(limit, size));
+        if (resultSize > MAX_SELECTED) {
+            return sortedKeysByBytes(resultSize);
+        }
+        // Partial selection: the number of distinct keys is small compared to the
+        // number of updates, and limit is a handful of rows.
+        long[] result = new long[resultSize];
+        boolean[] taken = new boolean[keys.length];
+        for (int r = 0; r < resultSize; r++) {
+            int best = -1;
+            for (int i = 0; i < keys.length; i++) {
+                if (used[i] && !taken[i] && (best < 0 || bytes[i] > bytes[best])) {
+                    best = i;
+                }
+            }
+            taken[best] = true;
+            result[r] = keys[best];
+        }
+        return result;
+    }
+
+    /**
+     * Sorts all slots once, for limits where repeated selection would be quadratic.
+     */
+    private long[] sortedKeysByBytes(int resultSize) {
+        Integer[] slots = new Integer[size];
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                slots[n++] = i;
+            }
+        }
+        // Stable, so equal totals stay in slot order as with the selection
+        Arrays.sort(slots, (a, b) -> Long.compare(bytes[b], bytes[a]));
+        long[] result = new long[resultSize];
+        for (int r = 0; r < resultSize; r++) {
+            result[r] = keys[slots[r]];
+        }
+        return result;
+    }
+
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        counts = new long[capacity];
+        bytes = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldBytes = bytes;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotOf(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                bytes[slot] = oldBytes[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.chains_project.aotp.utils;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash set of {@code long} values, kept in primitive arrays so
+ * that neither adding nor looking up a value allocates.
+ */
+public final class LongHashSet {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] keys;
+    private boolean[] used;
+    private int size;
+
+    public LongHashSet() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Adds {@code key} and returns true if it was not in the set yet.
+     */
+    public boolean add(long key) {
+        int slot = slotOf(key);
+        if (used[slot]) {
+            return false;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+            slot = slotOf(key);
+        }
+        used[slot] = true;
+        keys[slot] = key;
+        size++;
+        return true;
+    }
+
+    public boolean contains(long key) {
+        return used[slotOf(key)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                action.accept(keys[i]);
+            }
+        }
+    }
+
+    private int slotOf(long key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = slotOf(oldKeys[i]);
+                used[slot] = true;
+                keys[slot] = oldKeys[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.chains_project.aotp.verify;
+
+/**
+ * Outcome of checking one CRC stored in the archive against the bytes on disk.
+ *
+ * @param name      "header" or the region name (rw, ro, bm, hp, ac)
+ * @param index     region index, or -1 for the header
+ * @param expected  CRC recorded in the archive
+ * @param actual    CRC computed over the file contents
+ * @param length    number of bytes covered by the CRC
+ * @param truncated true if the file ends before the checked range does
+ */
+public record CrcCheck(String name, int index, int expected, int actual, long length, boolean truncated) {
+
+    public boolean matches() {
+        return !truncated && expected == actual;
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.chains_project.aotp.verify;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+
+import io.github.chains_project.aotp.header.CDSFileMapRegion;
+import io.github.chains_project.aotp.header.GenericHeader;
+import io.github.chains_project.aotp.utils.Crc32Combine;
+
+/**
+ * Recomputes the CRCs that HotSpot stores in the archive header and compares
+ * them with the recorded values.
+ *
+ * The header CRC covers everything after the {@code _crc} field up to
+ * {@code header_size}; each region CRC covers {@code used} bytes starting at
+ * the region's {@code file_offset}.
+ * https://github.com/openjdk/jdk/blob/f4607ed0a7ea2504c1d72dd3dab0b21e583fa0e7/src/hotspot/share/cds/filemap.cpp
+ *
+ * Regions are split into fixed-size chunks that are memory-mapped and
+ * checksummed in parallel on the common fork-join pool; the chunk CRCs of a
+ * region are then merged with {@link Crc32Combine}.
+ */
+public final class CrcVerifier {
+
+    // Offset of the first byte covered by the header CRC (right after _magic and _crc)
+    private static final int HEADER_CRC_START = 8;
+
+    static final long CHUNK_SIZE = 16L * 1024 * 1024;
+
+    private CrcVerifier() {}
+
+    private record Chunk(int region, long position, long length) {}
+
+    public static VerificationReport verify(FileChannel channel,
+                                            GenericHeader genericHeader,
+                                            CDSFileMapRegion[] regions) throws IOException {
+        long fileLength = channel.size();
+        List<CrcCheck> checks = new ArrayList<>();
+        checks.add(verifyHeader(channel, genericHeader, fileLength));
+
+        List<Chunk> chunks = new ArrayList<>();
+        for (int i = 0; i < regions.length; i++) {
+            long start = regions[i].fileOffset();
+            if (start < 0) {
+                continue;
+            }
+            long end = Math.min(start + regions[i].used(), fileLength);
+            for (long pos = start; pos < end; pos += CHUNK_SIZE) {
+                chunks.add(new Chunk(i, pos, Math.min(CHUNK_SIZE, end - pos)));
+            }
+        }
+
+        int[] chunkCrcs = new int[chunks.size()];
+        try {
+            IntStream.range(0, chunks.size()).parallel().forEach(i -> {
+                Chunk chunk = chunks.get(i);
+                chunkCrcs[i] = crcOfRange(channel, chunk.position(), chunk.length());
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        int next = 0;
+        for (int i = 0; i < regions.length; i++) {
+            CDSFileMapRegion region = regions[i];
+            if (region.used() == 0) {
+                // HotSpot does not checksum empty regions
+                continue;
+            }
+            int crc = 0;
+            long covered = 0;
+            while (next < chunks.size() && chunks.get(next).region() == i) {
+                Chunk chunk = chunks.get(next);
+                crc = Crc32Combine.combine(crc, chunkCrcs[next], chunk.length());
+                covered += chunk.length();
+                next++;
+            }
+            boolean truncated = region.fileOffset() < 0 || covered < region.used();
+            checks.add(new CrcCheck(CDSFileMapRegion.regionName(i), i, region.crc(), crc, region.used(), truncated));
+        }
+
+        return new VerificationReport(checks);
+    }
+
+    private static CrcCheck verifyHeader(FileChannel channel, GenericHeader genericHeader, long fileLength)
+            throws IOException {
+        long length = (long) genericHeader.headerSize() - HEADER_CRC_START;
+        if (length <= 0 || genericHeader.headerSize() > fileLength) {
+            return new CrcCheck("header", -1, genericHeader.crc(), 0, Math.max(length, 0), true);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, HEADER_CRC_START + buffer.position()) < 0) {
+                break;
+            }
+        }
+        buffer.flip();
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return new CrcCheck("header", -1, genericHeader.crc(), (int) crc.getValue(), length, false);
+    }
+
+    private static int crcOfRange(FileChannel channel, long position, long length) {
+        try {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            CRC32 crc = new CRC32();
+            crc.update(mapped);
+            return (int) crc.getValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
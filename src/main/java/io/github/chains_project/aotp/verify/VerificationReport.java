@@ -0,0 +1,63 @@
+package io.github.chains_project.aotp.verify;
+
+import java.io.IOException;
+import java.util.List;
+
+import io.github.chains_project.aotp.output.RecordWriter;
+
+/**
+ * Result of {@link CrcVerifier#verify}: one {@link CrcCheck} for the header
+ * followed by one per non-empty region.
+ */
+public record VerificationReport(List<CrcCheck> checks) {
+
+    public boolean isValid() {
+        for (CrcCheck check : checks) {
+            if (!check.matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<CrcCheck> mismatches() {
+        return checks.stream().filter(check -> !check.matches()).toList();
+    }
+
+    public void print(Appendable st) throws IOException {
+        for (CrcCheck check : checks) {
+            String status;
+            if (check.truncated()) {
+                status = "TRUNCATED";
+            } else if (check.matches()) {
+                status = "OK";
+            } else {
+                status = String.format("MISMATCH (actual 0x%08x)", check.actual());
+            }
+            String label = check.index() < 0 ? check.name() : check.index() + " \"" + check.name() + "\"";
+            st.append(String.format("- %-12s crc: 0x%08x  bytes: %-12d %s%n",
+                    label, check.expected(), check.length(), status));
+        }
+        st.append(isValid() ? "archive OK\n" : "archive CORRUPTED\n");
+    }
+
+    /**
+     * Writes one {@code crc} record per check and a {@code verification} summary.
+     */
+    public void write(RecordWriter out) throws IOException {
+        for (CrcCheck check : checks) {
+            out.begin("crc");
+            out.field("name", check.name());
+            out.field("index", check.index());
+            out.field("expected", Integer.toUnsignedLong(check.expected()));
+            out.field("actual", Integer.toUnsignedLong(check.actual()));
+            out.field("length", check.length());
+            out.field("truncated", check.truncated());
+            out.field("matches", check.matches());
+            out.end();
+        }
+        out.begin("verification");
+        out.field("valid", isValid());
+        out.end();
+    }
+}
@@ -0,0 +1,155 @@
+package io.github.chains_project.aotp.archive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only mapping of a range of a file, read in little-endian order with
+ * absolute gets, so it can be shared between threads.
+ *
+ * This is the Java 22 implementation of the multi-release jar: the range is
+ * one {@link MemorySegment} in a shared {@link Arena}, so it has no 2 GB limit
+ * and is unmapped as soon as the mapping is closed instead of when a buffer is
+ * collected. The access hints are passed to {@code madvise} through the
+ * {@link Linker}; where the native call is unavailable or not allowed they do
+ * nothing.
+ */
+public final class FileMapping implements Closeable {
+
+    private static final ValueLayout.OfLong WORD = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    // <sys/mman.h>, the same values on Linux and the BSDs
+    private static final int MADV_SEQUENTIAL = 2;
+    private static final int MADV_WILLNEED = 3;
+    private static final long DEFAULT_PAGE_SIZE = 4096;
+
+    private static final MethodHandle MADVISE = downcall("madvise",
+            FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT));
+    private static final MethodHandle GETPAGESIZE = downcall("getpagesize",
+            FunctionDescriptor.of(ValueLayout.JAVA_INT));
+    private static final long PAGE_SIZE = pageSize();
+
+    private final Arena arena;
+    private final MemorySegment segment;
+
+    private FileMapping(Arena arena, MemorySegment segment) {
+        this.arena = arena;
+        this.segment = segment;
+    }
+
+    /**
+     * Maps {@code size} bytes of {@code channel} starting at {@code position}.
+     */
+    public static FileMapping map(FileChannel channel, long position, long size) throws IOException {
+        Arena arena = Arena.ofShared();
+        try {
+            return new FileMapping(arena, channel.map(FileChannel.MapMode.READ_ONLY, position, size, arena));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Name of the implementation in use, {@code "nio"} or {@code "ffm"}.
+     */
+    public static String backend() {
+        return "ffm";
+    }
+
+    public long size() {
+        return segment.byteSize();
+    }
+
+    /**
+     * The little-endian word at {@code offset}, which need not be aligned.
+     */
+    public long getLong(long offset) throws IOException {
+        return segment.get(WORD, offset);
+    }
+
+    /**
+     * Copies {@code length} bytes at {@code offset} into {@code dest}.
+     *
+     * @throws IndexOutOfBoundsException if the range is not inside the mapping
+     */
+    public void get(long offset, byte[] dest, int destOffset, int length) throws IOException {
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, offset, dest, destOffset, length);
+    }
+
+    /**
+     * The mapping as a little-endian buffer, or null if it is too large for one.
+     * The buffer must not be used after the mapping is closed.
+     */
+    public ByteBuffer asByteBuffer() {
+        return segment.byteSize() <= Integer.MAX_VALUE ? segment.asByteBuffer().order(ByteOrder.LITTLE_ENDIAN) : null;
+    }
+
+    /**
+     * Hints that the mapping will be read front to back.
+     */
+    public void adviseSequential() {
+        advise(0, segment.byteSize(), MADV_SEQUENTIAL);
+    }
+
+    /**
+     * Hints that {@code [offset, offset + length)} will be read soon.
+     */
+    public void adviseWillNeed(long offset, long length) {
+        advise(offset, length, MADV_WILLNEED);
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private void advise(long offset, long length, int advice) {
+        long from = Math.max(0, offset);
+        long to = Math.min(segment.byteSize(), offset + length);
+        if (MADVISE == null || from >= to) {
+            return;
+        }
+        // madvise wants a page-aligned start; the page holding the segment start is part of the mapping
+        long start = (segment.address() + from) & -PAGE_SIZE;
+        long end = segment.address() + to;
+        try {
+            int ignored = (int) MADVISE.invokeExact(MemorySegment.ofAddress(start), end - start, advice);
+        } catch (Throwable e) {
+            // Only a hint
+        }
+    }
+
+    private static MethodHandle downcall(String name, FunctionDescriptor descriptor) {
+        try {
+            Linker linker = Linker.nativeLinker();
+            return linker.defaultLookup().find(name)
+                    .map(symbol -> linker.downcallHandle(symbol, descriptor))
+                    .orElse(null);
+        } catch (RuntimeException | LinkageError e) {
+            // No native linker on this platform, or native access is denied
+            return null;
+        }
+    }
+
+    private static long pageSize() {
+        if (GETPAGESIZE == null) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        try {
+            int size = (int) GETPAGESIZE.invokeExact();
+            return size > 0 && Integer.bitCount(size) == 1 ? size : DEFAULT_PAGE_SIZE;
+        } catch (Throwable e) {
+            return DEFAULT_PAGE_SIZE;
+        }
+    }
+}
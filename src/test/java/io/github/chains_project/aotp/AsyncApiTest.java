@@ -0,0 +1,129 @@
+package io.github.chains_project.aotp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.archive.LayeredArchive;
+import io.github.chains_project.aotp.metrics.ScanRecorder;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.scan.ClassFilter;
+import io.github.chains_project.aotp.scan.KlassScanner;
+import io.github.chains_project.aotp.scan.SymbolPageCache;
+import io.github.chains_project.aotp.scan.WindowedScan;
+
+class AsyncApiTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String writeArchive(int classes) throws IOException {
+        SyntheticArchive archive = new SyntheticArchive();
+        for (int i = 0; i < classes; i++) {
+            archive.instanceKlass("p" + (i % 5) + "/C" + i, i % 9);
+        }
+        return archive.write(tempDir.resolve("async.aot")).toString();
+    }
+
+    @Test
+    void asyncResultsMatchSynchronousOnes() throws Exception {
+        String file = writeArchive(300);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            ClassFilter filter = ClassFilter.all().withName("p3/");
+            List<ClassEntry> listed = AotpApi.listClassesAsync(file, filter, pool).get(10, TimeUnit.SECONDS);
+            assertEquals(names(AotpApi.listClasses(file, filter)), names(listed));
+
+            List<String> wanted = List.of("p0/C0", "p1/C151", "missing/X");
+            Map<ClassEntry, Integer> sizes = AotpApi.classSizesAsync(file, null, wanted, pool)
+                    .get(10, TimeUnit.SECONDS);
+            assertEquals(sizesByName(AotpApi.getClassSizes(file, wanted)), sizesByName(sizes));
+
+            try (LayeredArchive archive = AotpApi.openAsync(file, null, pool).get(10, TimeUnit.SECONDS)) {
+                assertNotNull(AotpApi.findClass(archive, "p2/C7"));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void failuresCompleteTheFutureExceptionally() {
+        String missing = tempDir.resolve("missing.aot").toString();
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> AotpApi.listClassesAsync(missing, ClassFilter.all(), Runnable::run).get());
+        assertInstanceOf(IOException.class, e.getCause());
+
+        ExecutorService closed = Executors.newSingleThreadExecutor();
+        closed.shutdown();
+        CompletableFuture<LayeredArchive> rejected = AotpApi.openAsync(missing, null, closed);
+        assertTrue(rejected.isCompletedExceptionally());
+    }
+
+    @Test
+    void cancelledRequestDoesNotStart() throws IOException {
+        String file = writeArchive(10);
+        List<Runnable> queued = new ArrayList<>();
+        CompletableFuture<List<ClassEntry>> future = AotpApi.listClassesAsync(file, ClassFilter.all(), queued::add);
+        assertTrue(future.cancel(true));
+        queued.forEach(Runnable::run);
+        assertTrue(future.isCancelled());
+        assertThrows(CancellationException.class, future::join);
+    }
+
+    @Test
+    void scannerStopsOnceCancelled() throws IOException {
+        SyntheticArchive archive = new SyntheticArchive();
+        for (int i = 0; i < 3000; i++) {
+            archive.instanceKlass("a/K" + i, 20);
+        }
+        Path file = archive.write(tempDir.resolve("cancel.aot"));
+
+        AtomicInteger polls = new AtomicInteger();
+        List<String> names = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             ScanRecorder recorder = ScanRecorder.start(null)) {
+            SymbolPageCache symbols = new SymbolPageCache(channel, SyntheticArchive.BASE, 4096, 4);
+            KlassScanner scanner = new KlassScanner(SyntheticArchive.BASE, ClassFilter.all(), symbols, recorder,
+                    entry -> names.add(entry.getName()), () -> polls.incrementAndGet() > 2);
+            long rwLength = archive.regionOffset(1) - archive.regionOffset(0);
+            assertThrows(CancellationException.class, () -> WindowedScan.scan(channel, archive.regionOffset(0),
+                    SyntheticArchive.BASE + archive.regionOffset(0), rwLength, 1 << 20, scanner));
+        }
+        assertEquals(3, polls.get());
+        assertFalse(names.isEmpty());
+        assertTrue(names.size() < 3000, "scan continued after cancellation: " + names.size());
+    }
+
+    private static Map<String, Integer> sizesByName(Map<ClassEntry, Integer> sizes) {
+        Map<String, Integer> result = new TreeMap<>();
+        sizes.forEach((entry, size) -> result.put(entry.getName(), size));
+        return result;
+    }
+
+    private static List<String> names(List<ClassEntry> entries) {
+        return entries.stream().map(ClassEntry::getName).toList();
+    }
+}
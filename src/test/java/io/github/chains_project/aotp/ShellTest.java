@@ -0,0 +1,92 @@
+package io.github.chains_project.aotp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import picocli.CommandLine;
+
+class ShellTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String run(String script, String... archives) throws IOException {
+        Shell shell = new Shell();
+        shell.archivePaths = List.of(archives);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        assertEquals(0, shell.run(new BufferedReader(new StringReader(script)), out));
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    private String writeArchive(String fileName) throws IOException {
+        SyntheticArchive archive = new SyntheticArchive()
+                .instanceKlass("java/lang/Object", 5)
+                .instanceKlass("app/Base", 6)
+                .instanceKlass("app/Derived", 7)
+                .instanceKlass("app/Other", 2)
+                .superclass("app/Base", "java/lang/Object")
+                .superclass("app/Derived", "app/Base");
+        return archive.write(tempDir.resolve(fileName)).toString();
+    }
+
+    @Test
+    void answersQueriesFromTheWarmIndex() throws IOException {
+        String file = writeArchive("shell.aot");
+        long derived = AotpApi.findClass(file, "app/Derived").address();
+
+        String output = run(String.join("\n",
+                "find app/",
+                "complete app.D",
+                "size app.Derived java/lang/Object",
+                "hierarchy app/Derived",
+                String.format("resolve 0x%x", derived + 0x18),
+                "print app/Deriv",
+                "print app/Other",
+                "") + "quit\n", file);
+
+        assertTrue(output.contains("4 classes indexed"), output);
+        assertTrue(output.contains("app/Base\napp/Derived\napp/Other\n3 classes"), output);
+        assertTrue(output.contains(Shell.PROMPT + "app/Derived\n"), output);
+        assertTrue(output.contains("app/Derived " + (472 + 7 * 8)), output);
+        assertTrue(output.contains("java/lang/Object " + (472 + 5 * 8)), output);
+        assertTrue(output.contains("java/lang/Object\n  app/Base\n    app/Derived\n"), output);
+        assertTrue(output.contains("InstanceKlass app/Derived+0x18"), output);
+        assertTrue(output.contains("Class not found: app/Deriv\nDid you mean: app/Derived"), output);
+        assertTrue(output.contains("vtableLen"), output);
+    }
+
+    @Test
+    void switchesBetweenArchivesAndReportsBadInput() throws IOException {
+        String first = writeArchive("first.aot");
+        String second = new SyntheticArchive().instanceKlass("other/Only", 1)
+                .write(tempDir.resolve("second.aot")).toString();
+
+        String output = run("find other\nuse 1\nfind other\narchives\nuse 5\nbogus\nresolve 0x10\n", first, second);
+
+        assertTrue(output.contains("0 classes"), output);
+        assertTrue(output.contains("other/Only\n1 classes"), output);
+        assertTrue(output.contains("*[1] " + second), output);
+        assertTrue(output.contains("No archive 5"), output);
+        assertTrue(output.contains("Unmatched argument"), output);
+        assertTrue(output.contains("0x10: not in the archive"), output);
+    }
+
+    @Test
+    void isASubcommandOfTheMainCommand() {
+        CommandLine commandLine = new CommandLine(new Main());
+        assertTrue(commandLine.getSubcommands().containsKey("shell"));
+    }
+}
@@ -0,0 +1,595 @@
+package io.github.chains_project.aotp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Writes minimal AOT cache files for tests that must not depend on a JDK
+ * capable of producing real archives. Only the fields aotp reads are filled
+ * in; the layout follows the readers in the {@code header} package.
+ */
+public final class SyntheticArchive {
+
+    public static final int AOT_MAGIC = 0xf00baba2;
+    public static final int DYNAMIC_MAGIC = 0xf00baba8;
+    public static final int AOTCONFIG_MAGIC = 0xcafea07c;
+    public static final long BASE = 0x0000000800000000L;
+
+    static final int GENERIC_HEADER_SIZE = 24;
+    static final int REGION_SIZE = 96;
+    static final int FILE_MAP_HEADER_SIZE = 528;
+    static final int HEADER_SIZE = GENERIC_HEADER_SIZE + 5 * REGION_SIZE + FILE_MAP_HEADER_SIZE;
+    static final int ALIGNMENT = 0x1000;
+
+    // Offsets inside FileMapHeader
+    static final int CLONED_VTABLES_OFFSET = 56;
+    static final int SERIALIZED_DATA_OFFSET = 72;
+    static final int REQUESTED_BASE_ADDRESS = 352;
+    static final int RW_PTRMAP_START_POS = 376;
+    static final int RO_PTRMAP_START_POS = 384;
+
+    // Offsets inside a klass record, see ClassEntry/InstanceClass.parse
+    static final int KLASS_LAYOUT_HELPER = 8;
+    static final int KLASS_KIND = 12;
+    static final int KLASS_NAME = 24;
+    static final int KLASS_SUPER = 120;
+    static final int KLASS_LOADER_DATA = 152;
+    static final int KLASS_SHARED_CLASS_PATH_INDEX = 177;
+    static final int KLASS_VTABLE_LEN = 184;
+    static final int KLASS_INIT_STATE = 304;
+    static final int KLASS_ACCESS_FLAGS = 306;
+    static final int KLASS_MISC_FLAGS = 308;
+    static final int INSTANCE_KLASS_SIZE = 472;
+    // Leading part of the rw region that holds no klasses
+    static final int RW_PROLOGUE = 0x2000;
+    // _vtable_size of each CppVtableInfo, in CPP_VTABLE_TYPES_DO order
+    static final int[] CLONED_VTABLE_SIZES = { 10, 30, 31, 32, 33, 34, 60, 35, 36 };
+    // Index in CLONED_VTABLE_SIZES of each klass kind
+    static final int[] KLASS_VTABLE_INDEX = { 1, 4, 3, 2, 5, 8, 7 };
+    // Size tags AOTMetaspace::serialize writes before the vtables: object sizes such as
+    // sizeof(ConstantPool) and sizeof(Symbol), and array base offsets. All are small
+    // multiples of 8, so as base offsets they fall into a rw region mapped at the base.
+    static final long[] SIZE_TAGS = { 0x58, 0x30, 0x10, 0x50, 0x40, 0x10, 0x10, 0x8 };
+    // Where the cloned vtables start in a rw region mapped at the base
+    static final int RW_AT_BASE_VTABLES = 0x1000;
+
+    /** A klass to emit into the rw region, with its name symbol in the ro region. */
+    public record KlassSpec(String name, int kind, long loader, short sharedClassPathIndex,
+                            int vtableLen, short accessFlags) {
+
+        public int size() {
+            return 200 + 272 + vtableLen * 8;
+        }
+    }
+
+    // Bucket types of a compact hashtable, see CompactHashtable
+    static final int REGULAR_BUCKET = 0;
+    static final int VALUE_ONLY_BUCKET = 1;
+    static final int TABLE_END_BUCKET = 3;
+
+    private final byte[][] regions = new byte[5][];
+    private final List<KlassSpec> klasses = new ArrayList<>();
+    private final List<String> extraSymbols = new ArrayList<>();
+    private final List<Integer> extraRefcounts = new ArrayList<>();
+    private int magic = AOT_MAGIC;
+    private boolean tables;
+    private boolean absolutePointers;
+    private boolean clonedVtables;
+    private boolean rwAtBase;
+    private long serializedDataOffset;
+    private long clonedVtablesOffset;
+    private long requestedBase = BASE;
+    private SyntheticArchive baseLayer;
+    private String baseArchiveName;
+    private final Map<String, String> superclasses = new HashMap<>();
+    private final Map<String, int[]> states = new HashMap<>();
+    private final Map<String, Long> symbolAddresses = new HashMap<>();
+    private final Map<String, Long> klassAddresses = new HashMap<>();
+    private final long[][] ptrmaps = new long[2][];
+    private final long[] ptrmapStartPositions = new long[2];
+
+    public SyntheticArchive() {
+        for (int i = 0; i < regions.length; i++) {
+            regions[i] = new byte[0];
+        }
+    }
+
+    public SyntheticArchive magic(int magic) {
+        this.magic = magic;
+        return this;
+    }
+
+    public SyntheticArchive region(int index, byte[] data) {
+        regions[index] = data;
+        return this;
+    }
+
+    public SyntheticArchive klass(String name, int kind, long loader, int sharedClassPathIndex,
+                                  int vtableLen, int accessFlags) {
+        klasses.add(new KlassSpec(name, kind, loader, (short) sharedClassPathIndex, vtableLen, (short) accessFlags));
+        return this;
+    }
+
+    public SyntheticArchive instanceKlass(String name, int vtableLen) {
+        return klass(name, 0, 0, 0, vtableLen, 0x1);
+    }
+
+    /**
+     * Also writes a shared SymbolTable with all names and a builtin dictionary
+     * with all non-array klasses, and serialized data that refers to them.
+     * Serialized pointers are base offsets, or absolute addresses if
+     * {@code absolutePointers} is set.
+     */
+    public SyntheticArchive withTables(boolean absolutePointers) {
+        this.tables = true;
+        this.absolutePointers = absolutePointers;
+        return this;
+    }
+
+    /**
+     * Also writes cloned vtables at the start of the rw region, the way
+     * {@code CppVtables} lays them out, and refers to them from the serialized
+     * data, whose info pointers the header's {@code cloned_vtables_offset}
+     * points at as in HotSpot. Klass records then point at these vtables instead
+     * of the fixed addresses, and a rw pointer map marks their vtable words.
+     * A dynamic archive on top of such an archive uses the base's vtables.
+     */
+    public SyntheticArchive withClonedVtables() {
+        this.clonedVtables = true;
+        return this;
+    }
+
+    /**
+     * Maps the rw region at mapping offset 0, as HotSpot does for a static
+     * archive, instead of at its file offset; the other regions keep their
+     * distance to it. Addresses do not change, but base offsets are now
+     * relative to the start of rw, and the cloned vtables move to
+     * {@value #RW_AT_BASE_VTABLES} bytes into it.
+     */
+    public SyntheticArchive rwAtBase() {
+        this.rwAtBase = true;
+        this.requestedBase = requestedBase + regionOffset(0);
+        return this;
+    }
+
+    /**
+     * Adds a symbol that is not a class name to the ro region and, with
+     * {@link #withTables}, to the SymbolTable.
+     */
+    public SyntheticArchive symbol(String name, int refcount) {
+        extraSymbols.add(name);
+        extraRefcounts.add(refcount);
+        return this;
+    }
+
+    /**
+     * Makes this a dynamic archive on top of {@code base}, which must have been
+     * written already: it is mapped right after the base, records
+     * {@code baseArchiveName} (or nothing, if null) as its base, and reuses the
+     * base's symbols for names the base already has.
+     */
+    public SyntheticArchive layeredOn(SyntheticArchive base, String baseArchiveName) {
+        this.magic = DYNAMIC_MAGIC;
+        this.baseLayer = base;
+        this.baseArchiveName = baseArchiveName;
+        this.requestedBase = base.requestedBase + base.mappingOffset(regions.length);
+        return this;
+    }
+
+    /**
+     * Sets the {@code _super} of klass {@code name} to the klass named
+     * {@code superName} in this archive or its base.
+     */
+    public SyntheticArchive superclass(String name, String superName) {
+        superclasses.put(name, superName);
+        return this;
+    }
+
+    /**
+     * Sets {@code _init_state} and {@code _misc_flags} of the instance klass {@code name}.
+     */
+    public SyntheticArchive state(String name, int initState, int miscFlags) {
+        states.put(name, new int[] { initState, miscFlags });
+        return this;
+    }
+
+    /**
+     * Writes {@code words} as the pointer map of region {@code index} (rw or ro)
+     * into the bitmap region, with bit 0 standing for word {@code startPos} of
+     * the region.
+     */
+    public SyntheticArchive pointerMap(int index, long startPos, long... words) {
+        ptrmaps[index] = words;
+        ptrmapStartPositions[index] = startPos;
+        return this;
+    }
+
+    /** Requested base address of this archive. */
+    public long requestedBase() {
+        return requestedBase;
+    }
+
+    /** Vtable address of the klass records of {@code kind}. */
+    public long vtableAddress(int kind) {
+        if (baseLayer != null) {
+            return baseLayer.vtableAddress(kind);
+        }
+        if (!clonedVtables) {
+            return requestedBase + vtableOffset(kind);
+        }
+        long info = requestedBase + mappingOffset(0) + vtablesStart();
+        for (int i = 0; i < KLASS_VTABLE_INDEX[kind]; i++) {
+            info += 8 + CLONED_VTABLE_SIZES[i] * 8L;
+        }
+        return info + 8;
+    }
+
+    /** Address of the klass named {@code name}, after {@link #write}. */
+    public long klassAddress(String name) {
+        return klassAddresses.get(name);
+    }
+
+    public List<KlassSpec> klasses() {
+        return klasses;
+    }
+
+    /** File offset at which region {@code index} will be written. */
+    public long regionOffset(int index) {
+        long offset = align(HEADER_SIZE);
+        for (int i = 0; i < index; i++) {
+            offset = align(offset + regions[i].length);
+        }
+        return offset;
+    }
+
+    /** Mapping offset of region {@code index}: its file offset, or less with {@link #rwAtBase}. */
+    public long mappingOffset(int index) {
+        return regionOffset(index) - (rwAtBase ? regionOffset(0) : 0);
+    }
+
+    /** Requested base of the static archive, which base offsets are relative to. */
+    private long staticBase() {
+        return baseLayer != null ? baseLayer.staticBase() : requestedBase;
+    }
+
+    private int vtablesStart() {
+        return rwAtBase ? RW_AT_BASE_VTABLES : 0;
+    }
+
+    public Path write(Path file) throws IOException {
+        if (!klasses.isEmpty() || !extraSymbols.isEmpty()) {
+            buildKlassRegions();
+        }
+        long[] ptrmapOffsets = new long[ptrmaps.length];
+        if (ptrmaps[0] != null || ptrmaps[1] != null) {
+            buildBitmapRegion(ptrmapOffsets);
+        }
+        long end = regionOffset(regions.length);
+        ByteBuffer out = ByteBuffer.allocate((int) end).order(ByteOrder.LITTLE_ENDIAN);
+
+        ByteBuffer fileMapHeader = ByteBuffer.allocate(FILE_MAP_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        fileMapHeader.putLong(0, ALIGNMENT);
+        fileMapHeader.putLong(CLONED_VTABLES_OFFSET, clonedVtablesOffset);
+        fileMapHeader.putLong(SERIALIZED_DATA_OFFSET, serializedDataOffset);
+        fileMapHeader.putLong(REQUESTED_BASE_ADDRESS, requestedBase);
+        fileMapHeader.putLong(RW_PTRMAP_START_POS, ptrmapStartPositions[0]);
+        fileMapHeader.putLong(RO_PTRMAP_START_POS, ptrmapStartPositions[1]);
+
+        byte[] baseName = baseArchiveName == null ? new byte[0] : baseArchiveName.getBytes(StandardCharsets.UTF_8);
+        out.putInt(magic);
+        out.putInt(0); // crc, patched below
+        out.putInt(1);
+        out.putInt(HEADER_SIZE);
+        // The base archive name follows the header, NUL-terminated
+        out.putInt(baseName.length == 0 ? 0 : HEADER_SIZE);
+        out.putInt(baseName.length == 0 ? 0 : baseName.length + 1);
+        for (int i = 0; i < regions.length; i++) {
+            CRC32 crc = new CRC32();
+            crc.update(regions[i]);
+            long offset = regionOffset(i);
+            out.putInt(regions[i].length == 0 ? 0 : (int) crc.getValue());
+            out.putInt(i == 1 ? 1 : 0); // read_only
+            out.putInt(0);
+            out.putInt(0);
+            out.putInt(i == 2 ? 1 : 0); // is_bitmap_region
+            out.putInt(1);
+            out.putLong(offset); // file_offset
+            out.putLong(mappingOffset(i)); // mapping_offset
+            out.putLong(regions[i].length); // used
+            out.putLong(0);
+            out.putLong(0);
+            boolean hasPtrmap = i < ptrmaps.length && ptrmaps[i] != null;
+            out.putLong(hasPtrmap ? ptrmapOffsets[i] : 0); // ptrmap_offset
+            out.putLong(hasPtrmap ? ptrmaps[i].length * 64L : 0); // ptrmap_size_in_bits
+            out.putLong(0);
+            out.putLong(0);
+        }
+        out.put(fileMapHeader.array());
+        out.put(HEADER_SIZE, baseName);
+
+        for (int i = 0; i < regions.length; i++) {
+            out.put((int) regionOffset(i), regions[i]);
+        }
+
+        CRC32 headerCrc = new CRC32();
+        headerCrc.update(out.array(), 8, HEADER_SIZE - 8);
+        out.putInt(4, (int) headerCrc.getValue());
+
+        Files.write(file, out.array());
+        return file;
+    }
+
+    /**
+     * Concatenates the pointer maps into the bitmap region, rw first, the way
+     * {@code FileMapInfo::write_bitmap_region} does.
+     */
+    private void buildBitmapRegion(long[] ptrmapOffsets) {
+        int words = 0;
+        for (long[] map : ptrmaps) {
+            words += map == null ? 0 : map.length;
+        }
+        ByteBuffer bm = ByteBuffer.allocate(words * 8).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < ptrmaps.length; i++) {
+            ptrmapOffsets[i] = bm.position();
+            if (ptrmaps[i] != null) {
+                for (long word : ptrmaps[i]) {
+                    bm.putLong(word);
+                }
+            }
+        }
+        regions[2] = bm.array();
+    }
+
+    /**
+     * Lays out the klass records in rw and their name symbols in ro. The vtable
+     * pointer of each record is {@link #vtableAddress}.
+     */
+    private void buildKlassRegions() {
+        int rwSize = RW_PROLOGUE;
+        for (KlassSpec spec : klasses) {
+            rwSize += spec.size();
+        }
+        regions[0] = new byte[rwSize];
+        ByteBuffer rw = ByteBuffer.wrap(regions[0]).order(ByteOrder.LITTLE_ENDIAN);
+
+        ByteBuffer ro = ByteBuffer.allocate((klasses.size() + extraSymbols.size()) * 64 + (1 << 16)
+                + klasses.stream().mapToInt(spec -> spec.name().getBytes(StandardCharsets.UTF_8).length + 8).sum()
+                + extraSymbols.stream().mapToInt(name -> name.getBytes(StandardCharsets.UTF_8).length + 8).sum())
+                .order(ByteOrder.LITTLE_ENDIAN);
+        long roBase = requestedBase + mappingOffset(1);
+        long rwBase = requestedBase + mappingOffset(0);
+
+        long[] vtableInfos = new long[CLONED_VTABLE_SIZES.length];
+        if (clonedVtables) {
+            int info = vtablesStart();
+            for (int i = 0; i < CLONED_VTABLE_SIZES.length; i++) {
+                vtableInfos[i] = rwBase + info;
+                rw.putInt(info, CLONED_VTABLE_SIZES[i]);
+                info += 8 + CLONED_VTABLE_SIZES[i] * 8;
+            }
+        }
+        boolean markVtables = (clonedVtables || baseLayer != null && baseLayer.clonedVtables) && ptrmaps[0] == null;
+        long[] rwPtrmap = new long[(rwSize / 8 + 63) / 64];
+
+        long[] symbols = new long[klasses.size()];
+        long[] klassAddresses = new long[klasses.size()];
+        int pos = RW_PROLOGUE;
+        for (int k = 0; k < klasses.size(); k++) {
+            KlassSpec spec = klasses.get(k);
+            byte[] name = spec.name().getBytes(StandardCharsets.UTF_8);
+            Long baseSymbol = baseLayer == null ? null : baseLayer.symbolAddresses.get(spec.name());
+            long symbol;
+            if (baseSymbol != null) {
+                symbol = baseSymbol;
+            } else {
+                symbol = roBase + ro.position();
+                ro.putInt(0xffff); // hash_and_refcount
+                ro.putShort((short) name.length);
+                ro.put(name);
+                ro.position((ro.position() + 7) & ~7);
+                symbolAddresses.put(spec.name(), symbol);
+            }
+            symbols[k] = symbol;
+            klassAddresses[k] = rwBase + pos;
+            this.klassAddresses.put(spec.name(), rwBase + pos);
+
+            rw.putLong(pos, vtableAddress(spec.kind()));
+            rwPtrmap[pos / 8 / 64] |= 1L << (pos / 8);
+            rw.putInt(pos + KLASS_LAYOUT_HELPER, spec.kind() >= 5 ? -1 : spec.size());
+            rw.putShort(pos + KLASS_KIND, (short) spec.kind());
+            rw.putLong(pos + KLASS_NAME, symbol);
+            rw.putLong(pos + KLASS_LOADER_DATA, spec.loader());
+            rw.putShort(pos + KLASS_SHARED_CLASS_PATH_INDEX, spec.sharedClassPathIndex());
+            rw.putInt(pos + KLASS_VTABLE_LEN, spec.vtableLen());
+            rw.putShort(pos + KLASS_ACCESS_FLAGS, spec.accessFlags());
+            int[] state = states.get(spec.name());
+            if (state != null) {
+                rw.put(pos + KLASS_INIT_STATE, (byte) state[0]);
+                rw.putShort(pos + KLASS_MISC_FLAGS, (short) state[1]);
+            }
+            pos += spec.size();
+        }
+        pos = RW_PROLOGUE;
+        for (KlassSpec spec : klasses) {
+            String superName = superclasses.get(spec.name());
+            if (superName != null) {
+                Long superKlass = this.klassAddresses.get(superName);
+                if (superKlass == null) {
+                    superKlass = baseLayer.klassAddresses.get(superName);
+                }
+                rw.putLong(pos + KLASS_SUPER, superKlass);
+            }
+            pos += spec.size();
+        }
+        long[] extra = new long[extraSymbols.size()];
+        for (int i = 0; i < extra.length; i++) {
+            byte[] name = extraSymbols.get(i).getBytes(StandardCharsets.UTF_8);
+            extra[i] = roBase + ro.position();
+            ro.putInt(0x12340000 | extraRefcounts.get(i));
+            ro.putShort((short) name.length);
+            ro.put(name);
+            ro.position((ro.position() + 7) & ~7);
+            symbolAddresses.put(extraSymbols.get(i), extra[i]);
+        }
+        if (markVtables) {
+            pointerMap(0, 0, rwPtrmap);
+        }
+        List<long[]> tableHeaders = tables ? buildTables(ro, roBase, symbols, klassAddresses, extra) : List.of();
+        if (tables || clonedVtables) {
+            buildSerializedData(ro, roBase, vtableInfos, tableHeaders);
+        }
+        regions[1] = Arrays.copyOf(ro.array(), ro.position());
+    }
+
+    /**
+     * Writes the SymbolTable and the builtin dictionary the way
+     * {@code CompactHashtableWriter} lays them out and returns their headers.
+     * Table values and dictionary hashes are relative to {@link #staticBase()},
+     * in a dynamic archive too.
+     */
+    private List<long[]> buildTables(ByteBuffer ro, long roBase, long[] symbols, long[] klassAddresses, long[] extra) {
+        List<long[]> symbolEntries = new ArrayList<>();
+        List<long[]> dictionaryEntries = new ArrayList<>();
+        for (int i = 0; i < extra.length; i++) {
+            symbolEntries.add(new long[] { symbolHash(extraSymbols.get(i)), extra[i] - staticBase() });
+        }
+        for (int k = 0; k < klasses.size(); k++) {
+            if (symbolAddresses.containsKey(klasses.get(k).name())) {
+                // A dynamic archive's table only holds the symbols the base does not have
+                symbolEntries.add(new long[] { symbolHash(klasses.get(k).name()), symbols[k] - staticBase() });
+            }
+            if (klasses.get(k).kind() < 5) {
+                // RunTimeClassInfo: _klass, _nest_host
+                long info = roBase + ro.position();
+                ro.putLong(klassAddresses[k]);
+                ro.putLong(0);
+                int offset = (int) (symbols[k] - staticBase());
+                dictionaryEntries.add(new long[] { offset ^ (offset >>> 3), info - staticBase() });
+            }
+        }
+        long[] symbolTable = writeCompactHashtable(ro, roBase, symbolEntries);
+        long[] dictionary = writeCompactHashtable(ro, roBase, dictionaryEntries);
+        return List.of(symbolTable, dictionary);
+    }
+
+    /**
+     * Writes serialized data: with cloned vtables the size tags, the vtable
+     * infos and a tag, then a few unrelated slots and the table headers.
+     */
+    private void buildSerializedData(ByteBuffer ro, long roBase, long[] vtableInfos, List<long[]> tableHeaders) {
+        long serialized = roBase + ro.position();
+        serializedDataOffset = serialized - requestedBase;
+        ro.putLong(-1);
+        if (clonedVtables) {
+            for (long tag : SIZE_TAGS) {
+                ro.putLong(tag);
+            }
+            // As CppVtables::vtables_serialized_base(), the offset points at the first info pointer
+            clonedVtablesOffset = roBase + ro.position() - requestedBase;
+            for (long info : vtableInfos) {
+                ro.putLong(pointer(info));
+            }
+            ro.putLong(-2);
+        }
+        if (tableHeaders.isEmpty()) {
+            return;
+        }
+        // Unrelated slots
+        ro.putLong(0x40);
+        ro.putLong(pointer(roBase));
+        ro.putLong(3);
+        for (long[] header : tableHeaders) {
+            ro.putLong(header[0]);
+            ro.putLong(header[1]);
+            ro.putLong(pointer(header[2]));
+            ro.putLong(pointer(header[3]));
+        }
+        ro.putLong(-2);
+    }
+
+    /**
+     * Writes the bucket and entry arrays of a table with the given
+     * {@code (hash, value)} entries and returns its header
+     * {@code (entry_count, bucket_count, buckets, entries)}.
+     */
+    private static long[] writeCompactHashtable(ByteBuffer ro, long roBase, List<long[]> entries) {
+        int bucketCount = Math.max(1, entries.size() / 2);
+        List<List<long[]>> buckets = new ArrayList<>();
+        for (int i = 0; i < bucketCount; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        for (long[] entry : entries) {
+            buckets.get(Integer.remainderUnsigned((int) entry[0], bucketCount)).add(entry);
+        }
+        int[] infos = new int[bucketCount + 1];
+        List<Integer> data = new ArrayList<>();
+        for (int i = 0; i < bucketCount; i++) {
+            List<long[]> bucket = buckets.get(i);
+            if (bucket.size() == 1) {
+                infos[i] = VALUE_ONLY_BUCKET << 30 | data.size();
+                data.add((int) bucket.get(0)[1]);
+            } else {
+                infos[i] = REGULAR_BUCKET << 30 | data.size();
+                for (long[] entry : bucket) {
+                    data.add((int) entry[0]);
+                    data.add((int) entry[1]);
+                }
+            }
+        }
+        infos[bucketCount] = TABLE_END_BUCKET << 30 | data.size();
+
+        // Array<u4>: int _length followed by the elements
+        ro.putInt(infos.length);
+        long bucketsAddress = roBase + ro.position();
+        for (int info : infos) {
+            ro.putInt(info);
+        }
+        ro.position((ro.position() + 7) & ~7);
+        ro.putInt(data.size());
+        long entriesAddress = roBase + ro.position();
+        for (int value : data) {
+            ro.putInt(value);
+        }
+        ro.position((ro.position() + 7) & ~7);
+        return new long[] { entries.size(), bucketCount, bucketsAddress, entriesAddress };
+    }
+
+    // java_lang_String::hash_code over the signed UTF-8 bytes
+    private static int symbolHash(String name) {
+        int h = 0;
+        for (byte b : name.getBytes(StandardCharsets.UTF_8)) {
+            h = 31 * h + b;
+        }
+        return h;
+    }
+
+    private long pointer(long address) {
+        return absolutePointers ? address : address - staticBase();
+    }
+
+    private static long vtableOffset(int kind) {
+        switch (kind) {
+            case 1: return 0x14b8;
+            case 2: return 0x1350;
+            case 3: return 0x11e8;
+            case 4: return 0x1620;
+            case 5: return 0x1a60;
+            case 6: return 0x18f0;
+            default: return 0x1080;
+        }
+    }
+
+    private static long align(long value) {
+        return (value + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.chains_project.aotp.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.analysis.ClassTable.Column;
+import io.github.chains_project.aotp.scan.ClassFilter;
+import io.github.chains_project.aotp.scan.MemoryBudget;
+
+class ClassTableFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String writeArchive() throws IOException {
+        SyntheticArchive archive = new SyntheticArchive();
+        for (int i = 0; i < 400; i++) {
+            archive.klass("com/example/p" + (i % 7) + "/Class" + i, 0, 0x1000 + (i % 2), 0, i % 11,
+                    i % 5 == 0 ? 0x201 : 0x1);
+        }
+        return archive.write(tempDir.resolve("export.aot")).toString();
+    }
+
+    @Test
+    void roundTripsEveryColumn() throws IOException {
+        String file = writeArchive();
+        ClassTable scanned = AotpApi.loadClassTable(file, ClassFilter.all());
+        Path plain = tempDir.resolve("plain.act");
+        Path deflated = tempDir.resolve("deflated.act");
+        ClassTableFile.write(scanned, plain, false);
+        ClassTableFile.write(scanned, deflated, true);
+
+        assertTableEquals(scanned, ClassTableFile.read(plain));
+        assertTableEquals(scanned, ClassTableFile.read(deflated));
+        assertTrue(Files.size(deflated) < Files.size(plain));
+        // Well below the 45 fixed bytes per row of the in-memory table
+        assertTrue(Files.size(plain) < scanned.size() * 32L, "plain export: " + Files.size(plain));
+    }
+
+    @Test
+    void exportIsReadBackThroughTheQueryApi() throws IOException {
+        String file = writeArchive();
+        Path out = tempDir.resolve("classes.act");
+        ClassTable exported = AotpApi.exportClassTable(file, null, ClassFilter.all(), MemoryBudget.unbounded(),
+                out, true);
+        assertTrue(ClassTableFile.isTableFile(out));
+        assertFalse(ClassTableFile.isTableFile(Path.of(file)));
+
+        assertTableEquals(exported, AotpApi.loadClassTable(out.toString(), ClassFilter.all()));
+
+        ClassFilter filter = ClassFilter.all().withName("com/example/p3/*").withAccessFlags(0x200);
+        ClassTable fromArchive = AotpApi.loadClassTable(file, filter);
+        ClassTable fromExport = AotpApi.loadClassTable(out.toString(), filter);
+        assertTrue(fromExport.size() > 0);
+        assertTableEquals(fromArchive, fromExport);
+    }
+
+    @Test
+    void rejectsTruncatedFiles() throws IOException {
+        String file = writeArchive();
+        Path out = tempDir.resolve("truncated.act");
+        ClassTableFile.write(AotpApi.loadClassTable(file, ClassFilter.all()), out, false);
+        byte[] bytes = Files.readAllBytes(out);
+        Files.write(out, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> ClassTableFile.read(out));
+    }
+
+    private static void assertTableEquals(ClassTable expected, ClassTable actual) {
+        assertEquals(expected.size(), actual.size());
+        assertEquals(expected.baseAddress(), actual.baseAddress());
+        for (int row = 0; row < expected.size(); row++) {
+            assertEquals(expected.name(row), actual.name(row));
+            for (Column column : Column.values()) {
+                assertEquals(expected.get(column, row), actual.get(column, row), column + " of row " + row);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.chains_project.aotp.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.analysis.ClassTable.Column;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.InstanceClass;
+import io.github.chains_project.aotp.oops.klass.KlassKind;
+import io.github.chains_project.aotp.scan.ClassFilter;
+import io.github.chains_project.aotp.scan.MemoryBudget;
+import io.github.chains_project.aotp.utils.LongCounterMap;
+
+class ClassTableTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String writeArchive() throws IOException {
+        SyntheticArchive archive = new SyntheticArchive();
+        for (int i = 0; i < 50; i++) {
+            archive.klass("app/C" + i, 0, 0x1000 + (i % 3), 0, i % 6, i % 4 == 0 ? 0x201 : 0x1);
+        }
+        archive.klass("[Lapp/C0;", KlassKind.OBJ_ARRAY_KLASS.ordinal(), 0x1000, 0, 5, 0);
+        archive.instanceKlass("java/lang/Object", 5);
+        return archive.write(tempDir.resolve("table.aot")).toString();
+    }
+
+    @Test
+    void columnsMatchParsedClasses() throws IOException {
+        String file = writeArchive();
+        List<ClassEntry> entries = AotpApi.listClasses(file);
+        ClassTable table = AotpApi.loadClassTable(file, ClassFilter.all());
+
+        assertEquals(entries.size(), table.size());
+        for (int row = 0; row < table.size(); row++) {
+            InstanceClass entry = (InstanceClass) entries.get(row);
+            assertEquals(entry.getName(), table.name(row));
+            assertEquals(entry.address(), table.get(Column.ADDRESS, row));
+            assertEquals(entry.namePointer(), table.baseAddress() + table.get(Column.NAME_SYMBOL, row));
+            assertEquals(entry.getSize(), table.get(Column.SIZE, row));
+            assertEquals(entry.kind, table.get(Column.KIND, row));
+            assertEquals(entry.superKlass, table.get(Column.SUPER_KLASS, row));
+            assertEquals(entry.classLoaderData, table.get(Column.LOADER, row));
+            assertEquals(entry.accessFlags & 0xFFFF, table.get(Column.ACCESS_FLAGS, row));
+            assertEquals(entry.vtableLen, table.get(Column.VTABLE_LEN, row));
+            assertEquals(entry.itableLen, table.get(Column.ITABLE_LEN, row));
+            assertEquals(row, table.rowOf(entry.address()));
+        }
+        assertEquals(table.size() - 1, table.rowOf("java/lang/Object"));
+        assertEquals(-1, table.rowOf("missing/X"));
+
+        ClassTable bounded = AotpApi.loadClassTable(file, null, ClassFilter.all(),
+                MemoryBudget.of(MemoryBudget.MIN_BYTES));
+        assertArrayEquals(columnValues(table, Column.ADDRESS), columnValues(bounded, Column.ADDRESS));
+    }
+
+    @Test
+    void aggregatesOverColumns() throws IOException {
+        String file = writeArchive();
+        List<ClassEntry> entries = AotpApi.listClasses(file);
+        ClassTable table = AotpApi.loadClassTable(file, ClassFilter.all());
+
+        long totalSize = entries.stream().mapToLong(ClassEntry::getSize).sum();
+        assertEquals(totalSize, table.sum(Column.SIZE));
+        assertEquals(totalSize, table.sum(Column.SIZE, table.all()));
+
+        int[] interfaces = table.filter(Column.ACCESS_FLAGS, flags -> (flags & 0x200) != 0);
+        assertEquals(13, interfaces.length);
+        int[] appInterfaces = table.filterByNamePrefix(interfaces, "app/");
+        assertArrayEquals(interfaces, appInterfaces);
+
+        LongCounterMap byKind = table.groupBy(Column.KIND, Column.SIZE);
+        assertEquals(51, byKind.count(KlassKind.INSTANCE_KLASS.ordinal()));
+        assertEquals(1, byKind.count(KlassKind.OBJ_ARRAY_KLASS.ordinal()));
+        assertEquals(totalSize, byKind.bytes(0) + byKind.bytes(KlassKind.OBJ_ARRAY_KLASS.ordinal()));
+
+        LongCounterMap byLoader = table.groupBy(table.filterByNamePrefix(table.all(), "app/"),
+                Column.LOADER, Column.SIZE);
+        assertEquals(3, byLoader.size());
+        assertEquals(17, byLoader.count(0x1000));
+    }
+
+    @Test
+    void filterIsAppliedDuringTheScan() throws IOException {
+        String file = writeArchive();
+        ClassTable table = AotpApi.loadClassTable(file, ClassFilter.all().withName("app/C1*"));
+        assertEquals(11, table.size());
+        assertEquals("app/C1", table.name(0));
+        assertEquals("app/C19", table.name(10));
+    }
+
+    private static long[] columnValues(ClassTable table, Column column) {
+        long[] values = new long[table.size()];
+        for (int row = 0; row < values.length; row++) {
+            values[row] = table.get(column, row);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.chains_project.aotp.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.oops.klass.ClassState;
+import io.github.chains_project.aotp.oops.klass.LoaderType;
+import io.github.chains_project.aotp.scan.ClassFilter;
+import io.github.chains_project.aotp.scan.MemoryBudget;
+
+class ConfigurationAnalyzerTest {
+
+    // InstanceKlassFlags bits, see LoaderType
+    private static final int LOADING_FAILED = 1 << 6;
+    private static final int BOOT = 1 << 7;
+    private static final int PLATFORM = 1 << 8;
+    private static final int APP = 1 << 9;
+
+    @TempDir
+    Path tempDir;
+
+    private SyntheticArchive configuration() {
+        return new SyntheticArchive()
+                .magic(SyntheticArchive.AOTCONFIG_MAGIC)
+                .instanceKlass("java/lang/Object", 5)
+                .instanceKlass("java/sql/Driver", 3)
+                .instanceKlass("com/example/App", 4)
+                .instanceKlass("com/example/Broken", 2)
+                .instanceKlass("com/example/Plugin", 1)
+                .klass("[I", 5, 0, 0, 0, 0x1)
+                .state("java/lang/Object", 5, BOOT)
+                .state("java/sql/Driver", 3, PLATFORM)
+                .state("com/example/App", 1, APP)
+                .state("com/example/Broken", 6, APP)
+                .state("com/example/Plugin", 3, APP | LOADING_FAILED);
+    }
+
+    @Test
+    void streamsRecordedClassesWithLoaderAndState() throws IOException {
+        String file = configuration().write(tempDir.resolve("app.aotconf")).toString();
+
+        List<ConfiguredClass> classes = new ArrayList<>();
+        AotpApi.forEachConfiguredClass(file, ClassFilter.all(), MemoryBudget.unbounded(), classes::add);
+
+        assertEquals(6, classes.size());
+        ConfiguredClass object = classes.get(0);
+        assertEquals(LoaderType.BOOT, object.loader());
+        assertEquals(ClassState.FULLY_INITIALIZED, object.state());
+        assertEquals(LoaderType.PLATFORM, classes.get(1).loader());
+        assertEquals(ClassState.LOADED, classes.get(2).state());
+        assertTrue(classes.get(2).isExpectedInCache());
+        assertFalse(classes.get(3).isExpectedInCache());
+        assertTrue(classes.get(4).loadingFailed());
+        assertNull(classes.get(5).loader());
+    }
+
+    @Test
+    void predictsTheCacheFromClassesExpectedToCarryOver() throws IOException {
+        SyntheticArchive synthetic = configuration();
+        String file = synthetic.write(tempDir.resolve("app.aotconf")).toString();
+
+        ConfigurationReport report = AotpApi.analyzeConfiguration(file, ClassFilter.all(), MemoryBudget.unbounded());
+
+        long total = synthetic.klasses().stream().mapToLong(SyntheticArchive.KlassSpec::size).sum();
+        long excluded = synthetic.klasses().get(3).size() + synthetic.klasses().get(4).size();
+        assertEquals(6, report.classCount());
+        assertEquals(total, report.totalBytes());
+        assertEquals(4, report.linkedCount());
+        assertEquals(2, report.excludedCount());
+        assertEquals(4, report.predictedClassCount());
+        assertEquals(excluded, report.excludedBytes());
+        assertEquals(Math.round(report.metadataBytes() * ((double) (total - excluded) / total)),
+                report.predictedCacheBytes());
+        assertEquals(List.of("boot", "platform", "app", "<array>"),
+                report.loaders().stream().map(FootprintRow::key).toList());
+        assertEquals(new FootprintRow("app", 3,
+                        synthetic.klasses().get(2).size() + excluded),
+                report.loaders().get(2));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotConfigurations() throws IOException {
+        String file = new SyntheticArchive().instanceKlass("java/lang/Object", 5)
+                .write(tempDir.resolve("cache.aot")).toString();
+
+        assertThrows(IOException.class,
+                () -> AotpApi.analyzeConfiguration(file, ClassFilter.all(), MemoryBudget.unbounded()));
+    }
+}
@@ -0,0 +1,128 @@
+package io.github.chains_project.aotp.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.output.ChannelSink;
+import io.github.chains_project.aotp.output.OutputFormat;
+import io.github.chains_project.aotp.output.RecordWriter;
+
+class DedupAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Three services on the same JDK: java/lang/Object and java/lang/String are
+     * laid out identically in every archive, the third class differs.
+     */
+    private List<String> writeFleet(boolean tables) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (String service : List.of("a/Foo", "b/Bar", "c/Baz")) {
+            SyntheticArchive archive = new SyntheticArchive()
+                    .instanceKlass("java/lang/Object", 5)
+                    .instanceKlass("java/lang/String", 9)
+                    .instanceKlass(service, 3);
+            if (tables) {
+                archive.withTables(false);
+            }
+            files.add(archive.write(tempDir.resolve(service.replace('/', '_') + ".aot")).toString());
+        }
+        return files;
+    }
+
+    private static void assertFleetReport(DedupReport report) {
+        int object = 472 + 5 * 8;
+        int string = 472 + 9 * 8;
+        int service = 472 + 3 * 8;
+        assertEquals(3, report.archives().size());
+
+        DedupReport.Section klasses = report.klasses();
+        assertEquals(5, klasses.distinctCount());
+        assertEquals(3L * (object + string + service), klasses.totalBytes());
+        assertEquals(object + string, klasses.commonBytes());
+        assertEquals(object + string, klasses.sharedBytes());
+        assertEquals(2L * (object + string), klasses.savingsBytes());
+        assertEquals(2L * (object + string), klasses.baseSavingsBytes());
+
+        // 6 + 16 bytes rounded to words for the java/lang names, 6 + 5 for the others
+        DedupReport.Section symbols = report.symbols();
+        assertEquals(5, symbols.distinctCount());
+        assertEquals(3L * (24 + 24 + 16), symbols.totalBytes());
+        assertEquals(48, symbols.commonBytes());
+        assertEquals(96, symbols.baseSavingsBytes());
+    }
+
+    @Test
+    void reportsContentCommonToAllArchives() throws IOException {
+        assertFleetReport(AotpApi.analyzeDedup(writeFleet(false)));
+    }
+
+    @Test
+    void enumeratesSymbolsThroughTheSymbolTable() throws IOException {
+        assertFleetReport(AotpApi.analyzeDedup(writeFleet(true)));
+    }
+
+    @Test
+    void reportIsWrittenAsRecords() throws IOException {
+        DedupReport report = AotpApi.analyzeDedup(writeFleet(false));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ChannelSink sink = new ChannelSink(Channels.newChannel(bytes))) {
+            report.write(RecordWriter.create(OutputFormat.JSONL, sink));
+        }
+        List<String> lines = List.of(new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+
+        assertEquals(6, lines.size());
+        assertEquals("{\"type\":\"dedup_section\",\"content\":\"symbols\",\"distinct\":5,\"total_bytes\":192,"
+                + "\"distinct_bytes\":96,\"shared_bytes\":48,\"common_bytes\":48,\"savings_bytes\":96,"
+                + "\"base_savings_bytes\":96}", lines.get(4));
+        assertEquals(String.format("{\"type\":\"dedup\",\"archives\":3,\"total_bytes\":%d,\"savings_bytes\":%d,"
+                + "\"base_savings_bytes\":%d,\"base_savings_pages\":0}", report.totalBytes(), report.savingsBytes(),
+                report.baseSavingsBytes()), lines.get(5));
+    }
+
+    @Test
+    void pointersAreNormalizedToBaseOffsets() {
+        DedupAnalyzer analyzer = new DedupAnalyzer();
+        int first = analyzer.beginArchive("first");
+        int second = analyzer.beginArchive("second");
+        byte[] a = { 0x10, 0, 0, 0, 1, 0, 0, 0, 42, 0, 0, 0, 0, 0, 0, 0 };
+        // Same record, mapped 0x1000 higher
+        byte[] b = { 0x10, 0x10, 0, 0, 1, 0, 0, 0, 42, 0, 0, 0, 0, 0, 0, 0 };
+        analyzer.addKlass(first, a, 0, a.length, 0x100000000L, 0x200000000L, null);
+        // At an offset in a larger buffer, which is left as it was
+        byte[] window = new byte[8 + b.length];
+        System.arraycopy(b, 0, window, 8, b.length);
+        analyzer.addKlass(second, window, 8, b.length, 0x100001000L, 0x200000000L, null);
+        assertEquals(0x10, window[9]);
+
+        DedupReport report = analyzer.report();
+        assertEquals(1, report.klasses().distinctCount());
+        assertEquals(16, report.klasses().baseSavingsBytes());
+        assertNotEquals(DedupAnalyzer.hash(new byte[8], 0, 8), DedupAnalyzer.hash(new byte[9], 0, 9));
+    }
+
+    @Test
+    void rejectsMoreArchivesThanTheTableTracks() {
+        DedupAnalyzer analyzer = new DedupAnalyzer();
+        for (int i = 0; i < 64; i++) {
+            analyzer.beginArchive("archive" + i);
+        }
+        assertThrows(IllegalArgumentException.class, () -> analyzer.beginArchive("one too many"));
+    }
+}
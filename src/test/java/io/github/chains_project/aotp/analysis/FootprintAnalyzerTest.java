@@ -0,0 +1,100 @@
+package io.github.chains_project.aotp.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.output.ChannelSink;
+import io.github.chains_project.aotp.output.OutputFormat;
+import io.github.chains_project.aotp.output.RecordWriter;
+
+class FootprintAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void aggregatesByPackageLoaderKindAndClassPathIndex() throws IOException {
+        SyntheticArchive archive = new SyntheticArchive()
+                .klass("java/lang/Object", 0, 0, 0, 5, 0x1)
+                .klass("java/lang/String", 0, 0, 0, 10, 0x11)
+                .klass("com/example/App", 0, 0x1234, 2, 1, 0x1)
+                .klass("[Ljava/lang/String;", 6, 0, 0, 5, 0x1)
+                .klass("[I", 5, 0, 0, 5, 0x1);
+        Path file = archive.write(tempDir.resolve("classes.aot"));
+
+        FootprintReport report = AotpApi.analyzeFootprint(file.toString(), 10);
+
+        long total = archive.klasses().stream().mapToLong(SyntheticArchive.KlassSpec::size).sum();
+        assertEquals(5, report.classCount());
+        assertEquals(total, report.totalBytes());
+
+        FootprintRow javaLang = report.packages().get(0);
+        assertEquals(new FootprintRow("java/lang", 3, 552 + 512 + 512), javaLang);
+        assertEquals(List.of("java/lang", "<primitive arrays>", "com/example"),
+                report.packages().stream().map(FootprintRow::key).toList());
+
+        assertEquals(List.of("InstanceKlass", "ObjArrayKlass", "TypeArrayKlass"),
+                report.kinds().stream().map(FootprintRow::key).toList());
+        assertEquals(new FootprintRow("0x1234", 1, 480), report.loaders().get(1));
+        assertEquals(new FootprintRow("2", 1, 480), report.sharedClassPathIndices().get(1));
+        assertEquals(1, report.histogramCounts()[8]);
+        assertEquals(4, report.histogramCounts()[9]);
+    }
+
+    @Test
+    void reportIsWrittenAsRecords() throws IOException {
+        SyntheticArchive archive = new SyntheticArchive()
+                .klass("java/lang/Object", 0, 0, 0, 10, 0x1)
+                .klass("[I", 5, 0, 0, 5, 0x1);
+        Path file = archive.write(tempDir.resolve("records.aot"));
+        FootprintReport report = AotpApi.analyzeFootprint(file.toString(), 10);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ChannelSink sink = new ChannelSink(Channels.newChannel(bytes))) {
+            report.write(RecordWriter.create(OutputFormat.JSONL, sink));
+        }
+        List<String> lines = List.of(new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n"));
+
+        assertEquals("{\"type\":\"footprint_package\",\"key\":\"java/lang\",\"classes\":1,\"bytes\":552}",
+                lines.get(0));
+        assertEquals("{\"type\":\"footprint_histogram\",\"low\":512,\"high\":1023,\"classes\":2,\"bytes\":1064}",
+                lines.get(lines.size() - 2));
+        assertEquals("{\"type\":\"footprint\",\"classes\":2,\"bytes\":1064}", lines.get(lines.size() - 1));
+    }
+
+    @Test
+    void limitsRowsToTopN() throws IOException {
+        SyntheticArchive archive = new SyntheticArchive();
+        for (int i = 0; i < 5; i++) {
+            archive.instanceKlass("p" + i + "/C", i);
+        }
+        Path file = archive.write(tempDir.resolve("top.aot"));
+
+        FootprintReport report = AotpApi.analyzeFootprint(file.toString(), 2);
+
+        assertEquals(List.of("p4", "p3"), report.packages().stream().map(FootprintRow::key).toList());
+    }
+
+    @Test
+    void packageOfHandlesArraysAndUnnamedPackage() {
+        assertArrayEquals(new String[] { "java/lang", "java/util", "<primitive arrays>", "<unnamed>" },
+                new String[] {
+                    FootprintAnalyzer.packageOf("java/lang/String"),
+                    FootprintAnalyzer.packageOf("[[Ljava/util/List;"),
+                    FootprintAnalyzer.packageOf("[J"),
+                    FootprintAnalyzer.packageOf("Hello"),
+                });
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.chains_project.aotp.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+
+class HitRateAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static ClassLoadLog.Entry parse(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return ClassLoadLog.parseLine(bytes, 0, bytes.length);
+    }
+
+    @Test
+    void parsesUnifiedAndLegacyFormats() {
+        ClassLoadLog.Entry unified = parse("[0.012s][info][class,load] java.lang.Object source: shared objects file");
+        assertEquals(new ClassLoadLog.Entry("java/lang/Object", "shared objects file"), unified);
+        assertTrue(unified.fromArchive());
+        assertTrue(parse("[1.2s][info][class,load] a.B source: shared objects file (top)\r").fromArchive());
+        assertEquals(new ClassLoadLog.Entry("com/example/Main", "file:/app/app.jar"),
+                parse("[Loaded com.example.Main from file:/app/app.jar]"));
+        // class+load=debug detail lines and unrelated output are skipped
+        assertNull(parse("[0.012s][debug][class,load] java.lang.Object: klass: 0x0000000800001000 super: 0x0"));
+        assertNull(parse("Hello, world"));
+        assertNull(parse(""));
+    }
+
+    @Test
+    void joinsLogAgainstCachedClasses() throws IOException {
+        Path archive = new SyntheticArchive()
+                .instanceKlass("java/lang/Object", 5)
+                .instanceKlass("java/lang/String", 9)
+                .instanceKlass("app/Main", 3)
+                .instanceKlass("app/Unused", 1)
+                .write(tempDir.resolve("app.aot"));
+        Path log = tempDir.resolve("class-load.log");
+        Files.writeString(log, String.join("\n",
+                "[0.010s][info][class,load] java.lang.Object source: shared objects file",
+                "[0.011s][info][class,load] java.lang.String source: shared objects file",
+                "[0.011s][info][class,load] java.lang.Thread source: shared objects file",
+                "[0.200s][info][class,load] app.Main source: file:/app/app.jar",
+                "[0.201s][info][class,load] app.Late source: file:/app/app.jar",
+                "[0.202s][info][class,load] app.Main$$Lambda/0x0000000801001000 source: app.Main",
+                "[0.203s][info][class,load] jdk.proxy1.$Proxy0 source: __JVM_DefineClass__",
+                "[0.204s][info][class,load] plugin.Impl source: instance of plugin.PluginLoader",
+                "Started in 0.3s"));
+
+        HitRateReport report = AotpApi.analyzeHitRate(archive.toString(), null, log);
+        assertEquals(8, report.loadedCount());
+        assertEquals(3, report.archiveHits());
+        assertEquals(1, report.hitsOutsideIndex());
+        assertEquals(5, report.diskLoads());
+        assertEquals(1L, report.reasons().get(MissReason.CACHED_NOT_USED));
+        assertEquals(1L, report.reasons().get(MissReason.NOT_IN_TRAINING));
+        assertEquals(2L, report.reasons().get(MissReason.GENERATED));
+        assertEquals(1L, report.reasons().get(MissReason.CUSTOM_LOADER));
+        assertEquals("app/Main", report.misses().get(0).name());
+
+        assertEquals(4, report.cacheClassCount());
+        assertEquals(List.of("app/Main", "app/Unused"), report.unusedClasses());
+        assertEquals(472 + 3 * 8 + 472 + 8, report.unusedBytes());
+    }
+
+    @Test
+    void linesSpanningChunksAreReassembled() throws IOException {
+        List<String> lines = new ArrayList<>();
+        int count = 3 * ClassLoadLog.CHUNK_SIZE / 60;
+        for (int i = 0; i < count; i++) {
+            lines.add("[" + i + "s][info][class,load] pkg.C" + i + " source: jrt:/java.base");
+        }
+        // A line longer than a chunk
+        lines.add("[9s][info][class,load] pkg.Long source: file:/" + "x".repeat(ClassLoadLog.CHUNK_SIZE + 7));
+        Path log = tempDir.resolve("long.log");
+        Files.write(log, lines);
+
+        List<ClassLoadLog.Entry> entries = new ArrayList<>();
+        ClassLoadLog.read(log, entries::add);
+        assertEquals(count + 1, entries.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals("pkg/C" + i, entries.get(i).name());
+        }
+        assertEquals(ClassLoadLog.CHUNK_SIZE + 13, entries.get(count).source().length());
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.chains_project.aotp.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+
+class PageLayoutAnalyzerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static PageLayoutAnalyzer singleRegion(long start, long size) {
+        return new PageLayoutAnalyzer(new String[] {"rw"}, new long[] {start}, new long[] {size}, Set.of(), 4096);
+    }
+
+    @Test
+    void objectsStraddlingAPageBoundaryCountOnBothPages() {
+        PageLayoutAnalyzer analyzer = singleRegion(0x10000, 3 * 4096);
+        analyzer.add(0x10000 + 4000, 200, true);
+        analyzer.add(0x10000 + 2 * 4096, 100, false);
+        // Outside the region
+        analyzer.add(0x8000, 100, true);
+
+        RegionPages rw = analyzer.report().regions().get(0);
+        assertEquals(3, rw.pageCount());
+        assertEquals(96, rw.selectedBytes()[0]);
+        assertEquals(104, rw.selectedBytes()[1]);
+        assertEquals(0, rw.selectedBytes()[2]);
+        assertEquals(100, rw.objectBytes()[2]);
+        assertEquals(2, rw.pagesTouched());
+        // 200 bytes would fit on one page but touch two
+        assertEquals(0.5, rw.locality(), 1e-9);
+    }
+
+    @Test
+    void localityIsOneForPackedOrEmptySelections() {
+        PageLayoutAnalyzer analyzer = singleRegion(0, 2 * 4096);
+        assertEquals(1.0, analyzer.report().regions().get(0).locality(), 1e-9);
+        analyzer.add(0, 2 * 4096, true);
+        RegionPages rw = analyzer.report().regions().get(0);
+        assertEquals(1.0, rw.locality(), 1e-9);
+        assertEquals(1.0, rw.fillRatio(1), 1e-9);
+    }
+
+    @Test
+    void rejectsPageSizesThatAreNotPowersOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new PageLayoutAnalyzer(new String[0], new long[0],
+                new long[0], Set.of(), 3000));
+    }
+
+    @Test
+    void mapsSelectedClassesAndTheirNameSymbols() throws IOException {
+        SyntheticArchive archive = new SyntheticArchive();
+        for (int i = 0; i < 20; i++) {
+            archive.instanceKlass("app/C" + i, 40);
+        }
+        Path file = archive.write(tempDir.resolve("classes.aot"));
+        int size = 472 + 40 * 8;
+
+        PageLayoutReport report = AotpApi.analyzePageLayout(file.toString(),
+                List.of("app.C3", "app/C17", "app/Missing"));
+        assertEquals(3, report.requestedClasses());
+        assertEquals(2, report.foundClasses());
+
+        RegionPages rw = report.regions().get(0);
+        assertEquals("rw", rw.name());
+        assertEquals(2L * size, rw.totalSelectedBytes());
+        long rwStart = archive.requestedBase() + archive.regionOffset(0);
+        int expectedPages = 0;
+        for (String name : List.of("app/C3", "app/C17")) {
+            long first = (archive.klassAddress(name) - rwStart) / 4096;
+            long last = (archive.klassAddress(name) + size - 1 - rwStart) / 4096;
+            expectedPages += (int) (last - first + 1);
+        }
+        assertEquals(expectedPages, rw.pagesTouched());
+
+        // "app/C3" and "app/C17" are 6 + 6 and 6 + 7 bytes, one word pair each
+        RegionPages ro = report.regions().get(1);
+        assertEquals("ro", ro.name());
+        assertEquals(32, ro.totalSelectedBytes());
+        assertEquals(1, ro.pagesTouched());
+        assertEquals(report.pagesTouched(), rw.pagesTouched() + ro.pagesTouched());
+    }
+}
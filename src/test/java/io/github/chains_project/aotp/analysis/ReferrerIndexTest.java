@@ -0,0 +1,98 @@
+package io.github.chains_project.aotp.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+
+class ReferrerIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void groupsSlotsByTargetInCompressedRows() {
+        ReferrerIndex.Collector collector = new ReferrerIndex.Collector();
+        collector.visit(0x100, 0x900);
+        collector.visit(0x108, 0x500);
+        collector.visit(0x110, 0x900);
+        collector.visit(0x118, 0x508);
+        for (int i = 0; i < 5000; i++) {
+            collector.visit(0x10000 + 8L * i, 0x700);
+        }
+        ReferrerIndex index = collector.build();
+
+        assertEquals(4, index.targetCount());
+        assertEquals(5004, index.pointerCount());
+        assertArrayEquals(new long[] { 0x100, 0x110 }, index.referrers(0x900));
+        assertArrayEquals(new long[0], index.referrers(0x600));
+        assertEquals(5000, index.referrers(0x700).length);
+        // Everything pointing into [0x500, 0x510)
+        assertArrayEquals(new long[] { 0x108, 0x118 }, index.referrers(0x500, 0x510));
+    }
+
+    private static SyntheticArchive hierarchy() {
+        return new SyntheticArchive()
+                .instanceKlass("app/Base", 2)
+                .instanceKlass("app/Left", 2)
+                .instanceKlass("app/Right", 2)
+                .superclass("app/Left", "app/Base")
+                .superclass("app/Right", "app/Base");
+    }
+
+    @Test
+    void findsSuperPointersByWordScan() throws IOException {
+        SyntheticArchive archive = hierarchy();
+        Path file = archive.write(tempDir.resolve("scan.aot"));
+
+        List<Referrer> referrers = AotpApi.findReferrers(file.toString(), null, "app/Base");
+        assertEquals(2, referrers.size());
+        assertEquals(new Referrer(archive.klassAddress("app/Left") + 120, archive.klassAddress("app/Base"),
+                "app/Left", 120, "rw"), referrers.get(0));
+        assertEquals("app/Right+0x78", referrers.get(1).location());
+
+        assertEquals(List.of(), AotpApi.findReferrers(file.toString(), null, "app/Left"));
+        assertNull(AotpApi.findReferrers(file.toString(), null, "app/Missing"));
+    }
+
+    @Test
+    void namesOwnersInBothLayers() throws IOException {
+        SyntheticArchive base = hierarchy();
+        Path basePath = base.write(tempDir.resolve("base.aot"));
+        SyntheticArchive top = new SyntheticArchive()
+                .layeredOn(base, basePath.toString())
+                .instanceKlass("app/Top", 2)
+                .superclass("app/Top", "app/Base");
+        Path file = top.write(tempDir.resolve("top.aot"));
+
+        List<Referrer> referrers = AotpApi.findReferrers(file.toString(), null, "app/Base");
+        assertEquals(List.of("app/Top", "app/Left", "app/Right"),
+                referrers.stream().map(Referrer::owner).toList());
+        assertEquals(new Referrer(base.klassAddress("app/Left") + 120, base.klassAddress("app/Base"),
+                "app/Left", 120, "rw"), referrers.get(1));
+    }
+
+    @Test
+    void pointerMapsRestrictTheSlots() throws IOException {
+        SyntheticArchive layout = hierarchy();
+        layout.write(tempDir.resolve("layout.aot"));
+        long rwStart = layout.requestedBase() + layout.regionOffset(0);
+        long leftSuper = (layout.klassAddress("app/Left") + 120 - rwStart) / 8;
+
+        // Only the super slot of app/Left is marked
+        Path file = hierarchy().pointerMap(0, leftSuper, 1L).write(tempDir.resolve("mapped.aot"));
+        List<Referrer> referrers = AotpApi.findReferrers(file.toString(), null, "app/Base");
+        assertEquals(1, referrers.size());
+        assertEquals("app/Left", referrers.get(0).owner());
+        assertEquals(1, AotpApi.buildReferrerIndex(file.toString()).pointerCount());
+    }
+}
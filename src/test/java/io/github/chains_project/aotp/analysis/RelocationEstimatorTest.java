@@ -0,0 +1,75 @@
+package io.github.chains_project.aotp.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+
+class RelocationEstimatorTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * rw is three pages; its map starts at word 500 so that it straddles the
+     * first page boundary (512 words per page). ro is one page.
+     */
+    private Path write() throws IOException {
+        return new SyntheticArchive()
+                .region(0, new byte[3 * 4096])
+                .region(1, new byte[4096])
+                // words 500, 501 (page 0), 512 and 500 + 64 + 39 (page 1); nothing on page 2
+                .pointerMap(0, 500, 0b11L | (1L << 12), 1L << 39)
+                .pointerMap(1, 0, 0xF0L)
+                .write(tempDir.resolve("relocated.aot"));
+    }
+
+    @Test
+    void countsPointersAndDirtiedPagesPerRegion() throws IOException {
+        Path file = write();
+        RelocationReport report = AotpApi.estimateRelocation(file.toString(), SyntheticArchive.BASE + 0x100000);
+        assertTrue(report.relocationNeeded());
+        assertTrue(report.isBaseAligned());
+        assertEquals(0x100000, report.delta());
+
+        RelocationReport.RegionRelocation rw = report.regions().get(0);
+        assertEquals("rw", rw.name());
+        assertEquals(4, rw.pointers());
+        assertEquals(3, rw.pageCount());
+        assertEquals(2, rw.pagesWithPointers());
+
+        RelocationReport.RegionRelocation ro = report.regions().get(1);
+        assertEquals(4, ro.pointers());
+        assertEquals(1, ro.pagesWithPointers());
+
+        assertEquals(8, report.pointersToPatch());
+        assertEquals(3, report.pagesDirtied());
+        assertEquals(24, report.bitmapBytes());
+    }
+
+    @Test
+    void mappingAtTheRequestedBaseCostsNothing() throws IOException {
+        RelocationReport report = AotpApi.estimateRelocation(write().toString(), SyntheticArchive.BASE);
+        assertFalse(report.relocationNeeded());
+        assertEquals(8, report.pointers());
+        assertEquals(0, report.pointersToPatch());
+        assertEquals(0, report.pagesDirtied());
+    }
+
+    @Test
+    void defaultMapBaseIsAlignedAndPastTheArchive() throws IOException {
+        RelocationReport report = AotpApi.estimateRelocation(write().toString());
+        assertTrue(report.relocationNeeded());
+        assertTrue(report.isBaseAligned());
+        assertTrue(report.delta() >= 4 * 4096);
+        assertFalse(AotpApi.estimateRelocation(write().toString(), SyntheticArchive.BASE + 8).isBaseAligned());
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.chains_project.aotp.analysis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+
+class SampleAnalyzerTest {
+
+    private static final int CHUNK_SIZE = 1024;
+
+    @TempDir
+    Path tempDir;
+
+    private static SyntheticArchive archive() {
+        SyntheticArchive archive = new SyntheticArchive();
+        for (int i = 0; i < 40; i++) {
+            archive.klass("p" + (i % 3) + "/C" + i, 0, 0, 0, i % 7, 0x1);
+            archive.klass("[Lp" + (i % 3) + "/C" + i + ";", 6, 0, 0, 0, 0x1);
+        }
+        return archive.symbol("main", 1).symbol("([Ljava/lang/String;)V", 1).withTables(false);
+    }
+
+    @Test
+    void sampleOfEveryChunkIsExact() throws IOException {
+        Path file = archive().write(tempDir.resolve("all.aot"));
+        FootprintReport exact = AotpApi.analyzeFootprint(file.toString(), 10);
+
+        SampleReport sample = AotpApi.sampleStatistics(file.toString(), null, 60_000, CHUNK_SIZE, 1, 10);
+
+        assertTrue(sample.isComplete());
+        assertTrue(sample.rwChunks() > 10);
+        assertEquals(new SampleReport.Estimate(exact.classCount(), 0), sample.classCount());
+        assertEquals(new SampleReport.Estimate(exact.totalBytes(), 0), sample.totalBytes());
+        for (FootprintRow kind : exact.kinds()) {
+            SampleReport.Row row = row(sample.kinds(), kind.key());
+            assertEquals(kind.count(), row.count().value(), kind.key());
+            assertEquals(kind.bytes(), row.bytes().value(), kind.key());
+        }
+        assertEquals(exact.packages().stream().map(FootprintRow::key).toList(),
+                sample.packages().stream().map(SampleReport.Row::key).toList());
+
+        long symbolBytes = 0;
+        for (String name : List.of("main", "([Ljava/lang/String;)V")) {
+            symbolBytes += SampleAnalyzer.symbolSize(name.getBytes(StandardCharsets.UTF_8).length);
+        }
+        for (SyntheticArchive.KlassSpec klass : archive().klasses()) {
+            symbolBytes += SampleAnalyzer.symbolSize(klass.name().getBytes(StandardCharsets.UTF_8).length);
+        }
+        assertEquals(82, sample.symbolCount());
+        assertEquals(new SampleReport.Estimate(symbolBytes, 0), sample.symbolBytes());
+    }
+
+    @Test
+    void sampleWithoutTimeReadsTheMinimum() throws IOException {
+        Path file = archive().write(tempDir.resolve("sample.aot"));
+
+        SampleReport sample = AotpApi.sampleStatistics(file.toString(), null, 0, CHUNK_SIZE, 42, 10);
+
+        assertEquals(SampleAnalyzer.MIN_CHUNKS, sample.sampledRwChunks());
+        assertEquals(Math.min(sample.symbolChunks(), SampleAnalyzer.MIN_CHUNKS), sample.sampledSymbolChunks());
+        assertTrue(sample.classCount().margin() > 0);
+        assertTrue(Double.isFinite(sample.classCount().margin()));
+        StringBuilder text = new StringBuilder();
+        sample.print(text);
+        assertTrue(text.toString().startsWith("sampled 2 of " + sample.rwChunks() + " rw chunks"), text.toString());
+    }
+
+    @Test
+    void estimateCoversTheTotalAtTheNominalRate() throws IOException {
+        Path file = archive().write(tempDir.resolve("coverage.aot"));
+        long classes = AotpApi.analyzeFootprint(file.toString(), 1).classCount();
+
+        int covered = 0;
+        int runs = 200;
+        for (int seed = 0; seed < runs; seed++) {
+            SampleReport sample = AotpApi.sampleStatistics(file.toString(), null, 0, CHUNK_SIZE, seed, 1);
+            SampleReport.Estimate estimate = sample.classCount();
+            if (estimate.low() <= classes && classes <= estimate.high()) {
+                covered++;
+            }
+        }
+        // Two chunks make a poor normal approximation; the interval still has to cover most draws
+        assertTrue(covered >= runs / 2, covered + " of " + runs);
+    }
+
+    private static SampleReport.Row row(List<SampleReport.Row> rows, String key) {
+        return rows.stream().filter(row -> row.key().equals(key)).findFirst().orElseThrow();
+    }
+}
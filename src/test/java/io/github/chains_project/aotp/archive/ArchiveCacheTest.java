@@ -0,0 +1,132 @@
+package io.github.chains_project.aotp.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.scan.ClassFilter;
+
+class ArchiveCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void disableCache() {
+        AotpApi.disableArchiveCache();
+    }
+
+    private static Path write(Path file, String... names) throws IOException {
+        SyntheticArchive archive = new SyntheticArchive();
+        for (int i = 0; i < names.length; i++) {
+            archive.instanceKlass(names[i], i);
+        }
+        return archive.write(file);
+    }
+
+    @Test
+    void repeatedQueriesAreServedFromTheCache() throws IOException {
+        String file = write(tempDir.resolve("a.aot"), "app/A", "app/B", "lib/C").toString();
+        List<String> uncached = names(AotpApi.listClasses(file));
+        AotpApi.enableArchiveCache(4, 1L << 30);
+
+        assertEquals(uncached, names(AotpApi.listClasses(file)));
+        assertEquals(List.of("app/A", "app/B"), names(AotpApi.listClasses(file, ClassFilter.all().withName("app/"))));
+        assertEquals(1, AotpApi.getClassSizes(file, List.of("lib/C", "missing/X")).size());
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        assertTrue(AotpApi.printClass(file, "app/B", new PrintStream(printed)));
+        assertTrue(printed.size() > 0);
+        assertSame(AotpApi.findClass(file, "app/A"), AotpApi.findClass(file, "app/A"));
+
+        ArchiveCache.Stats stats = AotpApi.archiveCacheStats();
+        assertEquals(1, stats.misses());
+        assertEquals(5, stats.hits());
+        assertEquals(1, stats.entries());
+        assertTrue(stats.estimatedBytes() > 3 * 472);
+
+        AotpApi.disableArchiveCache();
+        assertNull(AotpApi.archiveCacheStats());
+    }
+
+    @Test
+    void changedFilesAreParsedAgain() throws IOException {
+        Path file = write(tempDir.resolve("b.aot"), "app/A");
+        AotpApi.enableArchiveCache(4, 1L << 30);
+        assertEquals(List.of("app/A"), names(AotpApi.listClasses(file.toString())));
+
+        // Touched but unchanged: the header CRC vouches for the entry
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 5000));
+        assertEquals(List.of("app/A"), names(AotpApi.listClasses(file.toString())));
+        assertEquals(0, AotpApi.archiveCacheStats().invalidations());
+
+        write(file, "app/A", "app/Added");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 10000));
+        assertEquals(List.of("app/A", "app/Added"), names(AotpApi.listClasses(file.toString())));
+
+        ArchiveCache.Stats stats = AotpApi.archiveCacheStats();
+        assertEquals(1, stats.invalidations());
+        assertEquals(2, stats.misses());
+        assertEquals(1, stats.hits());
+    }
+
+    @Test
+    void evictsByCountAndBytes() throws IOException {
+        String first = write(tempDir.resolve("1.aot"), "a/One").toString();
+        String second = write(tempDir.resolve("2.aot"), "b/Two").toString();
+
+        AotpApi.enableArchiveCache(1, 1L << 30);
+        AotpApi.listClasses(first);
+        AotpApi.listClasses(second);
+        AotpApi.listClasses(first);
+        ArchiveCache.Stats stats = AotpApi.archiveCacheStats();
+        assertEquals(3, stats.misses());
+        assertEquals(2, stats.evictions());
+        assertEquals(1, stats.entries());
+
+        assertThrows(IllegalArgumentException.class, () -> new ArchiveCache(0, 1));
+    }
+
+    @Test
+    void oversizedArchiveIsNotKeptAndEvictsNothing() throws IOException {
+        String small = write(tempDir.resolve("small.aot"), "a/One").toString();
+        String large = write(tempDir.resolve("large.aot"), "b/One", "b/Two", "b/Three", "b/Four").toString();
+
+        AotpApi.enableArchiveCache(8, 1000);
+        AotpApi.listClasses(small);
+        long smallBytes = AotpApi.archiveCacheStats().estimatedBytes();
+        assertTrue(smallBytes > 0 && smallBytes <= 1000);
+
+        assertNotNull(AotpApi.findClass(large, "b/Four"));
+        assertEquals(4, AotpApi.listClasses(large).size());
+        ArchiveCache.Stats stats = AotpApi.archiveCacheStats();
+        assertEquals(0, stats.evictions());
+        assertEquals(1, stats.entries());
+        assertEquals(smallBytes, stats.estimatedBytes());
+        assertEquals(3, stats.misses());
+
+        AotpApi.listClasses(small);
+        assertEquals(1, AotpApi.archiveCacheStats().hits());
+    }
+
+    private static List<String> names(List<ClassEntry> entries) {
+        return entries.stream().map(ClassEntry::getName).toList();
+    }
+}
@@ -0,0 +1,106 @@
+package io.github.chains_project.aotp.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.classfile.SymbolInfo;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+
+class ConcurrentAccessTest {
+
+    private static final int CLASSES = 200;
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 2000;
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * A chain of classes, each extending the previous one, with tables so that
+     * every query goes through the shared mappings.
+     */
+    static Path writeChain(Path file, int classes) throws IOException {
+        SyntheticArchive archive = new SyntheticArchive();
+        for (int i = 0; i < classes; i++) {
+            archive.instanceKlass("app/C" + i, 1 + i % 7);
+            if (i > 0) {
+                archive.superclass("app/C" + i, "app/C" + (i - 1));
+            }
+        }
+        return archive.withTables(false).write(file);
+    }
+
+    @Test
+    void concurrentQueriesOnOneArchiveMatchSequentialResults() throws Exception {
+        Path file = writeChain(tempDir.resolve("chain.aot"), CLASSES);
+        try (LayeredArchive archive = AotpApi.open(file.toString(), null)) {
+            long[] addresses = new long[CLASSES];
+            for (int i = 0; i < CLASSES; i++) {
+                addresses[i] = AotpApi.findClass(archive, "app/C" + i).address();
+            }
+
+            ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int seed = t;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    int checked = 0;
+                    for (int n = 0; n < ITERATIONS; n++) {
+                        int i = (seed * 7919 + n * 31) % CLASSES;
+                        String name = "app/C" + i;
+                        ClassEntry entry = AotpApi.findClass(archive, name);
+                        assertEquals(addresses[i], entry.address());
+                        assertEquals(name, entry.getName());
+                        assertEquals(i, AotpApi.getSuperclasses(archive, name).size());
+                        SymbolInfo symbol = AotpApi.lookupSymbols(archive, List.of(name)).get(0);
+                        assertNotNull(symbol);
+                        assertEquals(name, archive.klassName(addresses[i]));
+                        checked++;
+                    }
+                    return checked;
+                }));
+            }
+            start.countDown();
+            int total = 0;
+            for (Future<Integer> result : results) {
+                total += result.get(60, TimeUnit.SECONDS);
+            }
+            pool.shutdown();
+            assertEquals(THREADS * ITERATIONS, total);
+        }
+    }
+
+    @Test
+    void interruptedReaderDoesNotCloseTheArchive() throws IOException {
+        Path file = writeChain(tempDir.resolve("interrupt.aot"), 3);
+        try (LayeredArchive archive = AotpApi.open(file.toString(), null)) {
+            long klass = archive.findKlass("app/C2");
+            // An interrupted FileChannel read would close the channel for every thread
+            Thread.currentThread().interrupt();
+            try {
+                assertEquals("app/C2", archive.klassName(klass));
+            } finally {
+                assertTrue(Thread.interrupted());
+            }
+            assertEquals(List.of("app/C1", "app/C0"), archive.superclassNames(klass));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.chains_project.aotp.archive;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import io.github.chains_project.aotp.AotpApi;
+
+/**
+ * Throughput of class lookups on one shared archive against opening the file
+ * per lookup, for 1 up to {@code availableProcessors} threads. Not a unit test;
+ * run after {@code mvn test-compile} with
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes \
+ *     io.github.chains_project.aotp.archive.ConcurrentLookupBenchmark [seconds-per-run]
+ * </pre>
+ */
+public final class ConcurrentLookupBenchmark {
+
+    private static final int CLASSES = 2000;
+
+    private interface Lookup {
+        void run(int i) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long millis = (long) (1000 * (args.length > 0 ? Double.parseDouble(args[0]) : 2));
+        Path dir = Files.createTempDirectory("aotp-bench");
+        Path file = ConcurrentAccessTest.writeChain(dir.resolve("bench.aot"), CLASSES);
+        try (LayeredArchive shared = AotpApi.open(file.toString(), null)) {
+            System.out.printf("%8s %16s %16s%n", "threads", "shared ops/s", "per-open ops/s");
+            for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+                double sharedRate = measure(threads, millis,
+                        i -> AotpApi.findClass(shared, "app/C" + i));
+                double perOpenRate = measure(threads, millis,
+                        i -> AotpApi.findClass(file.toString(), null, "app/C" + i));
+                System.out.printf("%8d %16.0f %16.0f%n", threads, sharedRate, perOpenRate);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static double measure(int threads, long millis, Lookup lookup) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        List<Future<Long>> counts = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int seed = t;
+            counts.add(pool.submit(() -> {
+                long ops = 0;
+                while (System.nanoTime() < deadline) {
+                    lookup.run((int) ((seed * 7919L + ops * 31) % CLASSES));
+                    ops++;
+                }
+                return ops;
+            }));
+        }
+        long total = 0;
+        for (Future<Long> count : counts) {
+            total += count.get();
+        }
+        pool.shutdown();
+        return total * 1000.0 / millis;
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.chains_project.aotp.archive;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FileMappingTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsLittleEndianWordsAtAnyOffset() throws IOException {
+        ByteBuffer data = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        data.putLong(8, 0x1122334455667788L);
+        data.putLong(21, 0x0807060504030201L);
+        Path file = Files.write(tempDir.resolve("data.bin"), data.array());
+
+        try (FileChannel channel = FileChannel.open(file);
+             FileMapping mapping = FileMapping.map(channel, 4, 56)) {
+            assertEquals(expectedBackend(), FileMapping.backend());
+            assertEquals(56, mapping.size());
+            assertEquals(0x1122334455667788L, mapping.getLong(4));
+            assertEquals(0x0807060504030201L, mapping.getLong(17));
+            byte[] bytes = new byte[8];
+            mapping.get(17, bytes, 0, 8);
+            assertArrayEquals(Arrays.copyOfRange(data.array(), 21, 29), bytes);
+            assertEquals(0x1122334455667788L, mapping.asByteBuffer().getLong(4));
+
+            mapping.adviseSequential();
+            mapping.adviseWillNeed(0, mapping.size());
+            mapping.adviseWillNeed(40, 1 << 20);
+            assertThrows(IndexOutOfBoundsException.class, () -> mapping.get(50, bytes, 0, 8));
+        }
+    }
+
+    /**
+     * The Java 22 version of {@link FileMapping} is only picked up from the
+     * multi-release jar, which the {@code java22} profile tests again after
+     * packaging; the class directory always holds the NIO version.
+     */
+    private static String expectedBackend() {
+        String location = FileMapping.class.getProtectionDomain().getCodeSource().getLocation().getPath();
+        return location.endsWith(".jar") && Runtime.version().feature() >= 22 ? "ffm" : "nio";
+    }
+}
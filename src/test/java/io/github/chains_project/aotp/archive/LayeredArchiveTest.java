@@ -0,0 +1,149 @@
+package io.github.chains_project.aotp.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.classfile.SymbolInfo;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+
+class LayeredArchiveTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SyntheticArchive base;
+    private Path basePath;
+
+    @BeforeEach
+    void writeBase() throws IOException {
+        BaseArchiveCache.clear();
+        base = new SyntheticArchive()
+                .instanceKlass("java/lang/Object", 5)
+                .instanceKlass("java/lang/Number", 7)
+                .superclass("java/lang/Number", "java/lang/Object")
+                .symbol("main", SymbolInfo.PERM_REFCOUNT)
+                .symbol("com/example/Shared", 2)
+                .withTables(false);
+        basePath = base.write(tempDir.resolve("base.jsa"));
+    }
+
+    private String writeTop(String name, String recordedBase, boolean absolutePointers) throws IOException {
+        return new SyntheticArchive()
+                .layeredOn(base, recordedBase)
+                .instanceKlass("com/example/App", 9)
+                .instanceKlass("com/example/Sub", 11)
+                .instanceKlass("com/example/Shared", 6)
+                .superclass("com/example/App", "java/lang/Number")
+                .superclass("com/example/Sub", "com/example/App")
+                .withTables(absolutePointers)
+                .write(tempDir.resolve(name))
+                .toString();
+    }
+
+    @Test
+    void scansTopLayerWithNamesFromBothLayers() throws IOException {
+        String top = writeTop("top.jsa", basePath.toString(), false);
+
+        assertEquals(List.of("com/example/App", "com/example/Sub", "com/example/Shared"),
+                AotpApi.listClassNames(top));
+    }
+
+    @Test
+    void findsClassesInEitherLayerThroughTheirTables() throws IOException {
+        String top = writeTop("top.jsa", basePath.toString(), true);
+
+        try (LayeredArchive layered = LayeredArchive.open(top, null)) {
+            assertTrue(layered.isLayered());
+            assertTrue(layered.canFindClasses());
+            assertTrue(layered.top().contains(layered.findKlass("com/example/Shared")));
+            assertTrue(layered.base().contains(layered.findKlass("java/lang/Object")));
+            // The name symbol is the base's; only the top layer's dictionary has the class
+            assertTrue(layered.base().contains(layered.findSymbolAddress("com/example/Shared")));
+        }
+        ClassEntry shared = AotpApi.findClass(top, "com/example/Shared");
+        assertNotNull(shared);
+        assertEquals(new SyntheticArchive.KlassSpec("com/example/Shared", 0, 0, (short) 0, 6, (short) 1).size(),
+                shared.getSize());
+        assertEquals("java/lang/Number", AotpApi.findClass(top, "java/lang/Number").getName());
+        assertNull(AotpApi.findClass(top, "com/example/Absent"));
+    }
+
+    @Test
+    void followsSuperclassesIntoTheBaseLayer() throws IOException {
+        String top = writeTop("top.jsa", basePath.toString(), false);
+
+        assertEquals(List.of("com/example/App", "java/lang/Number", "java/lang/Object"),
+                AotpApi.getSuperclasses(top, null, "com/example/Sub"));
+    }
+
+    @Test
+    void looksUpSymbolsInTopThenBase() throws IOException {
+        String top = writeTop("top.jsa", basePath.toString(), false);
+
+        List<SymbolInfo> symbols = AotpApi.lookupSymbols(top, List.of("com/example/App", "main", "absent"));
+
+        try (LayeredArchive layered = LayeredArchive.open(top, null)) {
+            assertTrue(layered.top().contains(symbols.get(0).address()));
+            assertTrue(layered.base().contains(symbols.get(1).address()));
+        }
+        assertTrue(symbols.get(1).isPermanent());
+        assertNull(symbols.get(2));
+    }
+
+    @Test
+    void reusesBaseTablesAcrossTopArchives() throws IOException {
+        String first = writeTop("first.jsa", basePath.toString(), false);
+        String second = writeTop("second.jsa", basePath.toString(), true);
+
+        assertNotNull(AotpApi.findClass(first, "com/example/App"));
+        assertNotNull(AotpApi.findClass(second, "java/lang/Object"));
+
+        assertEquals(1, BaseArchiveCache.misses());
+        assertEquals(1, BaseArchiveCache.hits());
+    }
+
+    @Test
+    void resolvesTheBaseArchive() throws IOException {
+        // The recorded directory does not exist; the file next to the top archive is used
+        String moved = writeTop("moved.jsa", "/nonexistent/dir/base.jsa", false);
+        try (LayeredArchive layered = LayeredArchive.open(moved, null)) {
+            assertEquals(basePath.toAbsolutePath(), Path.of(layered.base().path()).toAbsolutePath());
+        }
+
+        String missing = writeTop("missing.jsa", "/nonexistent/dir/other.jsa", false);
+        assertThrows(IOException.class, () -> AotpApi.listClassNames(missing));
+        try (LayeredArchive layered = LayeredArchive.open(missing, basePath.toString())) {
+            assertNotNull(layered.base());
+        }
+    }
+
+    @Test
+    void routesAddressesToTheirLayer() throws IOException {
+        String top = writeTop("top.jsa", basePath.toString(), false);
+        try (AotArchive baseArchive = AotArchive.open(basePath.toString());
+             AotArchive topArchive = AotArchive.open(top)) {
+            AddressRouter router = new AddressRouter(topArchive, baseArchive);
+            long baseRw = baseArchive.regionStart(0);
+            long topRo = topArchive.regionStart(1);
+
+            assertSame(baseArchive, router.archiveAt(baseRw));
+            assertSame(topArchive, router.archiveAt(topRo));
+            assertNull(router.archiveAt(baseRw - 1));
+            assertThrows(IllegalArgumentException.class, () -> new AddressRouter(baseArchive, baseArchive));
+        }
+    }
+}
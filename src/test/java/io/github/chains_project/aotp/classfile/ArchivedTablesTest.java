@@ -0,0 +1,128 @@
+package io.github.chains_project.aotp.classfile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.archive.AotArchive;
+import io.github.chains_project.aotp.metrics.AotpMetrics;
+import io.github.chains_project.aotp.metrics.MetricsSnapshot;
+import io.github.chains_project.aotp.metrics.Phase;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+
+class ArchivedTablesTest {
+
+    @TempDir
+    Path tempDir;
+
+    private SyntheticArchive archiveWithClasses() {
+        SyntheticArchive archive = new SyntheticArchive();
+        for (int i = 0; i < 200; i++) {
+            archive.instanceKlass("pkg" + (i % 7) + "/Class" + i, i % 13);
+        }
+        return archive
+                .klass("[Ljava/lang/String;", 6, 0, 0, 5, 0x1)
+                .instanceKlass("java/lang/String", 9);
+    }
+
+    @Test
+    void findsTablesWithOffsetPointers() throws IOException {
+        findsTablesAndKlassesByName(false);
+    }
+
+    @Test
+    void findsTablesWithAbsolutePointers() throws IOException {
+        findsTablesAndKlassesByName(true);
+    }
+
+    private void findsTablesAndKlassesByName(boolean absolutePointers) throws IOException {
+        SyntheticArchive synthetic = archiveWithClasses().withTables(absolutePointers);
+        Path file = synthetic.write(tempDir.resolve("tables-" + absolutePointers + ".aot"));
+
+        try (AotArchive archive = AotArchive.open(file.toString())) {
+            ArchivedTables tables = ArchivedTables.locate(archive);
+            assertTrue(tables.canFindClasses());
+            assertEquals(202, tables.symbolTable().table().entryCount());
+            assertEquals(1, tables.dictionaries().size());
+            assertEquals(201, tables.dictionaries().get(0).table().entryCount());
+
+            long symbol = tables.symbolTable().lookup("pkg3/Class10");
+            assertNotEquals(0, symbol);
+            assertEquals("pkg3/Class10", new String(archive.symbolBytes(symbol)));
+            assertEquals(0, tables.symbolTable().lookup("pkg3/Class1000"));
+
+            long klass = tables.findKlass("java/lang/String");
+            assertNotEquals(0, klass);
+            ClassEntry entry = archive.readKlass(klass, "java/lang/String");
+            assertEquals(472 + 9 * 8, entry.getSize());
+            // Array klasses are not in the dictionary
+            assertEquals(0, tables.findKlass("[Ljava/lang/String;"));
+        }
+    }
+
+    @Test
+    void findClassUsesTheDictionaryAndFallsBackToTheScan() throws IOException {
+        SyntheticArchive synthetic = archiveWithClasses().withTables(false);
+        String file = synthetic.write(tempDir.resolve("lookup.aot")).toString();
+
+        AotpMetrics.reset();
+        AotpMetrics.setDetailed(true);
+        try {
+            ClassEntry string = AotpApi.findClass(file, "java/lang/String");
+            MetricsSnapshot afterLookup = AotpMetrics.snapshot();
+            assertNotNull(string);
+            assertEquals("java/lang/String", string.getName());
+            assertEquals(1, afterLookup.phase(Phase.INDEX_LOOKUP).count());
+            assertEquals(0, afterLookup.phase(Phase.SCAN).count());
+
+            ClassEntry array = AotpApi.findClass(file, "[Ljava/lang/String;");
+            assertNotNull(array);
+            assertEquals(1, AotpMetrics.snapshot().phase(Phase.SCAN).count());
+        } finally {
+            AotpMetrics.setDetailed(false);
+        }
+
+        assertNull(AotpApi.findClass(file, "does/not/Exist"));
+    }
+
+    @Test
+    void classSizesMatchTheScan() throws IOException {
+        SyntheticArchive synthetic = archiveWithClasses().withTables(true);
+        String file = synthetic.write(tempDir.resolve("sizes.aot")).toString();
+        List<String> names = List.of("pkg0/Class0", "pkg6/Class199", "[Ljava/lang/String;", "missing/Class");
+
+        Map<String, Integer> sizes = AotpApi.getClassSizes(file, names).entrySet().stream()
+                .collect(Collectors.toMap(e -> e.getKey().getName(), Map.Entry::getValue));
+
+        Map<String, Integer> expected = synthetic.klasses().stream()
+                .filter(k -> names.contains(k.name()))
+                .collect(Collectors.toMap(SyntheticArchive.KlassSpec::name, SyntheticArchive.KlassSpec::size));
+        assertEquals(expected, sizes);
+    }
+
+    @Test
+    void archivesWithoutSerializedDataHaveNoTables() throws IOException {
+        Path file = new SyntheticArchive().instanceKlass("a/B", 1).write(tempDir.resolve("none.aot"));
+
+        try (AotArchive archive = AotArchive.open(file.toString())) {
+            ArchivedTables tables = ArchivedTables.locate(archive);
+            assertFalse(tables.canFindClasses());
+            assertEquals(0, tables.findKlass("a/B"));
+        }
+        assertNotNull(AotpApi.findClass(file.toString(), "a/B"));
+    }
+}
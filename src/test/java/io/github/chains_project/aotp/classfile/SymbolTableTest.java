@@ -0,0 +1,71 @@
+package io.github.chains_project.aotp.classfile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+
+class SymbolTableTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void hashMatchesJavaLangStringHashCodeForAscii() {
+        for (String s : List.of("", "main", "java/lang/Object", "([Ljava/lang/String;)V")) {
+            assertEquals(s.hashCode(), SymbolTable.hash(s.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    void hashSignExtendsNonAsciiBytes() {
+        // (unsigned int) of a negative jbyte, as in java_lang_String::hash_code(const jbyte*, int)
+        assertEquals(31 * (int) (byte) 0xc3 + (byte) 0xa9, SymbolTable.hash("é".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void looksUpSymbolsWithTheirRefcount() throws IOException {
+        String file = new SyntheticArchive()
+                .instanceKlass("java/lang/Object", 5)
+                .symbol("main", SymbolInfo.PERM_REFCOUNT)
+                .symbol("([Ljava/lang/String;)V", 3)
+                .symbol("café", 1)
+                .withTables(false)
+                .write(tempDir.resolve("symbols.aot"))
+                .toString();
+
+        List<SymbolInfo> symbols = AotpApi.lookupSymbols(file,
+                List.of("main", "([Ljava/lang/String;)V", "java/lang/Object", "café", "absent"));
+
+        assertTrue(symbols.get(0).isPermanent());
+        assertEquals(0x1234, symbols.get(0).identityHash());
+        assertEquals(3, symbols.get(1).refcount());
+        assertFalse(symbols.get(1).isPermanent());
+        assertEquals(SymbolInfo.PERM_REFCOUNT, symbols.get(2).refcount());
+        assertEquals(1, symbols.get(3).refcount());
+        assertNull(symbols.get(4));
+        assertEquals(symbols.get(2).address(), AotpApi.lookupSymbol(file, "java/lang/Object").address());
+    }
+
+    @Test
+    void failsWithoutASymbolTable() throws IOException {
+        String file = new SyntheticArchive()
+                .instanceKlass("java/lang/Object", 5)
+                .write(tempDir.resolve("plain.aot"))
+                .toString();
+
+        assertThrows(IOException.class, () -> AotpApi.lookupSymbol(file, "main"));
+    }
+}
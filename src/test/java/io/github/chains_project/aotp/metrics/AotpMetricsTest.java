@@ -0,0 +1,156 @@
+package io.github.chains_project.aotp.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.archive.AotArchive;
+import io.github.chains_project.aotp.archive.LayeredArchive;
+import io.github.chains_project.aotp.scan.ClassFilter;
+import io.github.chains_project.aotp.scan.ClonedVtables;
+
+class AotpMetricsTest {
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void reset() {
+        AotpMetrics.reset();
+    }
+
+    @AfterEach
+    void disableDetailed() {
+        AotpMetrics.setDetailed(false);
+    }
+
+    @Test
+    void recordsPhasesAndScanCounters() throws IOException {
+        SyntheticArchive archive = new SyntheticArchive()
+                .instanceKlass("java/lang/Object", 5)
+                .instanceKlass("java/lang/String", 10)
+                .instanceKlass("com/example/App", 1);
+        Path file = archive.write(tempDir.resolve("stats.aot"));
+        AotpMetrics.setDetailed(true);
+
+        AotpApi.listClasses(file.toString(), ClassFilter.all().withName("java/"));
+
+        MetricsSnapshot snapshot = AotpMetrics.snapshot();
+        PhaseStats header = snapshot.phase(Phase.HEADER);
+        assertEquals(1, header.count());
+        // Padding inside the header is skipped, not read
+        assertTrue(header.bytesRead() > 0 && header.bytesRead() <= 24 + 5 * 96 + 528);
+
+        PhaseStats regionLoad = snapshot.phase(Phase.REGION_LOAD);
+        assertEquals(1, regionLoad.count());
+        // Only the used part of rw is copied out of its mapping
+        long rwUsed = rwUsed(file);
+        assertEquals(rwUsed, regionLoad.bytesRead());
+        assertTrue(regionLoad.wallNanos() > 0);
+
+        assertEquals(rwUsed / 8, snapshot.candidateWords());
+        assertEquals(3, snapshot.vtableMatches());
+        assertEquals(2, snapshot.classesMatched());
+
+        // Every name is decoded, only the two java/ classes are parsed
+        assertEquals(3, snapshot.phase(Phase.SYMBOL_DECODE).count());
+        // Names are read from the mapped regions, not by seeking in the file:
+        // the length and the body of each symbol
+        assertEquals(3 * 2 + 16 + 16 + 15, snapshot.phase(Phase.SYMBOL_DECODE).bytesRead());
+        assertEquals(0, snapshot.phase(Phase.SYMBOL_DECODE).readCalls());
+        assertEquals(0, snapshot.phase(Phase.SYMBOL_DECODE).seeks());
+        assertEquals(2, snapshot.phase(Phase.PARSE).count());
+        assertEquals(1, snapshot.phase(Phase.SCAN).count());
+        assertEquals(0, snapshot.phase(Phase.VERIFY).count());
+    }
+
+    @Test
+    void countsIndexLookupReads() throws IOException {
+        Path file = new SyntheticArchive()
+                .instanceKlass("java/lang/Object", 5)
+                .withTables(false)
+                .write(tempDir.resolve("lookup.aot"));
+        AotpMetrics.setDetailed(true);
+
+        try (LayeredArchive archive = LayeredArchive.open(file.toString(), null)) {
+            assertEquals("java/lang/Object", AotpApi.findClass(archive, "java/lang/Object").getName());
+        }
+
+        PhaseStats lookup = AotpMetrics.snapshot().phase(Phase.INDEX_LOOKUP);
+        assertEquals(1, lookup.count());
+        // The table and record reads are copies out of the mappings
+        assertTrue(lookup.bytesRead() > 0);
+        assertEquals(0, lookup.readCalls());
+    }
+
+    @Test
+    void timesNothingUnlessEnabled() throws IOException {
+        Path file = new SyntheticArchive()
+                .instanceKlass("java/lang/Object", 5)
+                .write(tempDir.resolve("plain.aot"));
+
+        AotpApi.listClasses(file.toString());
+
+        MetricsSnapshot snapshot = AotpMetrics.snapshot();
+        assertFalse(AotpMetrics.isEnabled());
+        assertEquals(0, snapshot.phase(Phase.HEADER).count());
+        assertEquals(0, snapshot.phase(Phase.SCAN).count());
+        // The scan counters cost nothing and are always kept
+        assertEquals(1, snapshot.classesMatched());
+        assertEquals(0, snapshot.phase(Phase.SYMBOL_DECODE).count());
+        assertEquals(0, snapshot.phase(Phase.PARSE).count());
+    }
+
+    @Test
+    void countsScansWithFixedVtablesAndTheirWordMatcher() throws IOException {
+        Path plain = new SyntheticArchive()
+                .instanceKlass("java/lang/Object", 5)
+                .write(tempDir.resolve("fixed.aot"));
+        Path cloned = new SyntheticArchive()
+                .instanceKlass("java/lang/Object", 5)
+                .withClonedVtables()
+                .write(tempDir.resolve("cloned.aot"));
+
+        AotpApi.listClasses(cloned.toString());
+        assertEquals(0, AotpMetrics.snapshot().fixedVtableScans());
+        AotpApi.listClasses(plain.toString());
+        MetricsSnapshot snapshot = AotpMetrics.snapshot();
+        assertEquals(1, snapshot.fixedVtableScans());
+        assertEquals(Map.of("pointer slots", 1L, ClonedVtables.fixed(0).wordMatcher(), 1L), snapshot.wordMatchers());
+        StringBuilder text = new StringBuilder();
+        snapshot.print(text);
+        assertTrue(text.toString().contains("klass vtables: not found in the archive, 1 scans"), text.toString());
+    }
+
+    @Test
+    void verifyAccountsCheckedBytes() throws IOException {
+        Path file = new SyntheticArchive()
+                .region(0, new byte[300])
+                .region(1, new byte[200])
+                .write(tempDir.resolve("verify.aot"));
+        AotpMetrics.setDetailed(true);
+
+        AotpApi.verify(file.toString());
+
+        PhaseStats verify = AotpMetrics.snapshot().phase(Phase.VERIFY);
+        assertEquals(1, verify.count());
+        assertEquals(1032 - 8 + 300 + 200, verify.bytesRead());
+    }
+
+    private static long rwUsed(Path file) throws IOException {
+        try (AotArchive archive = AotArchive.open(file.toString())) {
+            return archive.regions()[0].used();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.chains_project.aotp.output;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+class RecordWriterTest {
+
+    @Test
+    void jsonLinesEscapesStringsAndWritesOneObjectPerLine() throws IOException {
+        String text = new String(write(OutputFormat.JSONL), StandardCharsets.UTF_8);
+
+        assertEquals("{\"type\":\"class\",\"name\":\"a/\\\"B\\\"\",\"size\":-12,\"interface\":true,"
+                + "\"vtable\":[1,2],\"nest_host\":null}\n"
+                + "{\"type\":\"class\",\"name\":\"c/D,é\",\"size\":9223372036854775807,\"interface\":false,"
+                + "\"vtable\":[],\"nest_host\":\"x\"}\n", text);
+    }
+
+    @Test
+    void csvWritesHeaderOncePerSchemaAndQuotesCells() throws IOException {
+        String text = new String(write(OutputFormat.CSV), StandardCharsets.UTF_8);
+
+        assertEquals("type,name,size,interface,vtable,nest_host\n"
+                + "class,\"a/\"\"B\"\"\",-12,true,1 2,\n"
+                + "class,\"c/D,é\",9223372036854775807,false,,x\n", text);
+    }
+
+    @Test
+    void binaryStartsWithMagicAndInternsNames() throws IOException {
+        byte[] bytes = write(OutputFormat.BINARY);
+
+        assertArrayEquals(new byte[] { 'A', 'O', 'T', 'P', 1 }, Arrays.copyOf(bytes, 5));
+        // first item defines the record type "class" as id 0
+        assertArrayEquals(new byte[] { 0x01, 0, 5, 'c', 'l', 'a', 's', 's' }, Arrays.copyOfRange(bytes, 5, 13));
+        String text = new String(bytes, StandardCharsets.ISO_8859_1);
+        assertEquals(text.indexOf("vtable"), text.lastIndexOf("vtable"));
+        assertEquals(0x08, bytes[bytes.length - 1]);
+    }
+
+    private static byte[] write(OutputFormat format) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ChannelSink sink = new ChannelSink(Channels.newChannel(bytes))) {
+            RecordWriter out = RecordWriter.create(format, sink);
+            out.begin("class");
+            out.field("name", "a/\"B\"");
+            out.field("size", -12);
+            out.field("interface", true);
+            out.field("vtable", new long[] { 1, 2 });
+            out.field("nest_host", (String) null);
+            out.end();
+            out.begin("class");
+            out.field("name", "c/D,é");
+            out.field("size", Long.MAX_VALUE);
+            out.field("interface", false);
+            out.field("vtable", new long[0]);
+            out.field("nest_host", "x");
+            out.end();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.chains_project.aotp.scan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.KlassKind;
+
+class ClassFilterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String archive;
+
+    @BeforeEach
+    void writeArchive() throws IOException {
+        archive = new SyntheticArchive()
+                .klass("java/util/HashMap", 0, 0, 0, 20, 0x1)
+                .klass("java/util/Map", 0, 0, 0, 2, 0x601)
+                .klass("java/util/List", 0, 0, 0, 2, 0x601)
+                .klass("java/lang/ref/SoftReference", 1, 0, 0, 8, 0x1)
+                .klass("[Ljava/util/Map;", 6, 0, 0, 5, 0x1)
+                .klass("com/example/Plugin", 0, 0xabc0, 3, 4, 0x1)
+                .write(tempDir.resolve("filter.aot")).toString();
+    }
+
+    @Test
+    void namePrefixAndGlob() throws IOException {
+        assertEquals(List.of("java/util/HashMap", "java/util/Map", "java/util/List"),
+                names(ClassFilter.all().withName("java/util/")));
+        assertEquals(List.of("java/util/HashMap", "java/util/Map"),
+                names(ClassFilter.all().withName("java/util/*Map")));
+        assertEquals(List.of("java/util/Map", "[Ljava/util/Map;"),
+                names(ClassFilter.all().withName("*/Map*")));
+    }
+
+    @Test
+    void kindAccessLoaderAndSize() throws IOException {
+        assertEquals(List.of("[Ljava/util/Map;"),
+                names(ClassFilter.all().withKinds(EnumSet.of(KlassKind.OBJ_ARRAY_KLASS))));
+        assertEquals(List.of("java/lang/ref/SoftReference"),
+                names(ClassFilter.all().withKinds(EnumSet.of(KlassKind.parse("InstanceRefKlass")))));
+        assertEquals(List.of("java/util/Map", "java/util/List"),
+                names(ClassFilter.all().withAccessFlags(0x200)));
+        assertEquals(List.of("com/example/Plugin"),
+                names(ClassFilter.all().withLoader(0xabc0)));
+        assertEquals(List.of("java/util/HashMap", "java/lang/ref/SoftReference"),
+                names(ClassFilter.all().withSizeRange(520, 1024)));
+    }
+
+    @Test
+    void recordCutOffBeforeItsKindFailsAKindFilter() {
+        byte[] record = new byte[16];
+        // Layout helper 16 and kind 0, InstanceKlass, at ClassEntry.LAYOUT_HELPER_OFFSET
+        record[8] = 16;
+        ClassFilter instances = ClassFilter.all().withKinds(EnumSet.of(KlassKind.INSTANCE_KLASS));
+        assertTrue(instances.matchesLayout(record, 0, 16));
+        assertFalse(instances.matchesLayout(record, 0, 12));
+        assertTrue(ClassFilter.all().matchesLayout(record, 0, 12));
+    }
+
+    @Test
+    void stagesCompose() throws IOException {
+        ClassFilter filter = ClassFilter.all()
+                .withName("java/")
+                .withKinds(EnumSet.of(KlassKind.INSTANCE_KLASS))
+                .withAccessFlags(0x400);
+        assertTrue(filter.isSelective());
+        assertFalse(ClassFilter.all().isSelective());
+        assertEquals(List.of("java/util/Map", "java/util/List"), names(filter));
+        for (ClassEntry entry : AotpApi.listClasses(archive, filter)) {
+            assertTrue(filter.matches(entry));
+        }
+    }
+
+    private List<String> names(ClassFilter filter) throws IOException {
+        return AotpApi.listClasses(archive, filter).stream().map(ClassEntry::getName).toList();
+    }
+}
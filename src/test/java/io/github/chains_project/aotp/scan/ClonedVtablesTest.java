@@ -0,0 +1,156 @@
+package io.github.chains_project.aotp.scan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.archive.AotArchive;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+import io.github.chains_project.aotp.oops.klass.KlassKind;
+
+class ClonedVtablesTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static SyntheticArchive archive() {
+        return new SyntheticArchive()
+                .instanceKlass("app/A", 3)
+                .klass("java/lang/Class", 2, 0, 0, 4, 0x11)
+                .klass("[Lapp/A;", 6, 0, 0, 0, 0x11)
+                .klass("[I", 5, 0, 0, 0, 0x11);
+    }
+
+    @Test
+    void derivesKlassVtablesFromTheHeader() throws IOException {
+        SyntheticArchive archive = archive().withClonedVtables().withTables(false);
+        Path file = archive.write(tempDir.resolve("cloned.aot"));
+        try (AotArchive opened = AotArchive.open(file.toString())) {
+            ClonedVtables vtables = ClonedVtables.locate(opened, opened);
+            assertTrue(vtables.isDerived());
+            assertTrue(vtables.hasPointerSlots());
+            assertEquals("pointer slots", vtables.wordMatcher());
+            ClonedVtables fixed = ClonedVtables.fixed(SyntheticArchive.BASE);
+            for (KlassKind kind : List.of(KlassKind.values()).subList(0, 7)) {
+                assertEquals(archive.vtableAddress(kind.ordinal()), vtables.address(kind), kind.name());
+                assertNotEquals(fixed.address(kind), vtables.address(kind), kind.name());
+            }
+        }
+        assertEquals(List.of("app/A", "java/lang/Class", "[Lapp/A;", "[I"),
+                names(AotpApi.listClasses(file.toString())));
+        assertEquals(4, AotpApi.loadClassTable(file.toString(), ClassFilter.all()).size());
+    }
+
+    @Test
+    void derivesKlassVtablesWhenRwIsMappedAtTheBase() throws IOException {
+        // The size tags before the vtable infos are then valid base offsets into rw
+        for (boolean absolute : new boolean[] { false, true }) {
+            SyntheticArchive archive = archive().rwAtBase().withClonedVtables().withTables(absolute);
+            Path file = archive.write(tempDir.resolve("at-base-" + absolute + ".aot"));
+            try (AotArchive opened = AotArchive.open(file.toString())) {
+                assertEquals(0, opened.regions()[0].mappingOffset());
+                ClonedVtables vtables = ClonedVtables.locate(opened, opened);
+                assertTrue(vtables.isDerived());
+                for (KlassKind kind : List.of(KlassKind.values()).subList(0, 7)) {
+                    assertEquals(archive.vtableAddress(kind.ordinal()), vtables.address(kind), kind.name());
+                }
+            }
+            assertEquals(List.of("app/A", "java/lang/Class", "[Lapp/A;", "[I"),
+                    names(AotpApi.listClasses(file.toString())));
+            assertEquals(List.of("app/A", "java/lang/Class", "[Lapp/A;", "[I"), names(AotpApi.listClasses(
+                    file.toString(), ClassFilter.all(), MemoryBudget.of(MemoryBudget.MIN_BYTES))));
+            assertEquals(4, AotpApi.loadClassTable(file.toString(), ClassFilter.all()).size());
+        }
+    }
+
+    @Test
+    void fallsBackToFixedAddressesWithoutClonedVtables() throws IOException {
+        Path file = archive().withTables(true).write(tempDir.resolve("plain.aot"));
+        try (AotArchive opened = AotArchive.open(file.toString())) {
+            ClonedVtables vtables = ClonedVtables.locate(opened, opened);
+            assertFalse(vtables.isDerived());
+            assertFalse(vtables.hasPointerSlots());
+            assertEquals(WordMatcher.VectorSupport.AVAILABLE ? "vector" : "scalar", vtables.wordMatcher());
+            assertEquals(SyntheticArchive.BASE + 0x1080, vtables.address(KlassKind.INSTANCE_KLASS));
+        }
+        assertEquals(4, AotpApi.listClasses(file.toString()).size());
+    }
+
+    @Test
+    void onlyPointerSlotsAreCandidates() throws IOException {
+        // A stale copy of a record header in an unmarked word looks like a klass to a word scan
+        SyntheticArchive cloned = archive().withClonedVtables();
+        Path exact = copyRecordHeader(cloned, cloned.write(tempDir.resolve("exact.aot")));
+        SyntheticArchive plain = archive();
+        Path scanned = copyRecordHeader(plain, plain.write(tempDir.resolve("scanned.aot")));
+
+        assertEquals(5, AotpApi.listClasses(scanned.toString()).size());
+        assertEquals(4, AotpApi.listClasses(exact.toString()).size());
+        assertEquals(4, AotpApi.listClasses(exact.toString(), ClassFilter.all(),
+                MemoryBudget.of(MemoryBudget.MIN_BYTES)).size());
+    }
+
+    @Test
+    void pointerSlotsAreChargedToTheBudget() throws IOException {
+        SyntheticArchive archive = archive().withClonedVtables();
+        Path file = archive.write(tempDir.resolve("budget.aot"));
+        try (AotArchive opened = AotArchive.open(file.toString())) {
+            long slotBytes = ClonedVtables.locate(opened, opened).slotBytes();
+            assertEquals((opened.regions()[0].used() / 8 + 63) / 64 * 8, slotBytes);
+            assertEquals(slotBytes, ClonedVtables.locate(opened, opened,
+                    MemoryBudget.of(MemoryBudget.MIN_BYTES)).slotBytes());
+
+            // The slots and the pointer map do not fit in the window together
+            MemoryBudget tight = new MemoryBudget(MemoryBudget.MIN_BYTES, (int) slotBytes * 2 - 8,
+                    MemoryBudget.PAGE_SIZE, 2);
+            ClonedVtables scanned = ClonedVtables.locate(opened, opened, tight);
+            assertFalse(scanned.hasPointerSlots());
+            assertEquals(0, scanned.slotBytes());
+        }
+    }
+
+    @Test
+    void dynamicArchiveUsesTheVtablesOfItsBase() throws IOException {
+        SyntheticArchive base = archive().withClonedVtables().withTables(false);
+        Path basePath = base.write(tempDir.resolve("base.aot"));
+        String top = new SyntheticArchive()
+                .layeredOn(base, basePath.toString())
+                .instanceKlass("app/Top", 2)
+                .klass("[Lapp/Top;", 6, 0, 0, 0, 0x11)
+                .write(tempDir.resolve("top.aot"))
+                .toString();
+        assertEquals(List.of("app/Top", "[Lapp/Top;"), names(AotpApi.listClasses(top)));
+    }
+
+    /**
+     * Copies the first words of the record of {@code app/A} into the rw
+     * prologue, outside any pointer map.
+     */
+    private static Path copyRecordHeader(SyntheticArchive archive, Path file) throws IOException {
+        long record = archive.klassAddress("app/A") - archive.requestedBase();
+        long copy = archive.regionOffset(0) + 0x1800;
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            byte[] header = new byte[32];
+            raf.seek(record);
+            raf.readFully(header);
+            raf.seek(copy);
+            raf.write(header);
+        }
+        return file;
+    }
+
+    private static List<String> names(List<ClassEntry> entries) {
+        return entries.stream().map(ClassEntry::getName).toList();
+    }
+}
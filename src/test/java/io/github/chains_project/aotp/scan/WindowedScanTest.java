@@ -0,0 +1,111 @@
+package io.github.chains_project.aotp.scan;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.metrics.ScanRecorder;
+import io.github.chains_project.aotp.oops.klass.ClassEntry;
+
+class WindowedScanTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void boundedScanFindsTheSameClasses() throws IOException {
+        SyntheticArchive archive = new SyntheticArchive();
+        for (int i = 0; i < 3000; i++) {
+            archive.instanceKlass("p" + (i % 17) + "/C" + i, i % 50);
+        }
+        String file = archive.write(tempDir.resolve("large.aot")).toString();
+
+        List<String> expected = describe(AotpApi.listClasses(file, ClassFilter.all()));
+        List<String> bounded = describe(AotpApi.listClasses(file, ClassFilter.all(),
+                MemoryBudget.of(MemoryBudget.MIN_BYTES)));
+
+        assertEquals(3000, expected.size());
+        assertEquals(expected, bounded);
+    }
+
+    @Test
+    void recordsCrossingAndExceedingTheWindowAreParsed() throws IOException {
+        SyntheticArchive archive = new SyntheticArchive();
+        for (int i = 0; i < 40; i++) {
+            // Every 10th record is larger than the window
+            archive.instanceKlass("a/K" + i, i % 10 == 0 ? 200 : i);
+        }
+        Path file = archive.write(tempDir.resolve("window.aot"));
+
+        List<String> names = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             ScanRecorder recorder = ScanRecorder.start(null)) {
+            SymbolPageCache symbols = new SymbolPageCache(channel, SyntheticArchive.BASE, 64, 2);
+            KlassScanner scanner = new KlassScanner(SyntheticArchive.BASE, ClassFilter.all(), symbols, recorder,
+                    entry -> names.add(entry.getName() + ":" + entry.getSize() + "@"
+                            + Long.toHexString(entry.address())));
+            long rwLength = archive.regionOffset(1) - archive.regionOffset(0);
+            WindowedScan.scan(channel, archive.regionOffset(0), SyntheticArchive.BASE + archive.regionOffset(0),
+                    rwLength, 1024, scanner);
+        }
+
+        List<String> expected = archive.klasses().stream()
+                .map(k -> k.name() + ":" + k.size() + "@" + Long.toHexString(archive.klassAddress(k.name())))
+                .toList();
+        assertEquals(expected, names);
+    }
+
+    @Test
+    void pageCacheAssemblesSymbolsAcrossPages() throws IOException {
+        SyntheticArchive archive = new SyntheticArchive()
+                .instanceKlass("a/rather/long/name/that/spans/several/small/pages", 0)
+                .instanceKlass("b/Short", 0);
+        Path file = archive.write(tempDir.resolve("symbols.aot"));
+        long ro = SyntheticArchive.BASE + archive.regionOffset(1);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            SymbolPageCache cache = new SymbolPageCache(channel, SyntheticArchive.BASE, 16, 2);
+            assertArrayEquals("a/rather/long/name/that/spans/several/small/pages".getBytes(StandardCharsets.UTF_8),
+                    cache.symbolBytes(ro));
+            // First symbol: 6 byte header + 49 bytes, padded to 56
+            assertArrayEquals("b/Short".getBytes(StandardCharsets.UTF_8), cache.symbolBytes(ro + 56));
+            assertNull(cache.symbolBytes(SyntheticArchive.BASE - 8));
+            assertTrue(cache.misses() > 2);
+        }
+    }
+
+    @Test
+    void parsesSizesAndSplitsTheBudget() {
+        assertEquals(64L << 20, MemoryBudget.parseSize("64m"));
+        assertEquals(2L << 30, MemoryBudget.parseSize("2G"));
+        assertEquals(512L << 10, MemoryBudget.parseSize("512kb"));
+        assertEquals(1234, MemoryBudget.parseSize("1234"));
+        assertThrows(IllegalArgumentException.class, () -> MemoryBudget.parseSize("lots"));
+        assertThrows(IllegalArgumentException.class, () -> MemoryBudget.of(4096));
+
+        MemoryBudget budget = MemoryBudget.of(64L << 20);
+        assertTrue(budget.isBounded());
+        assertEquals(16L << 20, (long) budget.pageSize() * budget.maxPages());
+        assertEquals(48L << 20, budget.windowSize());
+        assertTrue(!MemoryBudget.unbounded().isBounded());
+    }
+
+    private static List<String> describe(List<ClassEntry> entries) {
+        return entries.stream().map(e -> e.getName() + ":" + e.getSize()).toList();
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.chains_project.aotp.scan;
+
+/**
+ * Throughput of the scalar and the Vector API word matchers over a synthetic
+ * region with a vtable word every few hundred bytes. Not a unit test; run
+ * after {@code mvn test-compile} with
+ *
+ * <pre>
+ * java --add-modules jdk.incubator.vector -cp target/classes:target/test-classes \
+ *     io.github.chains_project.aotp.scan.WordMatcherBenchmark [megabytes] [rounds]
+ * </pre>
+ */
+public final class WordMatcherBenchmark {
+
+    private static final long[] VALUES = {
+        0x800001080L, 0x8000014b8L, 0x800001350L, 0x8000011e8L, 0x800001620L, 0x800001a60L, 0x8000018f0L
+    };
+
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        byte[] region = WordMatcherTest.region(megabytes << 20, 7);
+        WordMatcher scalar = new ScalarWordMatcher(VALUES);
+        WordMatcher vector = WordMatcher.VectorSupport.create(VALUES);
+        if (vector == null) {
+            System.out.println("Vector API not available; run with --add-modules jdk.incubator.vector");
+        }
+        System.out.printf("%8s %12s %12s %10s%n", "round", "scalar MB/s", "vector MB/s", "matches");
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            int matches = count(scalar, region);
+            double scalarRate = megabytes / ((System.nanoTime() - start) / 1e9);
+            double vectorRate = Double.NaN;
+            if (vector != null) {
+                start = System.nanoTime();
+                int vectorMatches = count(vector, region);
+                vectorRate = megabytes / ((System.nanoTime() - start) / 1e9);
+                if (vectorMatches != matches) {
+                    throw new AssertionError(vectorMatches + " vector matches, " + matches + " scalar");
+                }
+            }
+            System.out.printf("%8d %12.0f %12.0f %10d%n", round, scalarRate, vectorRate, matches);
+        }
+    }
+
+    private static int count(WordMatcher matcher, byte[] region) {
+        int matches = 0;
+        for (int offset = matcher.next(region, 0, region.length); offset + 8 <= region.length;
+                offset = matcher.next(region, offset + 8, region.length)) {
+            matches++;
+        }
+        return matches;
+    }
+}
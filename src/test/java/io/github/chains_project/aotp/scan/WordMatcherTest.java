@@ -0,0 +1,63 @@
+package io.github.chains_project.aotp.scan;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class WordMatcherTest {
+
+    private static final long[] VALUES = { 0x800001080L, 0x8000014b8L, 0x800001350L };
+
+    /**
+     * Random words with a value planted every few hundred bytes, some of them
+     * at offsets that are not a multiple of 8.
+     */
+    static byte[] region(int size, long seed) {
+        Random random = new Random(seed);
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (int offset = random.nextInt(64); offset + 8 <= size; offset += 8 + random.nextInt(512)) {
+            buffer.putLong(offset, VALUES[random.nextInt(VALUES.length)]);
+        }
+        return bytes;
+    }
+
+    @Test
+    void vectorAndScalarMatchersAgree() {
+        byte[] bytes = region(1 << 16, 42);
+        WordMatcher scalar = new ScalarWordMatcher(VALUES);
+        WordMatcher vector = WordMatcher.VectorSupport.create(VALUES);
+        if (vector == null) {
+            // Vectors of one word: WordMatcher.of uses the scalar matcher
+            return;
+        }
+        for (int from : new int[] { 0, 3, 8, 13 }) {
+            for (int to : new int[] { bytes.length, bytes.length - 5, bytes.length - 24, 200 }) {
+                int matches = 0;
+                for (int offset = from; offset + 8 <= to; offset += 8) {
+                    int expected = scalar.next(bytes, offset, to);
+                    assertEquals(expected, vector.next(bytes, offset, to), "from " + offset + " to " + to);
+                    if (expected == to) {
+                        break;
+                    }
+                    matches++;
+                    offset = expected;
+                }
+                assertTrue(to < 1000 || matches > 10);
+            }
+        }
+    }
+
+    @Test
+    void choosesTheVectorMatcherWhenTheModuleIsPresent() {
+        boolean present = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+        WordMatcher matcher = WordMatcher.of(VALUES);
+        assertEquals(present && WordMatcher.VectorSupport.create(VALUES) != null, !(matcher instanceof ScalarWordMatcher));
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.chains_project.aotp.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.BitSet;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class BitMapsTest {
+
+    @Test
+    void countsMatchBitSetOverArbitraryRanges() {
+        Random random = new Random(42);
+        long[] words = random.longs(9).toArray();
+        BitSet bits = BitSet.valueOf(words);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + words.length * 8).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(-1L);
+        for (long word : words) {
+            buffer.putLong(word);
+        }
+        for (int i = 0; i < 500; i++) {
+            int from = random.nextInt(words.length * 64);
+            int to = from + random.nextInt(words.length * 64 - from + 1);
+            assertEquals(bits.get(from, to).cardinality(), BitMaps.countOnes(buffer, 8, from, to),
+                    "[" + from + ", " + to + ")");
+        }
+    }
+
+    @Test
+    void bitsPastTheBufferCountAsClear() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] { (byte) 0xff, (byte) 0x01, (byte) 0x80 });
+        assertEquals(10, BitMaps.countOnes(buffer, 0, 0, 1000));
+        assertEquals(0, BitMaps.countOnes(buffer, 8, 0, 64));
+        assertEquals(0, BitMaps.countOnes(buffer, 0, 5, 5));
+    }
+}
@@ -0,0 +1,31 @@
+package io.github.chains_project.aotp.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.Test;
+
+class Crc32CombineTest {
+
+    @Test
+    void combiningChunkCrcsEqualsCrcOfWhole() {
+        byte[] data = new byte[100_003];
+        new Random(42).nextBytes(data);
+
+        for (int split : new int[] { 0, 1, 4096, 50_000, data.length - 1, data.length }) {
+            int first = crc(data, 0, split);
+            int second = crc(data, split, data.length - split);
+            assertEquals(crc(data, 0, data.length),
+                    Crc32Combine.combine(first, second, data.length - split),
+                    "split at " + split);
+        }
+    }
+
+    private static int crc(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+}
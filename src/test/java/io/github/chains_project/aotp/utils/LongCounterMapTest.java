@@ -0,0 +1,28 @@
+package io.github.chains_project.aotp.utils;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class LongCounterMapTest {
+
+    @Test
+    void sortingAndSelectionAgree() {
+        LongCounterMap map = new LongCounterMap();
+        Random random = new Random(3);
+        for (int i = 0; i < 5000; i++) {
+            // Few distinct totals, so many keys tie
+            map.add(random.nextInt(400), 1, random.nextInt(4));
+        }
+        int limit = LongCounterMap.MAX_SELECTED;
+        long[] all = map.topKeysByBytes(Integer.MAX_VALUE);
+        assertEquals(400, all.length);
+        assertArrayEquals(map.topKeysByBytes(limit), Arrays.copyOf(all, limit));
+        assertArrayEquals(map.topKeysByBytes(limit + 1), Arrays.copyOf(all, limit + 1));
+        assertEquals(0, map.topKeysByBytes(0).length);
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.chains_project.aotp.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class LongHashSetTest {
+
+    @Test
+    void agreesWithAHashSet() {
+        LongHashSet set = new LongHashSet();
+        Set<Long> expected = new HashSet<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 5000; i++) {
+            // Addresses a word apart, as name symbol pointers are
+            long key = 0x800000000L + 8L * random.nextInt(1000);
+            assertEquals(expected.add(key), set.add(key));
+        }
+        assertEquals(expected.size(), set.size());
+        for (long key : expected) {
+            assertTrue(set.contains(key));
+        }
+        assertFalse(set.contains(0x800000004L));
+        Set<Long> visited = new HashSet<>();
+        set.forEach(visited::add);
+        assertEquals(expected, visited);
+    }
+}
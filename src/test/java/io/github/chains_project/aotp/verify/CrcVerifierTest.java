@@ -0,0 +1,88 @@
+package io.github.chains_project.aotp.verify;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.chains_project.aotp.AotpApi;
+import io.github.chains_project.aotp.SyntheticArchive;
+import io.github.chains_project.aotp.output.ChannelSink;
+import io.github.chains_project.aotp.output.OutputFormat;
+import io.github.chains_project.aotp.output.RecordWriter;
+
+class CrcVerifierTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void intactArchiveVerifies() throws IOException {
+        Path file = archive().write(tempDir.resolve("ok.aot"));
+
+        VerificationReport report = AotpApi.verify(file.toString());
+
+        assertTrue(report.isValid());
+        // header + rw + ro
+        assertEquals(3, report.checks().size());
+    }
+
+    @Test
+    void corruptedRegionIsReported() throws IOException {
+        SyntheticArchive archive = archive();
+        Path file = archive.write(tempDir.resolve("bad.aot"));
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            // flip a byte in the second chunk of the rw region
+            long pos = archive.regionOffset(0) + CrcVerifier.CHUNK_SIZE + 17;
+            raf.seek(pos);
+            int b = raf.read();
+            raf.seek(pos);
+            raf.write(b ^ 0xff);
+        }
+
+        VerificationReport report = AotpApi.verify(file.toString());
+
+        assertFalse(report.isValid());
+        List<CrcCheck> mismatches = report.mismatches();
+        assertEquals(1, mismatches.size());
+        assertEquals("rw", mismatches.get(0).name());
+    }
+
+    @Test
+    void reportIsWrittenAsRecords() throws IOException {
+        Path file = archive().write(tempDir.resolve("records.aot"));
+        VerificationReport report = AotpApi.verify(file.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ChannelSink sink = new ChannelSink(Channels.newChannel(bytes))) {
+            report.write(RecordWriter.create(OutputFormat.CSV, sink));
+        }
+        String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+
+        assertEquals("type,name,index,expected,actual,length,truncated,matches", lines[0]);
+        assertTrue(lines[1].startsWith("crc,header,-1,"), lines[1]);
+        assertTrue(lines[3].startsWith("crc,ro,1,"), lines[3]);
+        assertTrue(lines[3].endsWith(",54321,false,true"), lines[3]);
+        assertEquals(List.of("type,valid", "verification,true"), List.of(lines[4], lines[5]));
+    }
+
+    private static SyntheticArchive archive() {
+        Random random = new Random(7);
+        byte[] rw = new byte[(int) (CrcVerifier.CHUNK_SIZE * 2 + 12345)];
+        byte[] ro = new byte[54321];
+        random.nextBytes(rw);
+        random.nextBytes(ro);
+        return new SyntheticArchive().region(0, rw).region(1, ro);
+    }
+}